@@ -27,6 +27,10 @@ public class AnchorNode extends Node {
 
   private boolean wasTracking;
 
+  // Reused each frame while smoothing.
+  private final Vector3 smoothedPosition = new Vector3();
+  private final Quaternion smoothedRotation = new Quaternion();
+
   private static final float SMOOTH_FACTOR = 12.0f;
 
   /** Create an AnchorNode with no anchor. */
@@ -92,6 +96,31 @@ public class AnchorNode extends Node {
     return true;
   }
 
+  /**
+   * Also removes the anchor and turns smoothing back on. The anchor isn't detached, since it may be
+   * used elsewhere.
+   */
+  @Override
+  public void reset() {
+    super.reset();
+    anchor = null;
+    isSmoothed = true;
+    wasTracking = false;
+  }
+
+  /**
+   * AnchorNode overrides this to move the node to the anchor immediately. The pose the node had
+   * while inactive may be out of date, or relative to a different origin if it was set before the
+   * node was added to the scene.
+   */
+  @Override
+  public void onActivate() {
+    super.onActivate();
+    if (anchor != null) {
+      updateTrackedPose(0.0f, true);
+    }
+  }
+
   /**
    * AnchorNode overrides this to update the node's position to match the ARCore Anchor's position.
    *
@@ -186,14 +215,21 @@ public class AnchorNode extends Node {
     Pose pose = anchor.getPose();
     Vector3 desiredPosition = ArHelpers.extractPositionFromPose(pose);
     Quaternion desiredRotation = ArHelpers.extractRotationFromPose(pose);
+    Scene scene = getScene();
+    if (scene != null) {
+      scene.sessionToWorldPosition(pose, desiredPosition);
+    }
 
     if (isSmoothed && !forceImmediate) {
-      Vector3 position = getWorldPosition();
+      Vector3 position = smoothedPosition;
+      getWorldPosition(position);
       float lerpFactor = MathHelper.clamp(deltaSeconds * SMOOTH_FACTOR, 0, 1);
-      position.set(Vector3.lerp(position, desiredPosition, lerpFactor));
+      Vector3.lerp(position, desiredPosition, lerpFactor, position);
       super.setWorldPosition(position);
 
-      Quaternion rotation = Quaternion.slerp(getWorldRotation(), desiredRotation, lerpFactor);
+      Quaternion rotation = smoothedRotation;
+      getWorldRotation(rotation);
+      Quaternion.slerp(rotation, desiredRotation, lerpFactor, rotation);
       super.setWorldRotation(rotation);
     } else {
       super.setWorldPosition(desiredPosition);
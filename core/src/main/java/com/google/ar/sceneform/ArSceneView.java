@@ -507,6 +507,8 @@ public class ArSceneView extends SceneView {
             // At the start of the frame, update the tracked pose of the camera
             // to use in any calculations during the frame.
             getScene().getCamera().updateTrackedPose(currentArCamera);
+            // Shift the origin before anything else is placed from the ARCore poses.
+            getScene().rebaseOriginIfNeeded();
 
             if (cameraStream.getDepthOcclusionMode() == CameraStream.DepthOcclusionMode.DEPTH_OCCLUSION_ENABLED) {
                 if (cameraStream.getDepthMode() == CameraStream.DepthMode.DEPTH) {
@@ -536,6 +538,9 @@ public class ArSceneView extends SceneView {
             try {
                 // Update the plane renderer.
                 if (planeRenderer.isEnabled()) {
+                    Scene scene = getScene();
+                    planeRenderer.setOrigin(
+                            scene.getOriginX(), scene.getOriginY(), scene.getOriginZ());
                     planeRenderer.update(currentFrame, getUpdatedPlanes(),
                             getWidth(), getHeight());
                 }
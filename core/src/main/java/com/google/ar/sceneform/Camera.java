@@ -5,6 +5,8 @@ import androidx.annotation.VisibleForTesting;
 import android.view.MotionEvent;
 import com.google.ar.core.Pose;
 
+import com.google.ar.sceneform.collision.Collider;
+import com.google.ar.sceneform.collision.Frustum;
 import com.google.ar.sceneform.collision.Ray;
 import com.google.ar.sceneform.math.MathHelper;
 import com.google.ar.sceneform.math.Matrix;
@@ -13,6 +15,8 @@ import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.rendering.CameraProvider;
 import com.google.ar.sceneform.rendering.EngineInstance;
 import com.google.ar.sceneform.utilities.Preconditions;
+import java.util.ArrayList;
+import java.util.function.Consumer;
 
 /**
  * Represents a virtual camera, which determines the perspective through which the scene is viewed.
@@ -41,6 +45,25 @@ public class Camera extends Node implements CameraProvider {
   private final Matrix viewMatrix = new Matrix();
   private final Matrix projectionMatrix = new Matrix();
 
+  // Scratch objects used to unproject screen points without allocating.
+  private final Matrix inverseViewProjectionMatrix = new Matrix();
+  private final Vector3 rayStartPoint = new Vector3();
+  private final Vector3 rayEndPoint = new Vector3();
+
+  // Scratch objects used to find the visible nodes without allocating.
+  private final Matrix viewProjectionMatrix = new Matrix();
+  private final Frustum visibleFrustum = new Frustum();
+  @Nullable
+  private ArrayList<Node> visibleNodes;
+
+  @SuppressWarnings("AndroidApiChecker")
+  private final Consumer<Collider> addVisibleNode =
+      (Collider collider) -> {
+        if (visibleNodes != null) {
+          visibleNodes.add((Node) collider.getTransformProvider());
+        }
+      };
+
   private static final float DEFAULT_NEAR_PLANE = 0.01f;
   private static final float DEFAULT_FAR_PLANE = 30.0f;
   private static final int FALLBACK_VIEW_WIDTH = 1920;
@@ -69,6 +92,21 @@ public class Camera extends Node implements CameraProvider {
     this.isArCamera = isArCamera;
   }
 
+  /**
+   * Constructor just for testing a camera that is part of a scene without a View.
+   *
+   * @hide
+   */
+  @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
+  @SuppressWarnings("initialization")
+  Camera(Scene scene, boolean isArCamera) {
+    super();
+    Preconditions.checkNotNull(scene, "Parameter \"scene\" was null.");
+    super.setParent(scene);
+
+    this.isArCamera = isArCamera;
+  }
+
   @SuppressWarnings("initialization")
   Camera(Scene scene) {
     super();
@@ -194,6 +232,15 @@ public class Camera extends Node implements CameraProvider {
     Pose pose = camera.getDisplayOrientedPose();
     Vector3 position = ArHelpers.extractPositionFromPose(pose);
     Quaternion rotation = ArHelpers.extractRotationFromPose(pose);
+
+    // ARCore poses are relative to the session, which differs from world space once the origin of
+    // the scene has been shifted.
+    Scene scene = getScene();
+    if (scene != null) {
+      scene.sessionToWorldPosition(pose, position);
+      translateViewMatrix(scene.getOriginX(), scene.getOriginY(), scene.getOriginZ());
+    }
+
     super.setWorldPosition(position);
     super.setWorldRotation(rotation);
 
@@ -201,9 +248,15 @@ public class Camera extends Node implements CameraProvider {
   }
 
   Ray motionEventToRay(MotionEvent motionEvent) {
+    Ray ray = new Ray();
+    motionEventToRay(motionEvent, ray);
+    return ray;
+  }
+
+  void motionEventToRay(MotionEvent motionEvent, Ray dest) {
     Preconditions.checkNotNull(motionEvent, "Parameter \"motionEvent\" was null.");
     int index = motionEvent.getActionIndex();
-    return screenPointToRay(motionEvent.getX(index), motionEvent.getY(index));
+    screenPointToRay(motionEvent.getX(index), motionEvent.getY(index), dest);
   }
 
   /**
@@ -216,15 +269,32 @@ public class Camera extends Node implements CameraProvider {
    * @param y Y position in device screen coordinates.
    */
   public Ray screenPointToRay(float x, float y) {
-    Vector3 startPoint = new Vector3();
-    Vector3 endPoint = new Vector3();
+    Ray ray = new Ray();
+    screenPointToRay(x, y, ray);
+    return ray;
+  }
 
-    unproject(x, y, 0.0f, startPoint);
-    unproject(x, y, 1.0f, endPoint);
+  /**
+   * Calculates a ray in world space going from the near-plane of the camera and going through a
+   * point in screen space, and stores it in an existing ray. Unlike {@link
+   * #screenPointToRay(float, float)}, this doesn't allocate.
+   *
+   * @see #screenPointToRay(float, float)
+   * @param x X position in device screen coordinates.
+   * @param y Y position in device screen coordinates.
+   * @param dest the ray to store the result in.
+   */
+  public void screenPointToRay(float x, float y, Ray dest) {
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
 
-    Vector3 direction = Vector3.subtract(endPoint, startPoint);
+    unproject(x, y, 0.0f, rayStartPoint);
+    unproject(x, y, 1.0f, rayEndPoint);
 
-    return new Ray(startPoint, direction);
+    rayEndPoint.set(
+        rayEndPoint.x - rayStartPoint.x,
+        rayEndPoint.y - rayStartPoint.y,
+        rayEndPoint.z - rayStartPoint.z);
+    dest.set(rayStartPoint, rayEndPoint);
   }
 
   /**
@@ -274,6 +344,62 @@ public class Camera extends Node implements CameraProvider {
     return screenPoint;
   }
 
+  /**
+   * Sets the given frustum to the volume of space that can be seen by the camera.
+   *
+   * @param dest the frustum to set
+   */
+  public void getFrustum(Frustum dest) {
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+    Matrix.multiply(projectionMatrix, viewMatrix, viewProjectionMatrix);
+    dest.setViewProjection(viewProjectionMatrix);
+  }
+
+  /**
+   * Finds the nodes in the given collision layers whose collision shapes may be seen by the camera.
+   * The bounds of the collision shapes are tested with the collision system of the scene, so nodes
+   * without a collision shape are never found. Can be used to pick a level of detail for each node.
+   *
+   * @param layerMask only nodes in at least one of these collision layers are tested
+   * @param dest cleared, then filled with the visible nodes
+   * @see Node#setCollisionLayerMask(int)
+   */
+  public void getVisibleNodes(int layerMask, ArrayList<Node> dest) {
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+    dest.clear();
+    Scene scene = getScene();
+    if (scene == null) {
+      return;
+    }
+
+    getFrustum(visibleFrustum);
+    visibleNodes = dest;
+    try {
+      scene.collisionSystem.findAllInFrustum(visibleFrustum, layerMask, addVisibleNode);
+    } finally {
+      visibleNodes = null;
+    }
+  }
+
+  @Override
+  void shiftOrigin(float x, float y, float z) {
+    super.shiftOrigin(x, y, z);
+    translateViewMatrix(x, y, z);
+  }
+
+  /**
+   * Updates the view matrix for a move of the origin of world space by the given offset. The view
+   * matrix maps the moved world space by first moving points back by the offset.
+   */
+  private void translateViewMatrix(double x, double y, double z) {
+    float[] data = viewMatrix.data;
+    data[12] = (float) (data[12] + data[0] * x + data[4] * y + data[8] * z);
+    data[13] = (float) (data[13] + data[1] * x + data[5] * y + data[9] * z);
+    data[14] = (float) (data[14] + data[2] * x + data[6] * y + data[10] * z);
+  }
+
   /** Unsupported operation. Camera's parent cannot be changed, it is always the scene. */
   @Override
   public void setParent(@Nullable NodeParent parent) {
@@ -362,7 +488,7 @@ public class Camera extends Node implements CameraProvider {
   private boolean unproject(float x, float y, float z, final Vector3 dest) {
     Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
 
-    Matrix m = new Matrix();
+    Matrix m = inverseViewProjectionMatrix;
     Matrix.multiply(projectionMatrix, viewMatrix, m);
     Matrix.invert(m, m);
 
@@ -389,7 +515,7 @@ public class Camera extends Node implements CameraProvider {
     }
 
     w = 1.0f / w;
-    dest.set(dest.scaled(w));
+    dest.set(dest.x * w, dest.y * w, dest.z * w);
     return true;
   }
 
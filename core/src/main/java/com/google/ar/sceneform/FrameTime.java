@@ -46,4 +46,13 @@ public class FrameTime {
     deltaNanoseconds = (lastNanoTime == 0) ? 0 : (frameTimeNanos - lastNanoTime);
     lastNanoTime = frameTimeNanos;
   }
+
+  /**
+   * Sets the start time and delta directly. Used for nodes that skip frames, whose delta is the
+   * time since their last update.
+   */
+  void set(long frameTimeNanos, long deltaNanoseconds) {
+    this.lastNanoTime = frameTimeNanos;
+    this.deltaNanoseconds = deltaNanoseconds;
+  }
 }
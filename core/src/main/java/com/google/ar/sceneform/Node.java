@@ -3,6 +3,7 @@ package com.google.ar.sceneform;
 import android.view.MotionEvent;
 import android.view.ViewConfiguration;
 
+import androidx.annotation.CallSuper;
 import androidx.annotation.Nullable;
 
 import com.google.ar.sceneform.collision.Collider;
@@ -23,7 +24,9 @@ import com.google.ar.sceneform.utilities.ChangeId;
 import com.google.ar.sceneform.utilities.Preconditions;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -49,7 +52,8 @@ public class Node extends NodeParent implements TransformProvider {
          * {@link HitTestResult#getNode()} to change (or possibly be null).
          *
          * @param hitTestResult represents the node that was touched and information about where it was
-         *                      touched
+         *                      touched. It is reused for the next touch event, so copy it to keep it
+         *                      after this call.
          * @param motionEvent   the MotionEvent object containing full information about the event
          * @return true if the listener has consumed the event, false otherwise
          */
@@ -113,6 +117,11 @@ public class Node extends NodeParent implements TransformProvider {
          * position is changed, then that will trigger {@link #onTransformChanged(Node, Node)} to be
          * called for all of it's descendants with the originatingNode being node A.
          *
+         * <p>While the node is in a scene, the changes are batched and the listener is called at most
+         * once per frame, after the update listeners and before the frame is rendered. The
+         * originating node is then the top-most node that changed during the frame. Outside of a
+         * scene, the listener is called right away.
+         *
          * @param node            the node that changed
          * @param originatingNode the node that triggered the transformation to change
          */
@@ -135,6 +144,13 @@ public class Node extends NodeParent implements TransformProvider {
         }
     }
 
+    /**
+     * The collision layers that a node is in unless it is moved to other layers.
+     *
+     * @see #setCollisionLayerMask(int)
+     */
+    public static final int DEFAULT_COLLISION_LAYER_MASK = Collider.DEFAULT_LAYER_MASK;
+
     private static final float DIRECTION_UP_EPSILON = 0.99f;
 
     // This is the default from the ViewConfiguration class.
@@ -207,6 +223,38 @@ public class Node extends NodeParent implements TransformProvider {
      */
     private int dirtyTransformFlags = LOCAL_DIRTY_FLAGS;
 
+    // True while the scene has this node queued to dispatch its transform changed listeners. Only
+    // accessed by Scene.
+    boolean isTransformChangeQueued;
+    // Index of this node in the transform changed queue of the scene while it is queued. Only
+    // accessed by Scene.
+    int transformChangeQueueIndex = -1;
+    // True while the scene has this top level node collected to resolve its hierarchy on a worker
+    // thread. Only accessed by Scene.
+    boolean isCollectedForParallelResolve;
+    // Index of this node in the packed transforms of the scene. Only accessed by TransformStore.
+    int transformStoreIndex = -1;
+    // Index of this node in the children of its parent. Only accessed by NodeParent.
+    int childIndex = -1;
+    // Position of this node in the name index of the scene. Only accessed by NodeNameIndex.
+    int nameIndexPosition = -1;
+    // Position of this node in the update list of the scene, or -1 if it isn't in the list. Only
+    // accessed by NodeUpdateList.
+    int updateListIndex = -1;
+    // Offset of the frames that this node is updated on, so that nodes with the same update interval
+    // are spread over the frames. Only accessed by NodeUpdateList.
+    int updatePhase;
+    private int updateInterval = 1;
+    // Start of the frame of the last update, or 0 if the node hasn't been updated since it was
+    // activated.
+    private long lastUpdateNanos;
+    // Gives nodes that skip frames the time since their last update.
+    @Nullable
+    private FrameTime intervalFrameTime;
+
+    // Whether each subclass of Node overrides onUpdate. Only accessed from the UI thread.
+    private static final HashMap<Class<?>, Boolean> overridesOnUpdate = new HashMap<>();
+
     // Status fields.
     private boolean enabled = true;
     private boolean active = false;
@@ -217,6 +265,10 @@ public class Node extends NodeParent implements TransformProvider {
     private int renderableId = ChangeId.EMPTY_ID;
     @Nullable
     private RenderableInstance renderableInstance;
+    // Instance of the renderable that was removed by reset, kept so that it can be reused if the
+    // same renderable is set again.
+    @Nullable
+    private RenderableInstance recycledRenderableInstance;
     // TODO: Right now, lightInstance can cause leaks because it subscribes to event
     // listeners on Light that will not be disposed unless setLight(null) is called.
     @Nullable
@@ -227,6 +279,7 @@ public class Node extends NodeParent implements TransformProvider {
     private CollisionShape collisionShape;
     @Nullable
     private Collider collider;
+    private int collisionLayerMask = DEFAULT_COLLISION_LAYER_MASK;
 
     // Listeners.
     @Nullable
@@ -241,6 +294,9 @@ public class Node extends NodeParent implements TransformProvider {
     @Nullable
     private TapTrackingData tapTrackingData = null;
 
+    // True while this node is free in a pool. Only accessed by NodePool.
+    boolean isPooled;
+
     /**
      * Creates a node with no parent.
      */
@@ -255,15 +311,24 @@ public class Node extends NodeParent implements TransformProvider {
     /**
      * Sets the name of this node. Nodes can be found using their names. Multiple nodes may have the
      * same name, in which case calling {@link NodeParent#findByName(String)} will return the first
-     * node with the given name.
+     * node with the given name. {@link NodeParent#findAllByName(String, List)} finds all of them.
      *
      * @param name The name of the node.
      */
     public final void setName(String name) {
         Preconditions.checkNotNull(name, "Parameter \"name\" was null.");
 
+        Scene scene = this.scene;
+        if (scene != null) {
+            scene.nameIndex.remove(this);
+        }
+
         this.name = name;
         nameHash = name.hashCode();
+
+        if (scene != null) {
+            scene.nameIndex.add(this);
+        }
     }
 
     /**
@@ -306,7 +371,7 @@ public class Node extends NodeParent implements TransformProvider {
         allowDispatchTransformChangedListeners = true;
 
         // Make sure transform changed is dispatched.
-        markTransformChangedRecursively(WORLD_DIRTY_FLAGS, this);
+        markTransformChanged(WORLD_DIRTY_FLAGS);
     }
 
     /**
@@ -426,7 +491,8 @@ public class Node extends NodeParent implements TransformProvider {
      * An active Node has the following behavior:
      *
      * <ul>
-     *   <li>The node's {@link #onUpdate(FrameTime)} function will be called every frame.
+     *   <li>The node's {@link #onUpdate(FrameTime)} function will be called every frame, or as
+     *       often as set by {@link #setUpdateInterval(int)}.
      *   <li>The node's {@link #getRenderable()} will be rendered.
      *   <li>The node's {@link #getCollisionShape()} will be checked in calls to Scene.hitTest.
      *   <li>The node's {@link #onTouchEvent(HitTestResult, MotionEvent)} function will be called when
@@ -462,6 +528,31 @@ public class Node extends NodeParent implements TransformProvider {
         this.selectable = selectable;
     }
 
+    /**
+     * Sets the collision layers that this node is in, as a bitmask with one bit per layer. Scene
+     * queries that take a layer mask skip nodes that don't share a layer with the mask before their
+     * collision shapes are tested. Nodes are in {@link #DEFAULT_COLLISION_LAYER_MASK} by default.
+     *
+     * @param collisionLayerMask the layers this node is in
+     * @see Scene#hitTest(Ray, boolean, int, HitTestResult)
+     */
+    public void setCollisionLayerMask(int collisionLayerMask) {
+        this.collisionLayerMask = collisionLayerMask;
+        if (collider != null) {
+            collider.setLayerMask(collisionLayerMask);
+        }
+    }
+
+    /**
+     * Gets the collision layers that this node is in.
+     *
+     * @return the layers this node is in, as a bitmask
+     * @see #setCollisionLayerMask(int)
+     */
+    public int getCollisionLayerMask() {
+        return collisionLayerMask;
+    }
+
     /**
      * Registers a callback to be invoked when a touch event is dispatched to this node. The way that
      * touch events are propagated mirrors the way touches are propagated to Android Views. This is
@@ -513,6 +604,7 @@ public class Node extends NodeParent implements TransformProvider {
     public void addLifecycleListener(LifecycleListener lifecycleListener) {
         if (!lifecycleListeners.contains(lifecycleListener)) {
             lifecycleListeners.add(lifecycleListener);
+            refreshUpdateRegistration();
         }
     }
 
@@ -520,7 +612,9 @@ public class Node extends NodeParent implements TransformProvider {
      * Removes a listener that will be called when node lifecycle events occur.
      */
     public void removeLifecycleListener(LifecycleListener lifecycleListener) {
-        lifecycleListeners.remove(lifecycleListener);
+        if (lifecycleListeners.remove(lifecycleListener)) {
+            refreshUpdateRegistration();
+        }
     }
 
     /**
@@ -557,16 +651,160 @@ public class Node extends NodeParent implements TransformProvider {
     protected final void onAddChild(Node child) {
         super.onAddChild(child);
         child.parentAsNode = this;
-        child.markTransformChangedRecursively(WORLD_DIRTY_FLAGS, child);
+        child.markTransformChanged(WORLD_DIRTY_FLAGS);
         child.setSceneRecursively(scene);
+        if (scene != null) {
+            scene.markHierarchyChanged();
+        }
     }
 
     @Override
     protected final void onRemoveChild(Node child) {
         super.onRemoveChild(child);
         child.parentAsNode = null;
-        child.markTransformChangedRecursively(WORLD_DIRTY_FLAGS, child);
+        child.markTransformDirtyRecursively(WORLD_DIRTY_FLAGS);
         child.setSceneRecursively(null);
+        // Dispatched after leaving the scene, so that the listeners are called right away instead
+        // of being queued by the old scene.
+        child.markTransformChanged(WORLD_DIRTY_FLAGS);
+        if (scene != null) {
+            scene.markHierarchyChanged();
+        }
+    }
+
+    /**
+     * Called by the scene after removing this node from its top level. Leaving the scene dropped
+     * any queued transform changes, so they are dispatched right away, the same way as removing a
+     * node from another node does.
+     */
+    final void onRemovedFromScene() {
+        markTransformChanged(WORLD_DIRTY_FLAGS);
+    }
+
+    /**
+     * Marks the transform of this node and its descendants as changed. While the node is in a scene,
+     * the scene calls the transform changed listeners once per frame instead of right away. Moving a
+     * node many times in one frame then walks its hierarchy only once.
+     */
+    private void markTransformChanged(int flagsToMark) {
+        Scene scene = this.scene;
+        if (scene == null || !allowDispatchTransformChangedListeners) {
+            markTransformChangedRecursively(flagsToMark, this);
+            return;
+        }
+
+        markTransformDirtyRecursively(flagsToMark);
+        scene.queueTransformChanged(this);
+    }
+
+    private void markTransformDirtyRecursively(int flagsToMark) {
+        // World transforms are resolved from the top down, so the descendants of a node that is
+        // already dirty are dirty as well.
+        if ((dirtyTransformFlags & flagsToMark) == flagsToMark) {
+            return;
+        }
+
+        dirtyTransformFlags |= flagsToMark;
+        if ((dirtyTransformFlags & WORLD_TRANSFORM_DIRTY) == WORLD_TRANSFORM_DIRTY
+                && collider != null) {
+            collider.markWorldShapeDirty();
+        }
+
+        List<Node> children = getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            children.get(i).markTransformDirtyRecursively(flagsToMark);
+        }
+    }
+
+    /**
+     * Resolves the world transforms of this node and its descendants and calls their transform
+     * changed listeners, parents before children. Called by the scene once per frame for each node
+     * whose transform changed.
+     */
+    final void dispatchTransformChangedRecursively(Node originatingNode) {
+        getWorldModelMatrixInternal();
+        dispatchTransformChanged(originatingNode);
+
+        List<Node> children = getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            children.get(i).dispatchTransformChangedRecursively(originatingNode);
+        }
+    }
+
+    /**
+     * Resolves the world transforms and collider world shapes of this node and its descendants
+     * without calling any listeners. Only writes to state owned by the nodes of this hierarchy, so
+     * the scene can call it from a worker thread while the UI thread waits, as long as the world
+     * transform of the parent is already resolved.
+     */
+    final void resolveWorldTransformsRecursively() {
+        getWorldModelMatrixInternal();
+        if (collider != null) {
+            collider.getTransformedShape();
+        }
+
+        List<Node> children = getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            children.get(i).resolveWorldTransformsRecursively();
+        }
+    }
+
+    /**
+     * Moves this top level node and its descendants by the negated offset, when the scene shifts
+     * its origin by that offset. Only the translations of the transforms change, so the cached
+     * transforms that are resolved are moved in place instead of being marked dirty, and the
+     * transform changed listeners are queued as usual.
+     */
+    void shiftOrigin(float x, float y, float z) {
+        localPosition.x -= x;
+        localPosition.y -= y;
+        localPosition.z -= z;
+        if ((dirtyTransformFlags & LOCAL_TRANSFORM_DIRTY) == 0) {
+            float[] data = cachedLocalModelMatrix.data;
+            data[12] -= x;
+            data[13] -= y;
+            data[14] -= z;
+        }
+
+        shiftWorldTransformRecursively(x, y, z);
+
+        Scene scene = this.scene;
+        if (scene != null) {
+            scene.queueTransformChanged(this);
+        }
+    }
+
+    private void shiftWorldTransformRecursively(float x, float y, float z) {
+        if ((dirtyTransformFlags & WORLD_TRANSFORM_DIRTY) == 0) {
+            float[] data = cachedWorldModelMatrix.data;
+            data[12] -= x;
+            data[13] -= y;
+            data[14] -= z;
+        }
+
+        if ((dirtyTransformFlags & WORLD_POSITION_DIRTY) == 0) {
+            cachedWorldPosition.x -= x;
+            cachedWorldPosition.y -= y;
+            cachedWorldPosition.z -= z;
+        }
+
+        // The inverse maps the shifted world space back, so the offset is rotated and scaled into
+        // local space before it is added.
+        if ((dirtyTransformFlags & WORLD_INVERSE_TRANSFORM_DIRTY) == 0) {
+            float[] data = cachedWorldModelMatrixInverse.data;
+            data[12] += data[0] * x + data[4] * y + data[8] * z;
+            data[13] += data[1] * x + data[5] * y + data[9] * z;
+            data[14] += data[2] * x + data[6] * y + data[10] * z;
+        }
+
+        if (collider != null) {
+            collider.markWorldShapeDirty();
+        }
+
+        List<Node> children = getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            children.get(i).shiftWorldTransformRecursively(x, y, z);
+        }
     }
 
     private final void markTransformChangedRecursively(int flagsToMark, Node originatingNode) {
@@ -609,6 +847,18 @@ public class Node extends NodeParent implements TransformProvider {
         return new Vector3(localPosition);
     }
 
+    /**
+     * Copies the nodes position relative to its parent (local-space) into the given vector. Unlike
+     * {@link #getLocalPosition()}, this doesn't allocate.
+     *
+     * @param dest the vector to set to the node's local-space position
+     */
+    public final void getLocalPosition(Vector3 dest) {
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+        dest.set(localPosition);
+    }
+
     /**
      * Gets a copy of the nodes rotation relative to its parent (local-space). If {@link
      * #isTopLevel()} is true, then this is the same as {@link #getWorldRotation()}.
@@ -620,6 +870,18 @@ public class Node extends NodeParent implements TransformProvider {
         return new Quaternion(localRotation);
     }
 
+    /**
+     * Copies the nodes rotation relative to its parent (local-space) into the given quaternion.
+     * Unlike {@link #getLocalRotation()}, this doesn't allocate.
+     *
+     * @param dest the quaternion to set to the node's local-space rotation
+     */
+    public final void getLocalRotation(Quaternion dest) {
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+        dest.set(localRotation);
+    }
+
     /**
      * Gets a copy of the nodes scale relative to its parent (local-space). If {@link #isTopLevel()}
      * is true, then this is the same as {@link #getWorldScale()}.
@@ -631,6 +893,18 @@ public class Node extends NodeParent implements TransformProvider {
         return new Vector3(localScale);
     }
 
+    /**
+     * Copies the nodes scale relative to its parent (local-space) into the given vector. Unlike
+     * {@link #getLocalScale()}, this doesn't allocate.
+     *
+     * @param dest the vector to set to the node's local-space scale
+     */
+    public final void getLocalScale(Vector3 dest) {
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+        dest.set(localScale);
+    }
+
     /**
      * Get a copy of the nodes world-space position.
      *
@@ -641,6 +915,18 @@ public class Node extends NodeParent implements TransformProvider {
         return new Vector3(getWorldPositionInternal());
     }
 
+    /**
+     * Copies the nodes world-space position into the given vector. Unlike {@link
+     * #getWorldPosition()}, this doesn't allocate.
+     *
+     * @param dest the vector to set to the node's world-space position
+     */
+    public final void getWorldPosition(Vector3 dest) {
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+        dest.set(getWorldPositionInternal());
+    }
+
     /**
      * Gets a copy of the nodes world-space rotation.
      *
@@ -651,6 +937,18 @@ public class Node extends NodeParent implements TransformProvider {
         return new Quaternion(getWorldRotationInternal());
     }
 
+    /**
+     * Copies the nodes world-space rotation into the given quaternion. Unlike {@link
+     * #getWorldRotation()}, this doesn't allocate.
+     *
+     * @param dest the quaternion to set to the node's world-space rotation
+     */
+    public final void getWorldRotation(Quaternion dest) {
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+        dest.set(getWorldRotationInternal());
+    }
+
     /**
      * Gets a copy of the nodes world-space scale. Some precision will be lost if the node is skewed.
      *
@@ -661,6 +959,18 @@ public class Node extends NodeParent implements TransformProvider {
         return new Vector3(getWorldScaleInternal());
     }
 
+    /**
+     * Copies the nodes world-space scale into the given vector. Unlike {@link #getWorldScale()},
+     * this doesn't allocate.
+     *
+     * @param dest the vector to set to the node's world-space scale
+     */
+    public final void getWorldScale(Vector3 dest) {
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+        dest.set(getWorldScaleInternal());
+    }
+
     /**
      * Sets the position of this node relative to its parent (local-space). If {@link #isTopLevel()}
      * is true, then this is the same as {@link #setWorldPosition(Vector3)}.
@@ -672,7 +982,7 @@ public class Node extends NodeParent implements TransformProvider {
         Preconditions.checkNotNull(position, "Parameter \"position\" was null.");
 
         localPosition.set(position);
-        markTransformChangedRecursively(LOCAL_DIRTY_FLAGS, this);
+        markTransformChanged(LOCAL_DIRTY_FLAGS);
     }
 
     /**
@@ -686,7 +996,7 @@ public class Node extends NodeParent implements TransformProvider {
         Preconditions.checkNotNull(rotation, "Parameter \"rotation\" was null.");
 
         localRotation.set(rotation);
-        markTransformChangedRecursively(LOCAL_DIRTY_FLAGS, this);
+        markTransformChanged(LOCAL_DIRTY_FLAGS);
     }
 
     /**
@@ -700,7 +1010,7 @@ public class Node extends NodeParent implements TransformProvider {
         Preconditions.checkNotNull(scale, "Parameter \"scale\" was null.");
 
         localScale.set(scale);
-        markTransformChangedRecursively(LOCAL_DIRTY_FLAGS, this);
+        markTransformChanged(LOCAL_DIRTY_FLAGS);
     }
 
     /**
@@ -715,10 +1025,10 @@ public class Node extends NodeParent implements TransformProvider {
         if (parentAsNode == null) {
             localPosition.set(position);
         } else {
-            localPosition.set(parentAsNode.worldToLocalPoint(position));
+            parentAsNode.worldToLocalPoint(position, localPosition);
         }
 
-        markTransformChangedRecursively(LOCAL_DIRTY_FLAGS, this);
+        markTransformChanged(LOCAL_DIRTY_FLAGS);
 
         // We already know the world position, cache it immediately so we don't
         // need to decompose it.
@@ -738,11 +1048,11 @@ public class Node extends NodeParent implements TransformProvider {
         if (parentAsNode == null) {
             localRotation.set(rotation);
         } else {
-            localRotation.set(
-                    Quaternion.multiply(parentAsNode.getWorldRotationInternal().inverted(), rotation));
+            parentAsNode.getWorldRotationInternal().inverted(localRotation);
+            Quaternion.multiply(localRotation, rotation, localRotation);
         }
 
-        markTransformChangedRecursively(LOCAL_DIRTY_FLAGS, this);
+        markTransformChanged(LOCAL_DIRTY_FLAGS);
 
         // We already know the world rotation, cache it immediately so we don't
         // need to decompose it.
@@ -778,7 +1088,7 @@ public class Node extends NodeParent implements TransformProvider {
             worldS.makeScale(scale);
 
             Matrix inv = cachedWorldModelMatrix;
-            Matrix.invert(cachedWorldModelMatrix, inv);
+            invertWorldModelMatrix(cachedWorldModelMatrix, inv);
 
             Matrix.multiply(inv, worldS, inv);
             inv.decomposeScale(localScale);
@@ -800,9 +1110,23 @@ public class Node extends NodeParent implements TransformProvider {
      * @return a new vector that represents the point in world-space
      */
     public final Vector3 localToWorldPoint(Vector3 point) {
+        Vector3 result = new Vector3();
+        localToWorldPoint(point, result);
+        return result;
+    }
+
+    /**
+     * Same as {@link #localToWorldPoint(Vector3)}, but sets the given vector to the result
+     * instead of allocating a new one.
+     *
+     * @param point the point in local-space to convert
+     * @param dest the vector to set to the point in world-space, may be the same as point
+     */
+    public final void localToWorldPoint(Vector3 point, Vector3 dest) {
         Preconditions.checkNotNull(point, "Parameter \"point\" was null.");
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
 
-        return getWorldModelMatrixInternal().transformPoint(point);
+        getWorldModelMatrixInternal().transformPoint(point, dest);
     }
 
     /**
@@ -812,9 +1136,23 @@ public class Node extends NodeParent implements TransformProvider {
      * @return a new vector that represents the point in local-space
      */
     public final Vector3 worldToLocalPoint(Vector3 point) {
+        Vector3 result = new Vector3();
+        worldToLocalPoint(point, result);
+        return result;
+    }
+
+    /**
+     * Same as {@link #worldToLocalPoint(Vector3)}, but sets the given vector to the result
+     * instead of allocating a new one.
+     *
+     * @param point the point in world-space to convert
+     * @param dest the vector to set to the point in local-space, may be the same as point
+     */
+    public final void worldToLocalPoint(Vector3 point, Vector3 dest) {
         Preconditions.checkNotNull(point, "Parameter \"point\" was null.");
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
 
-        return getWorldModelMatrixInverseInternal().transformPoint(point);
+        getWorldModelMatrixInverseInternal().transformPoint(point, dest);
     }
 
     /**
@@ -825,9 +1163,23 @@ public class Node extends NodeParent implements TransformProvider {
      * @return a new vector that represents the direction in world-space
      */
     public final Vector3 localToWorldDirection(Vector3 direction) {
+        Vector3 result = new Vector3();
+        localToWorldDirection(direction, result);
+        return result;
+    }
+
+    /**
+     * Same as {@link #localToWorldDirection(Vector3)}, but sets the given vector to the result
+     * instead of allocating a new one.
+     *
+     * @param direction the direction in local-space to convert
+     * @param dest the vector to set to the direction in world-space, may be the same as direction
+     */
+    public final void localToWorldDirection(Vector3 direction, Vector3 dest) {
         Preconditions.checkNotNull(direction, "Parameter \"direction\" was null.");
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
 
-        return Quaternion.rotateVector(getWorldRotationInternal(), direction);
+        Quaternion.rotateVector(getWorldRotationInternal(), direction, dest);
     }
 
     /**
@@ -838,9 +1190,23 @@ public class Node extends NodeParent implements TransformProvider {
      * @return a new vector that represents the direction in local-space
      */
     public final Vector3 worldToLocalDirection(Vector3 direction) {
+        Vector3 result = new Vector3();
+        worldToLocalDirection(direction, result);
+        return result;
+    }
+
+    /**
+     * Same as {@link #worldToLocalDirection(Vector3)}, but sets the given vector to the result
+     * instead of allocating a new one.
+     *
+     * @param direction the direction in world-space to convert
+     * @param dest the vector to set to the direction in local-space, may be the same as direction
+     */
+    public final void worldToLocalDirection(Vector3 direction, Vector3 dest) {
         Preconditions.checkNotNull(direction, "Parameter \"direction\" was null.");
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
 
-        return Quaternion.inverseRotateVector(getWorldRotationInternal(), direction);
+        Quaternion.inverseRotateVector(getWorldRotationInternal(), direction, dest);
     }
 
     /**
@@ -852,6 +1218,19 @@ public class Node extends NodeParent implements TransformProvider {
         return localToWorldDirection(Vector3.forward());
     }
 
+    /**
+     * Sets the given vector to the world-space forward vector (-z) of this node. Unlike {@link
+     * #getForward()}, this doesn't allocate.
+     *
+     * @param dest the vector to set to the node's forward direction in world-space
+     */
+    public final void getForward(Vector3 dest) {
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+        dest.set(0.0f, 0.0f, -1.0f);
+        localToWorldDirection(dest, dest);
+    }
+
     /**
      * Gets the world-space back vector (+z) of this node.
      *
@@ -861,6 +1240,19 @@ public class Node extends NodeParent implements TransformProvider {
         return localToWorldDirection(Vector3.back());
     }
 
+    /**
+     * Sets the given vector to the world-space back vector (+z) of this node. Unlike {@link
+     * #getBack()}, this doesn't allocate.
+     *
+     * @param dest the vector to set to the node's back direction in world-space
+     */
+    public final void getBack(Vector3 dest) {
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+        dest.set(0.0f, 0.0f, 1.0f);
+        localToWorldDirection(dest, dest);
+    }
+
     /**
      * Gets the world-space right vector (+x) of this node.
      *
@@ -870,6 +1262,19 @@ public class Node extends NodeParent implements TransformProvider {
         return localToWorldDirection(Vector3.right());
     }
 
+    /**
+     * Sets the given vector to the world-space right vector (+x) of this node. Unlike {@link
+     * #getRight()}, this doesn't allocate.
+     *
+     * @param dest the vector to set to the node's right direction in world-space
+     */
+    public final void getRight(Vector3 dest) {
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+        dest.set(1.0f, 0.0f, 0.0f);
+        localToWorldDirection(dest, dest);
+    }
+
     /**
      * Gets the world-space left vector (-x) of this node.
      *
@@ -879,6 +1284,19 @@ public class Node extends NodeParent implements TransformProvider {
         return localToWorldDirection(Vector3.left());
     }
 
+    /**
+     * Sets the given vector to the world-space left vector (-x) of this node. Unlike {@link
+     * #getLeft()}, this doesn't allocate.
+     *
+     * @param dest the vector to set to the node's left direction in world-space
+     */
+    public final void getLeft(Vector3 dest) {
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+        dest.set(-1.0f, 0.0f, 0.0f);
+        localToWorldDirection(dest, dest);
+    }
+
     /**
      * Gets the world-space up vector (+y) of this node.
      *
@@ -888,6 +1306,19 @@ public class Node extends NodeParent implements TransformProvider {
         return localToWorldDirection(Vector3.up());
     }
 
+    /**
+     * Sets the given vector to the world-space up vector (+y) of this node. Unlike {@link
+     * #getUp()}, this doesn't allocate.
+     *
+     * @param dest the vector to set to the node's up direction in world-space
+     */
+    public final void getUp(Vector3 dest) {
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+        dest.set(0.0f, 1.0f, 0.0f);
+        localToWorldDirection(dest, dest);
+    }
+
     /**
      * Gets the world-space down vector (-y) of this node.
      *
@@ -897,11 +1328,27 @@ public class Node extends NodeParent implements TransformProvider {
         return localToWorldDirection(Vector3.down());
     }
 
+    /**
+     * Sets the given vector to the world-space down vector (-y) of this node. Unlike {@link
+     * #getDown()}, this doesn't allocate.
+     *
+     * @param dest the vector to set to the node's down direction in world-space
+     */
+    public final void getDown(Vector3 dest) {
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+        dest.set(0.0f, -1.0f, 0.0f);
+        localToWorldDirection(dest, dest);
+    }
+
     /**
      * Sets the {@link Renderable} to display for this node. If {@link
      * Node#setCollisionShape(CollisionShape)} is not set, then {@link Renderable#getCollisionShape()}
      * is used to detect collisions for this {@link Node}.
      *
+     * <p>If the node was {@link #reset()} while it had the same renderable, the instance it had
+     * before is reused instead of creating a new one.
+     *
      * @param renderable Usually a 3D model. If null, this node's current renderable will be removed.
      * @return the created renderable instance
      * @see ModelRenderable
@@ -920,8 +1367,18 @@ public class Node extends NodeParent implements TransformProvider {
             renderableInstance = null;
         }
 
+        // Reuse the instance kept by reset if it is for the same renderable.
+        RenderableInstance recycledInstance = recycledRenderableInstance;
+        recycledRenderableInstance = null;
+        if (recycledInstance != null
+                && (renderable == null || recycledInstance.getRenderable() != renderable)) {
+            recycledInstance.destroy();
+            recycledInstance = null;
+        }
+
         if (renderable != null) {
-            RenderableInstance instance = renderable.createInstance(this);
+            RenderableInstance instance =
+                    recycledInstance != null ? recycledInstance : renderable.createInstance(this);
             if (active && scene != null) {
                 instance.attachToRenderer(getRendererOrDie());
             }
@@ -932,6 +1389,7 @@ public class Node extends NodeParent implements TransformProvider {
         }
 
         refreshCollider();
+        refreshUpdateRegistration();
 
         return renderableInstance;
     }
@@ -1096,7 +1554,14 @@ public class Node extends NodeParent implements TransformProvider {
      * Handles when this node is updated. A node is updated before rendering each frame. This is only
      * called when the node is active.
      *
-     * <p>Override to perform any updates that need to occur each frame.
+     * <p>Override to perform any updates that need to occur each frame. Only nodes that override
+     * this, have a renderable or have a {@link LifecycleListener} are updated.
+     *
+     * <p>Nodes are updated in the order that they were registered for updates, not in hierarchy
+     * order. Such a node is registered when it becomes active, or when it gets a renderable or a
+     * {@link LifecycleListener} while active. A parent is registered before the children that
+     * became active with it, but a node that was registered before its parent, such as one that got
+     * a listener first, is updated before that parent.
      *
      * @param frameTime provides time information for the current frame
      */
@@ -1104,6 +1569,98 @@ public class Node extends NodeParent implements TransformProvider {
         // Optionally override.
     }
 
+    /**
+     * Sets how often this node is updated, in frames. Use this for nodes that don't need to be
+     * updated at the display rate, such as labels or distant decorations. The scene spreads the
+     * updates of nodes with the same interval over the frames, so that the cost of each frame stays
+     * about the same.
+     *
+     * <p>When frames are skipped, the {@link FrameTime} passed to {@link #onUpdate(FrameTime)} and
+     * to the {@link LifecycleListener}s gives the time since the last update of this node.
+     *
+     * @param frameInterval 1 to update the node every frame, which is the default, 2 to update it
+     *     every other frame, and so on
+     * @throws IllegalArgumentException if the interval is less than 1
+     */
+    public void setUpdateInterval(int frameInterval) {
+        if (frameInterval < 1) {
+            throw new IllegalArgumentException("Update interval must be at least 1.");
+        }
+
+        if (updateInterval == frameInterval) {
+            return;
+        }
+
+        updateInterval = frameInterval;
+        if (scene != null) {
+            scene.updateList.onUpdateIntervalChanged(this);
+        }
+    }
+
+    /** @see #setUpdateInterval(int) */
+    public int getUpdateInterval() {
+        return updateInterval;
+    }
+
+    /**
+     * Returns this node to the state of a newly created node, so that it can be used again instead
+     * of creating a new node. This is done by {@link NodePool#release(Node)}.
+     *
+     * <p>The node is removed from its parent and its children are removed from it. Its name,
+     * transform, renderable, light, collision shape, listeners and other settings are set back to
+     * their defaults, reusing the objects that hold them. The instance of the renderable is kept
+     * while the node isn't rendering anything, and is reused if the same renderable is set again.
+     * Changes made through that instance, such as to its materials, are kept with it. Setting a
+     * different renderable or calling {@code setRenderable(null)} destroys it.
+     *
+     * <p>Subclasses that have state of their own should override this to reset it.
+     */
+    @CallSuper
+    public void reset() {
+        AndroidPreconditions.checkUiThread();
+
+        // Detaching first calls the listeners the same way as removing the node does.
+        setParent(null);
+        List<Node> children = getChildren();
+        for (int i = children.size() - 1; i >= 0; i--) {
+            removeChild(children.get(i));
+        }
+
+        lifecycleListeners.clear();
+        transformChangedListeners.clear();
+        onTouchListener = null;
+        onTapListener = null;
+        tapTrackingData = null;
+        // Detaching took the node out of the transform changed queue of its scene.
+        isTransformChangeQueued = false;
+        transformChangeQueueIndex = -1;
+
+        setName(DEFAULT_NAME);
+        enabled = true;
+        selectable = true;
+        updateInterval = 1;
+        lastUpdateNanos = 0;
+
+        localPosition.set(0.0f, 0.0f, 0.0f);
+        localRotation.setIdentity();
+        localScale.set(1.0f, 1.0f, 1.0f);
+        cachedWorldScale.set(localScale);
+        dirtyTransformFlags = LOCAL_DIRTY_FLAGS;
+
+        setLight(null);
+        if (renderableInstance != null) {
+            if (recycledRenderableInstance != null) {
+                recycledRenderableInstance.destroy();
+            }
+            recycledRenderableInstance = renderableInstance;
+            renderableInstance = null;
+            renderableId = ChangeId.EMPTY_ID;
+        }
+        collisionShape = null;
+        collisionLayerMask = DEFAULT_COLLISION_LAYER_MASK;
+        refreshCollider();
+    }
+
     /**
      * Handles when this node is touched.
      *
@@ -1211,6 +1768,8 @@ public class Node extends NodeParent implements TransformProvider {
      * position is changed, then that will trigger {@link #onTransformChange(Node)} to be called for
      * all of it's children with the originatingNode being node A.
      *
+     * <p>While the node is in a scene, this is called at most once per frame.
+     *
      * @param originatingNode the node that triggered this node's transformation to change
      */
     public void onTransformChange(Node originatingNode) {
@@ -1270,6 +1829,12 @@ public class Node extends NodeParent implements TransformProvider {
         return nameHash;
     }
 
+    @Override
+    @Nullable
+    final Scene getContainingScene() {
+        return scene;
+    }
+
     /**
      * Calls onUpdate if the node is active. Used by SceneView to dispatch updates.
      *
@@ -1289,10 +1854,21 @@ public class Node extends NodeParent implements TransformProvider {
             renderableId = renderable.getId().get();
         }
 
+        // Nodes that skip frames are given the time since their last update.
+        long startNanos = frameTime.getStartTime(TimeUnit.NANOSECONDS);
+        if (updateInterval > 1 && lastUpdateNanos != 0) {
+            if (intervalFrameTime == null) {
+                intervalFrameTime = new FrameTime();
+            }
+            intervalFrameTime.set(startNanos, startNanos - lastUpdateNanos);
+            frameTime = intervalFrameTime;
+        }
+        lastUpdateNanos = startNanos;
+
         onUpdate(frameTime);
 
-        for (LifecycleListener lifecycleListener : lifecycleListeners) {
-            lifecycleListener.onUpdated(this, frameTime);
+        for (int i = 0; i < lifecycleListeners.size(); i++) {
+            lifecycleListeners.get(i).onUpdated(this, frameTime);
         }
     }
 
@@ -1349,8 +1925,19 @@ public class Node extends NodeParent implements TransformProvider {
         // First, set the scene of this node and all child nodes.
         setSceneRecursivelyInternal(scene);
 
-        // Then, recursively update the active status of this node and all child nodes.
-        updateActiveStatusRecursively();
+        // Then, recursively update the active status of this node and all child nodes. The entities
+        // of the nodes that are activated are added to the renderer together.
+        if (scene == null) {
+            updateActiveStatusRecursively();
+            return;
+        }
+
+        scene.beginAttachBatch();
+        try {
+            updateActiveStatusRecursively();
+        } finally {
+            scene.endAttachBatch();
+        }
     }
 
 
@@ -1368,21 +1955,61 @@ public class Node extends NodeParent implements TransformProvider {
         return cachedLocalModelMatrix;
     }
 
+    boolean isWorldTransformDirty() {
+        return (dirtyTransformFlags & WORLD_TRANSFORM_DIRTY) == WORLD_TRANSFORM_DIRTY;
+    }
+
+    /** Sets the cached world transform to a transform that was resolved by the scene. */
+    void setWorldModelMatrixInternal(float[] data, int offset) {
+        System.arraycopy(data, offset, cachedWorldModelMatrix.data, 0, 16);
+        dirtyTransformFlags &= ~WORLD_TRANSFORM_DIRTY;
+    }
+
     Matrix getWorldModelMatrixInverseInternal() {
         if ((dirtyTransformFlags & WORLD_INVERSE_TRANSFORM_DIRTY) == WORLD_INVERSE_TRANSFORM_DIRTY) {
             // Cache the inverse of the world model matrix.
-            // Used for converting from world-space to local-space.
-            Matrix.invert(getWorldModelMatrixInternal(), cachedWorldModelMatrixInverse);
+            // Used for converting from world-space to local-space. The world transform of a top
+            // level node is its local transform, which can be inverted without the matrix.
+            if (parentAsNode != null
+                    || !Matrix.invertTrs(localPosition, localRotation, localScale,
+                            cachedWorldModelMatrixInverse)) {
+                invertWorldModelMatrix(
+                        getWorldModelMatrixInternal(), cachedWorldModelMatrixInverse);
+            }
             dirtyTransformFlags &= ~WORLD_INVERSE_TRANSFORM_DIRTY;
         }
 
         return cachedWorldModelMatrixInverse;
     }
 
+    /**
+     * Inverts a world model matrix, which is affine unless a subclass made it otherwise. A matrix
+     * that can't be inverted is passed on to {@link Matrix#invert(Matrix, Matrix)}, which still
+     * sets dest.
+     */
+    private static void invertWorldModelMatrix(Matrix matrix, Matrix dest) {
+        if (!Matrix.isAffine(matrix) || !Matrix.invertAffine(matrix, dest)) {
+            Matrix.invert(matrix, dest);
+        }
+    }
+
     private void setSceneRecursivelyInternal(@Nullable Scene scene) {
+        if (this.scene != scene) {
+            if (this.scene != null) {
+                this.scene.nameIndex.remove(this);
+                this.scene.updateList.remove(this);
+                this.scene.dequeueTransformChanged(this);
+            }
+            if (scene != null) {
+                scene.nameIndex.add(this);
+            }
+        }
+
         this.scene = scene;
-        for (Node node : getChildren()) {
-            node.setSceneRecursively(scene);
+        // Indexed, so that attaching and detaching nodes doesn't allocate an iterator.
+        List<Node> children = getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            children.get(i).setSceneRecursively(scene);
         }
     }
 
@@ -1398,8 +2025,10 @@ public class Node extends NodeParent implements TransformProvider {
             }
         }
 
-        for (Node node : getChildren()) {
-            node.updateActiveStatusRecursively();
+        // Indexed, so that attaching and detaching nodes doesn't allocate an iterator.
+        List<Node> children = getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            children.get(i).updateActiveStatusRecursively();
         }
     }
 
@@ -1427,10 +2056,12 @@ public class Node extends NodeParent implements TransformProvider {
             collider.setAttachedCollisionSystem(scene.collisionSystem);
         }
 
+        refreshUpdateRegistration();
+
         onActivate();
 
-        for (LifecycleListener lifecycleListener : lifecycleListeners) {
-            lifecycleListener.onActivated(this);
+        for (int i = 0; i < lifecycleListeners.size(); i++) {
+            lifecycleListeners.get(i).onActivated(this);
         }
     }
 
@@ -1445,6 +2076,7 @@ public class Node extends NodeParent implements TransformProvider {
         }
 
         active = false;
+        lastUpdateNanos = 0;
 
         if (renderableInstance != null) {
             renderableInstance.detachFromRenderer();
@@ -1458,14 +2090,57 @@ public class Node extends NodeParent implements TransformProvider {
             collider.setAttachedCollisionSystem(null);
         }
 
+        refreshUpdateRegistration();
+
         onDeactivate();
 
-        for (LifecycleListener lifecycleListener : lifecycleListeners) {
-            lifecycleListener.onDeactivated(this);
+        for (int i = 0; i < lifecycleListeners.size(); i++) {
+            lifecycleListeners.get(i).onDeactivated(this);
+        }
+    }
+
+    /**
+     * Adds this node to the update list of its scene if it is active and has something to do in
+     * {@link #dispatchUpdate(FrameTime)}, otherwise removes it from the list.
+     */
+    private void refreshUpdateRegistration() {
+        Scene scene = this.scene;
+        if (scene == null) {
+            return;
+        }
+
+        // The renderable is checked each frame in case its collision shape changed.
+        boolean needsUpdate =
+                active
+                        && (renderableInstance != null
+                                || !lifecycleListeners.isEmpty()
+                                || overridesOnUpdate(getClass()));
+        if (needsUpdate) {
+            scene.updateList.add(this);
+        } else {
+            scene.updateList.remove(this);
+        }
+    }
+
+    private static boolean overridesOnUpdate(Class<? extends Node> nodeClass) {
+        Boolean overrides = overridesOnUpdate.get(nodeClass);
+        if (overrides == null) {
+            try {
+                overrides =
+                        nodeClass.getMethod("onUpdate", FrameTime.class).getDeclaringClass()
+                                != Node.class;
+            } catch (NoSuchMethodException e) {
+                // The method was renamed, for example by code shrinking, so assume that it's
+                // overridden.
+                overrides = true;
+            }
+            overridesOnUpdate.put(nodeClass, overrides);
         }
+
+        return overrides;
     }
 
-    private void dispatchTransformChanged(Node originatingNode) {
+    void dispatchTransformChanged(Node originatingNode) {
         onTransformChange(originatingNode);
 
         for (int i = 0; i < transformChangedListeners.size(); i++) {
@@ -1487,6 +2162,7 @@ public class Node extends NodeParent implements TransformProvider {
             // Create the collider if it doesn't already exist.
             if (collider == null) {
                 collider = new Collider(this, finalCollisionShape);
+                collider.setLayerMask(collisionLayerMask);
 
                 // Attach the collider to the collision system if the node is already active.
                 if (active && scene != null) {
@@ -0,0 +1,65 @@
+package com.google.ar.sceneform;
+
+import androidx.annotation.Nullable;
+
+import com.google.ar.sceneform.utilities.Preconditions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Index from a name to the nodes with that name, kept by each {@link Scene} for the
+ * nodes that are in it. Used by {@link NodeParent#findByName(String)} to find nodes without walking
+ * the hierarchy.
+ *
+ * <p>The order of the nodes with the same name isn't kept, so that a node can be removed in
+ * constant time. Most nodes keep the default name, so that list can be very long.
+ */
+class NodeNameIndex {
+    // Keyed by the name itself, since strings cache their hash and lookups then don't box a key.
+    private final HashMap<String, ArrayList<Node>> nodesByName = new HashMap<>();
+
+    void add(Node node) {
+        Preconditions.checkNotNull(node, "Parameter \"node\" was null.");
+
+        String name = node.getName();
+        ArrayList<Node> nodes = nodesByName.get(name);
+        if (nodes == null) {
+            nodes = new ArrayList<>();
+            nodesByName.put(name, nodes);
+        }
+
+        node.nameIndexPosition = nodes.size();
+        nodes.add(node);
+    }
+
+    /** Removes a node. Must be called before the name of the node changes. */
+    void remove(Node node) {
+        Preconditions.checkNotNull(node, "Parameter \"node\" was null.");
+
+        ArrayList<Node> nodes = nodesByName.get(node.getName());
+        int position = node.nameIndexPosition;
+        if (nodes == null || position < 0 || position >= nodes.size()
+                || nodes.get(position) != node) {
+            return;
+        }
+
+        // Move the last node into the removed position.
+        Node last = nodes.remove(nodes.size() - 1);
+        if (last != node) {
+            nodes.set(position, last);
+            last.nameIndexPosition = position;
+        }
+        node.nameIndexPosition = -1;
+
+        if (nodes.isEmpty()) {
+            nodesByName.remove(node.getName());
+        }
+    }
+
+    /** Returns the nodes with the given name, or null if there are none. */
+    @Nullable
+    ArrayList<Node> get(String name) {
+        return nodesByName.get(name);
+    }
+}
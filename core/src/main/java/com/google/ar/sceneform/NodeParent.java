@@ -4,9 +4,12 @@ import androidx.annotation.CallSuper;
 import androidx.annotation.Nullable;
 import com.google.ar.sceneform.utilities.AndroidPreconditions;
 import com.google.ar.sceneform.utilities.Preconditions;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -17,22 +20,31 @@ import java.util.function.Predicate;
  * child of another {@link Node} or a {@link Scene}, use {@link Node#setParent(NodeParent)}.
  */
 public abstract class NodeParent {
-  private final ArrayList<Node> children = new ArrayList<>();
-  private final List<Node> unmodifiableChildren = Collections.unmodifiableList(children);
-
-  // List of children that can be iterated over
-  private final ArrayList<Node> iterableChildren = new ArrayList<>();
-
-  // True if the list of children has changed since the last time iterableChildren was updated.
-  private boolean isIterableChildrenDirty;
-
-  // Used to track if the list of iterableChildren is currently being iterated over.
-  // This is an integer instead of a boolean to handle re-entrance (iteration inside of iteration).
+  private static final Node[] EMPTY_CHILDREN = new Node[0];
+  private static final int INITIAL_CAPACITY = 4;
+  // Children are only added on the UI thread, so the checks share one builder instead of creating
+  // one for each child that is added.
+  private static final StringBuilder failureReason = new StringBuilder();
+
+  // Children in the order that they were added, without gaps, so that reading a child by index is a
+  // plain array read. Each child stores its index, so it is found without a search when it is
+  // removed.
+  private Node[] children = EMPTY_CHILDREN;
+  private int childCount;
+  private final List<Node> childList = new ChildList();
+
+  // Used to track if the children are currently being iterated over. A traversal reads the array
+  // that was current when it started, so removing a child during a traversal first copies the
+  // array instead of moving the children under it. Adding a child only writes past the end, which
+  // the traversal doesn't read. This is an integer instead of a boolean to handle re-entrance
+  // (iteration inside of iteration).
   private int iteratingCounter;
+  // The array that the most recent traversal started on, while any traversal is in progress.
+  @Nullable private Node[] iteratedChildren;
 
   /** Returns an immutable list of this parent's children. */
   public final List<Node> getChildren() {
-    return unmodifiableChildren;
+    return childList;
   }
 
   /**
@@ -52,7 +64,7 @@ public abstract class NodeParent {
       return;
     }
 
-    StringBuilder failureReason = new StringBuilder();
+    failureReason.setLength(0);
     if (!canAddChild(child, failureReason)) {
       throw new IllegalArgumentException(failureReason.toString());
     }
@@ -60,6 +72,52 @@ public abstract class NodeParent {
     onAddChild(child);
   }
 
+  /**
+   * Adds nodes as children of this NodeParent. This is the same as calling {@link #addChild(Node)}
+   * for each node in order, except that the nodes are all checked before any of them are added, and
+   * the work of attaching the nodes to the scene, such as adding them to the renderer, is done
+   * together.
+   *
+   * <p>To add a large hierarchy to a scene, such as a level, build it while it isn't part of the
+   * scene and then add its root. The hierarchy is then attached in a single pass, while nodes that
+   * aren't part of a scene aren't activated or rendered as they are added.
+   *
+   * @param children the nodes to add as children
+   * @throws IllegalArgumentException if one of the nodes is this NodeParent, or if this NodeParent
+   *     is a descendant of one of the nodes
+   */
+  public final void addChildren(Collection<Node> children) {
+    Preconditions.checkNotNull(children, "Parameter \"children\" was null.");
+    AndroidPreconditions.checkUiThread();
+
+    failureReason.setLength(0);
+    for (Node child : children) {
+      Preconditions.checkNotNull(child, "Parameter \"child\" was null.");
+      if (child.parent != this && !canAddChild(child, failureReason)) {
+        throw new IllegalArgumentException(failureReason.toString());
+      }
+    }
+
+    ensureCapacity(children.size());
+
+    Scene scene = getContainingScene();
+    if (scene != null) {
+      scene.beginAttachBatch();
+    }
+    try {
+      for (Node child : children) {
+        // The collection may hold the same node more than once.
+        if (child.parent != this) {
+          onAddChild(child);
+        }
+      }
+    } finally {
+      if (scene != null) {
+        scene.endAttachBatch();
+      }
+    }
+  }
+
   /**
    * Removes a node from the children of this NodeParent. If the node is not a direct child of this
    * NodeParent, no change is made.
@@ -71,7 +129,7 @@ public abstract class NodeParent {
     AndroidPreconditions.checkUiThread();
 
     // Return early if this parent doesn't contain the child.
-    if (!children.contains(child)) {
+    if (child.parent != this) {
       return;
     }
 
@@ -89,11 +147,15 @@ public abstract class NodeParent {
   public void callOnHierarchy(Consumer<Node> consumer) {
     Preconditions.checkNotNull(consumer, "Parameter \"consumer\" was null.");
 
-    ArrayList<Node> iterableChildren = getIterableChildren();
-    startIterating();
-    for (int i = 0; i < iterableChildren.size(); i++) {
-      Node child = iterableChildren.get(i);
-      child.callOnHierarchy(consumer);
+    // Children added during the traversal are skipped, as are children removed before they are
+    // reached.
+    Node[] children = startIterating();
+    int count = childCount;
+    for (int i = 0; i < count; i++) {
+      Node child = children[i];
+      if (child.parent == this) {
+        child.callOnHierarchy(consumer);
+      }
     }
     stopIterating();
   }
@@ -111,11 +173,15 @@ public abstract class NodeParent {
   public Node findInHierarchy(Predicate<Node> condition) {
     Preconditions.checkNotNull(condition, "Parameter \"condition\" was null.");
 
-    ArrayList<Node> iterableChildren = getIterableChildren();
+    Node[] children = startIterating();
+    int count = childCount;
     Node found = null;
-    startIterating();
-    for (int i = 0; i < iterableChildren.size(); i++) {
-      Node child = iterableChildren.get(i);
+    for (int i = 0; i < count; i++) {
+      Node child = children[i];
+      if (child.parent != this) {
+        continue;
+      }
+
       found = child.findInHierarchy(condition);
       if (found != null) {
         break;
@@ -126,9 +192,11 @@ public abstract class NodeParent {
   }
 
   /**
-   * Traverse the hierarchy to find the first node with a given name. Traversal is depth first. If
-   * this NodeParent is a Node, traversal starts with this NodeParent, otherwise traversal starts
-   * with its children.
+   * Finds the first node with a given name, in depth first order. If this NodeParent is a Node, the
+   * search includes this NodeParent.
+   *
+   * <p>Nodes in a scene are looked up in an index of the names in the scene, so this doesn't walk
+   * the hierarchy unless several nodes in it have the given name.
    *
    * @param name The name of the node to find
    * @return the node if it's found, otherwise null
@@ -141,6 +209,34 @@ public abstract class NodeParent {
     }
 
     int hashToFind = name.hashCode();
+    Scene scene = getContainingScene();
+    NodeNameIndex nameIndex = scene != null ? scene.nameIndex : null;
+    if (nameIndex != null) {
+      ArrayList<Node> candidates = nameIndex.get(name);
+      if (candidates == null) {
+        return null;
+      }
+
+      Node found = null;
+      boolean hasMultipleMatches = false;
+      for (int i = 0; i < candidates.size(); i++) {
+        Node candidate = candidates.get(i);
+        if (candidate == this || candidate.isDescendantOf(this)) {
+          if (found != null) {
+            hasMultipleMatches = true;
+            break;
+          }
+          found = candidate;
+        }
+      }
+
+      // The index doesn't keep the order of the nodes, so the hierarchy is walked to find the
+      // first of several matches.
+      if (!hasMultipleMatches) {
+        return found;
+      }
+    }
+
     Node found =
         findInHierarchy(
             (node) -> {
@@ -152,6 +248,54 @@ public abstract class NodeParent {
     return found;
   }
 
+  /**
+   * Finds all of the nodes with a given name, in no particular order. If this NodeParent is a Node,
+   * the search includes this NodeParent.
+   *
+   * @param name The name of the nodes to find
+   * @param dest cleared, then filled with the nodes that were found
+   */
+  @SuppressWarnings("AndroidApiChecker")
+  public void findAllByName(String name, List<Node> dest) {
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+    dest.clear();
+    if (name == null || name.isEmpty()) {
+      return;
+    }
+
+    int hashToFind = name.hashCode();
+    Scene scene = getContainingScene();
+    NodeNameIndex nameIndex = scene != null ? scene.nameIndex : null;
+    if (nameIndex != null) {
+      ArrayList<Node> candidates = nameIndex.get(name);
+      if (candidates == null) {
+        return;
+      }
+
+      for (int i = 0; i < candidates.size(); i++) {
+        Node candidate = candidates.get(i);
+        if (candidate == this || candidate.isDescendantOf(this)) {
+          dest.add(candidate);
+        }
+      }
+      return;
+    }
+
+    callOnHierarchy(
+        (node) -> {
+          if (node.getNameHash() == hashToFind) {
+            dest.add(node);
+          }
+        });
+  }
+
+  /** Returns the scene that this NodeParent is in, which is itself if it is a scene. */
+  @Nullable
+  Scene getContainingScene() {
+    return null;
+  }
+
   protected boolean canAddChild(Node child, StringBuilder failureReason) {
     Preconditions.checkNotNull(child, "Parameter \"child\" was null.");
     Preconditions.checkNotNull(failureReason, "Parameter \"failureReason\" was null.");
@@ -173,34 +317,50 @@ public abstract class NodeParent {
       previousParent.removeChild(child);
     }
 
-    children.add(child);
-    child.parent = this;
+    ensureCapacity(1);
 
-    isIterableChildrenDirty = true;
+    child.childIndex = childCount;
+    children[childCount++] = child;
+    child.parent = this;
   }
 
   @CallSuper
   protected void onRemoveChild(Node child) {
     Preconditions.checkNotNull(child, "Parameter \"child\" was null.");
 
-    children.remove(child);
-    child.parent = null;
+    int index = child.childIndex;
+    if (index >= 0 && index < childCount && children[index] == child) {
+      if (isIterating() && children == iteratedChildren) {
+        children = Arrays.copyOf(children, children.length);
+      }
 
-    isIterableChildrenDirty = true;
+      // Removing the last child, as when the children are removed in reverse, moves nothing.
+      childCount--;
+      System.arraycopy(children, index + 1, children, index, childCount - index);
+      children[childCount] = null;
+      for (int i = index; i < childCount; i++) {
+        children[i].childIndex = i;
+      }
+    }
+    child.childIndex = -1;
+    child.parent = null;
   }
 
-  private ArrayList<Node> getIterableChildren() {
-    if (isIterableChildrenDirty && !isIterating()) {
-      iterableChildren.clear();
-      iterableChildren.addAll(children);
-      isIterableChildrenDirty = false;
+  /** Makes room to add the given number of children without growing the array again. */
+  private void ensureCapacity(int addedCount) {
+    if (childCount + addedCount <= children.length) {
+      return;
     }
 
-    return iterableChildren;
+    int capacity = Math.max(childCount + addedCount, Math.max(INITIAL_CAPACITY, childCount * 2));
+    children = Arrays.copyOf(children, capacity);
   }
 
-  private void startIterating() {
+  /** Returns the array of children that a traversal should read until {@link #stopIterating}. */
+  private Node[] startIterating() {
     iteratingCounter++;
+    iteratedChildren = children;
+    return children;
   }
 
   private void stopIterating() {
@@ -208,9 +368,42 @@ public abstract class NodeParent {
     if (iteratingCounter < 0) {
       throw new AssertionError("stopIteration was called without calling startIteration.");
     }
+    if (iteratingCounter == 0) {
+      iteratedChildren = null;
+    }
   }
 
   private boolean isIterating() {
     return iteratingCounter > 0;
   }
+
+  /**
+   * Read only view of the children. Reading it doesn't change any state, so it is safe to read from
+   * other threads while the UI thread doesn't change the children.
+   */
+  private final class ChildList extends AbstractList<Node> implements RandomAccess {
+    @Override
+    public Node get(int index) {
+      if (index < 0 || index >= childCount) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + childCount);
+      }
+
+      return children[index];
+    }
+
+    @Override
+    public int size() {
+      return childCount;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+      return object instanceof Node && ((Node) object).parent == NodeParent.this;
+    }
+
+    @Override
+    public int indexOf(Object object) {
+      return contains(object) ? ((Node) object).childIndex : -1;
+    }
+  }
 }
@@ -0,0 +1,116 @@
+package com.google.ar.sceneform;
+
+import com.google.ar.sceneform.utilities.AndroidPreconditions;
+import com.google.ar.sceneform.utilities.Preconditions;
+
+import java.util.ArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Keeps nodes that are no longer needed so that they can be used again, instead of creating a new
+ * node each time one is needed. Useful for nodes that are added and removed often, such as hit
+ * markers or measurement points.
+ *
+ * <p>Released nodes are {@link Node#reset()}, so an obtained node is the same as a new one. A node
+ * that is given the same renderable it had before it was released reuses its renderable instance
+ * instead of creating a new one.
+ *
+ * <pre>{@code
+ * NodePool<Node> markers = new NodePool<>(Node::new);
+ *
+ * Node marker = markers.obtain();
+ * marker.setRenderable(markerRenderable);
+ * marker.setParent(anchorNode);
+ * ...
+ * markers.release(marker);
+ * }</pre>
+ *
+ * @param <T> the type of the nodes in the pool
+ */
+public class NodePool<T extends Node> {
+    private static final int DEFAULT_MAX_FREE_COUNT = 256;
+
+    private final Supplier<T> factory;
+    private final int maxFreeCount;
+    private final ArrayList<T> freeNodes = new ArrayList<>();
+
+    /**
+     * Creates a pool that keeps up to 256 free nodes.
+     *
+     * @param factory creates a node when the pool has no free nodes
+     */
+    public NodePool(Supplier<T> factory) {
+        this(factory, DEFAULT_MAX_FREE_COUNT);
+    }
+
+    /**
+     * @param factory creates a node when the pool has no free nodes
+     * @param maxFreeCount the most free nodes to keep. Nodes released while the pool has this many
+     *     free nodes are dropped.
+     */
+    public NodePool(Supplier<T> factory, int maxFreeCount) {
+        Preconditions.checkNotNull(factory, "Parameter \"factory\" was null.");
+        if (maxFreeCount < 0) {
+            throw new IllegalArgumentException("Parameter \"maxFreeCount\" must not be negative.");
+        }
+
+        this.factory = factory;
+        this.maxFreeCount = maxFreeCount;
+    }
+
+    /** Returns a free node from the pool, or a new node if the pool has none. */
+    public T obtain() {
+        AndroidPreconditions.checkUiThread();
+
+        if (freeNodes.isEmpty()) {
+            return Preconditions.checkNotNull(factory.get(), "Node factory returned null.");
+        }
+
+        T node = freeNodes.remove(freeNodes.size() - 1);
+        node.isPooled = false;
+        return node;
+    }
+
+    /**
+     * Resets a node that is no longer needed and returns it to the pool. The node must not be used
+     * again until it is obtained from the pool.
+     *
+     * @param node the node to release, which doesn't have to have been obtained from this pool
+     * @throws IllegalStateException if the node is already free in a pool
+     */
+    public void release(T node) {
+        Preconditions.checkNotNull(node, "Parameter \"node\" was null.");
+        AndroidPreconditions.checkUiThread();
+
+        if (node.isPooled) {
+            throw new IllegalStateException("Node was released while it was already in a pool.");
+        }
+
+        node.reset();
+        if (freeNodes.size() >= maxFreeCount) {
+            // Destroy the renderable instance kept by reset.
+            node.setRenderable(null);
+            return;
+        }
+
+        node.isPooled = true;
+        freeNodes.add(node);
+    }
+
+    /** Returns the number of free nodes in the pool. */
+    public int getFreeCount() {
+        return freeNodes.size();
+    }
+
+    /** Drops the free nodes, destroying the renderable instances they kept. */
+    public void clear() {
+        AndroidPreconditions.checkUiThread();
+
+        for (int i = 0; i < freeNodes.size(); i++) {
+            T node = freeNodes.get(i);
+            node.isPooled = false;
+            node.setRenderable(null);
+        }
+        freeNodes.clear();
+    }
+}
@@ -0,0 +1,136 @@
+package com.google.ar.sceneform;
+
+import com.google.ar.sceneform.utilities.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * The active nodes of a {@link Scene} that need to be updated each frame, so that the scene doesn't
+ * walk the whole hierarchy to update the few nodes that do anything in {@link
+ * Node#onUpdate(FrameTime)}.
+ *
+ * <p>Nodes are updated in the order that they were added, not in hierarchy order. Since nodes are
+ * activated from the top down, parents are updated before the children that were activated with
+ * them, but a node that is moved under a parent that became active later is updated first. Nodes
+ * with an update interval of more than one frame are only updated on the frames that match their
+ * phase. The phases are handed out in turn among the nodes with the same interval, so the updates
+ * of those nodes are spread evenly over the frames.
+ */
+class NodeUpdateList {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_INTERVAL_CAPACITY = 8;
+
+    // Removed nodes leave a null behind, so that nodes can be removed while the list is being
+    // updated. The gaps are closed after each update.
+    private Node[] nodes = new Node[INITIAL_CAPACITY];
+    private int count;
+    private boolean hasGaps;
+    private boolean isUpdating;
+    private long frameCount;
+    // Next phase to hand out to a node with each update interval, indexed by the interval.
+    private int[] nextPhases = new int[INITIAL_INTERVAL_CAPACITY];
+
+    void add(Node node) {
+        Preconditions.checkNotNull(node, "Parameter \"node\" was null.");
+
+        if (node.updateListIndex >= 0) {
+            return;
+        }
+
+        if (count == nodes.length) {
+            compact();
+            if (count == nodes.length) {
+                nodes = Arrays.copyOf(nodes, count * 2);
+            }
+        }
+
+        node.updateListIndex = count;
+        node.updatePhase = nextPhase(node.getUpdateInterval());
+        nodes[count++] = node;
+    }
+
+    /** Gives a node in the list a phase among the nodes with its new update interval. */
+    void onUpdateIntervalChanged(Node node) {
+        Preconditions.checkNotNull(node, "Parameter \"node\" was null.");
+
+        int index = node.updateListIndex;
+        if (index >= 0 && index < count && nodes[index] == node) {
+            node.updatePhase = nextPhase(node.getUpdateInterval());
+        }
+    }
+
+    void remove(Node node) {
+        Preconditions.checkNotNull(node, "Parameter \"node\" was null.");
+
+        int index = node.updateListIndex;
+        if (index < 0 || index >= count || nodes[index] != node) {
+            return;
+        }
+
+        nodes[index] = null;
+        node.updateListIndex = -1;
+        hasGaps = true;
+    }
+
+    /**
+     * Updates each node in the list. Nodes added by the updates are first updated on the next
+     * frame, and nodes removed by the updates aren't updated.
+     */
+    void dispatchUpdate(FrameTime frameTime) {
+        int updateCount = count;
+        isUpdating = true;
+        try {
+            for (int i = 0; i < updateCount; i++) {
+                Node node = nodes[i];
+                if (node == null) {
+                    continue;
+                }
+
+                int interval = node.getUpdateInterval();
+                if (interval == 1 || (frameCount + node.updatePhase) % interval == 0) {
+                    node.dispatchUpdate(frameTime);
+                }
+            }
+        } finally {
+            // An exception thrown by an update must not keep the list from being compacted.
+            isUpdating = false;
+        }
+        frameCount++;
+
+        compact();
+    }
+
+    private int nextPhase(int interval) {
+        if (interval == 1) {
+            return 0;
+        }
+
+        if (interval >= nextPhases.length) {
+            nextPhases = Arrays.copyOf(nextPhases, Math.max(interval + 1, nextPhases.length * 2));
+        }
+
+        int phase = nextPhases[interval];
+        nextPhases[interval] = (phase + 1) % interval;
+        return phase;
+    }
+
+    private void compact() {
+        // Moving the nodes while they are being updated would skip or repeat some of them.
+        if (!hasGaps || isUpdating) {
+            return;
+        }
+
+        int newCount = 0;
+        for (int i = 0; i < count; i++) {
+            Node node = nodes[i];
+            if (node != null) {
+                node.updateListIndex = newCount;
+                nodes[newCount++] = node;
+            }
+        }
+
+        Arrays.fill(nodes, newCount, count, null);
+        count = newCount;
+        hasGaps = false;
+    }
+}
@@ -3,14 +3,24 @@ package com.google.ar.sceneform;
 import android.view.MotionEvent;
 
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
+import com.google.ar.core.Pose;
 import com.google.ar.sceneform.collision.Collider;
 import com.google.ar.sceneform.collision.CollisionSystem;
 import com.google.ar.sceneform.collision.Ray;
+import com.google.ar.sceneform.math.Quaternion;
+import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.rendering.Renderer;
+import com.google.ar.sceneform.utilities.AndroidPreconditions;
+import com.google.ar.sceneform.utilities.ChangeId;
 import com.google.ar.sceneform.utilities.Preconditions;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
 
 /**
  * The Sceneform Scene maintains the scene graph, a hierarchical organization of a scene's content.
@@ -32,7 +42,8 @@ public class Scene extends NodeParent {
          * called even if the touch is not over a node, in which case {@link HitTestResult#getNode()}
          * will be null.
          *
-         * @param hitTestResult represents the node that was touched
+         * @param hitTestResult represents the node that was touched. It is reused for the next touch
+         *                      event, so copy it to keep it after this call.
          * @param motionEvent   the motion event
          * @return true if the listener has consumed the event
          * @see Scene#setOnTouchListener(OnTouchListener)
@@ -53,7 +64,8 @@ public class Scene extends NodeParent {
          * it possible to observe all motion events dispatched to the scene. This is called even if the
          * touch is not over a node, in which case {@link HitTestResult#getNode()} will be null.
          *
-         * @param hitTestResult represents the node that was touched
+         * @param hitTestResult represents the node that was touched. It is reused for the next touch
+         *                      event, so copy it to keep it after this call.
          * @param motionEvent   the motion event
          * @see Scene#setOnTouchListener(OnTouchListener)
          */
@@ -73,8 +85,46 @@ public class Scene extends NodeParent {
         void onUpdate(FrameTime frameTime);
     }
 
+    /**
+     * Interface definition for callbacks to be invoked once per frame, after the scene is updated,
+     * with the changes in which nodes' collision shapes overlap each other.
+     */
+    public interface OnOverlapListener {
+        /**
+         * Called when the collision shapes of two nodes start overlapping.
+         *
+         * @param node1 the first node of the pair
+         * @param node2 the second node of the pair
+         */
+        void onOverlapBegin(Node node1, Node node2);
+
+        /**
+         * Called every frame for two nodes whose collision shapes still overlap.
+         *
+         * @param node1 the first node of the pair
+         * @param node2 the second node of the pair
+         */
+        void onOverlapStay(Node node1, Node node2);
+
+        /**
+         * Called when the collision shapes of two nodes stop overlapping, including when either of
+         * the nodes was removed from the scene.
+         *
+         * @param node1 the first node of the pair
+         * @param node2 the second node of the pair
+         */
+        void onOverlapEnd(Node node1, Node node2);
+    }
+
     private static final String TAG = Scene.class.getSimpleName();
 
+    /**
+     * A layer mask that matches nodes in any collision layer.
+     *
+     * @see Node#setCollisionLayerMask(int)
+     */
+    public static final int ALL_COLLISION_LAYERS = Collider.ALL_LAYERS_MASK;
+
     @Nullable
     private final SceneView view;
     private Camera camera;
@@ -82,8 +132,71 @@ public class Scene extends NodeParent {
     // Systems.
     final CollisionSystem collisionSystem = new CollisionSystem();
     private final TouchEventSystem touchEventSystem = new TouchEventSystem();
+    // Nodes in the scene by name, used by findByName.
+    final NodeNameIndex nameIndex = new NodeNameIndex();
+    // Active nodes that need to be updated each frame.
+    final NodeUpdateList updateList = new NodeUpdateList();
 
     private final ArrayList<OnUpdateListener> onUpdateListeners = new ArrayList<>();
+    private final ArrayList<OnOverlapListener> onOverlapListeners = new ArrayList<>();
+
+    // Nodes whose transforms changed since the last frame. Their transform changed listeners are
+    // called once per frame from dispatchUpdate. Nodes queued while the listeners are being called
+    // go into the other list, which is dispatched on the next frame.
+    private ArrayList<Node> transformChangedNodes = new ArrayList<>();
+    private ArrayList<Node> dispatchingTransformChangedNodes = new ArrayList<>();
+
+    // Updated whenever a node is added to or removed from a parent within the scene.
+    private final ChangeId hierarchyChangeId = new ChangeId();
+    @Nullable
+    private TransformStore transformStore;
+    private boolean isParallelTransformsEnabled;
+    // Top level nodes whose hierarchies have queued nodes, collected each frame to resolve in
+    // parallel.
+    private final ArrayList<Node> parallelResolveRoots = new ArrayList<>();
+
+    // Position of the origin of the scene in the ARCore session. Kept in double precision so that
+    // the shifts don't add up rounding errors over a long session.
+    private double originX;
+    private double originY;
+    private double originZ;
+    private float originRebasingRadius;
+    private final Vector3 cameraPosition = new Vector3();
+
+    private final CollisionSystem.OverlapListener overlapDispatcher =
+            new CollisionSystem.OverlapListener() {
+                @Override
+                public void onOverlapBegin(Collider collider1, Collider collider2) {
+                    Node node1 = (Node) collider1.getTransformProvider();
+                    Node node2 = (Node) collider2.getTransformProvider();
+                    for (int i = 0; i < onOverlapListeners.size(); i++) {
+                        onOverlapListeners.get(i).onOverlapBegin(node1, node2);
+                    }
+                }
+
+                @Override
+                public void onOverlapStay(Collider collider1, Collider collider2) {
+                    Node node1 = (Node) collider1.getTransformProvider();
+                    Node node2 = (Node) collider2.getTransformProvider();
+                    for (int i = 0; i < onOverlapListeners.size(); i++) {
+                        onOverlapListeners.get(i).onOverlapStay(node1, node2);
+                    }
+                }
+
+                @Override
+                public void onOverlapEnd(Collider collider1, Collider collider2) {
+                    Node node1 = (Node) collider1.getTransformProvider();
+                    Node node2 = (Node) collider2.getTransformProvider();
+                    for (int i = 0; i < onOverlapListeners.size(); i++) {
+                        onOverlapListeners.get(i).onOverlapEnd(node1, node2);
+                    }
+                }
+            };
+
+    // Scratch ray used by the motion event hit tests.
+    private final Ray motionEventRay = new Ray();
+    // Result of the hit test for each touch event, reused so that touches don't allocate.
+    private final HitTestResult touchHitTestResult = new HitTestResult();
 
     /**
      * Create a scene with the given context.
@@ -95,6 +208,17 @@ public class Scene extends NodeParent {
         camera = new Camera(this);
     }
 
+    /**
+     * FOR TESTING ONLY. Creates a scene that isn't attached to a view, with a camera that is not
+     * controlled by ARCore.
+     */
+    @VisibleForTesting
+    @SuppressWarnings("initialization") // Suppress @UnderInitialization warning.
+    Scene() {
+        view = null;
+        camera = new Camera(this, false);
+    }
+
     /**
      * Returns the SceneView used to create the scene.
      */
@@ -183,16 +307,258 @@ public class Scene extends NodeParent {
         onUpdateListeners.remove(onUpdateListener);
     }
 
+    /**
+     * Adds a listener that will be called once per frame, after the Scene is updated, with the
+     * changes in which nodes overlap each other. Overlaps are only tracked while at least one
+     * listener is added.
+     *
+     * @param onOverlapListener the overlap listener to add
+     */
+    public void addOnOverlapListener(OnOverlapListener onOverlapListener) {
+        Preconditions.checkNotNull(onOverlapListener, "Parameter 'onOverlapListener' was null.");
+        if (!onOverlapListeners.contains(onOverlapListener)) {
+            onOverlapListeners.add(onOverlapListener);
+        }
+    }
+
+    /**
+     * Removes a listener that will be called with the changes in which nodes overlap each other.
+     *
+     * @param onOverlapListener the overlap listener to remove
+     */
+    public void removeOnOverlapListener(OnOverlapListener onOverlapListener) {
+        Preconditions.checkNotNull(onOverlapListener, "Parameter 'onOverlapListener' was null.");
+        onOverlapListeners.remove(onOverlapListener);
+    }
+
     @Override
     public void onAddChild(Node child) {
         super.onAddChild(child);
         child.setSceneRecursively(this);
+        markHierarchyChanged();
     }
 
     @Override
     public void onRemoveChild(Node child) {
         super.onRemoveChild(child);
         child.setSceneRecursively(null);
+        child.onRemovedFromScene();
+        markHierarchyChanged();
+    }
+
+    /**
+     * Sets whether the scene keeps a packed copy of its node hierarchy to update transforms.
+     *
+     * <p>The copy stores the nodes in depth first order, with their world matrices in one flat
+     * array. Each frame, the world transforms of the nodes that moved are resolved, and their
+     * transform changed listeners are called, by a linear sweep over that copy instead of a walk
+     * through the hierarchy. This costs about one extra matrix of memory per node. The copy is
+     * rebuilt on the next frame whenever a node is added or removed, so it helps most in large
+     * scenes whose nodes move every frame but whose hierarchy rarely changes.
+     *
+     * <p>Disabled by default. World transforms read from the nodes are the same either way.
+     */
+    public void setPackedTransformsEnabled(boolean enabled) {
+        if (enabled == (transformStore != null)) {
+            return;
+        }
+
+        if (enabled) {
+            transformStore = new TransformStore(hierarchyChangeId);
+            markHierarchyChanged();
+        } else {
+            transformStore = null;
+        }
+    }
+
+    /** @see #setPackedTransformsEnabled(boolean) */
+    public boolean isPackedTransformsEnabled() {
+        return transformStore != null;
+    }
+
+    /**
+     * Sets whether the scene resolves the world transforms of the nodes that moved on multiple
+     * threads.
+     *
+     * <p>The hierarchies of the top level nodes of the scene, such as anchors, don't depend on each
+     * other. When enabled, each frame the world transforms and collider world shapes of the top
+     * level hierarchies that have nodes that moved are resolved in parallel on the common {@link
+     * ForkJoinPool} before the transform changed listeners are called. The UI thread waits for the
+     * workers to finish, and the listeners are still called on the UI thread. Nodes must still only
+     * be changed from the UI thread. This helps most in scenes with several anchors that each have
+     * a large hierarchy.
+     *
+     * <p>Disabled by default. World transforms read from the nodes are the same either way.
+     */
+    public void setParallelTransformsEnabled(boolean enabled) {
+        AndroidPreconditions.checkUiThread();
+        isParallelTransformsEnabled = enabled;
+    }
+
+    /** @see #setParallelTransformsEnabled(boolean) */
+    public boolean isParallelTransformsEnabled() {
+        return isParallelTransformsEnabled;
+    }
+
+    /**
+     * Sets how far the camera may move from the origin of the scene before the origin is moved to
+     * the camera.
+     *
+     * <p>Node transforms are stored as floats, which lose precision far from the origin. In a
+     * session where the user walks hundreds of meters, this shows up as jitter. When the camera is
+     * farther than this radius from the origin at the start of a frame, the scene calls {@link
+     * #shiftOrigin(double, double, double)} with the position of the camera, so that the content
+     * near the camera stays near the origin.
+     *
+     * <p>Disabled, with a radius of 0, by default.
+     *
+     * @param radius the distance in meters, or 0 to disable
+     */
+    public void setOriginRebasingRadius(float radius) {
+        if (radius < 0.0f) {
+            throw new IllegalArgumentException("Parameter \"radius\" must not be negative.");
+        }
+
+        originRebasingRadius = radius;
+    }
+
+    /** @see #setOriginRebasingRadius(float) */
+    public float getOriginRebasingRadius() {
+        return originRebasingRadius;
+    }
+
+    /**
+     * Moves the origin of the scene by the given offset, in world space. The camera and all top
+     * level nodes, and with them all other nodes, are moved by the negated offset, so nothing moves
+     * relative to the camera or to the ARCore session. The colliders and renderables of the nodes
+     * are kept, and the transform changed listeners are called on the next frame.
+     *
+     * <p>The offset is rounded to float precision, the precision of the node transforms, and added
+     * to the origin in double precision. Positions that are kept outside of nodes must be moved by
+     * the application.
+     *
+     * @see #getOriginX()
+     */
+    public void shiftOrigin(double x, double y, double z) {
+        AndroidPreconditions.checkUiThread();
+
+        float offsetX = (float) x;
+        float offsetY = (float) y;
+        float offsetZ = (float) z;
+        if (offsetX == 0.0f && offsetY == 0.0f && offsetZ == 0.0f) {
+            return;
+        }
+
+        originX += offsetX;
+        originY += offsetY;
+        originZ += offsetZ;
+
+        List<Node> children = getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            children.get(i).shiftOrigin(offsetX, offsetY, offsetZ);
+        }
+    }
+
+    /**
+     * Returns the x coordinate of the origin of the scene in the ARCore session. This is 0 unless
+     * the origin has been shifted.
+     *
+     * @see #shiftOrigin(double, double, double)
+     */
+    public double getOriginX() {
+        return originX;
+    }
+
+    /** @see #getOriginX() */
+    public double getOriginY() {
+        return originY;
+    }
+
+    /** @see #getOriginX() */
+    public double getOriginZ() {
+        return originZ;
+    }
+
+    /**
+     * Converts the position of an ARCore pose, which is relative to the session, to world space.
+     * This is the same as the position of the pose unless the origin has been shifted. Rotations
+     * are the same in both.
+     *
+     * @param pose the pose to convert
+     * @param dest the vector to set to the world space position
+     */
+    public void sessionToWorldPosition(Pose pose, Vector3 dest) {
+        Preconditions.checkNotNull(pose, "Parameter \"pose\" was null.");
+        Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+        dest.set(
+                (float) (pose.tx() - originX),
+                (float) (pose.ty() - originY),
+                (float) (pose.tz() - originZ));
+    }
+
+    /**
+     * Converts a world space transform to an ARCore pose relative to the session, for example to
+     * create an anchor at the position of a node.
+     *
+     * @param position the world space position
+     * @param rotation the world space rotation
+     */
+    public Pose worldToSessionPose(Vector3 position, Quaternion rotation) {
+        Preconditions.checkNotNull(position, "Parameter \"position\" was null.");
+        Preconditions.checkNotNull(rotation, "Parameter \"rotation\" was null.");
+
+        return new Pose(
+                new float[] {
+                    (float) (position.x + originX),
+                    (float) (position.y + originY),
+                    (float) (position.z + originZ)
+                },
+                new float[] {rotation.x, rotation.y, rotation.z, rotation.w});
+    }
+
+    /** Moves the origin to the camera if the camera is outside of the rebasing radius. */
+    void rebaseOriginIfNeeded() {
+        Camera camera = this.camera;
+        if (originRebasingRadius <= 0.0f || camera == null) {
+            return;
+        }
+
+        camera.getWorldPosition(cameraPosition);
+        if (cameraPosition.lengthSquared() > originRebasingRadius * originRebasingRadius) {
+            shiftOrigin(cameraPosition.x, cameraPosition.y, cameraPosition.z);
+        }
+    }
+
+    @Override
+    final Scene getContainingScene() {
+        return this;
+    }
+
+    /**
+     * Starts collecting the renderer work of the nodes that are activated until the matching {@link
+     * #endAttachBatch()}, so that it is done together. Batches may be nested.
+     */
+    void beginAttachBatch() {
+        Renderer renderer = getRenderer();
+        if (renderer != null) {
+            renderer.beginEntityBatch();
+        }
+    }
+
+    /**
+     * Ends a batch started by {@link #beginAttachBatch()}. Must be called from a finally block, so
+     * that an exception thrown while attaching doesn't leave the renderer collecting entities.
+     */
+    void endAttachBatch() {
+        Renderer renderer = getRenderer();
+        if (renderer != null) {
+            renderer.endEntityBatch();
+        }
+    }
+
+    void markHierarchyChanged() {
+        hierarchyChangeId.update();
     }
 
     /**
@@ -206,14 +572,57 @@ public class Scene extends NodeParent {
      * information about where the motion event hit the node in world-space
      */
     public HitTestResult hitTest(MotionEvent motionEvent, boolean onlySelectableNodes) {
+        HitTestResult result = new HitTestResult();
+        hitTest(motionEvent, onlySelectableNodes, result);
+        return result;
+    }
+
+    /**
+     * Tests to see if a motion event is touching any nodes within the scene and stores the node
+     * closest to the screen in an existing HitTestResult. Unlike {@link #hitTest(MotionEvent,
+     * boolean)}, this doesn't allocate, so it can be called every frame.
+     *
+     * @param motionEvent         the motion event to use for the test
+     * @param onlySelectableNodes Filter the HitTestResult on only selectable nodes
+     * @param result              populated with the first node that was hit by the motion event
+     *                            (may be null), and where the motion event hit the node in
+     *                            world-space
+     * @return true if a node was hit
+     */
+    public boolean hitTest(
+            MotionEvent motionEvent, boolean onlySelectableNodes, HitTestResult result) {
+        return hitTest(motionEvent, onlySelectableNodes, ALL_COLLISION_LAYERS, result);
+    }
+
+    /**
+     * Tests to see if a motion event is touching any nodes in the given collision layers and
+     * stores the node closest to the screen in an existing HitTestResult. Nodes outside of the
+     * layers are skipped before their collision shapes are tested.
+     *
+     * @param motionEvent         the motion event to use for the test
+     * @param onlySelectableNodes Filter the HitTestResult on only selectable nodes
+     * @param layerMask           only nodes in at least one of these collision layers are tested
+     * @param result              populated with the first node that was hit by the motion event
+     *                            (may be null), and where the motion event hit the node in
+     *                            world-space
+     * @return true if a node was hit
+     * @see Node#setCollisionLayerMask(int)
+     */
+    public boolean hitTest(
+            MotionEvent motionEvent,
+            boolean onlySelectableNodes,
+            int layerMask,
+            HitTestResult result) {
         Preconditions.checkNotNull(motionEvent, "Parameter \"motionEvent\" was null.");
+        Preconditions.checkNotNull(result, "Parameter \"result\" was null.");
 
         if (camera == null) {
-            return new HitTestResult();
+            result.reset();
+            return false;
         }
 
-        Ray ray = camera.motionEventToRay(motionEvent);
-        return hitTest(ray, onlySelectableNodes);
+        camera.motionEventToRay(motionEvent, motionEventRay);
+        return hitTest(motionEventRay, onlySelectableNodes, layerMask, result);
     }
 
     /**
@@ -227,15 +636,54 @@ public class Scene extends NodeParent {
      * @see Camera#screenPointToRay(float, float)
      */
     public HitTestResult hitTest(Ray ray, boolean onlySelectableNodes) {
+        HitTestResult result = new HitTestResult();
+        hitTest(ray, onlySelectableNodes, result);
+        return result;
+    }
+
+    /**
+     * Tests to see if a ray is hitting any nodes within the scene and stores the node closest to
+     * the ray origin in an existing HitTestResult. Unlike {@link #hitTest(Ray, boolean)}, this
+     * doesn't allocate, so it can be called every frame.
+     *
+     * @param ray                 the ray to use for the test
+     * @param onlySelectableNodes Filter the HitTestResult on only selectable nodes
+     * @param result              populated with the first node that was hit by the ray (may be
+     *                            null), and where the ray hit the node in world-space
+     * @return true if a node was hit
+     * @see Camera#screenPointToRay(float, float, Ray)
+     */
+    public boolean hitTest(Ray ray, boolean onlySelectableNodes, HitTestResult result) {
+        return hitTest(ray, onlySelectableNodes, ALL_COLLISION_LAYERS, result);
+    }
+
+    /**
+     * Tests to see if a ray is hitting any nodes in the given collision layers and stores the node
+     * closest to the ray origin in an existing HitTestResult. Nodes outside of the layers are
+     * skipped before their collision shapes are tested.
+     *
+     * @param ray                 the ray to use for the test
+     * @param onlySelectableNodes Filter the HitTestResult on only selectable nodes
+     * @param layerMask           only nodes in at least one of these collision layers are tested
+     * @param result              populated with the first node that was hit by the ray (may be
+     *                            null), and where the ray hit the node in world-space
+     * @return true if a node was hit
+     * @see Node#setCollisionLayerMask(int)
+     */
+    public boolean hitTest(
+            Ray ray, boolean onlySelectableNodes, int layerMask, HitTestResult result) {
         Preconditions.checkNotNull(ray, "Parameter \"ray\" was null.");
+        Preconditions.checkNotNull(result, "Parameter \"result\" was null.");
 
-        HitTestResult result = new HitTestResult();
-        Collider collider = collisionSystem.raycast(ray, result, onlySelectableNodes);
-        if (collider != null) {
-            result.setNode((Node) collider.getTransformProvider());
+        Collider collider =
+                collisionSystem.raycast(
+                        ray, result, onlySelectableNodes, Float.MAX_VALUE, layerMask);
+        if (collider == null) {
+            return false;
         }
 
-        return result;
+        result.setNode((Node) collider.getTransformProvider());
+        return true;
     }
 
     /**
@@ -279,6 +727,115 @@ public class Scene extends NodeParent {
         return results;
     }
 
+    /**
+     * Tests to see if a motion event is touching any nodes within the scene and stores the nearest
+     * hits in an existing list, sorted by distance.
+     *
+     * @param motionEvent The motion event to use for the test.
+     * @param maxHits     The maximum number of hits to return, must be greater than zero.
+     * @param maxDistance The maximum distance from the camera's near plane to test.
+     * @param results     Populated with a HitTestResult for each node that was hit sorted by
+     *                    distance. Existing results are reused, and results past the returned
+     *                    count are reset.
+     * @return The number of nodes that were hit.
+     * @see #hitTestAll(Ray, int, float, ArrayList)
+     */
+    public int hitTestAll(
+            MotionEvent motionEvent,
+            int maxHits,
+            float maxDistance,
+            ArrayList<HitTestResult> results) {
+        return hitTestAll(motionEvent, maxHits, maxDistance, ALL_COLLISION_LAYERS, results);
+    }
+
+    /**
+     * Tests to see if a motion event is touching any nodes in the given collision layers and stores
+     * the nearest hits in an existing list, sorted by distance.
+     *
+     * @param motionEvent The motion event to use for the test.
+     * @param maxHits     The maximum number of hits to return, must be greater than zero.
+     * @param maxDistance The maximum distance from the camera's near plane to test.
+     * @param layerMask   Only nodes in at least one of these collision layers are tested.
+     * @param results     Populated with a HitTestResult for each node that was hit sorted by
+     *                    distance. Existing results are reused, and results past the returned
+     *                    count are reset.
+     * @return The number of nodes that were hit.
+     * @see Node#setCollisionLayerMask(int)
+     */
+    public int hitTestAll(
+            MotionEvent motionEvent,
+            int maxHits,
+            float maxDistance,
+            int layerMask,
+            ArrayList<HitTestResult> results) {
+        Preconditions.checkNotNull(motionEvent, "Parameter \"motionEvent\" was null.");
+        Preconditions.checkNotNull(results, "Parameter \"results\" was null.");
+
+        if (camera == null) {
+            for (int i = 0; i < results.size(); i++) {
+                results.get(i).reset();
+            }
+            return 0;
+        }
+
+        camera.motionEventToRay(motionEvent, motionEventRay);
+        return hitTestAll(motionEventRay, maxHits, maxDistance, layerMask, results);
+    }
+
+    /**
+     * Tests to see if a ray is hitting any nodes within the scene and stores the nearest hits in
+     * an existing list, sorted by distance. Unlike {@link #hitTestAll(Ray)}, only the nearest
+     * maxHits nodes are kept and sorted, and nothing is allocated once the list holds enough
+     * results.
+     *
+     * @param ray         The ray to use for the test.
+     * @param maxHits     The maximum number of hits to return, must be greater than zero.
+     * @param maxDistance The maximum distance along the ray to test.
+     * @param results     Populated with a HitTestResult for each node that was hit sorted by
+     *                    distance. Existing results are reused, and results past the returned
+     *                    count are reset.
+     * @return The number of nodes that were hit.
+     * @see Camera#screenPointToRay(float, float, Ray)
+     */
+    public int hitTestAll(
+            Ray ray, int maxHits, float maxDistance, ArrayList<HitTestResult> results) {
+        return hitTestAll(ray, maxHits, maxDistance, ALL_COLLISION_LAYERS, results);
+    }
+
+    /**
+     * Tests to see if a ray is hitting any nodes in the given collision layers and stores the
+     * nearest hits in an existing list, sorted by distance. Nodes outside of the layers are skipped
+     * before their collision shapes are tested.
+     *
+     * @param ray         The ray to use for the test.
+     * @param maxHits     The maximum number of hits to return, must be greater than zero.
+     * @param maxDistance The maximum distance along the ray to test.
+     * @param layerMask   Only nodes in at least one of these collision layers are tested.
+     * @param results     Populated with a HitTestResult for each node that was hit sorted by
+     *                    distance. Existing results are reused, and results past the returned
+     *                    count are reset.
+     * @return The number of nodes that were hit.
+     * @see Node#setCollisionLayerMask(int)
+     */
+    public int hitTestAll(
+            Ray ray,
+            int maxHits,
+            float maxDistance,
+            int layerMask,
+            ArrayList<HitTestResult> results) {
+        Preconditions.checkNotNull(ray, "Parameter \"ray\" was null.");
+        Preconditions.checkNotNull(results, "Parameter \"results\" was null.");
+
+        return collisionSystem.raycastAll(
+                ray,
+                maxHits,
+                maxDistance,
+                layerMask,
+                results,
+                (result, collider) -> result.setNode((Node) collider.getTransformProvider()),
+                HitTestResult::new);
+    }
+
     /**
      * Tests to see if the given node's collision shape overlaps the collision shape of any other
      * nodes in the scene using {@link Node#getCollisionShape()}. The node used for testing does not
@@ -292,6 +849,22 @@ public class Scene extends NodeParent {
      */
     @Nullable
     public Node overlapTest(Node node) {
+        return overlapTest(node, ALL_COLLISION_LAYERS);
+    }
+
+    /**
+     * Tests to see if the given node's collision shape overlaps the collision shape of any other
+     * nodes in the given collision layers. Nodes outside of the layers are skipped before their
+     * collision shapes are tested.
+     *
+     * @param node      The node to use for the test.
+     * @param layerMask Only nodes in at least one of these collision layers are tested.
+     * @return A node that is overlapping the test node, or null if there isn't one.
+     * @see #overlapTest(Node)
+     * @see Node#setCollisionLayerMask(int)
+     */
+    @Nullable
+    public Node overlapTest(Node node, int layerMask) {
         Preconditions.checkNotNull(node, "Parameter \"node\" was null.");
 
         Collider collider = node.getCollider();
@@ -299,7 +872,7 @@ public class Scene extends NodeParent {
             return null;
         }
 
-        Collider intersectedCollider = collisionSystem.intersects(collider);
+        Collider intersectedCollider = collisionSystem.intersects(collider, layerMask);
         if (intersectedCollider == null) {
             return null;
         }
@@ -317,6 +890,21 @@ public class Scene extends NodeParent {
      * @see #overlapTest(Node)
      */
     public ArrayList<Node> overlapTestAll(Node node) {
+        return overlapTestAll(node, ALL_COLLISION_LAYERS);
+    }
+
+    /**
+     * Tests to see if a node is overlapping any other nodes in the given collision layers. Nodes
+     * outside of the layers are skipped before their collision shapes are tested.
+     *
+     * @param node      The node to use for the test.
+     * @param layerMask Only nodes in at least one of these collision layers are tested.
+     * @return A list of all nodes that are overlapping the test node. If no node is overlapping the
+     * test node, then the list is empty.
+     * @see #overlapTestAll(Node)
+     * @see Node#setCollisionLayerMask(int)
+     */
+    public ArrayList<Node> overlapTestAll(Node node, int layerMask) {
         Preconditions.checkNotNull(node, "Parameter \"node\" was null.");
 
         ArrayList<Node> results = new ArrayList<>();
@@ -328,12 +916,67 @@ public class Scene extends NodeParent {
 
         collisionSystem.intersectsAll(
                 collider,
+                layerMask,
                 (Collider intersectedCollider) ->
                         results.add((Node) intersectedCollider.getTransformProvider()));
 
         return results;
     }
 
+    /**
+     * Tests to see if a node would touch any other nodes in the given collision layers while moving
+     * in a straight line, and stores the first node touched in an existing HitTestResult. The node
+     * used for testing is not moved and does not need to be active.
+     *
+     * @param node      The node to use for the test.
+     * @param from      The world-space position of the node at the start of the movement.
+     * @param to        The world-space position of the node at the end of the movement.
+     * @param layerMask Only nodes in at least one of these collision layers are tested.
+     * @param result    Populated with the first node touched (may be null), the distance that the
+     *                  test node travels before touching it, and the world-space position of the
+     *                  test node at that point.
+     * @return true if a node was touched
+     * @see CollisionSystem#sweep
+     */
+    public boolean sweepTest(
+            Node node, Vector3 from, Vector3 to, int layerMask, HitTestResult result) {
+        Preconditions.checkNotNull(node, "Parameter \"node\" was null.");
+        Preconditions.checkNotNull(result, "Parameter \"result\" was null.");
+
+        Collider collider = node.getCollider();
+        if (collider == null) {
+            result.reset();
+            return false;
+        }
+
+        Collider sweptCollider = collisionSystem.sweep(collider, from, to, layerMask, result);
+        if (sweptCollider == null) {
+            return false;
+        }
+
+        result.setNode((Node) sweptCollider.getTransformProvider());
+        return true;
+    }
+
+    /**
+     * Finds every pair of nodes in the scene whose collision shapes overlap each other. Each pair is
+     * reported once. This is much cheaper than calling {@link #overlapTestAll(Node)} for every
+     * node.
+     *
+     * @param processPair called for each pair of overlapping nodes
+     * @see #addOnOverlapListener(OnOverlapListener)
+     */
+    @SuppressWarnings("AndroidApiChecker")
+    public void findAllOverlappingPairs(BiConsumer<Node, Node> processPair) {
+        Preconditions.checkNotNull(processPair, "Parameter \"processPair\" was null.");
+
+        collisionSystem.findAllOverlappingPairs(
+                (collider1, collider2) ->
+                        processPair.accept(
+                                (Node) collider1.getTransformProvider(),
+                                (Node) collider2.getTransformProvider()));
+    }
+
     /**
      * Returns the renderer used for this scene, or null if the renderer is not setup.
      */
@@ -345,15 +988,184 @@ public class Scene extends NodeParent {
     void onTouchEvent(MotionEvent motionEvent) {
         Preconditions.checkNotNull(motionEvent, "Parameter \"motionEvent\" was null.");
 
-        HitTestResult hitTestResult = hitTest(motionEvent, true);
-        touchEventSystem.onTouchEvent(hitTestResult, motionEvent);
+        hitTest(motionEvent, true, touchHitTestResult);
+        touchEventSystem.onTouchEvent(touchHitTestResult, motionEvent);
+    }
+
+    /** Queues the transform changed listeners of a node and its descendants for the next frame. */
+    void queueTransformChanged(Node node) {
+        if (!node.isTransformChangeQueued) {
+            node.isTransformChangeQueued = true;
+            node.transformChangeQueueIndex = transformChangedNodes.size();
+            transformChangedNodes.add(node);
+        }
+    }
+
+    /**
+     * Takes a node that is leaving the scene out of the transform changed queue. Removing the node
+     * dispatches its listeners right away, so the queued dispatch would call them a second time.
+     */
+    void dequeueTransformChanged(Node node) {
+        if (node.isTransformChangeQueued) {
+            node.isTransformChangeQueued = false;
+            transformChangedNodes.set(node.transformChangeQueueIndex, null);
+            node.transformChangeQueueIndex = -1;
+        }
+    }
+
+    private void dispatchTransformChanged() {
+        if (transformChangedNodes.isEmpty()) {
+            return;
+        }
+
+        ArrayList<Node> nodes = transformChangedNodes;
+        transformChangedNodes = dispatchingTransformChangedNodes;
+        dispatchingTransformChangedNodes = nodes;
+
+        // Nodes with a queued ancestor are dispatched as part of the ancestor's hierarchy.
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            if (node != null && hasQueuedAncestor(node)) {
+                node.isTransformChangeQueued = false;
+                nodes.set(i, null);
+            }
+        }
+
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            if (node != null) {
+                node.isTransformChangeQueued = false;
+                node.transformChangeQueueIndex = -1;
+            }
+        }
+
+        TransformStore transformStore = this.transformStore;
+        if (transformStore != null) {
+            transformStore.update(this);
+        }
+
+        if (isParallelTransformsEnabled) {
+            resolveWorldTransformsInParallel(nodes);
+        }
+
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            if (node == null) {
+                continue;
+            }
+
+            // A listener may have removed a node that is still waiting here. Removing it already
+            // dispatched its listeners, and a new scene queues it on its own.
+            if (node.getScene() != this) {
+                continue;
+            }
+
+            if (transformStore == null || !transformStore.dispatchTransformChanged(node)) {
+                node.dispatchTransformChangedRecursively(node);
+            }
+        }
+
+        nodes.clear();
+    }
+
+    /**
+     * Resolves the world transforms of the queued nodes and their descendants on the common {@link
+     * ForkJoinPool}. The work is split by the top level nodes of the scene, such as anchors, whose
+     * hierarchies don't share any nodes, so each task only reads and writes the nodes of its own
+     * hierarchies. Nothing changes the hierarchy while the workers run, since the UI thread waits.
+     */
+    private void resolveWorldTransformsInParallel(ArrayList<Node> nodes) {
+        ArrayList<Node> roots = parallelResolveRoots;
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            if (node == null || node.getScene() != this) {
+                continue;
+            }
+
+            Node root = node;
+            while (root.getParentNode() != null) {
+                root = root.getParentNode();
+            }
+
+            if (!root.isCollectedForParallelResolve) {
+                root.isCollectedForParallelResolve = true;
+                roots.add(root);
+            }
+        }
+
+        // A single hierarchy is resolved as its listeners are called.
+        if (roots.size() >= 2) {
+            // Several hierarchies are resolved by each task, so that small hierarchies don't cost
+            // more to schedule than to resolve.
+            int threshold =
+                    Math.max(1, roots.size() / (ForkJoinPool.getCommonPoolParallelism() * 4));
+            ForkJoinPool.commonPool()
+                    .invoke(new ResolveWorldTransformsTask(roots, 0, roots.size(), threshold));
+        }
+
+        for (int i = 0; i < roots.size(); i++) {
+            roots.get(i).isCollectedForParallelResolve = false;
+        }
+        roots.clear();
+    }
+
+    private static boolean hasQueuedAncestor(Node node) {
+        for (Node parent = node.getParentNode(); parent != null; parent = parent.getParentNode()) {
+            if (parent.isTransformChangeQueued) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     void dispatchUpdate(FrameTime frameTime) {
-        for (OnUpdateListener onUpdateListener : onUpdateListeners) {
-            onUpdateListener.onUpdate(frameTime);
+        rebaseOriginIfNeeded();
+
+        // Indexed, so that a frame doesn't allocate an iterator.
+        for (int i = 0; i < onUpdateListeners.size(); i++) {
+            onUpdateListeners.get(i).onUpdate(frameTime);
         }
 
-        callOnHierarchy(node -> node.dispatchUpdate(frameTime));
+        updateList.dispatchUpdate(frameTime);
+
+        dispatchTransformChanged();
+
+        if (!onOverlapListeners.isEmpty()) {
+            collisionSystem.updateOverlaps(ALL_COLLISION_LAYERS, overlapDispatcher);
+        }
+    }
+
+    /**
+     * Splits the top level nodes in half until each task resolves at most the threshold number of
+     * hierarchies.
+     */
+    private static final class ResolveWorldTransformsTask extends RecursiveAction {
+        private final ArrayList<Node> roots;
+        private final int start;
+        private final int end;
+        private final int threshold;
+
+        ResolveWorldTransformsTask(ArrayList<Node> roots, int start, int end, int threshold) {
+            this.roots = roots;
+            this.start = start;
+            this.end = end;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= threshold) {
+                for (int i = start; i < end; i++) {
+                    roots.get(i).resolveWorldTransformsRecursively();
+                }
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+            invokeAll(
+                    new ResolveWorldTransformsTask(roots, start, middle, threshold),
+                    new ResolveWorldTransformsTask(roots, middle, end, threshold));
+        }
     }
 }
@@ -125,8 +125,8 @@ public class TouchEventSystem {
 
     // Dispatch touch event to the peek touch listener, which reveives all events even if the
     // gesture is being consumed.
-    for (OnPeekTouchListener onPeekTouchListener : onPeekTouchListeners) {
-      onPeekTouchListener.onPeekTouch(hitTestResult, motionEvent);
+    for (int i = 0; i < onPeekTouchListeners.size(); i++) {
+      onPeekTouchListeners.get(i).onPeekTouch(hitTestResult, motionEvent);
     }
 
     // If the touch listener is already handling the gesture, always dispatch to it.
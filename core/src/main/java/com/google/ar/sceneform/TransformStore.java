@@ -0,0 +1,152 @@
+package com.google.ar.sceneform;
+
+import com.google.ar.sceneform.math.Matrix;
+import com.google.ar.sceneform.utilities.ChangeId;
+import com.google.ar.sceneform.utilities.Preconditions;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Packed copy of the scene graph, used by {@link Scene} to resolve world transforms and call the
+ * transform changed listeners without walking the hierarchy.
+ *
+ * <p>Nodes are stored in depth first order, so every parent comes before its children and the
+ * hierarchy of a node is the range of nodes that directly follows it. The world matrices are
+ * stored one after another in a single array, so resolving the world transforms of a hierarchy is
+ * a linear sweep over that range. The resolved world transforms are copied back to the nodes, so
+ * reading them from a node works the same as without the store.
+ */
+class TransformStore {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MATRIX_SIZE = 16;
+
+    private Node[] nodes = new Node[INITIAL_CAPACITY];
+    // Index of the parent of each node, or -1 for top level nodes.
+    private int[] parentIndices = new int[INITIAL_CAPACITY];
+    // Number of nodes in the hierarchy of each node, including the node itself.
+    private int[] hierarchySizes = new int[INITIAL_CAPACITY];
+    // Whether the world transform of each node was resolved by the current sweep.
+    private boolean[] isResolved = new boolean[INITIAL_CAPACITY];
+    private float[] worldMatrices = new float[INITIAL_CAPACITY * MATRIX_SIZE];
+    private int count;
+
+    private final ChangeId hierarchyChangeId;
+    private int hierarchyId = ChangeId.EMPTY_ID;
+
+    /**
+     * @param hierarchyChangeId updated by the scene whenever a node is added to or removed from a
+     *     parent within the scene
+     */
+    TransformStore(ChangeId hierarchyChangeId) {
+        Preconditions.checkNotNull(hierarchyChangeId, "Parameter \"hierarchyChangeId\" was null.");
+        this.hierarchyChangeId = hierarchyChangeId;
+    }
+
+    /** Rebuilds the depth first order if the hierarchy of the scene changed since the last call. */
+    void update(Scene scene) {
+        Preconditions.checkNotNull(scene, "Parameter \"scene\" was null.");
+
+        if (!hierarchyChangeId.checkChanged(hierarchyId)) {
+            return;
+        }
+
+        Arrays.fill(nodes, 0, count, null);
+        count = 0;
+
+        List<Node> children = scene.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            add(children.get(i), -1);
+        }
+
+        hierarchyId = hierarchyChangeId.get();
+    }
+
+    /**
+     * Resolves the world transforms of the node and its descendants and calls their transform
+     * changed listeners, parents before children.
+     *
+     * @return false if the node isn't in the store, in which case nothing is done
+     */
+    boolean dispatchTransformChanged(Node originatingNode) {
+        if (hierarchyChangeId.checkChanged(hierarchyId)) {
+            return false;
+        }
+
+        int start = originatingNode.transformStoreIndex;
+        if (start < 0 || start >= count || nodes[start] != originatingNode) {
+            return false;
+        }
+
+        Scene scene = originatingNode.getScene();
+        int end = start + hierarchySizes[start];
+        for (int i = start; i < end; i++) {
+            Node node = nodes[i];
+            // The listeners may have removed the node from the scene.
+            if (node.getScene() != scene) {
+                isResolved[i] = false;
+                continue;
+            }
+
+            // If the listeners changed the hierarchy, the order is out of date and the world
+            // transforms are left to be resolved when they are read.
+            isResolved[i] =
+                    node.isWorldTransformDirty() && !hierarchyChangeId.checkChanged(hierarchyId);
+            if (isResolved[i]) {
+                resolveWorldTransform(i, start);
+            }
+
+            node.dispatchTransformChanged(originatingNode);
+        }
+
+        return true;
+    }
+
+    private void resolveWorldTransform(int index, int start) {
+        Node node = nodes[index];
+        float[] localMatrix = node.getLocalModelMatrixInternal().data;
+        int offset = index * MATRIX_SIZE;
+        int parentIndex = parentIndices[index];
+        if (parentIndex < 0) {
+            System.arraycopy(localMatrix, 0, worldMatrices, offset, MATRIX_SIZE);
+        } else if (parentIndex >= start && isResolved[parentIndex]) {
+            Matrix.multiply(
+                    worldMatrices, parentIndex * MATRIX_SIZE, localMatrix, 0, worldMatrices, offset);
+        } else {
+            // The parent wasn't resolved by this sweep, so its cached world transform is used. This
+            // resolves it first if it is dirty.
+            Matrix.multiply(
+                    nodes[parentIndex].getWorldModelMatrix().data,
+                    0,
+                    localMatrix,
+                    0,
+                    worldMatrices,
+                    offset);
+        }
+
+        node.setWorldModelMatrixInternal(worldMatrices, offset);
+    }
+
+    private void add(Node node, int parentIndex) {
+        if (count == nodes.length) {
+            int capacity = count * 2;
+            nodes = Arrays.copyOf(nodes, capacity);
+            parentIndices = Arrays.copyOf(parentIndices, capacity);
+            hierarchySizes = Arrays.copyOf(hierarchySizes, capacity);
+            isResolved = Arrays.copyOf(isResolved, capacity);
+            worldMatrices = Arrays.copyOf(worldMatrices, capacity * MATRIX_SIZE);
+        }
+
+        int index = count++;
+        nodes[index] = node;
+        parentIndices[index] = parentIndex;
+        node.transformStoreIndex = index;
+
+        List<Node> children = node.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            add(children.get(i), index);
+        }
+
+        hierarchySizes[index] = count - index;
+    }
+}
@@ -16,6 +16,7 @@ public class Box extends CollisionShape {
   private static final String TAG = Box.class.getSimpleName();
   private final Vector3 center = Vector3.zero();
   private final Vector3 size = Vector3.one();
+  // The axes of the box are the columns of the rotation matrix.
   private final Matrix rotationMatrix = new Matrix();
 
   /** Create a box with a center of (0,0,0) and a size of (1,1,1). */
@@ -96,7 +97,9 @@ public class Box extends CollisionShape {
    * @return a new vector that represents the box's extents
    */
   public Vector3 getExtents() {
-    return getSize().scaled(0.5f);
+    Vector3 extents = getSize();
+    extents.scaled(0.5f, extents);
+    return extents;
   }
 
   /**
@@ -128,6 +131,24 @@ public class Box extends CollisionShape {
     return new Box(getSize(), getCenter());
   }
 
+  /**
+   * Get the raw center of the box. Do not modify directly. Instead, use setCenter.
+   *
+   * @return a reference to the box's raw center
+   */
+  Vector3 getRawCenter() {
+    return center;
+  }
+
+  /**
+   * Get the raw size of the box. Do not modify directly. Instead, use setSize.
+   *
+   * @return a reference to the box's raw size
+   */
+  Vector3 getRawSize() {
+    return size;
+  }
+
   /**
    * Get the raw rotation matrix representing the box's orientation. Do not modify directly.
    * Instead, use setRotation.
@@ -144,10 +165,8 @@ public class Box extends CollisionShape {
     Preconditions.checkNotNull(ray, "Parameter \"ray\" was null.");
     Preconditions.checkNotNull(result, "Parameter \"result\" was null.");
 
-    Vector3 rayDirection = ray.getDirection();
-    Vector3 rayOrigin = ray.getOrigin();
-    Vector3 max = getExtents();
-    Vector3 min = max.negated();
+    Vector3 rayDirection = ray.getRawDirection();
+    Vector3 rayOrigin = ray.getRawOrigin();
 
     // tMin is the farthest "near" intersection (amongst the X,Y and Z planes pairs)
     float tMin = Float.MIN_VALUE;
@@ -155,89 +174,45 @@ public class Box extends CollisionShape {
     // tMax is the nearest "far" intersection (amongst the X,Y and Z planes pairs)
     float tMax = Float.MAX_VALUE;
 
-    Vector3 delta = Vector3.subtract(center, rayOrigin);
+    float deltaX = center.x - rayOrigin.x;
+    float deltaY = center.y - rayOrigin.y;
+    float deltaZ = center.z - rayOrigin.z;
 
-    // Test intersection with the 2 planes perpendicular to the OBB's x axis.
+    // Test intersection with the 2 planes perpendicular to each of the OBB's axes.
     float[] axes = rotationMatrix.data;
-    Vector3 axis = new Vector3(axes[0], axes[1], axes[2]);
-    float e = Vector3.dot(axis, delta);
-    float f = Vector3.dot(rayDirection, axis);
-
-    if (!MathHelper.almostEqualRelativeAndAbs(f, 0.0f)) {
-      float t1 = (e + min.x) / f;
-      float t2 = (e + max.x) / f;
-
-      if (t1 > t2) {
-        float temp = t1;
-        t1 = t2;
-        t2 = temp;
-      }
-
-      tMax = Math.min(t2, tMax);
-      tMin = Math.max(t1, tMin);
-
-      if (tMax < tMin) {
+    for (int i = 0; i < 3; i++) {
+      int offset = i * 4;
+      float axisX = axes[offset];
+      float axisY = axes[offset + 1];
+      float axisZ = axes[offset + 2];
+      float extent = (i == 0 ? size.x : i == 1 ? size.y : size.z) * 0.5f;
+
+      float e = axisX * deltaX + axisY * deltaY + axisZ * deltaZ;
+      float f = rayDirection.x * axisX + rayDirection.y * axisY + rayDirection.z * axisZ;
+
+      if (!MathHelper.almostEqualRelativeAndAbs(f, 0.0f)) {
+        float t1 = (e - extent) / f;
+        float t2 = (e + extent) / f;
+
+        if (t1 > t2) {
+          float temp = t1;
+          t1 = t2;
+          t2 = temp;
+        }
+
+        tMax = Math.min(t2, tMax);
+        tMin = Math.max(t1, tMin);
+
+        if (tMax < tMin) {
+          return false;
+        }
+      } else if (-e - extent > 0.0f || -e + extent < 0.0f) {
+        // Ray is almost parallel to one of the planes.
         return false;
       }
-    } else if (-e + min.x > 0.0f || -e + max.x < 0.0f) {
-      // Ray is almost parallel to one of the planes.
-      return false;
     }
 
-    // Test intersection with the 2 planes perpendicular to the OBB's y axis.
-    axis = new Vector3(axes[4], axes[5], axes[6]);
-    e = Vector3.dot(axis, delta);
-    f = Vector3.dot(rayDirection, axis);
-
-    if (!MathHelper.almostEqualRelativeAndAbs(f, 0.0f)) {
-      float t1 = (e + min.y) / f;
-      float t2 = (e + max.y) / f;
-
-      if (t1 > t2) {
-        float temp = t1;
-        t1 = t2;
-        t2 = temp;
-      }
-
-      tMax = Math.min(t2, tMax);
-      tMin = Math.max(t1, tMin);
-
-      if (tMax < tMin) {
-        return false;
-      }
-    } else if (-e + min.y > 0.0f || -e + max.y < 0.0f) {
-      // Ray is almost parallel to one of the planes.
-      return false;
-    }
-
-    // Test intersection with the 2 planes perpendicular to the OBB's z axis.
-    axis = new Vector3(axes[8], axes[9], axes[10]);
-    e = Vector3.dot(axis, delta);
-    f = Vector3.dot(rayDirection, axis);
-
-    if (!MathHelper.almostEqualRelativeAndAbs(f, 0.0f)) {
-      float t1 = (e + min.z) / f;
-      float t2 = (e + max.z) / f;
-
-      if (t1 > t2) {
-        float temp = t1;
-        t1 = t2;
-        t2 = temp;
-      }
-
-      tMax = Math.min(t2, tMax);
-      tMin = Math.max(t1, tMin);
-
-      if (tMax < tMin) {
-        return false;
-      }
-    } else if (-e + min.z > 0.0f || -e + max.z < 0.0f) {
-      // Ray is almost parallel to one of the planes.
-      return false;
-    }
-
-    result.setDistance(tMin);
-    result.setPoint(ray.getPoint(result.getDistance()));
+    result.setHit(ray, tMin);
     return true;
   }
 
@@ -260,6 +235,22 @@ public class Box extends CollisionShape {
     return Intersections.boxBoxIntersection(this, box);
   }
 
+  @Override
+  float sweepIntersection(CollisionShape shape, Vector3 startOffset, Vector3 motion) {
+    Preconditions.checkNotNull(shape, "Parameter \"shape\" was null.");
+    return shape.boxSweepIntersection(this, startOffset, motion);
+  }
+
+  @Override
+  float sphereSweepIntersection(Sphere sphere, Vector3 startOffset, Vector3 motion) {
+    return Intersections.sphereBoxSweep(sphere, this, startOffset, motion);
+  }
+
+  @Override
+  float boxSweepIntersection(Box box, Vector3 startOffset, Vector3 motion) {
+    return Intersections.boxBoxSweep(box, this, startOffset, motion);
+  }
+
   @Override
   CollisionShape transform(TransformProvider transformProvider) {
     Preconditions.checkNotNull(transformProvider, "Parameter \"transformProvider\" was null.");
@@ -288,17 +279,40 @@ public class Box extends CollisionShape {
     Matrix modelMatrix = transformProvider.getWorldModelMatrix();
 
     // Transform the center of the box.
-    resultBox.center.set(modelMatrix.transformPoint(center));
+    modelMatrix.transformPoint(center, resultBox.center);
 
-    // Transform the size of the box.
-    Vector3 worldScale = new Vector3();
+    // Transform the rotation of the box. The world scale is decomposed into the size of the result
+    // box, which can't be this box.
+    Vector3 worldScale = resultBox.size;
     modelMatrix.decomposeScale(worldScale);
+    modelMatrix.decomposeRotation(worldScale, resultBox.rotationMatrix);
+    Matrix.multiply(resultBox.rotationMatrix, rotationMatrix, resultBox.rotationMatrix);
+
+    // Transform the size of the box.
     resultBox.size.x = size.x * worldScale.x;
     resultBox.size.y = size.y * worldScale.y;
     resultBox.size.z = size.z * worldScale.z;
+  }
 
-    // Transform the rotation of the box.
-    modelMatrix.decomposeRotation(worldScale, resultBox.rotationMatrix);
-    Matrix.multiply(rotationMatrix, resultBox.rotationMatrix, resultBox.rotationMatrix);
+  @Override
+  void getBounds(Vector3 destMin, Vector3 destMax) {
+    float extentX = size.x * 0.5f;
+    float extentY = size.y * 0.5f;
+    float extentZ = size.z * 0.5f;
+    float[] axes = rotationMatrix.data;
+
+    // The axes of the box are the columns of the rotation matrix, so the half size of the bounds
+    // along each world axis is the sum of the extents projected from each box axis.
+    float halfX = projectExtents(axes[0], axes[4], axes[8], extentX, extentY, extentZ);
+    float halfY = projectExtents(axes[1], axes[5], axes[9], extentX, extentY, extentZ);
+    float halfZ = projectExtents(axes[2], axes[6], axes[10], extentX, extentY, extentZ);
+
+    destMin.set(center.x - halfX, center.y - halfY, center.z - halfZ);
+    destMax.set(center.x + halfX, center.y + halfY, center.z + halfZ);
+  }
+
+  private static float projectExtents(
+      float a, float b, float c, float extentX, float extentY, float extentZ) {
+    return Math.abs(a) * extentX + Math.abs(b) * extentY + Math.abs(c) * extentZ;
   }
 }
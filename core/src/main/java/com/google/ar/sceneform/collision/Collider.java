@@ -12,6 +12,12 @@ import com.google.ar.sceneform.utilities.Preconditions;
  * @hide
  */
 public class Collider {
+  /** The layers that a collider is in unless it is moved to other layers. */
+  public static final int DEFAULT_LAYER_MASK = 1;
+
+  /** A query mask that matches colliders in any layer. */
+  public static final int ALL_LAYERS_MASK = 0xFFFFFFFF;
+
   private TransformProvider transformProvider;
   @Nullable private CollisionSystem attachedCollisionSystem;
 
@@ -21,6 +27,18 @@ public class Collider {
   private boolean isWorldShapeDirty;
   private int shapeId = ChangeId.EMPTY_ID;
 
+  private int layerMask = DEFAULT_LAYER_MASK;
+
+  // Broadphase state, owned by the attached collision system.
+  int proxyId = DynamicAabbTree.NULL_NODE;
+  boolean isProxyDirty;
+  int pairId;
+  // Index in the sweep and prune arrays, or -1 while detached.
+  int sweepIndex = -1;
+
+  // Index in the attached colliders of the local shape, or -1 while detached.
+  int shapeListenerIndex = -1;
+
   /** @hide */
   @SuppressWarnings("initialization") // Suppress @UnderInitialization warning.
   public Collider(TransformProvider transformProvider, CollisionShape localCollisionShape) {
@@ -35,8 +53,17 @@ public class Collider {
   public void setShape(CollisionShape localCollisionShape) {
     Preconditions.checkNotNull(localCollisionShape, "Parameter \"localCollisionShape\" was null.");
 
+    if (attachedCollisionSystem != null && localShape != null) {
+      localShape.removeAttachedCollider(this);
+    }
+
     localShape = localCollisionShape;
     cachedWorldShape = null;
+
+    if (attachedCollisionSystem != null) {
+      localShape.addAttachedCollider(this);
+      attachedCollisionSystem.markProxyDirty(this);
+    }
   }
 
   /** @hide */
@@ -55,15 +82,43 @@ public class Collider {
     return cachedWorldShape;
   }
 
+  /**
+   * Returns the world shape without checking if it is out of date. Only valid right after the
+   * attached collision system refit the collider.
+   */
+  @Nullable
+  CollisionShape getCachedTransformedShape() {
+    return cachedWorldShape;
+  }
+
+  /** @hide */
+  public void setLayerMask(int layerMask) {
+    this.layerMask = layerMask;
+  }
+
+  /** @hide */
+  public int getLayerMask() {
+    return layerMask;
+  }
+
+  /** Returns true if this collider is in any of the layers of the query mask. */
+  boolean isInLayers(int queryMask) {
+    return (layerMask & queryMask) != 0;
+  }
+
   /** @hide */
   public void setAttachedCollisionSystem(@Nullable CollisionSystem collisionSystem) {
     if (attachedCollisionSystem != null) {
       attachedCollisionSystem.removeCollider(this);
+      localShape.removeAttachedCollider(this);
     }
 
     attachedCollisionSystem = collisionSystem;
 
+    // Only attached colliders listen to their shape, so a shared shape doesn't keep detached
+    // colliders alive.
     if (attachedCollisionSystem != null) {
+      localShape.addAttachedCollider(this);
       attachedCollisionSystem.addCollider(this);
     }
   }
@@ -71,6 +126,17 @@ public class Collider {
   /** @hide */
   public void markWorldShapeDirty() {
     isWorldShapeDirty = true;
+
+    if (attachedCollisionSystem != null) {
+      attachedCollisionSystem.markProxyDirty(this);
+    }
+  }
+
+  /** Called by the local shape when it changes. */
+  void onShapeChanged() {
+    if (attachedCollisionSystem != null) {
+      attachedCollisionSystem.markProxyDirty(this);
+    }
   }
 
   private boolean doesCachedWorldShapeNeedUpdate() {
@@ -95,5 +161,6 @@ public class Collider {
 
     ChangeId changeId = localShape.getId();
     shapeId = changeId.get();
+    isWorldShapeDirty = false;
   }
 }
@@ -1,12 +1,19 @@
 package com.google.ar.sceneform.collision;
 
+import androidx.annotation.Nullable;
 import com.google.ar.sceneform.common.TransformProvider;
+import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.utilities.ChangeId;
+import java.util.ArrayList;
 
 /** Base class for all types of shapes that collision checks can be performed against. */
 public abstract class CollisionShape {
   private final ChangeId changeId = new ChangeId();
 
+  // Colliders that use this shape while they are attached to a collision system. They are told when
+  // the shape changes so that the broadphase doesn't need to poll every shape before each query.
+  @Nullable private ArrayList<Collider> attachedColliders;
+
   public abstract CollisionShape makeCopy();
 
   /**
@@ -16,6 +23,12 @@ public abstract class CollisionShape {
    */
   protected void onChanged() {
     changeId.update();
+
+    if (attachedColliders != null) {
+      for (int i = 0; i < attachedColliders.size(); i++) {
+        attachedColliders.get(i).onShapeChanged();
+      }
+    }
   }
 
   /** @hide */
@@ -39,7 +52,56 @@ public abstract class CollisionShape {
     return changeId;
   }
 
+  void addAttachedCollider(Collider collider) {
+    if (attachedColliders == null) {
+      attachedColliders = new ArrayList<>();
+    }
+
+    collider.shapeListenerIndex = attachedColliders.size();
+    attachedColliders.add(collider);
+  }
+
+  void removeAttachedCollider(Collider collider) {
+    ArrayList<Collider> colliders = attachedColliders;
+    int index = collider.shapeListenerIndex;
+    if (colliders == null || index < 0 || index >= colliders.size()) {
+      return;
+    }
+
+    // Swap the last collider into the removed slot so that removal is O(1).
+    Collider last = colliders.remove(colliders.size() - 1);
+    if (last != collider) {
+      colliders.set(index, last);
+      last.shapeListenerIndex = index;
+    }
+    collider.shapeListenerIndex = -1;
+  }
+
   abstract CollisionShape transform(TransformProvider transformProvider);
 
   abstract void transform(TransformProvider transformProvider, CollisionShape result);
+
+  /**
+   * Calculates an axis aligned box that contains the shape. Used by the broadphase of {@link
+   * CollisionSystem}.
+   */
+  abstract void getBounds(Vector3 destMin, Vector3 destMax);
+
+  /**
+   * Calculates when this shape first touches another shape while it moves in a straight line. Used
+   * by {@link CollisionSystem#sweep}.
+   *
+   * @param shape the shape that stays still
+   * @param startOffset the offset of this shape from its position at the start of the sweep
+   * @param motion the offset that this shape moves by over the sweep
+   * @return the fraction of the motion at which the shapes first touch, between 0 and 1, or a
+   *     negative value if they don't touch
+   */
+  abstract float sweepIntersection(CollisionShape shape, Vector3 startOffset, Vector3 motion);
+
+  /** Calculates when a moving sphere first touches this shape. */
+  abstract float sphereSweepIntersection(Sphere sphere, Vector3 startOffset, Vector3 motion);
+
+  /** Calculates when a moving box first touches this shape. */
+  abstract float boxSweepIntersection(Box box, Vector3 startOffset, Vector3 motion);
 }
@@ -4,98 +4,391 @@ import androidx.annotation.Nullable;
 
 import com.google.ar.sceneform.Node;
 import com.google.ar.sceneform.common.TransformProvider;
+import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.utilities.Preconditions;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
  * Manages all of the colliders within a scene.
+ *
+ * <p>Colliders are stored in a {@link DynamicAabbTree} using the bounds of their world-space
+ * shapes. Queries walk the tree first and only run the exact intersection tests against the
+ * colliders whose bounds pass. Colliders that moved are refit lazily before the next query.
  */
 public class CollisionSystem {
+    /**
+     * Receives the changes in which colliders overlap each other, from one call to {@link
+     * #updateOverlaps(int, OverlapListener)} to the next.
+     */
+    public interface OverlapListener {
+        /** Called when two colliders start overlapping. */
+        void onOverlapBegin(Collider collider1, Collider collider2);
+
+        /** Called when two colliders that already overlapped still overlap. */
+        void onOverlapStay(Collider collider1, Collider collider2);
+
+        /**
+         * Called when two colliders stop overlapping, including when either of them was removed
+         * from the collision system.
+         */
+        void onOverlapEnd(Collider collider1, Collider collider2);
+    }
+
     private static final String TAG = CollisionSystem.class.getSimpleName();
 
-    // TODO: Store things in some spatial partition or another.
+    // Batches are only split across threads once each thread gets at least this many rays.
+    private static final int PARALLEL_BATCH_SIZE = 32;
+
     private final ArrayList<Collider> colliders = new ArrayList<>();
 
+    // Broadphase.
+    private final DynamicAabbTree<Collider> tree = new DynamicAabbTree<>();
+    private final ArrayList<Collider> dirtyColliders = new ArrayList<>();
+
+    // Candidate buffers for each level of nested queries. Queries can be nested when a result
+    // callback performs another query.
+    private final ArrayList<ArrayList<Collider>> candidateBuffers = new ArrayList<>();
+    private int queryDepth;
+    @Nullable
+    private ArrayList<Collider> collectTarget;
+    private int collectLayerMask;
+
+    // Scratch hit for the exact ray tests. It is copied out before any callback runs, so nested
+    // queries can share it.
+    private final RayHit tempResult = new RayHit();
+    private final Vector3 boundsMin = new Vector3();
+    private final Vector3 boundsMax = new Vector3();
+    private final Vector3 sweepStartOffset = new Vector3();
+    private final Vector3 sweepMotion = new Vector3();
+    private final Vector3 sweepPoint = new Vector3();
+
+    private final DynamicAabbTree.QueryCallback collectOverlap =
+            proxyId -> {
+                collectCandidate(proxyId);
+                return true;
+            };
+
+    private final NearestRayHit nearestRayHit = new NearestRayHit();
+
+    // All pairs overlap detection. The pairs are found first and reported afterwards, so that the
+    // callbacks can modify the colliders.
+    private final SweepAndPrune pairSweep = new SweepAndPrune();
+    private final OverlapPairs foundPairs = new OverlapPairs();
+    private OverlapPairs currentOverlaps = new OverlapPairs();
+    private OverlapPairs previousOverlaps = new OverlapPairs();
+    private boolean isReportingPairs;
+    private boolean isReportingOverlaps;
+
+    // State of the raycast that keeps the nearest hits in a max heap ordered by distance, so the
+    // farthest kept hit is at the top.
+    @Nullable
+    private Ray heapRay;
+    @Nullable
+    private ArrayList<RayHit> heapResults;
+    @Nullable
+    private Supplier<? extends RayHit> heapAllocateResult;
+    @Nullable
+    private ArrayList<Collider> heapColliders;
+    private int heapSize;
+    private int heapMaxSize;
+    private int heapLayerMask;
+
+    private final DynamicAabbTree.RaycastCallback collectNearestRayHits =
+            this::collectNearestRayHit;
+
     public void addCollider(Collider collider) {
         Preconditions.checkNotNull(collider, "Parameter \"collider\" was null.");
         colliders.add(collider);
+        pairSweep.add(collider);
+        markProxyDirty(collider);
     }
 
     public void removeCollider(Collider collider) {
         Preconditions.checkNotNull(collider, "Parameter \"collider\" was null.");
-        colliders.remove(collider);
+        if (!colliders.remove(collider)) {
+            return;
+        }
+
+        pairSweep.remove(collider);
+
+        if (collider.isProxyDirty) {
+            dirtyColliders.remove(collider);
+            collider.isProxyDirty = false;
+        }
+
+        if (collider.proxyId != DynamicAabbTree.NULL_NODE) {
+            tree.destroyProxy(collider.proxyId);
+            collider.proxyId = DynamicAabbTree.NULL_NODE;
+        }
     }
 
+    /**
+     * Finds the collider nearest to the ray origin that the ray hits.
+     *
+     * @see #raycast(Ray, RayHit, boolean, float, int)
+     */
     @Nullable
     public Collider raycast(Ray ray, RayHit resultHit, boolean onlySelectableNodes) {
+        return raycast(
+                ray, resultHit, onlySelectableNodes, Float.MAX_VALUE, Collider.ALL_LAYERS_MASK);
+    }
+
+    /**
+     * Finds the collider nearest to the ray origin that the ray hits within maxDistance.
+     *
+     * <p>Colliders are visited front to back and the ray is shortened to the nearest hit found so
+     * far, so colliders whose bounds start beyond it are never tested exactly. Ties between
+     * colliders hit at the same distance are broken by their broadphase id, so the result doesn't
+     * depend on the order the tree is traversed in.
+     *
+     * @param ray the ray to test
+     * @param resultHit populated with the nearest hit, or reset if nothing was hit
+     * @param onlySelectableNodes ignore colliders whose node isn't selectable
+     * @param maxDistance the maximum distance along the ray to test
+     * @param layerMask only colliders in at least one of these layers are tested
+     * @return the nearest collider that was hit, or null
+     */
+    @Nullable
+    public Collider raycast(
+            Ray ray,
+            RayHit resultHit,
+            boolean onlySelectableNodes,
+            float maxDistance,
+            int layerMask) {
         Preconditions.checkNotNull(ray, "Parameter \"ray\" was null.");
         Preconditions.checkNotNull(resultHit, "Parameter \"resultHit\" was null.");
 
-        resultHit.reset();
-        Collider result = null;
-        RayHit tempResult = new RayHit();
-        for (Collider collider : colliders) {
-            CollisionShape collisionShape = collider.getTransformedShape();
-            if (collisionShape == null) {
-                continue;
-            }
+        if (queryDepth == 0) {
+            updateBroadphase(layerMask);
+        }
 
-            if (collisionShape.rayIntersection(ray, tempResult)) {
-                TransformProvider transformProvider = collider.getTransformProvider();
-                if(!onlySelectableNodes 
-                        || !(transformProvider instanceof Node)
-                        || ((Node) transformProvider).isSelectable()) {
-                    resultHit.set(tempResult);
-                    result = collider;
-                }
+        return nearestRayHit.find(
+                ray, resultHit, onlySelectableNodes, maxDistance, layerMask, true, null);
+    }
+
+    /**
+     * Finds the collider nearest to the ray origin for each ray in a batch.
+     *
+     * @see #raycastBatch(Ray[], RayHit[], Collider[], boolean, int, boolean)
+     */
+    public int raycastBatch(Ray[] rays, RayHit[] results) {
+        return raycastBatch(rays, results, null, false, Collider.ALL_LAYERS_MASK, false);
+    }
+
+    /**
+     * Finds the collider nearest to the ray origin for each ray in a batch, as if {@link
+     * #raycast(Ray, RayHit, boolean, float, int)} was called for each of them.
+     *
+     * <p>The broadphase is refit and the world shapes of the colliders that moved are brought up to
+     * date once for the whole batch. The rays then only read the cached shapes. In parallel mode,
+     * large batches are split across the common fork/join pool. The rays, shapes and nodes must not
+     * be modified on other threads while the batch runs.
+     *
+     * @param rays the rays to test
+     * @param results populated with the nearest hit of the ray at the same index, or reset if the
+     *     ray didn't hit anything. Must be at least as long as rays.
+     * @param resultColliders if not null, populated with the collider hit by the ray at the same
+     *     index, or null. Must be at least as long as rays.
+     * @param onlySelectableNodes ignore colliders whose node isn't selectable
+     * @param layerMask only colliders in at least one of these layers are tested
+     * @param parallel split large batches across threads
+     * @return the number of rays that hit a collider
+     */
+    public int raycastBatch(
+            Ray[] rays,
+            RayHit[] results,
+            @Nullable Collider[] resultColliders,
+            boolean onlySelectableNodes,
+            int layerMask,
+            boolean parallel) {
+        Preconditions.checkNotNull(rays, "Parameter \"rays\" was null.");
+        Preconditions.checkNotNull(results, "Parameter \"results\" was null.");
+        if (results.length < rays.length
+                || (resultColliders != null && resultColliders.length < rays.length)) {
+            throw new IllegalArgumentException("Result arrays must be at least as long as rays.");
+        }
+
+        // Nested queries can't refit the broadphase, so the shapes must be checked for each ray.
+        boolean isBroadphaseCurrent = queryDepth == 0;
+        if (isBroadphaseCurrent) {
+            updateBroadphase(layerMask);
+        }
+
+        if (parallel && isBroadphaseCurrent && rays.length > PARALLEL_BATCH_SIZE) {
+            ForkJoinPool.commonPool()
+                    .invoke(
+                            new RaycastBatchTask(
+                                    rays,
+                                    results,
+                                    resultColliders,
+                                    onlySelectableNodes,
+                                    layerMask,
+                                    0,
+                                    rays.length));
+        } else {
+            raycastBatchRange(
+                    nearestRayHit,
+                    null,
+                    rays,
+                    results,
+                    resultColliders,
+                    onlySelectableNodes,
+                    layerMask,
+                    !isBroadphaseCurrent,
+                    0,
+                    rays.length);
+        }
+
+        int hitCount = 0;
+        for (int i = 0; i < rays.length; i++) {
+            if (results[i].getDistance() != Float.MAX_VALUE) {
+                hitCount++;
             }
         }
 
-        return result;
+        return hitCount;
     }
 
+    /**
+     * Finds every collider hit by the ray, sorted by distance.
+     *
+     * @see #raycastAll(Ray, int, float, ArrayList, BiConsumer, Supplier)
+     */
     @SuppressWarnings("AndroidApiChecker")
     public <T extends RayHit> int raycastAll(
             Ray ray,
             ArrayList<T> resultBuffer,
             @Nullable BiConsumer<T, Collider> processResult,
             Supplier<T> allocateResult) {
+        return raycastAll(
+                ray,
+                Integer.MAX_VALUE,
+                Float.MAX_VALUE,
+                resultBuffer,
+                processResult,
+                allocateResult);
+    }
+
+    /**
+     * Finds the colliders nearest to the ray origin that the ray hits within maxDistance, up to
+     * maxHits of them.
+     *
+     * @see #raycastAll(Ray, int, float, int, ArrayList, BiConsumer, Supplier)
+     */
+    @SuppressWarnings("AndroidApiChecker")
+    public <T extends RayHit> int raycastAll(
+            Ray ray,
+            int maxHits,
+            float maxDistance,
+            ArrayList<T> resultBuffer,
+            @Nullable BiConsumer<T, Collider> processResult,
+            Supplier<T> allocateResult) {
+        return raycastAll(
+                ray,
+                maxHits,
+                maxDistance,
+                Collider.ALL_LAYERS_MASK,
+                resultBuffer,
+                processResult,
+                allocateResult);
+    }
+
+    /**
+     * Finds the colliders nearest to the ray origin that the ray hits within maxDistance, up to
+     * maxHits of them.
+     *
+     * <p>Only the nearest maxHits hits are kept while the broadphase is traversed, and once that
+     * many have been found the ray is shortened to the farthest of them. The kept hits are sorted
+     * in place, so nothing is allocated once resultBuffer holds enough results.
+     *
+     * @param ray the ray to test
+     * @param maxHits the maximum number of hits to return, must be greater than zero
+     * @param maxDistance the maximum distance along the ray to test
+     * @param layerMask only colliders in at least one of these layers are tested
+     * @param resultBuffer populated with the hits sorted by distance. Existing results are reused,
+     *     and results past the returned count are reset.
+     * @param processResult called for each hit in order of distance after the hits are sorted
+     * @param allocateResult used to allocate results when resultBuffer is too small
+     * @return the number of hits
+     */
+    @SuppressWarnings({"AndroidApiChecker", "unchecked"})
+    public <T extends RayHit> int raycastAll(
+            Ray ray,
+            int maxHits,
+            float maxDistance,
+            int layerMask,
+            ArrayList<T> resultBuffer,
+            @Nullable BiConsumer<T, Collider> processResult,
+            Supplier<T> allocateResult) {
         Preconditions.checkNotNull(ray, "Parameter \"ray\" was null.");
         Preconditions.checkNotNull(resultBuffer, "Parameter \"resultBuffer\" was null.");
         Preconditions.checkNotNull(allocateResult, "Parameter \"allocateResult\" was null.");
+        if (maxHits <= 0) {
+            throw new IllegalArgumentException("Parameter \"maxHits\" must be greater than zero.");
+        }
 
-        RayHit tempResult = new RayHit();
-        int hitCount = 0;
+        Vector3 origin = ray.getRawOrigin();
+        Vector3 direction = ray.getRawDirection();
 
-        // Check the ray against all the colliders.
-        for (Collider collider : colliders) {
-            CollisionShape collisionShape = collider.getTransformedShape();
-            if (collisionShape == null) {
-                continue;
-            }
+        // The colliders of the hits are kept in the candidate buffer, in the same order as the
+        // hits in resultBuffer.
+        ArrayList<Collider> hitColliders = beginQuery(layerMask);
+        int hitCount;
+        try {
+            heapRay = ray;
+            heapResults = (ArrayList<RayHit>) resultBuffer;
+            heapAllocateResult = allocateResult;
+            heapColliders = hitColliders;
+            heapMaxSize = maxHits;
+            heapLayerMask = layerMask;
+            heapSize = 0;
+            try {
+                tree.raycast(
+                        origin.x,
+                        origin.y,
+                        origin.z,
+                        direction.x,
+                        direction.y,
+                        direction.z,
+                        maxDistance,
+                        collectNearestRayHits);
 
-            if (collisionShape.rayIntersection(ray, tempResult)) {
-                hitCount++;
-                T result = null;
-                if (resultBuffer.size() >= hitCount) {
-                    result = resultBuffer.get(hitCount - 1);
-                } else {
-                    result = allocateResult.get();
-                    resultBuffer.add(result);
+                // Colliders still queued for a refit are skipped by the tree traversal.
+                for (int i = 0; i < dirtyColliders.size(); i++) {
+                    Collider collider = dirtyColliders.get(i);
+                    float heapMaxDistance =
+                            heapSize == heapMaxSize
+                                    ? resultBuffer.get(0).getDistance()
+                                    : maxDistance;
+                    collectNearestRayHit(collider, heapMaxDistance);
                 }
+                hitCount = heapSize;
+            } finally {
+                heapRay = null;
+                heapResults = null;
+                heapAllocateResult = null;
+                heapColliders = null;
+            }
 
-                result.reset();
-                result.set(tempResult);
+            // Heap sort the hits, which leaves them in order of increasing distance.
+            for (int end = hitCount - 1; end > 0; end--) {
+                swapHits((ArrayList<RayHit>) resultBuffer, hitColliders, 0, end);
+                siftDown((ArrayList<RayHit>) resultBuffer, hitColliders, 0, end);
+            }
 
-                if (processResult != null) {
-                    processResult.accept(result, collider);
+            if (processResult != null) {
+                for (int i = 0; i < hitCount; i++) {
+                    processResult.accept(resultBuffer.get(i), hitColliders.get(i));
                 }
             }
+        } finally {
+            endQuery(hitColliders);
         }
 
         // Reset extra hits in the buffer.
@@ -103,14 +396,23 @@ public class CollisionSystem {
             resultBuffer.get(i).reset();
         }
 
-        // Sort the hits by distance.
-        Collections.sort(resultBuffer, (a, b) -> Float.compare(a.getDistance(), b.getDistance()));
-
         return hitCount;
     }
 
     @Nullable
     public Collider intersects(Collider collider) {
+        return intersects(collider, Collider.ALL_LAYERS_MASK);
+    }
+
+    /**
+     * Finds a collider that overlaps the given collider.
+     *
+     * @param collider the collider to test
+     * @param layerMask only colliders in at least one of these layers are tested
+     * @return a collider that overlaps the given collider, or null
+     */
+    @Nullable
+    public Collider intersects(Collider collider, int layerMask) {
         Preconditions.checkNotNull(collider, "Parameter \"collider\" was null.");
 
         CollisionShape collisionShape = collider.getTransformedShape();
@@ -118,19 +420,26 @@ public class CollisionSystem {
             return null;
         }
 
-        for (Collider otherCollider : colliders) {
-            if (otherCollider == collider) {
-                continue;
-            }
+        ArrayList<Collider> candidates = beginQuery(layerMask);
+        try {
+            collectOverlapCandidates(collisionShape, layerMask, candidates);
+            for (int i = 0; i < candidates.size(); i++) {
+                Collider otherCollider = candidates.get(i);
+                if (otherCollider == collider) {
+                    continue;
+                }
 
-            CollisionShape otherCollisionShape = otherCollider.getTransformedShape();
-            if (otherCollisionShape == null) {
-                continue;
-            }
+                CollisionShape otherCollisionShape = otherCollider.getTransformedShape();
+                if (otherCollisionShape == null) {
+                    continue;
+                }
 
-            if (collisionShape.shapeIntersection(otherCollisionShape)) {
-                return otherCollider;
+                if (collisionShape.shapeIntersection(otherCollisionShape)) {
+                    return otherCollider;
+                }
             }
+        } finally {
+            endQuery(candidates);
         }
 
         return null;
@@ -138,6 +447,19 @@ public class CollisionSystem {
 
     @SuppressWarnings("AndroidApiChecker")
     public void intersectsAll(Collider collider, Consumer<Collider> processResult) {
+        intersectsAll(collider, Collider.ALL_LAYERS_MASK, processResult);
+    }
+
+    /**
+     * Finds every collider that overlaps the given collider.
+     *
+     * @param collider the collider to test
+     * @param layerMask only colliders in at least one of these layers are tested
+     * @param processResult called for each overlapping collider
+     */
+    @SuppressWarnings("AndroidApiChecker")
+    public void intersectsAll(
+            Collider collider, int layerMask, Consumer<Collider> processResult) {
         Preconditions.checkNotNull(collider, "Parameter \"collider\" was null.");
         Preconditions.checkNotNull(processResult, "Parameter \"processResult\" was null.");
 
@@ -146,19 +468,729 @@ public class CollisionSystem {
             return;
         }
 
-        for (Collider otherCollider : colliders) {
-            if (otherCollider == collider) {
+        ArrayList<Collider> candidates = beginQuery(layerMask);
+        try {
+            collectOverlapCandidates(collisionShape, layerMask, candidates);
+            for (int i = 0; i < candidates.size(); i++) {
+                Collider otherCollider = candidates.get(i);
+                if (otherCollider == collider) {
+                    continue;
+                }
+
+                CollisionShape otherCollisionShape = otherCollider.getTransformedShape();
+                if (otherCollisionShape == null) {
+                    continue;
+                }
+
+                if (collisionShape.shapeIntersection(otherCollisionShape)) {
+                    processResult.accept(otherCollider);
+                }
+            }
+        } finally {
+            endQuery(candidates);
+        }
+    }
+
+    /**
+     * Moves the given collider in a straight line and finds the first collider in any layer that
+     * it touches on the way.
+     *
+     * @see #sweep(Collider, Vector3, Vector3, int, RayHit)
+     */
+    @Nullable
+    public Collider sweep(Collider collider, Vector3 from, Vector3 to, RayHit resultHit) {
+        return sweep(collider, from, to, Collider.ALL_LAYERS_MASK, resultHit);
+    }
+
+    /**
+     * Moves the given collider in a straight line and finds the first collider that it touches on
+     * the way. The collider itself is not moved.
+     *
+     * <p>Sphere and sphere sweeps, and box and box sweeps, are exact. Sweeps between a sphere and a
+     * box advance the sphere conservatively until it is within a small distance of the box.
+     *
+     * @param collider the collider to move
+     * @param from the position of the collider at the start of the sweep
+     * @param to the position of the collider at the end of the sweep
+     * @param layerMask only colliders in at least one of these layers are tested
+     * @param resultHit set to the distance that the collider travels before the first contact and
+     *     the position of the collider at that point. The time of impact, between 0 and 1, is the
+     *     distance divided by the length of {@code to - from}.
+     * @return the first collider touched, or null
+     */
+    @Nullable
+    public Collider sweep(
+            Collider collider, Vector3 from, Vector3 to, int layerMask, RayHit resultHit) {
+        Preconditions.checkNotNull(collider, "Parameter \"collider\" was null.");
+        Preconditions.checkNotNull(from, "Parameter \"from\" was null.");
+        Preconditions.checkNotNull(to, "Parameter \"to\" was null.");
+        Preconditions.checkNotNull(resultHit, "Parameter \"resultHit\" was null.");
+
+        resultHit.reset();
+
+        // Refits the broadphase before the transformed shape is read.
+        ArrayList<Collider> candidates = beginQuery(layerMask);
+        try {
+            CollisionShape collisionShape = collider.getTransformedShape();
+            if (collisionShape == null) {
+                return null;
+            }
+
+            // The transformed shape is at the current position of the collider, so offset it to
+            // the start of the sweep.
+            float[] transformData =
+                    collider.getTransformProvider().getWorldModelMatrix().data;
+            sweepStartOffset.set(
+                    from.x - transformData[12],
+                    from.y - transformData[13],
+                    from.z - transformData[14]);
+            sweepMotion.set(to.x - from.x, to.y - from.y, to.z - from.z);
+
+            // Bounds of the whole sweep.
+            collisionShape.getBounds(boundsMin, boundsMax);
+            boundsMin.set(
+                    boundsMin.x + sweepStartOffset.x + Math.min(sweepMotion.x, 0.0f),
+                    boundsMin.y + sweepStartOffset.y + Math.min(sweepMotion.y, 0.0f),
+                    boundsMin.z + sweepStartOffset.z + Math.min(sweepMotion.z, 0.0f));
+            boundsMax.set(
+                    boundsMax.x + sweepStartOffset.x + Math.max(sweepMotion.x, 0.0f),
+                    boundsMax.y + sweepStartOffset.y + Math.max(sweepMotion.y, 0.0f),
+                    boundsMax.z + sweepStartOffset.z + Math.max(sweepMotion.z, 0.0f));
+            collectCandidatesInBounds(layerMask, candidates);
+
+            Collider hitCollider = null;
+            float hitFraction = Float.MAX_VALUE;
+            for (int i = 0; i < candidates.size(); i++) {
+                Collider otherCollider = candidates.get(i);
+                if (otherCollider == collider) {
+                    continue;
+                }
+
+                CollisionShape otherCollisionShape = otherCollider.getTransformedShape();
+                if (otherCollisionShape == null) {
+                    continue;
+                }
+
+                float fraction =
+                        collisionShape.sweepIntersection(
+                                otherCollisionShape, sweepStartOffset, sweepMotion);
+                if (fraction >= 0.0f && fraction < hitFraction) {
+                    hitCollider = otherCollider;
+                    hitFraction = fraction;
+                }
+            }
+
+            if (hitCollider != null) {
+                sweepPoint.set(
+                        from.x + sweepMotion.x * hitFraction,
+                        from.y + sweepMotion.y * hitFraction,
+                        from.z + sweepMotion.z * hitFraction);
+                resultHit.setDistance(sweepMotion.length() * hitFraction);
+                resultHit.setPoint(sweepPoint);
+            }
+
+            return hitCollider;
+        } finally {
+            endQuery(candidates);
+        }
+    }
+
+    /**
+     * Finds every collider whose world-space bounds may be inside the frustum, such as the
+     * colliders that can be seen by a camera.
+     *
+     * @param frustum the frustum to test
+     * @param layerMask only colliders in at least one of these layers are tested
+     * @param processResult called for each collider inside the frustum
+     */
+    @SuppressWarnings("AndroidApiChecker")
+    public void findAllInFrustum(
+            Frustum frustum, int layerMask, Consumer<Collider> processResult) {
+        Preconditions.checkNotNull(frustum, "Parameter \"frustum\" was null.");
+        Preconditions.checkNotNull(processResult, "Parameter \"processResult\" was null.");
+
+        ArrayList<Collider> candidates = beginQuery(layerMask);
+        try {
+            collectTarget = candidates;
+            collectLayerMask = layerMask;
+            tree.query(frustum, collectOverlap);
+            collectTarget = null;
+            collectDirtyCandidates(layerMask, candidates);
+
+            for (int i = 0; i < candidates.size(); i++) {
+                Collider collider = candidates.get(i);
+                CollisionShape collisionShape = collider.getTransformedShape();
+                if (collisionShape == null) {
+                    continue;
+                }
+
+                // The tree stores enlarged bounds, so test the exact bounds before reporting.
+                collisionShape.getBounds(boundsMin, boundsMax);
+                if (frustum.intersectsBounds(boundsMin, boundsMax)) {
+                    processResult.accept(collider);
+                }
+            }
+        } finally {
+            endQuery(candidates);
+        }
+    }
+
+    /**
+     * Finds every pair of colliders that overlap each other.
+     *
+     * @see #findAllOverlappingPairs(int, BiConsumer)
+     */
+    @SuppressWarnings("AndroidApiChecker")
+    public void findAllOverlappingPairs(BiConsumer<Collider, Collider> processPair) {
+        findAllOverlappingPairs(Collider.ALL_LAYERS_MASK, processPair);
+    }
+
+    /**
+     * Finds every pair of colliders in the given layers that overlap each other. Each pair is
+     * reported once.
+     *
+     * <p>The world-space bounds of the colliders are kept sorted along one axis between calls, so
+     * only colliders whose bounds overlap are tested exactly. Calling this once per frame costs
+     * close to linear time in the number of colliders when they move a little each frame.
+     *
+     * @param layerMask only colliders in at least one of these layers are tested
+     * @param processPair called for each pair of overlapping colliders
+     */
+    @SuppressWarnings("AndroidApiChecker")
+    public void findAllOverlappingPairs(
+            int layerMask, BiConsumer<Collider, Collider> processPair) {
+        Preconditions.checkNotNull(processPair, "Parameter \"processPair\" was null.");
+        Preconditions.checkState(
+                !isReportingPairs,
+                "findAllOverlappingPairs can't be called while reporting pairs.");
+
+        foundPairs.clear();
+        pairSweep.findPairs(layerMask, foundPairs);
+
+        isReportingPairs = true;
+        try {
+            for (int i = 0; i < foundPairs.size(); i++) {
+                processPair.accept(foundPairs.getFirst(i), foundPairs.getSecond(i));
+            }
+        } finally {
+            isReportingPairs = false;
+            foundPairs.clear();
+        }
+    }
+
+    /**
+     * Finds every pair of colliders in the given layers that overlap each other, and reports how
+     * the overlaps changed since the previous call. Call this once per frame.
+     *
+     * @param layerMask only colliders in at least one of these layers are tested
+     * @param listener receives the overlaps that began, stayed and ended since the previous call
+     */
+    public void updateOverlaps(int layerMask, OverlapListener listener) {
+        Preconditions.checkNotNull(listener, "Parameter \"listener\" was null.");
+        Preconditions.checkState(
+                !isReportingOverlaps, "updateOverlaps can't be called while reporting overlaps.");
+
+        OverlapPairs overlaps = previousOverlaps;
+        previousOverlaps = currentOverlaps;
+        currentOverlaps = overlaps;
+        overlaps.clear();
+        pairSweep.findPairs(layerMask, overlaps);
+
+        isReportingOverlaps = true;
+        try {
+            for (int i = 0; i < overlaps.size(); i++) {
+                Collider collider1 = overlaps.getFirst(i);
+                Collider collider2 = overlaps.getSecond(i);
+                if (previousOverlaps.contains(overlaps.getKey(i))) {
+                    listener.onOverlapStay(collider1, collider2);
+                } else {
+                    listener.onOverlapBegin(collider1, collider2);
+                }
+            }
+
+            for (int i = 0; i < previousOverlaps.size(); i++) {
+                if (!overlaps.contains(previousOverlaps.getKey(i))) {
+                    listener.onOverlapEnd(
+                            previousOverlaps.getFirst(i), previousOverlaps.getSecond(i));
+                }
+            }
+        } finally {
+            isReportingOverlaps = false;
+        }
+    }
+
+    /** Queues a collider so that its bounds in the broadphase are refit before the next query. */
+    void markProxyDirty(Collider collider) {
+        if (collider.isProxyDirty) {
+            return;
+        }
+
+        collider.isProxyDirty = true;
+        dirtyColliders.add(collider);
+    }
+
+    /**
+     * Refits the bounds of every collider in the query layers that moved or changed shape since the
+     * last query. Both kinds of changes are pushed into {@link #markProxyDirty(Collider)}, so the
+     * cost only depends on the number of colliders that changed.
+     *
+     * <p>Refitting needs the world shape, so colliders outside of the layers stay queued and their
+     * world shapes aren't recomputed. The tree traversals skip every queued collider, so their
+     * stale bounds in the tree are never used. Nested queries can't refit the tree, and test the
+     * queued colliders in their layers one by one instead.
+     */
+    private void updateBroadphase(int layerMask) {
+        int keptCount = 0;
+        for (int i = 0; i < dirtyColliders.size(); i++) {
+            Collider collider = dirtyColliders.get(i);
+            if (!collider.isInLayers(layerMask)) {
+                dirtyColliders.set(keptCount++, collider);
                 continue;
             }
 
-            CollisionShape otherCollisionShape = otherCollider.getTransformedShape();
-            if (otherCollisionShape == null) {
+            collider.isProxyDirty = false;
+
+            CollisionShape collisionShape = collider.getTransformedShape();
+            if (collisionShape == null) {
                 continue;
             }
 
-            if (collisionShape.shapeIntersection(otherCollisionShape)) {
-                processResult.accept(otherCollider);
+            collisionShape.getBounds(boundsMin, boundsMax);
+            if (collider.proxyId == DynamicAabbTree.NULL_NODE) {
+                collider.proxyId =
+                        tree.createProxy(
+                                boundsMin.x,
+                                boundsMin.y,
+                                boundsMin.z,
+                                boundsMax.x,
+                                boundsMax.y,
+                                boundsMax.z,
+                                collider);
+            } else {
+                tree.moveProxy(
+                        collider.proxyId,
+                        boundsMin.x,
+                        boundsMin.y,
+                        boundsMin.z,
+                        boundsMax.x,
+                        boundsMax.y,
+                        boundsMax.z);
+            }
+        }
+
+        for (int i = dirtyColliders.size() - 1; i >= keptCount; i--) {
+            dirtyColliders.remove(i);
+        }
+    }
+
+    private ArrayList<Collider> beginQuery(int layerMask) {
+        // The tree can't be modified while an outer query is still processing its candidates.
+        if (queryDepth == 0) {
+            updateBroadphase(layerMask);
+        }
+
+        if (candidateBuffers.size() <= queryDepth) {
+            candidateBuffers.add(new ArrayList<>());
+        }
+
+        ArrayList<Collider> candidates = candidateBuffers.get(queryDepth);
+        candidates.clear();
+        queryDepth++;
+        return candidates;
+    }
+
+    private void endQuery(ArrayList<Collider> candidates) {
+        candidates.clear();
+        queryDepth--;
+    }
+
+    private void collectOverlapCandidates(
+            CollisionShape collisionShape, int layerMask, ArrayList<Collider> candidates) {
+        collisionShape.getBounds(boundsMin, boundsMax);
+        collectCandidatesInBounds(layerMask, candidates);
+    }
+
+    /** Collects the colliders whose bounds overlap {@link #boundsMin} and {@link #boundsMax}. */
+    private void collectCandidatesInBounds(int layerMask, ArrayList<Collider> candidates) {
+        collectTarget = candidates;
+        collectLayerMask = layerMask;
+        tree.query(
+                boundsMin.x,
+                boundsMin.y,
+                boundsMin.z,
+                boundsMax.x,
+                boundsMax.y,
+                boundsMax.z,
+                collectOverlap);
+        collectTarget = null;
+        collectDirtyCandidates(layerMask, candidates);
+    }
+
+    /**
+     * Adds the colliders in the layers that are still queued for a refit. The tree traversals skip
+     * them because their bounds in the tree are out of date. There are only any while a nested
+     * query runs, since the tree can't be refit until the outer query is done.
+     */
+    private void collectDirtyCandidates(int layerMask, ArrayList<Collider> candidates) {
+        for (int i = 0; i < dirtyColliders.size(); i++) {
+            Collider collider = dirtyColliders.get(i);
+            if (collider.isInLayers(layerMask)) {
+                candidates.add(collider);
+            }
+        }
+    }
+
+    private void raycastBatchRange(
+            NearestRayHit nearestRayHit,
+            @Nullable int[] stack,
+            Ray[] rays,
+            RayHit[] results,
+            @Nullable Collider[] resultColliders,
+            boolean onlySelectableNodes,
+            int layerMask,
+            boolean resolveShapes,
+            int start,
+            int end) {
+        for (int i = start; i < end; i++) {
+            Ray ray = Preconditions.checkNotNull(rays[i], "Parameter \"rays\" contained null.");
+            RayHit result =
+                    Preconditions.checkNotNull(results[i], "Parameter \"results\" contained null.");
+            Collider collider =
+                    nearestRayHit.find(
+                            ray,
+                            result,
+                            onlySelectableNodes,
+                            Float.MAX_VALUE,
+                            layerMask,
+                            resolveShapes,
+                            stack);
+            if (resultColliders != null) {
+                resultColliders[i] = collider;
+            }
+        }
+    }
+
+    /**
+     * Finds the nearest hit of a ray while the broadphase tree is traversed. The exact tests run
+     * inside the traversal and don't call out to user code, so a single instance can't be nested.
+     */
+    private final class NearestRayHit implements DynamicAabbTree.RaycastCallback {
+        private final RayHit tempResult = new RayHit();
+
+        @Nullable
+        private Ray ray;
+        @Nullable
+        private RayHit resultHit;
+        @Nullable
+        private Collider nearestCollider;
+        private int nearestProxyId = DynamicAabbTree.NULL_NODE;
+        private boolean onlySelectableNodes;
+        private int layerMask;
+        private boolean resolveShapes;
+
+        /**
+         * @param resolveShapes if false, the cached world shapes are used without checking if they
+         *     are out of date, which is only valid right after the broadphase was refit
+         * @param stack if not null, the tree is traversed with this stack instead of its own
+         */
+        @Nullable
+        Collider find(
+                Ray ray,
+                RayHit resultHit,
+                boolean onlySelectableNodes,
+                float maxDistance,
+                int layerMask,
+                boolean resolveShapes,
+                @Nullable int[] stack) {
+            resultHit.reset();
+
+            Vector3 origin = ray.getRawOrigin();
+            Vector3 direction = ray.getRawDirection();
+
+            this.ray = ray;
+            this.resultHit = resultHit;
+            this.onlySelectableNodes = onlySelectableNodes;
+            this.layerMask = layerMask;
+            this.resolveShapes = resolveShapes;
+            nearestCollider = null;
+            nearestProxyId = DynamicAabbTree.NULL_NODE;
+            try {
+                if (stack == null) {
+                    tree.raycast(
+                            origin.x,
+                            origin.y,
+                            origin.z,
+                            direction.x,
+                            direction.y,
+                            direction.z,
+                            maxDistance,
+                            this);
+                } else {
+                    tree.raycast(
+                            origin.x,
+                            origin.y,
+                            origin.z,
+                            direction.x,
+                            direction.y,
+                            direction.z,
+                            maxDistance,
+                            this,
+                            stack);
+                }
+
+                // Colliders still queued for a refit are skipped by the tree traversal. Their
+                // shapes are only resolved on the thread that owns the queue.
+                if (resolveShapes) {
+                    for (int i = 0; i < dirtyColliders.size(); i++) {
+                        Collider collider = dirtyColliders.get(i);
+                        testCollider(
+                                collider,
+                                collider.proxyId,
+                                nearestCollider != null ? resultHit.getDistance() : maxDistance);
+                    }
+                }
+                return nearestCollider;
+            } finally {
+                this.ray = null;
+                this.resultHit = null;
+                nearestCollider = null;
+            }
+        }
+
+        @Override
+        public float onProxy(int proxyId, float maxDistance) {
+            // The bounds of queued colliders are out of date, they are tested after the traversal.
+            Collider collider = tree.getUserData(proxyId);
+            if (collider.isProxyDirty) {
+                return maxDistance;
             }
+
+            return testCollider(collider, proxyId, maxDistance);
+        }
+
+        private float testCollider(Collider collider, int proxyId, float maxDistance) {
+            Ray ray = this.ray;
+            RayHit resultHit = this.resultHit;
+            if (ray == null || resultHit == null) {
+                return -1.0f;
+            }
+
+            // Filter before the world shape of the collider is brought up to date.
+            if (!collider.isInLayers(layerMask)) {
+                return maxDistance;
+            }
+
+            TransformProvider transformProvider = collider.getTransformProvider();
+            if (onlySelectableNodes
+                    && transformProvider instanceof Node
+                    && !((Node) transformProvider).isSelectable()) {
+                return maxDistance;
+            }
+
+            CollisionShape collisionShape =
+                    resolveShapes
+                            ? collider.getTransformedShape()
+                            : collider.getCachedTransformedShape();
+            if (collisionShape == null || !collisionShape.rayIntersection(ray, tempResult)) {
+                return maxDistance;
+            }
+
+            float distance = tempResult.getDistance();
+            if (distance > maxDistance) {
+                return maxDistance;
+            }
+
+            // Break ties by proxy id so that the result doesn't depend on the traversal order.
+            if (nearestCollider != null
+                    && distance == resultHit.getDistance()
+                    && proxyId > nearestProxyId) {
+                return maxDistance;
+            }
+
+            resultHit.set(tempResult);
+            nearestCollider = collider;
+            nearestProxyId = proxyId;
+            return distance;
+        }
+    }
+
+    /** Splits a batch of rays in half until the halves are small enough to run on one thread. */
+    private final class RaycastBatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Ray[] rays;
+        private final RayHit[] results;
+        @Nullable
+        private final Collider[] resultColliders;
+        private final boolean onlySelectableNodes;
+        private final int layerMask;
+        private final int start;
+        private final int end;
+
+        RaycastBatchTask(
+                Ray[] rays,
+                RayHit[] results,
+                @Nullable Collider[] resultColliders,
+                boolean onlySelectableNodes,
+                int layerMask,
+                int start,
+                int end) {
+            this.rays = rays;
+            this.results = results;
+            this.resultColliders = resultColliders;
+            this.onlySelectableNodes = onlySelectableNodes;
+            this.layerMask = layerMask;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= PARALLEL_BATCH_SIZE) {
+                raycastBatchRange(
+                        new NearestRayHit(),
+                        new int[tree.getTraversalStackSize()],
+                        rays,
+                        results,
+                        resultColliders,
+                        onlySelectableNodes,
+                        layerMask,
+                        false,
+                        start,
+                        end);
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+            invokeAll(
+                    new RaycastBatchTask(
+                            rays,
+                            results,
+                            resultColliders,
+                            onlySelectableNodes,
+                            layerMask,
+                            start,
+                            middle),
+                    new RaycastBatchTask(
+                            rays,
+                            results,
+                            resultColliders,
+                            onlySelectableNodes,
+                            layerMask,
+                            middle,
+                            end));
+        }
+    }
+
+    private float collectNearestRayHit(int proxyId, float maxDistance) {
+        Collider collider = tree.getUserData(proxyId);
+        // The bounds of queued colliders are out of date, they are tested after the traversal.
+        if (collider.isProxyDirty) {
+            return maxDistance;
+        }
+
+        return collectNearestRayHit(collider, maxDistance);
+    }
+
+    private float collectNearestRayHit(Collider collider, float maxDistance) {
+        Ray ray = heapRay;
+        ArrayList<RayHit> results = heapResults;
+        Supplier<? extends RayHit> allocateResult = heapAllocateResult;
+        ArrayList<Collider> hitColliders = heapColliders;
+        if (ray == null || results == null || allocateResult == null || hitColliders == null) {
+            return -1.0f;
+        }
+
+        if (!collider.isInLayers(heapLayerMask)) {
+            return maxDistance;
+        }
+
+        CollisionShape collisionShape = collider.getTransformedShape();
+        if (collisionShape == null || !collisionShape.rayIntersection(ray, tempResult)) {
+            return maxDistance;
+        }
+
+        float distance = tempResult.getDistance();
+        if (distance > maxDistance) {
+            return maxDistance;
+        }
+
+        if (heapSize < heapMaxSize) {
+            if (results.size() <= heapSize) {
+                results.add(allocateResult.get());
+            }
+
+            RayHit result = results.get(heapSize);
+            result.reset();
+            result.set(tempResult);
+            hitColliders.add(collider);
+            siftUp(results, hitColliders, heapSize);
+            heapSize++;
+
+            return heapSize == heapMaxSize ? results.get(0).getDistance() : maxDistance;
+        }
+
+        // The heap is full, replace the farthest hit.
+        RayHit farthest = results.get(0);
+        if (distance >= farthest.getDistance()) {
+            return maxDistance;
+        }
+
+        farthest.reset();
+        farthest.set(tempResult);
+        hitColliders.set(0, collider);
+        siftDown(results, hitColliders, 0, heapSize);
+        return results.get(0).getDistance();
+    }
+
+    private static void siftUp(
+            ArrayList<RayHit> hits, ArrayList<Collider> hitColliders, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (hits.get(parent).getDistance() >= hits.get(index).getDistance()) {
+                return;
+            }
+
+            swapHits(hits, hitColliders, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(
+            ArrayList<RayHit> hits, ArrayList<Collider> hitColliders, int index, int size) {
+        while (true) {
+            int largest = index;
+            int left = index * 2 + 1;
+            int right = left + 1;
+            if (left < size && hits.get(left).getDistance() > hits.get(largest).getDistance()) {
+                largest = left;
+            }
+            if (right < size && hits.get(right).getDistance() > hits.get(largest).getDistance()) {
+                largest = right;
+            }
+            if (largest == index) {
+                return;
+            }
+
+            swapHits(hits, hitColliders, index, largest);
+            index = largest;
+        }
+    }
+
+    private static void swapHits(
+            ArrayList<RayHit> hits, ArrayList<Collider> hitColliders, int a, int b) {
+        hits.set(a, hits.set(b, hits.get(a)));
+        hitColliders.set(a, hitColliders.set(b, hitColliders.get(a)));
+    }
+
+    private void collectCandidate(int proxyId) {
+        if (collectTarget == null) {
+            return;
+        }
+
+        Collider collider = tree.getUserData(proxyId);
+        if (!collider.isProxyDirty && collider.isInLayers(collectLayerMask)) {
+            collectTarget.add(collider);
         }
     }
 }
@@ -0,0 +1,617 @@
+package com.google.ar.sceneform.collision;
+
+import com.google.ar.sceneform.utilities.Preconditions;
+import java.util.Arrays;
+
+/**
+ * Dynamic bounding volume hierarchy of axis aligned boxes. Used by {@link CollisionSystem} as a
+ * broadphase so that the exact intersection tests only run against colliders whose bounds pass.
+ *
+ * <p>Leaves store bounds that are enlarged by a small margin, so a collider that moves slightly
+ * doesn't need to be re-inserted. Internal nodes are kept balanced with tree rotations. Nodes are
+ * stored in flat arrays and recycled through a free list, so steady state use doesn't allocate.
+ */
+class DynamicAabbTree<T> {
+  static final int NULL_NODE = -1;
+
+  /** Distance that leaf bounds are enlarged by in each direction. */
+  static final float AABB_MARGIN = 0.05f;
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int BOUNDS_STRIDE = 6;
+
+  /** Callback for {@link #query}. Return false to stop the query. */
+  interface QueryCallback {
+    boolean onProxy(int proxyId);
+  }
+
+  /**
+   * Callback for {@link #raycast}. Returns the new maximum distance of the ray, which allows the
+   * traversal to skip everything behind a hit that has already been found. Return a negative value
+   * to stop the raycast.
+   */
+  interface RaycastCallback {
+    float onProxy(int proxyId, float maxDistance);
+  }
+
+  // minX, minY, minZ, maxX, maxY, maxZ for each node.
+  private float[] bounds;
+  private int[] parents;
+  private int[] children1;
+  private int[] children2;
+  // Height of the node in the tree. Leaves are 0, free nodes are -1.
+  private int[] heights;
+  private Object[] userData;
+
+  private int root = NULL_NODE;
+  private int nodeCapacity;
+  private int nodeCount;
+  // Free nodes are chained through the parents array.
+  private int freeList;
+
+  private int[] stack = new int[64];
+
+  @SuppressWarnings("initialization") // Suppress @UnderInitialization warning.
+  DynamicAabbTree() {
+    allocateNodes(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Creates a leaf for the given bounds.
+   *
+   * @return the id of the proxy, used to move, remove and identify it in queries
+   */
+  int createProxy(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, T data) {
+    Preconditions.checkNotNull(data, "Parameter \"data\" was null.");
+
+    int proxyId = allocateNode();
+    setFatBounds(proxyId, minX, minY, minZ, maxX, maxY, maxZ);
+    userData[proxyId] = data;
+    heights[proxyId] = 0;
+    insertLeaf(proxyId);
+    return proxyId;
+  }
+
+  void destroyProxy(int proxyId) {
+    checkLeaf(proxyId);
+
+    removeLeaf(proxyId);
+    freeNode(proxyId);
+  }
+
+  /**
+   * Updates the bounds of a proxy. The tree is only restructured if the new bounds are no longer
+   * contained by the enlarged bounds the proxy was last inserted with.
+   *
+   * @return true if the proxy was re-inserted
+   */
+  boolean moveProxy(
+      int proxyId, float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+    checkLeaf(proxyId);
+
+    int i = proxyId * BOUNDS_STRIDE;
+    if (bounds[i] <= minX
+        && bounds[i + 1] <= minY
+        && bounds[i + 2] <= minZ
+        && bounds[i + 3] >= maxX
+        && bounds[i + 4] >= maxY
+        && bounds[i + 5] >= maxZ) {
+      return false;
+    }
+
+    removeLeaf(proxyId);
+    setFatBounds(proxyId, minX, minY, minZ, maxX, maxY, maxZ);
+    insertLeaf(proxyId);
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  T getUserData(int proxyId) {
+    return (T) userData[proxyId];
+  }
+
+  /** Copies the enlarged bounds of a proxy into dest as minX, minY, minZ, maxX, maxY, maxZ. */
+  void getFatBounds(int proxyId, float[] dest) {
+    System.arraycopy(bounds, proxyId * BOUNDS_STRIDE, dest, 0, BOUNDS_STRIDE);
+  }
+
+  int getProxyCount() {
+    return (nodeCount + 1) / 2;
+  }
+
+  /**
+   * Returns the stack size needed to traverse the tree depth first. Each level of the tree leaves
+   * at most one sibling on the stack.
+   */
+  int getTraversalStackSize() {
+    return getHeight() + 2;
+  }
+
+  int getHeight() {
+    return root == NULL_NODE ? 0 : heights[root];
+  }
+
+  /** Calls the callback for each proxy whose enlarged bounds overlap the given bounds. */
+  void query(
+      float minX,
+      float minY,
+      float minZ,
+      float maxX,
+      float maxY,
+      float maxZ,
+      QueryCallback callback) {
+    Preconditions.checkNotNull(callback, "Parameter \"callback\" was null.");
+
+    if (root == NULL_NODE) {
+      return;
+    }
+
+    int stackSize = 0;
+    stack[stackSize++] = root;
+    while (stackSize > 0) {
+      int node = stack[--stackSize];
+      int i = node * BOUNDS_STRIDE;
+      if (bounds[i] > maxX
+          || bounds[i + 1] > maxY
+          || bounds[i + 2] > maxZ
+          || bounds[i + 3] < minX
+          || bounds[i + 4] < minY
+          || bounds[i + 5] < minZ) {
+        continue;
+      }
+
+      if (heights[node] == 0) {
+        if (!callback.onProxy(node)) {
+          return;
+        }
+      } else {
+        stackSize = push(stackSize, children1[node]);
+        stackSize = push(stackSize, children2[node]);
+      }
+    }
+  }
+
+  /** Calls the callback for each proxy whose enlarged bounds may be inside the frustum. */
+  void query(Frustum frustum, QueryCallback callback) {
+    Preconditions.checkNotNull(frustum, "Parameter \"frustum\" was null.");
+    Preconditions.checkNotNull(callback, "Parameter \"callback\" was null.");
+
+    if (root == NULL_NODE) {
+      return;
+    }
+
+    int stackSize = 0;
+    stack[stackSize++] = root;
+    while (stackSize > 0) {
+      int node = stack[--stackSize];
+      int i = node * BOUNDS_STRIDE;
+      if (!frustum.intersectsBounds(
+          bounds[i], bounds[i + 1], bounds[i + 2], bounds[i + 3], bounds[i + 4], bounds[i + 5])) {
+        continue;
+      }
+
+      if (heights[node] == 0) {
+        if (!callback.onProxy(node)) {
+          return;
+        }
+      } else {
+        stackSize = push(stackSize, children1[node]);
+        stackSize = push(stackSize, children2[node]);
+      }
+    }
+  }
+
+  /**
+   * Calls the callback for each proxy whose enlarged bounds are hit by the ray within maxDistance.
+   * The direction must be normalized so that distances match the distances of {@link RayHit}.
+   */
+  void raycast(
+      float originX,
+      float originY,
+      float originZ,
+      float directionX,
+      float directionY,
+      float directionZ,
+      float maxDistance,
+      RaycastCallback callback) {
+    if (stack.length < getTraversalStackSize()) {
+      stack = new int[getTraversalStackSize()];
+    }
+
+    raycast(
+        originX,
+        originY,
+        originZ,
+        directionX,
+        directionY,
+        directionZ,
+        maxDistance,
+        callback,
+        stack);
+  }
+
+  /**
+   * Same as {@link #raycast(float, float, float, float, float, float, float, RaycastCallback)}, but
+   * traverses the tree using the given stack instead of the tree's own. Raycasts with separate
+   * stacks can run on several threads at once as long as the tree isn't modified.
+   *
+   * @param stack must hold at least {@link #getTraversalStackSize()} elements
+   */
+  void raycast(
+      float originX,
+      float originY,
+      float originZ,
+      float directionX,
+      float directionY,
+      float directionZ,
+      float maxDistance,
+      RaycastCallback callback,
+      int[] stack) {
+    Preconditions.checkNotNull(callback, "Parameter \"callback\" was null.");
+    Preconditions.checkNotNull(stack, "Parameter \"stack\" was null.");
+
+    if (root == NULL_NODE) {
+      return;
+    }
+
+    float inverseX = 1.0f / directionX;
+    float inverseY = 1.0f / directionY;
+    float inverseZ = 1.0f / directionZ;
+
+    int stackSize = 0;
+    stack[stackSize++] = root;
+    while (stackSize > 0) {
+      int node = stack[--stackSize];
+      int i = node * BOUNDS_STRIDE;
+
+      // Slab test against the bounds of the node.
+      float tNear = 0.0f;
+      float tFar = maxDistance;
+      if (directionX != 0.0f) {
+        float t1 = (bounds[i] - originX) * inverseX;
+        float t2 = (bounds[i + 3] - originX) * inverseX;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+      } else if (originX < bounds[i] || originX > bounds[i + 3]) {
+        continue;
+      }
+      if (directionY != 0.0f) {
+        float t1 = (bounds[i + 1] - originY) * inverseY;
+        float t2 = (bounds[i + 4] - originY) * inverseY;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+      } else if (originY < bounds[i + 1] || originY > bounds[i + 4]) {
+        continue;
+      }
+      if (directionZ != 0.0f) {
+        float t1 = (bounds[i + 2] - originZ) * inverseZ;
+        float t2 = (bounds[i + 5] - originZ) * inverseZ;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+      } else if (originZ < bounds[i + 2] || originZ > bounds[i + 5]) {
+        continue;
+      }
+      if (tNear > tFar) {
+        continue;
+      }
+
+      if (heights[node] == 0) {
+        maxDistance = callback.onProxy(node, maxDistance);
+        if (maxDistance < 0.0f) {
+          return;
+        }
+      } else {
+        // Visit the child that is nearer along the ray first so that callbacks that shorten the ray
+        // can cull the farther one.
+        int child1 = children1[node];
+        int child2 = children2[node];
+        if (projectCenter(child1, directionX, directionY, directionZ)
+            < projectCenter(child2, directionX, directionY, directionZ)) {
+          stack[stackSize++] = child2;
+          stack[stackSize++] = child1;
+        } else {
+          stack[stackSize++] = child1;
+          stack[stackSize++] = child2;
+        }
+      }
+    }
+  }
+
+  /** Returns the center of the node's bounds projected onto a direction, scaled by two. */
+  private float projectCenter(int node, float directionX, float directionY, float directionZ) {
+    int i = node * BOUNDS_STRIDE;
+    return (bounds[i] + bounds[i + 3]) * directionX
+        + (bounds[i + 1] + bounds[i + 4]) * directionY
+        + (bounds[i + 2] + bounds[i + 5]) * directionZ;
+  }
+
+  private int push(int stackSize, int node) {
+    if (stackSize == stack.length) {
+      stack = Arrays.copyOf(stack, stack.length * 2);
+    }
+    stack[stackSize] = node;
+    return stackSize + 1;
+  }
+
+  private void checkLeaf(int proxyId) {
+    if (proxyId < 0 || proxyId >= nodeCapacity || heights[proxyId] != 0) {
+      throw new IllegalArgumentException("Invalid proxy id: " + proxyId);
+    }
+  }
+
+  private void setFatBounds(
+      int node, float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+    int i = node * BOUNDS_STRIDE;
+    bounds[i] = minX - AABB_MARGIN;
+    bounds[i + 1] = minY - AABB_MARGIN;
+    bounds[i + 2] = minZ - AABB_MARGIN;
+    bounds[i + 3] = maxX + AABB_MARGIN;
+    bounds[i + 4] = maxY + AABB_MARGIN;
+    bounds[i + 5] = maxZ + AABB_MARGIN;
+  }
+
+  private void allocateNodes(int capacity) {
+    int oldCapacity = nodeCapacity;
+    if (oldCapacity == 0) {
+      bounds = new float[capacity * BOUNDS_STRIDE];
+      parents = new int[capacity];
+      children1 = new int[capacity];
+      children2 = new int[capacity];
+      heights = new int[capacity];
+      userData = new Object[capacity];
+    } else {
+      bounds = Arrays.copyOf(bounds, capacity * BOUNDS_STRIDE);
+      parents = Arrays.copyOf(parents, capacity);
+      children1 = Arrays.copyOf(children1, capacity);
+      children2 = Arrays.copyOf(children2, capacity);
+      heights = Arrays.copyOf(heights, capacity);
+      userData = Arrays.copyOf(userData, capacity);
+    }
+
+    // Chain the new nodes into the free list.
+    for (int i = oldCapacity; i < capacity; i++) {
+      parents[i] = i + 1 < capacity ? i + 1 : NULL_NODE;
+      heights[i] = -1;
+    }
+    freeList = oldCapacity;
+    nodeCapacity = capacity;
+  }
+
+  private int allocateNode() {
+    if (freeList == NULL_NODE) {
+      allocateNodes(nodeCapacity * 2);
+    }
+
+    int node = freeList;
+    freeList = parents[node];
+    parents[node] = NULL_NODE;
+    children1[node] = NULL_NODE;
+    children2[node] = NULL_NODE;
+    heights[node] = 0;
+    userData[node] = null;
+    nodeCount++;
+    return node;
+  }
+
+  private void freeNode(int node) {
+    parents[node] = freeList;
+    heights[node] = -1;
+    userData[node] = null;
+    freeList = node;
+    nodeCount--;
+  }
+
+  private void insertLeaf(int leaf) {
+    if (root == NULL_NODE) {
+      root = leaf;
+      parents[root] = NULL_NODE;
+      return;
+    }
+
+    // Find the best sibling by walking down the tree, picking the child that grows the least.
+    int l = leaf * BOUNDS_STRIDE;
+    int index = root;
+    while (heights[index] > 0) {
+      int child1 = children1[index];
+      int child2 = children2[index];
+
+      float area = surfaceArea(index);
+      float combinedArea = combinedSurfaceArea(index, l);
+
+      // Cost of creating a new parent for this node and the new leaf.
+      float cost = 2.0f * combinedArea;
+      // Minimum cost of pushing the leaf further down the tree.
+      float inheritanceCost = 2.0f * (combinedArea - area);
+
+      float cost1 = descendCost(child1, l, inheritanceCost);
+      float cost2 = descendCost(child2, l, inheritanceCost);
+
+      if (cost < cost1 && cost < cost2) {
+        break;
+      }
+
+      index = cost1 < cost2 ? child1 : child2;
+    }
+
+    int sibling = index;
+
+    // Create a new parent for the sibling and the leaf.
+    int oldParent = parents[sibling];
+    int newParent = allocateNode();
+    parents[newParent] = oldParent;
+    combineBounds(newParent, sibling, leaf);
+    heights[newParent] = heights[sibling] + 1;
+
+    if (oldParent != NULL_NODE) {
+      if (children1[oldParent] == sibling) {
+        children1[oldParent] = newParent;
+      } else {
+        children2[oldParent] = newParent;
+      }
+    } else {
+      root = newParent;
+    }
+    children1[newParent] = sibling;
+    children2[newParent] = leaf;
+    parents[sibling] = newParent;
+    parents[leaf] = newParent;
+
+    refitAncestors(parents[leaf]);
+  }
+
+  private void removeLeaf(int leaf) {
+    if (leaf == root) {
+      root = NULL_NODE;
+      return;
+    }
+
+    int parent = parents[leaf];
+    int grandParent = parents[parent];
+    int sibling = children1[parent] == leaf ? children2[parent] : children1[parent];
+
+    if (grandParent != NULL_NODE) {
+      // Connect the sibling to the grand parent and destroy the parent.
+      if (children1[grandParent] == parent) {
+        children1[grandParent] = sibling;
+      } else {
+        children2[grandParent] = sibling;
+      }
+      parents[sibling] = grandParent;
+      freeNode(parent);
+
+      refitAncestors(grandParent);
+    } else {
+      root = sibling;
+      parents[sibling] = NULL_NODE;
+      freeNode(parent);
+    }
+
+    parents[leaf] = NULL_NODE;
+  }
+
+  /** Walks back up the tree from the given node, rebalancing and refitting the bounds. */
+  private void refitAncestors(int index) {
+    while (index != NULL_NODE) {
+      index = balance(index);
+
+      int child1 = children1[index];
+      int child2 = children2[index];
+      heights[index] = 1 + Math.max(heights[child1], heights[child2]);
+      combineBounds(index, child1, child2);
+
+      index = parents[index];
+    }
+  }
+
+  /**
+   * Performs a left or right rotation if node a is imbalanced.
+   *
+   * @return the new root of the subtree
+   */
+  private int balance(int a) {
+    if (heights[a] < 2) {
+      return a;
+    }
+
+    int b = children1[a];
+    int c = children2[a];
+    int balance = heights[c] - heights[b];
+
+    if (balance > 1) {
+      return rotate(a, c, b, true);
+    }
+    if (balance < -1) {
+      return rotate(a, b, c, false);
+    }
+    return a;
+  }
+
+  /**
+   * Rotates the taller child of a up so that it becomes the root of the subtree.
+   *
+   * @param a the imbalanced node
+   * @param up the taller child of a, which is moved up
+   * @param other the shorter child of a
+   * @param upIsChild2 true if up is the second child of a
+   * @return the new root of the subtree
+   */
+  private int rotate(int a, int up, int other, boolean upIsChild2) {
+    int f = children1[up];
+    int g = children2[up];
+
+    // Swap a and up.
+    children1[up] = a;
+    parents[up] = parents[a];
+    parents[a] = up;
+
+    // a's old parent should point to up.
+    int upParent = parents[up];
+    if (upParent != NULL_NODE) {
+      if (children1[upParent] == a) {
+        children1[upParent] = up;
+      } else {
+        children2[upParent] = up;
+      }
+    } else {
+      root = up;
+    }
+
+    // Keep the taller grandchild under up and move the shorter one to a.
+    int keep = heights[f] > heights[g] ? f : g;
+    int move = keep == f ? g : f;
+    children2[up] = keep;
+    if (upIsChild2) {
+      children2[a] = move;
+    } else {
+      children1[a] = move;
+    }
+    parents[move] = a;
+
+    combineBounds(a, other, move);
+    combineBounds(up, a, keep);
+    heights[a] = 1 + Math.max(heights[other], heights[move]);
+    heights[up] = 1 + Math.max(heights[a], heights[keep]);
+
+    return up;
+  }
+
+  private float descendCost(int child, int leafOffset, float inheritanceCost) {
+    float combinedArea = combinedSurfaceArea(child, leafOffset);
+    if (heights[child] == 0) {
+      return combinedArea + inheritanceCost;
+    }
+    return combinedArea - surfaceArea(child) + inheritanceCost;
+  }
+
+  private void combineBounds(int dest, int a, int b) {
+    int d = dest * BOUNDS_STRIDE;
+    int i = a * BOUNDS_STRIDE;
+    int j = b * BOUNDS_STRIDE;
+    for (int k = 0; k < 3; k++) {
+      bounds[d + k] = Math.min(bounds[i + k], bounds[j + k]);
+      bounds[d + k + 3] = Math.max(bounds[i + k + 3], bounds[j + k + 3]);
+    }
+  }
+
+  private float surfaceArea(int node) {
+    int i = node * BOUNDS_STRIDE;
+    float x = bounds[i + 3] - bounds[i];
+    float y = bounds[i + 4] - bounds[i + 1];
+    float z = bounds[i + 5] - bounds[i + 2];
+    return 2.0f * (x * y + y * z + z * x);
+  }
+
+  private float combinedSurfaceArea(int node, int otherOffset) {
+    int i = node * BOUNDS_STRIDE;
+    float x =
+        Math.max(bounds[i + 3], bounds[otherOffset + 3]) - Math.min(bounds[i], bounds[otherOffset]);
+    float y =
+        Math.max(bounds[i + 4], bounds[otherOffset + 4])
+            - Math.min(bounds[i + 1], bounds[otherOffset + 1]);
+    float z =
+        Math.max(bounds[i + 5], bounds[otherOffset + 5])
+            - Math.min(bounds[i + 2], bounds[otherOffset + 2]);
+    return 2.0f * (x * y + y * z + z * x);
+  }
+
+}
@@ -0,0 +1,116 @@
+package com.google.ar.sceneform.collision;
+
+import com.google.ar.sceneform.math.Matrix;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.utilities.Preconditions;
+
+/**
+ * The volume of space that a camera can see, bounded by six planes. Used to find what is inside
+ * the view of a camera.
+ *
+ * <p>A new frustum contains everything until {@link #setViewProjection(Matrix)} is called.
+ */
+public class Frustum {
+  private static final int PLANE_COUNT = 6;
+  private static final int PLANE_STRIDE = 4;
+
+  // a, b, c, d of the plane equation ax + by + cz + d = 0 for each plane. The normals point into
+  // the frustum and are not normalized, since the tests only need the sign of the distance.
+  private final float[] planes = new float[PLANE_COUNT * PLANE_STRIDE];
+
+  public Frustum() {
+    for (int i = 0; i < PLANE_COUNT; i++) {
+      planes[i * PLANE_STRIDE + 3] = 1.0f;
+    }
+  }
+
+  /**
+   * Sets the planes of the frustum from a view projection matrix, the projection matrix of a camera
+   * multiplied by its view matrix.
+   */
+  public void setViewProjection(Matrix viewProjection) {
+    Preconditions.checkNotNull(viewProjection, "Parameter \"viewProjection\" was null.");
+
+    float[] data = viewProjection.data;
+    // A point is inside the clip volume when -w <= x, y, z <= w. Each plane is the last row of the
+    // matrix plus or minus one of the other rows.
+    for (int i = 0; i < PLANE_COUNT; i++) {
+      int row = i / 2;
+      float sign = (i % 2 == 0) ? 1.0f : -1.0f;
+      int offset = i * PLANE_STRIDE;
+      planes[offset] = data[3] + sign * data[row];
+      planes[offset + 1] = data[7] + sign * data[row + 4];
+      planes[offset + 2] = data[11] + sign * data[row + 8];
+      planes[offset + 3] = data[15] + sign * data[row + 12];
+    }
+  }
+
+  /**
+   * Returns true if the axis aligned box may be inside the frustum. Boxes that are outside of the
+   * frustum but close to one of its corners may also return true.
+   */
+  public boolean intersectsBounds(Vector3 min, Vector3 max) {
+    Preconditions.checkNotNull(min, "Parameter \"min\" was null.");
+    Preconditions.checkNotNull(max, "Parameter \"max\" was null.");
+
+    return intersectsBounds(min.x, min.y, min.z, max.x, max.y, max.z);
+  }
+
+  /** @see #intersectsBounds(Vector3, Vector3) */
+  public boolean intersectsBounds(
+      float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+    for (int i = 0; i < PLANE_COUNT; i++) {
+      int offset = i * PLANE_STRIDE;
+      float a = planes[offset];
+      float b = planes[offset + 1];
+      float c = planes[offset + 2];
+
+      // The corner of the box that is furthest along the normal of the plane.
+      float distance =
+          a * (a > 0.0f ? maxX : minX)
+              + b * (b > 0.0f ? maxY : minY)
+              + c * (c > 0.0f ? maxZ : minZ)
+              + planes[offset + 3];
+      if (distance < 0.0f) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns true if the box, given by its center and half extents after being transformed by the
+   * matrix, may be inside the frustum.
+   */
+  public boolean intersectsBounds(Matrix transform, Vector3 center, Vector3 extents) {
+    Preconditions.checkNotNull(transform, "Parameter \"transform\" was null.");
+    Preconditions.checkNotNull(center, "Parameter \"center\" was null.");
+    Preconditions.checkNotNull(extents, "Parameter \"extents\" was null.");
+
+    float[] data = transform.data;
+    float centerX = data[0] * center.x + data[4] * center.y + data[8] * center.z + data[12];
+    float centerY = data[1] * center.x + data[5] * center.y + data[9] * center.z + data[13];
+    float centerZ = data[2] * center.x + data[6] * center.y + data[10] * center.z + data[14];
+    float extentX =
+        Math.abs(data[0]) * extents.x
+            + Math.abs(data[4]) * extents.y
+            + Math.abs(data[8]) * extents.z;
+    float extentY =
+        Math.abs(data[1]) * extents.x
+            + Math.abs(data[5]) * extents.y
+            + Math.abs(data[9]) * extents.z;
+    float extentZ =
+        Math.abs(data[2]) * extents.x
+            + Math.abs(data[6]) * extents.y
+            + Math.abs(data[10]) * extents.z;
+
+    return intersectsBounds(
+        centerX - extentX,
+        centerY - extentY,
+        centerZ - extentZ,
+        centerX + extentX,
+        centerY + extentY,
+        centerZ + extentZ);
+  }
+}
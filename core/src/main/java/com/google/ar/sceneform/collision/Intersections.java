@@ -1,19 +1,14 @@
 package com.google.ar.sceneform.collision;
 
-import static com.google.ar.sceneform.math.Vector3.add;
-import static com.google.ar.sceneform.math.Vector3.subtract;
-
 import com.google.ar.sceneform.math.MathHelper;
-import com.google.ar.sceneform.math.Matrix;
 import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.utilities.Preconditions;
-import java.util.ArrayList;
-import java.util.List;
 
 /** Implementation of common intersection tests used for collision detection. */
 class Intersections {
-  private static final int NUM_VERTICES_PER_BOX = 8;
-  private static final int NUM_TEST_AXES = 15;
+  // Distance at which a sweep that advances towards a shape counts as touching it.
+  private static final float SWEEP_TOLERANCE = 0.0001f;
+  private static final int MAX_SWEEP_ITERATIONS = 64;
 
   /** Determine if two spheres intersect with each other. */
   static boolean sphereSphereIntersection(Sphere sphere1, Sphere sphere2) {
@@ -22,187 +17,359 @@ class Intersections {
 
     float combinedRadius = sphere1.getRadius() + sphere2.getRadius();
     float combinedRadiusSquared = combinedRadius * combinedRadius;
-    Vector3 difference = Vector3.subtract(sphere2.getCenter(), sphere1.getCenter());
-    float differenceLengthSquared = Vector3.dot(difference, difference);
+    Vector3 center1 = sphere1.getRawCenter();
+    Vector3 center2 = sphere2.getRawCenter();
+    float differenceX = center2.x - center1.x;
+    float differenceY = center2.y - center1.y;
+    float differenceZ = center2.z - center1.z;
+    float differenceLengthSquared =
+        differenceX * differenceX + differenceY * differenceY + differenceZ * differenceZ;
 
     return differenceLengthSquared - combinedRadiusSquared <= 0.0f
         && differenceLengthSquared != 0.0f;
   }
 
-  /** Determine if two boxes intersect with each other. */
+  /**
+   * Determine if two boxes intersect with each other. Uses the separating axis test on the 3 face
+   * axes of each box and the 9 cross products of their edges. Each box is projected onto an axis
+   * as its center plus or minus its extents along its own axes, so the test doesn't allocate.
+   */
   static boolean boxBoxIntersection(Box box1, Box box2) {
     Preconditions.checkNotNull(box1, "Parameter \"box1\" was null.");
     Preconditions.checkNotNull(box2, "Parameter \"box2\" was null.");
 
-    // Get the vertices of the boxes.
-    List<Vector3> box1Vertices = getVerticesFromBox(box1);
-    List<Vector3> box2Vertices = getVerticesFromBox(box2);
-
-    // Determine the test axes
-    Matrix box1Rotation = box1.getRawRotationMatrix();
-    Matrix box2Rotation = box2.getRawRotationMatrix();
-    ArrayList<Vector3> testAxes = new ArrayList<>(NUM_TEST_AXES);
-    testAxes.add(extractXAxisFromRotationMatrix(box1Rotation));
-    testAxes.add(extractYAxisFromRotationMatrix(box1Rotation));
-    testAxes.add(extractZAxisFromRotationMatrix(box1Rotation));
-    testAxes.add(extractXAxisFromRotationMatrix(box2Rotation));
-    testAxes.add(extractYAxisFromRotationMatrix(box2Rotation));
-    testAxes.add(extractZAxisFromRotationMatrix(box2Rotation));
+    float[] rotation1 = box1.getRawRotationMatrix().data;
+    float[] rotation2 = box2.getRawRotationMatrix().data;
 
-    for (int i = 0; i < 3; i++) {
-      testAxes.add(Vector3.cross(testAxes.get(i), testAxes.get(0)));
-      testAxes.add(Vector3.cross(testAxes.get(i), testAxes.get(1)));
-      testAxes.add(Vector3.cross(testAxes.get(i), testAxes.get(2)));
+    // Test the face axes of both boxes. Axis i of a box is column i of its rotation matrix, as
+    // for Box.rayIntersection.
+    for (int i = 0; i < 12; i += 4) {
+      if (isSeparatingAxis(rotation1[i], rotation1[i + 1], rotation1[i + 2], box1, box2)
+          || isSeparatingAxis(rotation2[i], rotation2[i + 1], rotation2[i + 2], box1, box2)) {
+        return false;
+      }
     }
 
-    // Attempt to find a separating axis.
-    for (int i = 0; i < testAxes.size(); i++) {
-      if (!testSeparatingAxis(box1Vertices, box2Vertices, testAxes.get(i))) {
-        return false;
+    // Test the cross products of the edges of the boxes.
+    for (int i = 0; i < 12; i += 4) {
+      float axis1X = rotation1[i];
+      float axis1Y = rotation1[i + 1];
+      float axis1Z = rotation1[i + 2];
+      for (int j = 0; j < 12; j += 4) {
+        float axis2X = rotation2[j];
+        float axis2Y = rotation2[j + 1];
+        float axis2Z = rotation2[j + 2];
+        if (isSeparatingAxis(
+            axis1Y * axis2Z - axis1Z * axis2Y,
+            axis1Z * axis2X - axis1X * axis2Z,
+            axis1X * axis2Y - axis1Y * axis2X,
+            box1,
+            box2)) {
+          return false;
+        }
       }
     }
 
     return true;
   }
 
-  /** Determine if a sphere and a box intersect with each other. */
-  static boolean sphereBoxIntersection(Sphere sphere, Box box) {
-    Preconditions.checkNotNull(sphere, "Parameter \"sphere\" was null.");
-    Preconditions.checkNotNull(box, "Parameter \"box\" was null.");
-
-    Vector3 point = closestPointOnBox(sphere.getCenter(), box);
-    Vector3 sphereDiff = Vector3.subtract(point, sphere.getCenter());
-    float sphereDiffLengthSquared = Vector3.dot(sphereDiff, sphereDiff);
-
-    if (sphereDiffLengthSquared > sphere.getRadius() * sphere.getRadius()) {
-      return false;
+  /**
+   * Determine when a moving sphere first touches another sphere, by intersecting the path of its
+   * center with a sphere whose radius is the sum of both radii.
+   *
+   * @return the fraction of the motion at the first contact, or -1 if the spheres don't touch
+   */
+  static float sphereSphereSweep(
+      Sphere moving, Sphere target, Vector3 startOffset, Vector3 motion) {
+    Preconditions.checkNotNull(moving, "Parameter \"moving\" was null.");
+    Preconditions.checkNotNull(target, "Parameter \"target\" was null.");
+
+    Vector3 movingCenter = moving.getRawCenter();
+    Vector3 targetCenter = target.getRawCenter();
+    float differenceX = movingCenter.x + startOffset.x - targetCenter.x;
+    float differenceY = movingCenter.y + startOffset.y - targetCenter.y;
+    float differenceZ = movingCenter.z + startOffset.z - targetCenter.z;
+    float combinedRadius = moving.getRadius() + target.getRadius();
+
+    float c =
+        differenceX * differenceX
+            + differenceY * differenceY
+            + differenceZ * differenceZ
+            - combinedRadius * combinedRadius;
+    if (c <= 0.0f) {
+      return 0.0f;
     }
 
-    if (MathHelper.almostEqualRelativeAndAbs(sphereDiffLengthSquared, 0.0f)) {
-      Vector3 boxDiff = Vector3.subtract(point, box.getCenter());
-      float boxDiffLengthSquared = Vector3.dot(boxDiff, boxDiff);
-      if (MathHelper.almostEqualRelativeAndAbs(boxDiffLengthSquared, 0.0f)) {
-        return false;
-      }
+    float a = Vector3.dot(motion, motion);
+    float b =
+        2.0f * (differenceX * motion.x + differenceY * motion.y + differenceZ * motion.z);
+    float discriminant = b * b - 4.0f * a * c;
+    if (MathHelper.almostEqualRelativeAndAbs(a, 0.0f) || discriminant < 0.0f) {
+      return -1.0f;
     }
 
-    return true;
+    float fraction = (-b - (float) Math.sqrt(discriminant)) / (2.0f * a);
+    return fraction >= 0.0f && fraction <= 1.0f ? fraction : -1.0f;
   }
 
-  private static Vector3 closestPointOnBox(Vector3 point, Box box) {
-    Vector3 result = new Vector3(box.getCenter());
-    Vector3 diff = Vector3.subtract(point, box.getCenter());
-    Matrix boxRotation = box.getRawRotationMatrix();
-    Vector3 boxExtents = box.getExtents();
-
-    // x-axis
-    {
-      Vector3 axis = extractXAxisFromRotationMatrix(boxRotation);
-      float distance = Vector3.dot(diff, axis);
-
-      if (distance > boxExtents.x) {
-        distance = boxExtents.x;
-      } else if (distance < -boxExtents.x) {
-        distance = -boxExtents.x;
-      }
+  /**
+   * Determine when a moving sphere first touches a box.
+   *
+   * @return the fraction of the motion at the first contact, or -1 if they don't touch
+   */
+  static float sphereBoxSweep(Sphere moving, Box target, Vector3 startOffset, Vector3 motion) {
+    Preconditions.checkNotNull(moving, "Parameter \"moving\" was null.");
+    Preconditions.checkNotNull(target, "Parameter \"target\" was null.");
+
+    Vector3 center = moving.getRawCenter();
+    return sweepSphereTowardsBox(
+        center.x + startOffset.x,
+        center.y + startOffset.y,
+        center.z + startOffset.z,
+        moving.getRadius(),
+        target,
+        motion.x,
+        motion.y,
+        motion.z);
+  }
 
-      result = Vector3.add(result, axis.scaled(distance));
-    }
+  /**
+   * Determine when a moving box first touches a sphere. This is the same as the sphere moving
+   * towards the box in the opposite direction.
+   *
+   * @return the fraction of the motion at the first contact, or -1 if they don't touch
+   */
+  static float boxSphereSweep(Box moving, Sphere target, Vector3 startOffset, Vector3 motion) {
+    Preconditions.checkNotNull(moving, "Parameter \"moving\" was null.");
+    Preconditions.checkNotNull(target, "Parameter \"target\" was null.");
+
+    Vector3 center = target.getRawCenter();
+    return sweepSphereTowardsBox(
+        center.x - startOffset.x,
+        center.y - startOffset.y,
+        center.z - startOffset.z,
+        target.getRadius(),
+        moving,
+        -motion.x,
+        -motion.y,
+        -motion.z);
+  }
+
+  /**
+   * Determine when a moving box first touches another box. For each of the separating axes used by
+   * {@link #boxBoxIntersection}, finds the range of the motion during which the projections of the
+   * boxes overlap. The boxes touch when the ranges of all of the axes overlap.
+   *
+   * @return the fraction of the motion at the first contact, or -1 if the boxes don't touch
+   */
+  static float boxBoxSweep(Box moving, Box target, Vector3 startOffset, Vector3 motion) {
+    Preconditions.checkNotNull(moving, "Parameter \"moving\" was null.");
+    Preconditions.checkNotNull(target, "Parameter \"target\" was null.");
+
+    float[] rotation1 = moving.getRawRotationMatrix().data;
+    float[] rotation2 = target.getRawRotationMatrix().data;
+    Vector3 center1 = moving.getRawCenter();
+    Vector3 center2 = target.getRawCenter();
+    float differenceX = center2.x - center1.x - startOffset.x;
+    float differenceY = center2.y - center1.y - startOffset.y;
+    float differenceZ = center2.z - center1.z - startOffset.z;
+
+    float first = 0.0f;
+    float last = 1.0f;
+    for (int axis = 0; axis < 15; axis++) {
+      float axisX;
+      float axisY;
+      float axisZ;
+      if (axis < 3) {
+        int i = axis * 4;
+        axisX = rotation1[i];
+        axisY = rotation1[i + 1];
+        axisZ = rotation1[i + 2];
+      } else if (axis < 6) {
+        int j = (axis - 3) * 4;
+        axisX = rotation2[j];
+        axisY = rotation2[j + 1];
+        axisZ = rotation2[j + 2];
+      } else {
+        int i = (axis - 6) / 3 * 4;
+        int j = (axis - 6) % 3 * 4;
+        axisX = rotation1[i + 1] * rotation2[j + 2] - rotation1[i + 2] * rotation2[j + 1];
+        axisY = rotation1[i + 2] * rotation2[j] - rotation1[i] * rotation2[j + 2];
+        axisZ = rotation1[i] * rotation2[j + 1] - rotation1[i + 1] * rotation2[j];
+      }
 
-    // y-axis
-    {
-      Vector3 axis = extractYAxisFromRotationMatrix(boxRotation);
-      float distance = Vector3.dot(diff, axis);
+      float distance = differenceX * axisX + differenceY * axisY + differenceZ * axisZ;
+      float extent =
+          getProjectedExtent(axisX, axisY, axisZ, moving)
+              + getProjectedExtent(axisX, axisY, axisZ, target);
+      float speed = motion.x * axisX + motion.y * axisY + motion.z * axisZ;
+
+      if (MathHelper.almostEqualRelativeAndAbs(speed, 0.0f)) {
+        // The projections don't move relative to each other along this axis. Axes from the cross
+        // products of parallel edges are zero, and always end up here without separating.
+        if (Math.abs(distance) > extent) {
+          return -1.0f;
+        }
+        continue;
+      }
 
-      if (distance > boxExtents.y) {
-        distance = boxExtents.y;
-      } else if (distance < -boxExtents.y) {
-        distance = -boxExtents.y;
+      float enter = (distance - extent) / speed;
+      float exit = (distance + extent) / speed;
+      if (enter > exit) {
+        float temp = enter;
+        enter = exit;
+        exit = temp;
       }
 
-      result = Vector3.add(result, axis.scaled(distance));
+      first = Math.max(first, enter);
+      last = Math.min(last, exit);
+      if (first > last) {
+        return -1.0f;
+      }
     }
 
-    // z-axis
-    {
-      Vector3 axis = extractZAxisFromRotationMatrix(boxRotation);
-      float distance = Vector3.dot(diff, axis);
+    return first;
+  }
+
+  /**
+   * Moves a sphere towards a box by conservative advancement. Each step moves the sphere by its
+   * distance to the box, which can't overshoot because the box is convex.
+   */
+  private static float sweepSphereTowardsBox(
+      float x,
+      float y,
+      float z,
+      float radius,
+      Box box,
+      float motionX,
+      float motionY,
+      float motionZ) {
+    float motionLength =
+        (float) Math.sqrt(motionX * motionX + motionY * motionY + motionZ * motionZ);
+
+    float fraction = 0.0f;
+    for (int i = 0; i < MAX_SWEEP_ITERATIONS; i++) {
+      float distance =
+          getDistanceToBox(
+                  x + motionX * fraction, y + motionY * fraction, z + motionZ * fraction, box)
+              - radius;
+      if (distance <= SWEEP_TOLERANCE) {
+        return fraction;
+      }
 
-      if (distance > boxExtents.z) {
-        distance = boxExtents.z;
-      } else if (distance < -boxExtents.z) {
-        distance = -boxExtents.z;
+      if (MathHelper.almostEqualRelativeAndAbs(motionLength, 0.0f)) {
+        return -1.0f;
       }
 
-      result = Vector3.add(result, axis.scaled(distance));
+      fraction += distance / motionLength;
+      if (fraction > 1.0f) {
+        return -1.0f;
+      }
     }
 
-    return result;
+    return -1.0f;
   }
 
-  private static boolean testSeparatingAxis(
-      List<Vector3> vertices1, List<Vector3> vertices2, Vector3 axis) {
-    float min1 = Float.MAX_VALUE;
-    float max1 = Float.MIN_VALUE;
-    for (int i = 0; i < vertices1.size(); ++i) {
-      float projection = Vector3.dot(axis, vertices1.get(i));
-      min1 = Math.min(projection, min1);
-      max1 = Math.max(projection, max1);
-    }
+  /** Returns the distance from a point to the closest point on a box, or 0 if it is inside. */
+  private static float getDistanceToBox(float x, float y, float z, Box box) {
+    float[] rotation = box.getRawRotationMatrix().data;
+    Vector3 center = box.getRawCenter();
+    Vector3 size = box.getRawSize();
+    float differenceX = x - center.x;
+    float differenceY = y - center.y;
+    float differenceZ = z - center.z;
 
-    float min2 = Float.MAX_VALUE;
-    float max2 = Float.MIN_VALUE;
-    for (int i = 0; i < vertices2.size(); i++) {
-      float projection = Vector3.dot(axis, vertices2.get(i));
-      min2 = Math.min(projection, min2);
-      max2 = Math.max(projection, max2);
+    float distanceSquared = 0.0f;
+    for (int i = 0; i < 3; i++) {
+      int offset = i * 4;
+      float projection =
+          differenceX * rotation[offset]
+              + differenceY * rotation[offset + 1]
+              + differenceZ * rotation[offset + 2];
+      float extent = (i == 0 ? size.x : i == 1 ? size.y : size.z) * 0.5f;
+      float excess = Math.abs(projection) - extent;
+      if (excess > 0.0f) {
+        distanceSquared += excess * excess;
+      }
     }
 
-    return min2 <= max1 && min1 <= max2;
+    return (float) Math.sqrt(distanceSquared);
   }
 
-  /** Converts a box into an array of 8 vertices that represent the corners of the box. */
-  private static List<Vector3> getVerticesFromBox(Box box) {
+  /** Determine if a sphere and a box intersect with each other. */
+  static boolean sphereBoxIntersection(Sphere sphere, Box box) {
+    Preconditions.checkNotNull(sphere, "Parameter \"sphere\" was null.");
     Preconditions.checkNotNull(box, "Parameter \"box\" was null.");
 
-    // Get the properties of the box.
-    Vector3 center = box.getCenter();
-    Vector3 extents = box.getExtents();
-    Matrix rotation = box.getRawRotationMatrix();
-
-    // Get the rotation axes of the box.
-    Vector3 xAxis = extractXAxisFromRotationMatrix(rotation);
-    Vector3 yAxis = extractYAxisFromRotationMatrix(rotation);
-    Vector3 zAxis = extractZAxisFromRotationMatrix(rotation);
-
-    // Scale the rotation axes by the extents.
-    Vector3 xScaled = xAxis.scaled(extents.x);
-    Vector3 yScaled = yAxis.scaled(extents.y);
-    Vector3 zScaled = zAxis.scaled(extents.z);
-
-    // Calculate the 8 vertices of the box.
-    ArrayList<Vector3> vertices = new ArrayList<>(NUM_VERTICES_PER_BOX);
-    vertices.add(add(add(add(center, xScaled), yScaled), zScaled));
-    vertices.add(add(add(subtract(center, xScaled), yScaled), zScaled));
-    vertices.add(add(subtract(add(center, xScaled), yScaled), zScaled));
-    vertices.add(subtract(add(add(center, xScaled), yScaled), zScaled));
-    vertices.add(subtract(subtract(subtract(center, xScaled), yScaled), zScaled));
-    vertices.add(subtract(subtract(add(center, xScaled), yScaled), zScaled));
-    vertices.add(subtract(add(subtract(center, xScaled), yScaled), zScaled));
-    vertices.add(add(subtract(subtract(center, xScaled), yScaled), zScaled));
-
-    return vertices;
-  }
+    Vector3 sphereCenter = sphere.getRawCenter();
+    Vector3 boxCenter = box.getRawCenter();
+    Vector3 boxSize = box.getRawSize();
+    float[] rotation = box.getRawRotationMatrix().data;
+    float differenceX = sphereCenter.x - boxCenter.x;
+    float differenceY = sphereCenter.y - boxCenter.y;
+    float differenceZ = sphereCenter.z - boxCenter.z;
+
+    // Find the point on the box closest to the center of the sphere, relative to the center of
+    // the box, by clamping the distance along each axis of the box to its extent.
+    float closestX = 0.0f;
+    float closestY = 0.0f;
+    float closestZ = 0.0f;
+    for (int i = 0; i < 3; i++) {
+      int offset = i * 4;
+      float axisX = rotation[offset];
+      float axisY = rotation[offset + 1];
+      float axisZ = rotation[offset + 2];
+      float extent = 0.5f * (i == 0 ? boxSize.x : i == 1 ? boxSize.y : boxSize.z);
+      float distance = differenceX * axisX + differenceY * axisY + differenceZ * axisZ;
+      distance = MathHelper.clamp(distance, -extent, extent);
+      closestX += axisX * distance;
+      closestY += axisY * distance;
+      closestZ += axisZ * distance;
+    }
 
-  private static Vector3 extractXAxisFromRotationMatrix(Matrix matrix) {
-    return new Vector3(matrix.data[0], matrix.data[4], matrix.data[8]);
+    float sphereDiffX = closestX - differenceX;
+    float sphereDiffY = closestY - differenceY;
+    float sphereDiffZ = closestZ - differenceZ;
+    float sphereDiffLengthSquared =
+        sphereDiffX * sphereDiffX + sphereDiffY * sphereDiffY + sphereDiffZ * sphereDiffZ;
+
+    if (sphereDiffLengthSquared > sphere.getRadius() * sphere.getRadius()) {
+      return false;
+    }
+
+    if (MathHelper.almostEqualRelativeAndAbs(sphereDiffLengthSquared, 0.0f)) {
+      float boxDiffLengthSquared = closestX * closestX + closestY * closestY + closestZ * closestZ;
+      if (MathHelper.almostEqualRelativeAndAbs(boxDiffLengthSquared, 0.0f)) {
+        return false;
+      }
+    }
+
+    return true;
   }
 
-  private static Vector3 extractYAxisFromRotationMatrix(Matrix matrix) {
-    return new Vector3(matrix.data[1], matrix.data[5], matrix.data[9]);
+  /** Returns true if the projections of the boxes onto the axis don't overlap. */
+  private static boolean isSeparatingAxis(
+      float axisX, float axisY, float axisZ, Box box1, Box box2) {
+    Vector3 center1 = box1.getRawCenter();
+    Vector3 center2 = box2.getRawCenter();
+    float distance =
+        (center2.x - center1.x) * axisX
+            + (center2.y - center1.y) * axisY
+            + (center2.z - center1.z) * axisZ;
+
+    // Axes from the cross products of parallel edges are zero, and never separate the boxes.
+    return Math.abs(distance)
+        > getProjectedExtent(axisX, axisY, axisZ, box1)
+            + getProjectedExtent(axisX, axisY, axisZ, box2);
   }
 
-  private static Vector3 extractZAxisFromRotationMatrix(Matrix matrix) {
-    return new Vector3(matrix.data[2], matrix.data[6], matrix.data[10]);
+  /** Returns half of the length of the projection of a box onto an axis. */
+  private static float getProjectedExtent(float axisX, float axisY, float axisZ, Box box) {
+    float[] rotation = box.getRawRotationMatrix().data;
+    Vector3 size = box.getRawSize();
+    return 0.5f
+        * (size.x * Math.abs(axisX * rotation[0] + axisY * rotation[1] + axisZ * rotation[2])
+            + size.y * Math.abs(axisX * rotation[4] + axisY * rotation[5] + axisZ * rotation[6])
+            + size.z * Math.abs(axisX * rotation[8] + axisY * rotation[9] + axisZ * rotation[10]));
   }
 }
@@ -0,0 +1,103 @@
+package com.google.ar.sceneform.collision;
+
+import java.util.Arrays;
+
+/**
+ * List of overlapping collider pairs with a hash index on the pair, used by {@link CollisionSystem}
+ * to tell which overlaps began, stayed or ended since the previous frame. Storage is reused between
+ * frames, so steady state use doesn't allocate.
+ */
+class OverlapPairs {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private long[] keys = new long[INITIAL_CAPACITY];
+  private Collider[] firsts = new Collider[INITIAL_CAPACITY];
+  private Collider[] seconds = new Collider[INITIAL_CAPACITY];
+  private int size;
+
+  // Open addressing table of indices into the pairs, offset by one so that 0 is an empty slot.
+  private int[] table = new int[INITIAL_CAPACITY * 2];
+
+  /** Returns the key of a pair, which doesn't depend on the order of the colliders. */
+  static long getKey(Collider collider1, Collider collider2) {
+    long id1 = collider1.pairId & 0xFFFFFFFFL;
+    long id2 = collider2.pairId & 0xFFFFFFFFL;
+    return id1 < id2 ? (id1 << 32) | id2 : (id2 << 32) | id1;
+  }
+
+  void clear() {
+    Arrays.fill(firsts, 0, size, null);
+    Arrays.fill(seconds, 0, size, null);
+    Arrays.fill(table, 0);
+    size = 0;
+  }
+
+  /** Adds a pair. The collider with the lower pair id is always stored first. */
+  void add(Collider collider1, Collider collider2) {
+    if (size == keys.length) {
+      grow();
+    }
+
+    boolean isOrdered = collider1.pairId < collider2.pairId;
+    long key = getKey(collider1, collider2);
+    keys[size] = key;
+    firsts[size] = isOrdered ? collider1 : collider2;
+    seconds[size] = isOrdered ? collider2 : collider1;
+    size++;
+    insertIndex(key, size);
+  }
+
+  boolean contains(long key) {
+    int mask = table.length - 1;
+    for (int slot = hash(key) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+      if (keys[table[slot] - 1] == key) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  int size() {
+    return size;
+  }
+
+  long getKey(int index) {
+    return keys[index];
+  }
+
+  Collider getFirst(int index) {
+    return firsts[index];
+  }
+
+  Collider getSecond(int index) {
+    return seconds[index];
+  }
+
+  private void grow() {
+    int capacity = keys.length * 2;
+    keys = Arrays.copyOf(keys, capacity);
+    firsts = Arrays.copyOf(firsts, capacity);
+    seconds = Arrays.copyOf(seconds, capacity);
+
+    // Keep the table at most half full.
+    table = new int[capacity * 2];
+    for (int i = 0; i < size; i++) {
+      insertIndex(keys[i], i + 1);
+    }
+  }
+
+  private void insertIndex(long key, int indexPlusOne) {
+    int mask = table.length - 1;
+    int slot = hash(key) & mask;
+    while (table[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = indexPlusOne;
+  }
+
+  private static int hash(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+}
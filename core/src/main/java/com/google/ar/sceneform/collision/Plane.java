@@ -44,16 +44,18 @@ public class Plane {
     Preconditions.checkNotNull(ray, "Parameter \"ray\" was null.");
     Preconditions.checkNotNull(result, "Parameter \"result\" was null.");
 
-    Vector3 rayDirection = ray.getDirection();
-    Vector3 rayOrigin = ray.getOrigin();
+    Vector3 rayDirection = ray.getRawDirection();
+    Vector3 rayOrigin = ray.getRawOrigin();
 
     float denominator = Vector3.dot(normal, rayDirection);
     if (Math.abs(denominator) > NEAR_ZERO_THRESHOLD) {
-      Vector3 delta = Vector3.subtract(center, rayOrigin);
-      float distance = Vector3.dot(delta, normal) / denominator;
+      float deltaX = center.x - rayOrigin.x;
+      float deltaY = center.y - rayOrigin.y;
+      float deltaZ = center.z - rayOrigin.z;
+      float distance =
+          (deltaX * normal.x + deltaY * normal.y + deltaZ * normal.z) / denominator;
       if (distance >= 0) {
-        result.setDistance(distance);
-        result.setPoint(ray.getPoint(result.getDistance()));
+        result.setHit(ray, distance);
         return true;
       }
     }
@@ -1,5 +1,6 @@
 package com.google.ar.sceneform.collision;
 
+import com.google.ar.sceneform.math.MathHelper;
 import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.utilities.Preconditions;
 
@@ -46,6 +47,17 @@ public class Ray {
     return new Vector3(origin);
   }
 
+  /**
+   * Copy the origin of the ray into an existing vector. Unlike {@link #getOrigin()}, this doesn't
+   * allocate.
+   *
+   * @param dest the vector to store the ray's origin in
+   */
+  public void getOrigin(Vector3 dest) {
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    dest.set(origin);
+  }
+
   /**
    * Set the direction of the ray. The direction will automatically be normalized.
    *
@@ -54,7 +66,26 @@ public class Ray {
   public void setDirection(Vector3 direction) {
     Preconditions.checkNotNull(direction, "Parameter \"direction\" was null.");
 
-    this.direction.set(direction.normalized());
+    float lengthSquared = direction.lengthSquared();
+    if (MathHelper.almostEqualRelativeAndAbs(lengthSquared, 0.0f)) {
+      this.direction.set(0.0f, 0.0f, 0.0f);
+    } else {
+      float inverseLength = (float) (1.0 / Math.sqrt(lengthSquared));
+      this.direction.set(
+          direction.x * inverseLength, direction.y * inverseLength, direction.z * inverseLength);
+    }
+  }
+
+  /**
+   * Set both the origin and the direction of the ray. The direction will automatically be
+   * normalized.
+   *
+   * @param origin the new origin of the ray
+   * @param direction the new direction of the ray
+   */
+  public void set(Vector3 origin, Vector3 direction) {
+    setOrigin(origin);
+    setDirection(direction);
   }
 
   /**
@@ -66,6 +97,17 @@ public class Ray {
     return new Vector3(direction);
   }
 
+  /**
+   * Copy the direction of the ray into an existing vector. Unlike {@link #getDirection()}, this
+   * doesn't allocate.
+   *
+   * @param dest the vector to store the ray's direction in
+   */
+  public void getDirection(Vector3 dest) {
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    dest.set(direction);
+  }
+
   /**
    * Get a point at a distance along the ray.
    *
@@ -73,7 +115,42 @@ public class Ray {
    * @return a new vector that represents a point at a distance along the ray.
    */
   public Vector3 getPoint(float distance) {
-    return Vector3.add(origin, direction.scaled(distance));
+    Vector3 result = new Vector3();
+    getPoint(distance, result);
+    return result;
+  }
+
+  /**
+   * Get a point at a distance along the ray without allocating.
+   *
+   * @param distance distance along the ray of the point
+   * @param dest the vector to store the point in
+   */
+  public void getPoint(float distance, Vector3 dest) {
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    dest.set(
+        origin.x + direction.x * distance,
+        origin.y + direction.y * distance,
+        origin.z + direction.z * distance);
+  }
+
+  /**
+   * Get the raw origin of the ray. Do not modify directly. Instead, use setOrigin.
+   *
+   * @return a reference to the ray's origin
+   */
+  Vector3 getRawOrigin() {
+    return origin;
+  }
+
+  /**
+   * Get the raw, normalized direction of the ray. Do not modify directly. Instead, use
+   * setDirection.
+   *
+   * @return a reference to the ray's direction
+   */
+  Vector3 getRawDirection() {
+    return direction;
   }
 
   @Override
@@ -41,6 +41,23 @@ public class RayHit {
     return new Vector3(point);
   }
 
+  /**
+   * Copy the position in world-space where the ray hit the collision shape into an existing
+   * vector. Unlike {@link #getPoint()}, this doesn't allocate.
+   *
+   * @param dest the vector to store the position in
+   */
+  public void getPoint(Vector3 dest) {
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    dest.set(point);
+  }
+
+  /** Sets the distance and the point at that distance along the ray. */
+  void setHit(Ray ray, float distance) {
+    this.distance = distance;
+    ray.getPoint(distance, point);
+  }
+
   /** @hide */
   public void set(RayHit other) {
     Preconditions.checkNotNull(other, "Parameter \"other\" was null.");
@@ -65,6 +65,15 @@ public class Sphere extends CollisionShape {
     return new Vector3(center);
   }
 
+  /**
+   * Get the raw center of the sphere. Do not modify directly. Instead, use setCenter.
+   *
+   * @return a reference to the sphere's raw center
+   */
+  Vector3 getRawCenter() {
+    return center;
+  }
+
   /**
    * Set the radius of the sphere.
    *
@@ -97,12 +106,22 @@ public class Sphere extends CollisionShape {
     Preconditions.checkNotNull(ray, "Parameter \"ray\" was null.");
     Preconditions.checkNotNull(result, "Parameter \"result\" was null.");
 
-    Vector3 rayDirection = ray.getDirection();
-    Vector3 rayOrigin = ray.getOrigin();
-
-    Vector3 difference = Vector3.subtract(rayOrigin, center);
-    float b = 2.0f * Vector3.dot(difference, rayDirection);
-    float c = Vector3.dot(difference, difference) - radius * radius;
+    Vector3 rayDirection = ray.getRawDirection();
+    Vector3 rayOrigin = ray.getRawOrigin();
+
+    float differenceX = rayOrigin.x - center.x;
+    float differenceY = rayOrigin.y - center.y;
+    float differenceZ = rayOrigin.z - center.z;
+    float b =
+        2.0f
+            * (differenceX * rayDirection.x
+                + differenceY * rayDirection.y
+                + differenceZ * rayDirection.z);
+    float c =
+        differenceX * differenceX
+            + differenceY * differenceY
+            + differenceZ * differenceZ
+            - radius * radius;
     float discriminant = b * b - 4.0f * c;
 
     if (discriminant < 0.0f) {
@@ -118,12 +137,11 @@ public class Sphere extends CollisionShape {
     }
 
     if (tMinus < 0 && tPlus > 0) {
-      result.setDistance(tPlus);
+      result.setHit(ray, tPlus);
     } else {
-      result.setDistance(tMinus);
+      result.setHit(ray, tMinus);
     }
 
-    result.setPoint(ray.getPoint(result.getDistance()));
     return true;
   }
 
@@ -146,6 +164,22 @@ public class Sphere extends CollisionShape {
     return Intersections.sphereBoxIntersection(this, box);
   }
 
+  @Override
+  float sweepIntersection(CollisionShape shape, Vector3 startOffset, Vector3 motion) {
+    Preconditions.checkNotNull(shape, "Parameter \"shape\" was null.");
+    return shape.sphereSweepIntersection(this, startOffset, motion);
+  }
+
+  @Override
+  float sphereSweepIntersection(Sphere sphere, Vector3 startOffset, Vector3 motion) {
+    return Intersections.sphereSphereSweep(sphere, this, startOffset, motion);
+  }
+
+  @Override
+  float boxSweepIntersection(Box box, Vector3 startOffset, Vector3 motion) {
+    return Intersections.boxSphereSweep(box, this, startOffset, motion);
+  }
+
   @Override
   CollisionShape transform(TransformProvider transformProvider) {
     Preconditions.checkNotNull(transformProvider, "Parameter \"transformProvider\" was null.");
@@ -170,16 +204,24 @@ public class Sphere extends CollisionShape {
     Matrix modelMatrix = transformProvider.getWorldModelMatrix();
 
     // Transform the center of the sphere.
-    resultSphere.setCenter(modelMatrix.transformPoint(center));
+    modelMatrix.transformPoint(center, resultSphere.center);
+    resultSphere.onChanged();
 
-    // Transform the radius of the sphere.
-    Vector3 worldScale = new Vector3();
-    modelMatrix.decomposeScale(worldScale);
-    // Find the max component scale, ignoring sign.
-    float maxScale =
+    // Transform the radius of the sphere by the largest scale of the matrix, which is the length of
+    // its longest axis.
+    float[] data = modelMatrix.data;
+    float maxScaleSquared =
         Math.max(
-            Math.abs(Math.min(Math.min(worldScale.x, worldScale.y), worldScale.z)),
-            Math.max(Math.max(worldScale.x, worldScale.y), worldScale.z));
-    resultSphere.radius = radius * maxScale;
+            Math.max(
+                data[0] * data[0] + data[1] * data[1] + data[2] * data[2],
+                data[4] * data[4] + data[5] * data[5] + data[6] * data[6]),
+            data[8] * data[8] + data[9] * data[9] + data[10] * data[10]);
+    resultSphere.radius = radius * (float) Math.sqrt(maxScaleSquared);
+  }
+
+  @Override
+  void getBounds(Vector3 destMin, Vector3 destMax) {
+    destMin.set(center.x - radius, center.y - radius, center.z - radius);
+    destMax.set(center.x + radius, center.y + radius, center.z + radius);
   }
 }
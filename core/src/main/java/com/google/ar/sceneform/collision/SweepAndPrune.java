@@ -0,0 +1,163 @@
+package com.google.ar.sceneform.collision;
+
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.utilities.Preconditions;
+import java.util.Arrays;
+
+/**
+ * Finds every pair of overlapping colliders by sorting their world-space bounds along the x axis
+ * and sweeping over them. Used by {@link CollisionSystem} for all-pairs overlap queries.
+ *
+ * <p>The sort order is kept between sweeps, and colliders usually move little from one frame to the
+ * next, so the insertion sort that restores the order is close to linear. Each collider knows its
+ * index in the sorted arrays, so removing one only clears its slot, and the slots are compacted
+ * during the next sweep.
+ */
+class SweepAndPrune {
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int BOUNDS_STRIDE = 6;
+
+  // Colliders sorted by the minimum x of their bounds, as of the last sweep. Removed colliders
+  // leave a null slot until the next sweep.
+  private Collider[] colliders = new Collider[INITIAL_CAPACITY];
+  // minX, minY, minZ, maxX, maxY, maxZ for each collider.
+  private float[] bounds = new float[INITIAL_CAPACITY * BOUNDS_STRIDE];
+  private int count;
+  private int nextPairId;
+
+  private final float[] tempBounds = new float[BOUNDS_STRIDE];
+  private final Vector3 boundsMin = new Vector3();
+  private final Vector3 boundsMax = new Vector3();
+
+  void add(Collider collider) {
+    Preconditions.checkNotNull(collider, "Parameter \"collider\" was null.");
+
+    if (count == colliders.length) {
+      colliders = Arrays.copyOf(colliders, count * 2);
+      bounds = Arrays.copyOf(bounds, count * 2 * BOUNDS_STRIDE);
+    }
+
+    // Ids are never reused, so a pair that ended because a collider was removed can't be mistaken
+    // for a pair of a collider that was added later.
+    collider.pairId = nextPairId++;
+    collider.sweepIndex = count;
+    colliders[count] = collider;
+    setEmptyBounds(count);
+    count++;
+  }
+
+  void remove(Collider collider) {
+    Preconditions.checkNotNull(collider, "Parameter \"collider\" was null.");
+
+    int index = collider.sweepIndex;
+    if (index < 0 || index >= count || colliders[index] != collider) {
+      return;
+    }
+
+    colliders[index] = null;
+    setEmptyBounds(index);
+    collider.sweepIndex = -1;
+  }
+
+  /**
+   * Refreshes the bounds of every collider, restores the sort order and adds each pair of
+   * colliders in the layer mask whose shapes overlap to the given pairs.
+   */
+  void findPairs(int layerMask, OverlapPairs dest) {
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+    updateBounds(layerMask);
+    sort();
+
+    for (int i = 0; i < count; i++) {
+      int a = i * BOUNDS_STRIDE;
+      // Colliders without bounds are sorted to the end.
+      if (bounds[a] == Float.POSITIVE_INFINITY) {
+        return;
+      }
+
+      for (int j = i + 1; j < count; j++) {
+        int b = j * BOUNDS_STRIDE;
+        if (bounds[b] > bounds[a + 3]) {
+          break;
+        }
+
+        if (bounds[b + 1] > bounds[a + 4]
+            || bounds[a + 1] > bounds[b + 4]
+            || bounds[b + 2] > bounds[a + 5]
+            || bounds[a + 2] > bounds[b + 5]) {
+          continue;
+        }
+
+        CollisionShape shape1 = colliders[i].getTransformedShape();
+        CollisionShape shape2 = colliders[j].getTransformedShape();
+        if (shape1 != null && shape2 != null && shape1.shapeIntersection(shape2)) {
+          dest.add(colliders[i], colliders[j]);
+        }
+      }
+    }
+  }
+
+  /** Refreshes the bounds and moves the remaining colliders over the slots of removed ones. */
+  private void updateBounds(int layerMask) {
+    int remaining = 0;
+    for (int i = 0; i < count; i++) {
+      Collider collider = colliders[i];
+      if (collider == null) {
+        continue;
+      }
+
+      int index = remaining++;
+      colliders[index] = collider;
+      collider.sweepIndex = index;
+      CollisionShape collisionShape =
+          collider.isInLayers(layerMask) ? collider.getTransformedShape() : null;
+      if (collisionShape == null) {
+        setEmptyBounds(index);
+        continue;
+      }
+
+      collisionShape.getBounds(boundsMin, boundsMax);
+      int offset = index * BOUNDS_STRIDE;
+      bounds[offset] = boundsMin.x;
+      bounds[offset + 1] = boundsMin.y;
+      bounds[offset + 2] = boundsMin.z;
+      bounds[offset + 3] = boundsMax.x;
+      bounds[offset + 4] = boundsMax.y;
+      bounds[offset + 5] = boundsMax.z;
+    }
+
+    Arrays.fill(colliders, remaining, count, null);
+    count = remaining;
+  }
+
+  /** Insertion sort by the minimum x of the bounds. */
+  private void sort() {
+    for (int i = 1; i < count; i++) {
+      float minX = bounds[i * BOUNDS_STRIDE];
+      int j = i - 1;
+      if (bounds[j * BOUNDS_STRIDE] <= minX) {
+        continue;
+      }
+
+      Collider collider = colliders[i];
+      System.arraycopy(bounds, i * BOUNDS_STRIDE, tempBounds, 0, BOUNDS_STRIDE);
+      while (j >= 0 && bounds[j * BOUNDS_STRIDE] > minX) {
+        colliders[j + 1] = colliders[j];
+        colliders[j + 1].sweepIndex = j + 1;
+        System.arraycopy(
+            bounds, j * BOUNDS_STRIDE, bounds, (j + 1) * BOUNDS_STRIDE, BOUNDS_STRIDE);
+        j--;
+      }
+      colliders[j + 1] = collider;
+      collider.sweepIndex = j + 1;
+      System.arraycopy(tempBounds, 0, bounds, (j + 1) * BOUNDS_STRIDE, BOUNDS_STRIDE);
+    }
+  }
+
+  private void setEmptyBounds(int index) {
+    int offset = index * BOUNDS_STRIDE;
+    Arrays.fill(bounds, offset, offset + 3, Float.POSITIVE_INFINITY);
+    Arrays.fill(bounds, offset + 3, offset + BOUNDS_STRIDE, Float.NEGATIVE_INFINITY);
+  }
+}
@@ -50,4 +50,20 @@ public class MathHelper {
   public static float lerp(float a, float b, float t) {
     return a + t * (b - a);
   }
+
+  /**
+   * Checks that the array has count elements of the given size from the offset, so that the batch
+   * methods fail before writing anything.
+   */
+  static void checkRange(float[] array, int offset, int count, int elementSize) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Parameter \"count\" must not be negative.");
+    }
+
+    if (offset < 0 || (long) offset + (long) count * elementSize > array.length) {
+      throw new ArrayIndexOutOfBoundsException(
+          "Range [" + offset + ", " + ((long) offset + (long) count * elementSize)
+              + ") is out of bounds for length " + array.length + ".");
+    }
+  }
 }
@@ -57,12 +57,9 @@ public class Matrix {
   }
 
   public void decomposeScale(Vector3 destScale) {
-    Vector3 temp = new Vector3(data[0], data[1], data[2]);
-    destScale.x = temp.length();
-    temp.set(data[4], data[5], data[6]);
-    destScale.y = temp.length();
-    temp.set(data[8], data[9], data[10]);
-    destScale.z = temp.length();
+    destScale.x = (float) Math.sqrt(data[0] * data[0] + data[1] * data[1] + data[2] * data[2]);
+    destScale.y = (float) Math.sqrt(data[4] * data[4] + data[5] * data[5] + data[6] * data[6]);
+    destScale.z = (float) Math.sqrt(data[8] * data[8] + data[9] * data[9] + data[10] * data[10]);
   }
 
   public void decomposeRotation(Vector3 decomposedScale, Quaternion destRotation) {
@@ -337,28 +334,71 @@ public class Matrix {
     dest.data[15] = m33;
   }
 
+  /**
+   * Multiplies two matrices that are stored in arrays at the given offsets, such as matrices packed
+   * one after another in a single array. The destination may overlap the right hand side but not
+   * the left hand side.
+   */
+  public static void multiply(
+      float[] lhs, int lhsOffset, float[] rhs, int rhsOffset, float[] dest, int destOffset) {
+    float lhs00 = lhs[lhsOffset];
+    float lhs01 = lhs[lhsOffset + 1];
+    float lhs02 = lhs[lhsOffset + 2];
+    float lhs03 = lhs[lhsOffset + 3];
+    float lhs10 = lhs[lhsOffset + 4];
+    float lhs11 = lhs[lhsOffset + 5];
+    float lhs12 = lhs[lhsOffset + 6];
+    float lhs13 = lhs[lhsOffset + 7];
+    float lhs20 = lhs[lhsOffset + 8];
+    float lhs21 = lhs[lhsOffset + 9];
+    float lhs22 = lhs[lhsOffset + 10];
+    float lhs23 = lhs[lhsOffset + 11];
+    float lhs30 = lhs[lhsOffset + 12];
+    float lhs31 = lhs[lhsOffset + 13];
+    float lhs32 = lhs[lhsOffset + 14];
+    float lhs33 = lhs[lhsOffset + 15];
+
+    for (int i = 0; i < 16; i += 4) {
+      float rhs0 = rhs[rhsOffset + i];
+      float rhs1 = rhs[rhsOffset + i + 1];
+      float rhs2 = rhs[rhsOffset + i + 2];
+      float rhs3 = rhs[rhsOffset + i + 3];
+
+      dest[destOffset + i] = lhs00 * rhs0 + lhs10 * rhs1 + lhs20 * rhs2 + lhs30 * rhs3;
+      dest[destOffset + i + 1] = lhs01 * rhs0 + lhs11 * rhs1 + lhs21 * rhs2 + lhs31 * rhs3;
+      dest[destOffset + i + 2] = lhs02 * rhs0 + lhs12 * rhs1 + lhs22 * rhs2 + lhs32 * rhs3;
+      dest[destOffset + i + 3] = lhs03 * rhs0 + lhs13 * rhs1 + lhs23 * rhs2 + lhs33 * rhs3;
+    }
+  }
+
   public Vector3 transformPoint(Vector3 vector) {
+    Vector3 result = new Vector3();
+    transformPoint(vector, result);
+    return result;
+  }
+
+  /** Transforms a point and sets the result in dest, which may be the same as vector. */
+  public void transformPoint(Vector3 vector, Vector3 dest) {
     Preconditions.checkNotNull(vector, "Parameter \"vector\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
 
-    Vector3 result = new Vector3();
     float vx = vector.x;
     float vy = vector.y;
     float vz = vector.z;
-    result.x = data[0] * vx;
-    result.x += data[4] * vy;
-    result.x += data[8] * vz;
-    result.x += data[12]; // *1
-
-    result.y = data[1] * vx;
-    result.y += data[5] * vy;
-    result.y += data[9] * vz;
-    result.y += data[13]; // *1
-
-    result.z = data[2] * vx;
-    result.z += data[6] * vy;
-    result.z += data[10] * vz;
-    result.z += data[14]; // *1
-    return result;
+    dest.x = data[0] * vx;
+    dest.x += data[4] * vy;
+    dest.x += data[8] * vz;
+    dest.x += data[12]; // *1
+
+    dest.y = data[1] * vx;
+    dest.y += data[5] * vy;
+    dest.y += data[9] * vz;
+    dest.y += data[13]; // *1
+
+    dest.z = data[2] * vx;
+    dest.z += data[6] * vy;
+    dest.z += data[10] * vz;
+    dest.z += data[14]; // *1
   }
 
   /**
@@ -372,26 +412,260 @@ public class Matrix {
    * case the matrix used should be the inverse transpose of the incoming matrix.
    */
   public Vector3 transformDirection(Vector3 vector) {
+    Vector3 result = new Vector3();
+    transformDirection(vector, result);
+    return result;
+  }
+
+  /**
+   * Transforms a direction by ignoring any translation and sets the result in dest, which may be
+   * the same as vector.
+   *
+   * @see #transformDirection(Vector3)
+   */
+  public void transformDirection(Vector3 vector, Vector3 dest) {
     Preconditions.checkNotNull(vector, "Parameter \"vector\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
 
-    Vector3 result = new Vector3();
     float vx = vector.x;
     float vy = vector.y;
     float vz = vector.z;
-    result.x = data[0] * vx;
-    result.x += data[4] * vy;
-    result.x += data[8] * vz;
+    dest.x = data[0] * vx;
+    dest.x += data[4] * vy;
+    dest.x += data[8] * vz;
 
-    result.y = data[1] * vx;
-    result.y += data[5] * vy;
-    result.y += data[9] * vz;
+    dest.y = data[1] * vx;
+    dest.y += data[5] * vy;
+    dest.y += data[9] * vz;
 
-    result.z = data[2] * vx;
-    result.z += data[6] * vy;
-    result.z += data[10] * vz;
-    return result;
+    dest.z = data[2] * vx;
+    dest.z += data[6] * vy;
+    dest.z += data[10] * vz;
   }
 
+  /**
+   * Transforms points that are packed one after another as x, y, z in an array, such as the
+   * positions of a vertex buffer. This is the same as calling {@link #transformPoint(Vector3,
+   * Vector3)} for each point, without the objects.
+   *
+   * @param src the points to transform
+   * @param srcOffset index in src of the x of the first point
+   * @param dest receives the transformed points, and may be src if destOffset is the same as
+   *     srcOffset
+   * @param destOffset index in dest of the x of the first point
+   * @param count the number of points
+   */
+  public void transformPoints(float[] src, int srcOffset, float[] dest, int destOffset, int count) {
+    Preconditions.checkNotNull(src, "Parameter \"src\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    MathHelper.checkRange(src, srcOffset, count, 3);
+    MathHelper.checkRange(dest, destOffset, count, 3);
+
+    // The matrix is kept in locals and the loop only reads and writes the arrays, so that the
+    // compiler can keep it in registers and unroll it.
+    float m00 = data[0];
+    float m01 = data[1];
+    float m02 = data[2];
+    float m10 = data[4];
+    float m11 = data[5];
+    float m12 = data[6];
+    float m20 = data[8];
+    float m21 = data[9];
+    float m22 = data[10];
+    float m30 = data[12];
+    float m31 = data[13];
+    float m32 = data[14];
+
+    for (int i = 0; i < count; i++) {
+      int srcIndex = srcOffset + i * 3;
+      int destIndex = destOffset + i * 3;
+      float x = src[srcIndex];
+      float y = src[srcIndex + 1];
+      float z = src[srcIndex + 2];
+      dest[destIndex] = m00 * x + m10 * y + m20 * z + m30;
+      dest[destIndex + 1] = m01 * x + m11 * y + m21 * z + m31;
+      dest[destIndex + 2] = m02 * x + m12 * y + m22 * z + m32;
+    }
+  }
+
+  /**
+   * Transforms directions that are packed one after another as x, y, z in an array, ignoring any
+   * translation. This is the same as calling {@link #transformDirection(Vector3, Vector3)} for
+   * each direction.
+   *
+   * @see #transformPoints(float[], int, float[], int, int)
+   */
+  public void transformDirections(
+      float[] src, int srcOffset, float[] dest, int destOffset, int count) {
+    Preconditions.checkNotNull(src, "Parameter \"src\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    MathHelper.checkRange(src, srcOffset, count, 3);
+    MathHelper.checkRange(dest, destOffset, count, 3);
+
+    float m00 = data[0];
+    float m01 = data[1];
+    float m02 = data[2];
+    float m10 = data[4];
+    float m11 = data[5];
+    float m12 = data[6];
+    float m20 = data[8];
+    float m21 = data[9];
+    float m22 = data[10];
+
+    for (int i = 0; i < count; i++) {
+      int srcIndex = srcOffset + i * 3;
+      int destIndex = destOffset + i * 3;
+      float x = src[srcIndex];
+      float y = src[srcIndex + 1];
+      float z = src[srcIndex + 2];
+      dest[destIndex] = m00 * x + m10 * y + m20 * z;
+      dest[destIndex + 1] = m01 * x + m11 * y + m21 * z;
+      dest[destIndex + 2] = m02 * x + m12 * y + m22 * z;
+    }
+  }
+
+  /**
+   * Multiplies one matrix by each of several matrices that are packed one after another in an
+   * array, such as the local transforms of the children of a node. The destination may overlap the
+   * right hand side at the same offset but not the left hand side.
+   *
+   * @param lhs the matrix on the left of each multiplication
+   * @param rhs the matrices on the right of each multiplication
+   * @param dest receives count matrices
+   * @param count the number of matrices in rhs
+   * @see #multiply(float[], int, float[], int, float[], int)
+   */
+  public static void multiply(
+      float[] lhs,
+      int lhsOffset,
+      float[] rhs,
+      int rhsOffset,
+      float[] dest,
+      int destOffset,
+      int count) {
+    Preconditions.checkNotNull(lhs, "Parameter \"lhs\" was null.");
+    Preconditions.checkNotNull(rhs, "Parameter \"rhs\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    MathHelper.checkRange(lhs, lhsOffset, 1, 16);
+    MathHelper.checkRange(rhs, rhsOffset, count, 16);
+    MathHelper.checkRange(dest, destOffset, count, 16);
+
+    float lhs00 = lhs[lhsOffset];
+    float lhs01 = lhs[lhsOffset + 1];
+    float lhs02 = lhs[lhsOffset + 2];
+    float lhs03 = lhs[lhsOffset + 3];
+    float lhs10 = lhs[lhsOffset + 4];
+    float lhs11 = lhs[lhsOffset + 5];
+    float lhs12 = lhs[lhsOffset + 6];
+    float lhs13 = lhs[lhsOffset + 7];
+    float lhs20 = lhs[lhsOffset + 8];
+    float lhs21 = lhs[lhsOffset + 9];
+    float lhs22 = lhs[lhsOffset + 10];
+    float lhs23 = lhs[lhsOffset + 11];
+    float lhs30 = lhs[lhsOffset + 12];
+    float lhs31 = lhs[lhsOffset + 13];
+    float lhs32 = lhs[lhsOffset + 14];
+    float lhs33 = lhs[lhsOffset + 15];
+
+    // Each column of each matrix is one step, so the loop body is the same for every step.
+    int columnCount = count * 4;
+    for (int i = 0; i < columnCount; i++) {
+      int rhsIndex = rhsOffset + i * 4;
+      int destIndex = destOffset + i * 4;
+      float rhs0 = rhs[rhsIndex];
+      float rhs1 = rhs[rhsIndex + 1];
+      float rhs2 = rhs[rhsIndex + 2];
+      float rhs3 = rhs[rhsIndex + 3];
+
+      dest[destIndex] = lhs00 * rhs0 + lhs10 * rhs1 + lhs20 * rhs2 + lhs30 * rhs3;
+      dest[destIndex + 1] = lhs01 * rhs0 + lhs11 * rhs1 + lhs21 * rhs2 + lhs31 * rhs3;
+      dest[destIndex + 2] = lhs02 * rhs0 + lhs12 * rhs1 + lhs22 * rhs2 + lhs32 * rhs3;
+      dest[destIndex + 3] = lhs03 * rhs0 + lhs13 * rhs1 + lhs23 * rhs2 + lhs33 * rhs3;
+    }
+  }
+
+  /**
+   * Composes matrices from translations, rotations and scales that are packed one after another in
+   * arrays. This is the same as calling {@link #makeTrs(Vector3, Quaternion, Vector3)} for each
+   * transform. The rotations are expected to be normalized.
+   *
+   * @param translations x, y, z of each translation
+   * @param rotations x, y, z, w of each rotation
+   * @param scales x, y, z of each scale
+   * @param dest receives count matrices
+   * @param count the number of transforms
+   */
+  public static void makeTrs(
+      float[] translations,
+      int translationOffset,
+      float[] rotations,
+      int rotationOffset,
+      float[] scales,
+      int scaleOffset,
+      float[] dest,
+      int destOffset,
+      int count) {
+    Preconditions.checkNotNull(translations, "Parameter \"translations\" was null.");
+    Preconditions.checkNotNull(rotations, "Parameter \"rotations\" was null.");
+    Preconditions.checkNotNull(scales, "Parameter \"scales\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    MathHelper.checkRange(translations, translationOffset, count, 3);
+    MathHelper.checkRange(rotations, rotationOffset, count, 4);
+    MathHelper.checkRange(scales, scaleOffset, count, 3);
+    MathHelper.checkRange(dest, destOffset, count, 16);
+
+    for (int i = 0; i < count; i++) {
+      int t = translationOffset + i * 3;
+      int r = rotationOffset + i * 4;
+      int s = scaleOffset + i * 3;
+      int d = destOffset + i * 16;
+
+      float qx = rotations[r];
+      float qy = rotations[r + 1];
+      float qz = rotations[r + 2];
+      float qw = rotations[r + 3];
+      float scaleX = scales[s];
+      float scaleY = scales[s + 1];
+      float scaleZ = scales[s + 2];
+
+      float mdsqx = 1 - 2 * qx * qx;
+      float sqy = qy * qy;
+      float dsqz = 2 * qz * qz;
+      float dqxz = 2 * qx * qz;
+      float dqyw = 2 * qy * qw;
+      float dqxy = 2 * qx * qy;
+      float dqzw = 2 * qz * qw;
+      float dqxw = 2 * qx * qw;
+      float dqyz = 2 * qy * qz;
+
+      dest[d] = (1 - 2 * sqy - dsqz) * scaleX;
+      dest[d + 1] = (dqxy + dqzw) * scaleX;
+      dest[d + 2] = (dqxz - dqyw) * scaleX;
+      dest[d + 3] = 0.0f;
+
+      dest[d + 4] = (dqxy - dqzw) * scaleY;
+      dest[d + 5] = (mdsqx - dsqz) * scaleY;
+      dest[d + 6] = (dqyz + dqxw) * scaleY;
+      dest[d + 7] = 0.0f;
+
+      dest[d + 8] = (dqxz + dqyw) * scaleZ;
+      dest[d + 9] = (dqyz - dqxw) * scaleZ;
+      dest[d + 10] = (mdsqx - 2 * sqy) * scaleZ;
+      dest[d + 11] = 0.0f;
+
+      dest[d + 12] = translations[t];
+      dest[d + 13] = translations[t + 1];
+      dest[d + 14] = translations[t + 2];
+      dest[d + 15] = 1.0f;
+    }
+  }
+
+  /**
+   * Inverts a matrix and sets the result in dest, which may be the same as matrix. For affine
+   * matrices, such as the transforms of nodes, {@link #invertAffine(Matrix, Matrix)} is faster.
+   *
+   * @return false if the matrix can't be inverted, in which case dest is still overwritten
+   */
   public static boolean invert(Matrix matrix, Matrix dest) {
     Preconditions.checkNotNull(matrix, "Parameter \"matrix\" was null.");
     Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
@@ -541,6 +815,185 @@ public class Matrix {
     return true;
   }
 
+  /**
+   * Inverts an affine matrix, one whose bottom row is (0, 0, 0, 1), and sets the result in dest,
+   * which may be the same as matrix. Only the upper 3x3 is inverted, and the translation is moved
+   * by the inverse, which is much less work than inverting a general matrix. Any combination of
+   * translations, rotations and scales is affine, including the world transforms of nodes.
+   *
+   * @return false if the matrix can't be inverted, in which case dest isn't changed
+   */
+  public static boolean invertAffine(Matrix matrix, Matrix dest) {
+    Preconditions.checkNotNull(matrix, "Parameter \"matrix\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+    float[] m = matrix.data;
+    // The upper 3x3 by row and column.
+    float m00 = m[0];
+    float m01 = m[4];
+    float m02 = m[8];
+    float m10 = m[1];
+    float m11 = m[5];
+    float m12 = m[9];
+    float m20 = m[2];
+    float m21 = m[6];
+    float m22 = m[10];
+
+    // Cofactors, transposed.
+    float i00 = m11 * m22 - m12 * m21;
+    float i01 = m02 * m21 - m01 * m22;
+    float i02 = m01 * m12 - m02 * m11;
+    float i10 = m12 * m20 - m10 * m22;
+    float i11 = m00 * m22 - m02 * m20;
+    float i12 = m02 * m10 - m00 * m12;
+    float i20 = m10 * m21 - m11 * m20;
+    float i21 = m01 * m20 - m00 * m21;
+    float i22 = m00 * m11 - m01 * m10;
+
+    float det = m00 * i00 + m01 * i10 + m02 * i20;
+    if (det == 0) {
+      return false;
+    }
+
+    float invDet = 1.0f / det;
+    i00 *= invDet;
+    i01 *= invDet;
+    i02 *= invDet;
+    i10 *= invDet;
+    i11 *= invDet;
+    i12 *= invDet;
+    i20 *= invDet;
+    i21 *= invDet;
+    i22 *= invDet;
+
+    float tx = m[12];
+    float ty = m[13];
+    float tz = m[14];
+    setAffine(
+        dest.data,
+        i00,
+        i01,
+        i02,
+        i10,
+        i11,
+        i12,
+        i20,
+        i21,
+        i22,
+        -(i00 * tx + i01 * ty + i02 * tz),
+        -(i10 * tx + i11 * ty + i12 * tz),
+        -(i20 * tx + i21 * ty + i22 * tz));
+    return true;
+  }
+
+  /**
+   * Sets dest to the inverse of the matrix that {@link #makeTrs(Vector3, Quaternion, Vector3)}
+   * makes from the same values, without making that matrix. The inverse of a rotation is its
+   * transpose and the inverse of a scale is its reciprocal, so this is cheaper than {@link
+   * #invertAffine(Matrix, Matrix)}. The rotation is expected to be normalized.
+   *
+   * @return false if a component of the scale is zero, in which case dest isn't changed
+   */
+  public static boolean invertTrs(
+      Vector3 translation, Quaternion rotation, Vector3 scale, Matrix dest) {
+    Preconditions.checkNotNull(translation, "Parameter \"translation\" was null.");
+    Preconditions.checkNotNull(rotation, "Parameter \"rotation\" was null.");
+    Preconditions.checkNotNull(scale, "Parameter \"scale\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+    if (scale.x == 0 || scale.y == 0 || scale.z == 0) {
+      return false;
+    }
+
+    float qx = rotation.x;
+    float qy = rotation.y;
+    float qz = rotation.z;
+    float qw = rotation.w;
+    float xx = qx * qx;
+    float yy = qy * qy;
+    float zz = qz * qz;
+    float xy = qx * qy;
+    float xz = qx * qz;
+    float yz = qy * qz;
+    float xw = qx * qw;
+    float yw = qy * qw;
+    float zw = qz * qw;
+
+    // Rows of the transposed rotation, each divided by the scale of its axis.
+    float invScaleX = 1.0f / scale.x;
+    float invScaleY = 1.0f / scale.y;
+    float invScaleZ = 1.0f / scale.z;
+    float i00 = (1.0f - 2.0f * (yy + zz)) * invScaleX;
+    float i01 = 2.0f * (xy + zw) * invScaleX;
+    float i02 = 2.0f * (xz - yw) * invScaleX;
+    float i10 = 2.0f * (xy - zw) * invScaleY;
+    float i11 = (1.0f - 2.0f * (xx + zz)) * invScaleY;
+    float i12 = 2.0f * (yz + xw) * invScaleY;
+    float i20 = 2.0f * (xz + yw) * invScaleZ;
+    float i21 = 2.0f * (yz - xw) * invScaleZ;
+    float i22 = (1.0f - 2.0f * (xx + yy)) * invScaleZ;
+
+    float tx = translation.x;
+    float ty = translation.y;
+    float tz = translation.z;
+    setAffine(
+        dest.data,
+        i00,
+        i01,
+        i02,
+        i10,
+        i11,
+        i12,
+        i20,
+        i21,
+        i22,
+        -(i00 * tx + i01 * ty + i02 * tz),
+        -(i10 * tx + i11 * ty + i12 * tz),
+        -(i20 * tx + i21 * ty + i22 * tz));
+    return true;
+  }
+
+  /** Returns true if the bottom row of the matrix is (0, 0, 0, 1). */
+  public static boolean isAffine(Matrix matrix) {
+    Preconditions.checkNotNull(matrix, "Parameter \"matrix\" was null.");
+
+    float[] m = matrix.data;
+    return m[3] == 0.0f && m[7] == 0.0f && m[11] == 0.0f && m[15] == 1.0f;
+  }
+
+  /** Sets an affine matrix from its upper 3x3 by row and column, and its translation. */
+  private static void setAffine(
+      float[] dest,
+      float m00,
+      float m01,
+      float m02,
+      float m10,
+      float m11,
+      float m12,
+      float m20,
+      float m21,
+      float m22,
+      float tx,
+      float ty,
+      float tz) {
+    dest[0] = m00;
+    dest[1] = m10;
+    dest[2] = m20;
+    dest[3] = 0.0f;
+    dest[4] = m01;
+    dest[5] = m11;
+    dest[6] = m21;
+    dest[7] = 0.0f;
+    dest[8] = m02;
+    dest[9] = m12;
+    dest[10] = m22;
+    dest[11] = 0.0f;
+    dest[12] = tx;
+    dest[13] = ty;
+    dest[14] = tz;
+    dest[15] = 1.0f;
+  }
+
   /** Compares Matrix values */
   public static boolean equals(Matrix lhs, Matrix rhs) {
     Preconditions.checkNotNull(lhs, "Parameter \"lhs\" was null.");
@@ -48,7 +48,7 @@ public class Quaternion {
   @SuppressWarnings("initialization") // Suppress @UnderInitialization warning.
   public Quaternion(Vector3 axis, float angle) {
     Preconditions.checkNotNull(axis, "Parameter \"axis\" was null.");
-    set(Quaternion.axisAngle(axis, angle));
+    axisAngle(axis, angle, this);
   }
 
   /**
@@ -60,7 +60,7 @@ public class Quaternion {
   @SuppressWarnings("initialization") // Suppress @UnderInitialization warning.
   public Quaternion(Vector3 eulerAngles) {
     Preconditions.checkNotNull(eulerAngles, "Parameter \"eulerAngles\" was null.");
-    set(Quaternion.eulerAngles(eulerAngles));
+    eulerAngles(eulerAngles, this);
   }
 
   /** Copy values from another Quaternion into this one */
@@ -76,7 +76,7 @@ public class Quaternion {
   /** Update this Quaternion using an axis/angle to define the rotation */
   public void set(Vector3 axis, float angle) {
     Preconditions.checkNotNull(axis, "Parameter \"axis\" was null.");
-    set(Quaternion.axisAngle(axis, angle));
+    axisAngle(axis, angle, this);
   }
 
   /** Set each value and normalize the Quaternion */
@@ -140,6 +140,12 @@ public class Quaternion {
     return new Quaternion(-this.x, -this.y, -this.z, this.w);
   }
 
+  /** Same as {@link #inverted()}, but sets the result in dest, which may be this Quaternion. */
+  public void inverted(Quaternion dest) {
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    dest.set(-this.x, -this.y, -this.z, this.w);
+  }
+
   /**
    * Flips the sign of the Quaternion, but represents the same rotation.
    *
@@ -160,9 +166,20 @@ public class Quaternion {
    * @return The rotated vector
    */
   public static Vector3 rotateVector(Quaternion q, Vector3 src) {
+    Vector3 result = new Vector3();
+    rotateVector(q, src, result);
+    return result;
+  }
+
+  /**
+   * Same as {@link #rotateVector(Quaternion, Vector3)}, but sets the result in dest, which may
+   * be the same as src.
+   */
+  public static void rotateVector(Quaternion q, Vector3 src, Vector3 dest) {
     Preconditions.checkNotNull(q, "Parameter \"q\" was null.");
     Preconditions.checkNotNull(src, "Parameter \"src\" was null.");
-    Vector3 result = new Vector3();
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
     float w2 = q.w * q.w;
     float x2 = q.x * q.x;
     float y2 = q.y * q.y;
@@ -185,16 +202,26 @@ public class Quaternion {
     float sx = src.x;
     float sy = src.y;
     float sz = src.z;
-    result.x = m00 * sx + m10 * sy + m20 * sz;
-    result.y = m01 * sx + m11 * sy + m21 * sz;
-    result.z = m02 * sx + m12 * sy + m22 * sz;
-    return result;
+    dest.x = m00 * sx + m10 * sy + m20 * sz;
+    dest.y = m01 * sx + m11 * sy + m21 * sz;
+    dest.z = m02 * sx + m12 * sy + m22 * sz;
   }
 
   public static Vector3 inverseRotateVector(Quaternion q, Vector3 src) {
+    Vector3 result = new Vector3();
+    inverseRotateVector(q, src, result);
+    return result;
+  }
+
+  /**
+   * Same as {@link #inverseRotateVector(Quaternion, Vector3)}, but sets the result in dest, which
+   * may be the same as src.
+   */
+  public static void inverseRotateVector(Quaternion q, Vector3 src, Vector3 dest) {
     Preconditions.checkNotNull(q, "Parameter \"q\" was null.");
     Preconditions.checkNotNull(src, "Parameter \"src\" was null.");
-    Vector3 result = new Vector3();
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
     float w2 = q.w * q.w;
     float x2 = -q.x * -q.x;
     float y2 = -q.y * -q.y;
@@ -218,10 +245,9 @@ public class Quaternion {
     float sx = src.x;
     float sy = src.y;
     float sz = src.z;
-    result.x = m00 * sx + m10 * sy + m20 * sz;
-    result.y = m01 * sx + m11 * sy + m21 * sz;
-    result.z = m02 * sx + m12 * sy + m22 * sz;
-    return result;
+    dest.x = m00 * sx + m10 * sy + m20 * sz;
+    dest.y = m01 * sx + m11 * sy + m21 * sz;
+    dest.z = m02 * sx + m12 * sy + m22 * sz;
   }
 
   /**
@@ -231,24 +257,34 @@ public class Quaternion {
    * @return The combined rotation
    */
   public static Quaternion multiply(Quaternion lhs, Quaternion rhs) {
+    Quaternion result = new Quaternion();
+    multiply(lhs, rhs, result);
+    return result;
+  }
+
+  /**
+   * Same as {@link #multiply(Quaternion, Quaternion)}, but sets the result in dest, which may be
+   * the same as lhs or rhs.
+   */
+  public static void multiply(Quaternion lhs, Quaternion rhs, Quaternion dest) {
     Preconditions.checkNotNull(lhs, "Parameter \"lhs\" was null.");
     Preconditions.checkNotNull(rhs, "Parameter \"rhs\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    multiply(lhs, rhs.x, rhs.y, rhs.z, rhs.w, dest);
+  }
+
+  private static void multiply(
+      Quaternion lhs, float rx, float ry, float rz, float rw, Quaternion dest) {
     float lx = lhs.x;
     float ly = lhs.y;
     float lz = lhs.z;
     float lw = lhs.w;
-    float rx = rhs.x;
-    float ry = rhs.y;
-    float rz = rhs.z;
-    float rw = rhs.w;
-
-    Quaternion result =
-        new Quaternion(
-            lw * rx + lx * rw + ly * rz - lz * ry,
-            lw * ry - lx * rz + ly * rw + lz * rx,
-            lw * rz + lx * ry - ly * rx + lz * rw,
-            lw * rw - lx * rx - ly * ry - lz * rz);
-    return result;
+
+    dest.set(
+        lw * rx + lx * rw + ly * rz - lz * ry,
+        lw * ry - lx * rz + ly * rw + lz * rx,
+        lw * rz + lx * ry - ly * rx + lz * rw,
+        lw * rw - lx * rx - ly * ry - lz * rz);
   }
 
   /**
@@ -294,9 +330,20 @@ public class Quaternion {
    * between a range of 0 and 1.
    */
   static Quaternion lerp(Quaternion a, Quaternion b, float ratio) {
+    Quaternion result = new Quaternion();
+    lerp(a, b, ratio, result);
+    return result;
+  }
+
+  /**
+   * Same as {@link #lerp(Quaternion, Quaternion, float)}, but sets the result in dest, which may be
+   * the same as a or b.
+   */
+  static void lerp(Quaternion a, Quaternion b, float ratio, Quaternion dest) {
     Preconditions.checkNotNull(a, "Parameter \"a\" was null.");
     Preconditions.checkNotNull(b, "Parameter \"b\" was null.");
-    return new Quaternion(
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    dest.set(
         MathHelper.lerp(a.x, b.x, ratio),
         MathHelper.lerp(a.y, b.y, ratio),
         MathHelper.lerp(a.z, b.z, ratio),
@@ -316,38 +363,220 @@ public class Quaternion {
    * @return interpolated value between the two floats
    */
   public static Quaternion slerp(final Quaternion start, final Quaternion end, float t) {
+    Quaternion result = new Quaternion();
+    slerp(start, end, t, result);
+    return result;
+  }
+
+  /**
+   * Same as {@link #slerp(Quaternion, Quaternion, float)}, but sets the result in dest, which may
+   * be the same as start or end.
+   */
+  public static void slerp(Quaternion start, Quaternion end, float t, Quaternion dest) {
     Preconditions.checkNotNull(start, "Parameter \"start\" was null.");
     Preconditions.checkNotNull(end, "Parameter \"end\" was null.");
-    Quaternion orientation0 = start.normalized();
-    Quaternion orientation1 = end.normalized();
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+    // The orientations are normalized into locals, so that dest may be start or end.
+    float scale0 = normalizationScale(start);
+    float x0 = start.x * scale0;
+    float y0 = start.y * scale0;
+    float z0 = start.z * scale0;
+    float w0 = scale0 == 0.0f ? 1.0f : start.w * scale0;
+    float scale1 = normalizationScale(end);
+    float x1 = end.x * scale1;
+    float y1 = end.y * scale1;
+    float z1 = end.z * scale1;
+    float w1 = scale1 == 0.0f ? 1.0f : end.w * scale1;
 
     // cosTheta0 provides the angle between the rotations at t=0
-    double cosTheta0 = Quaternion.dot(orientation0, orientation1);
+    double cosTheta0 = x0 * x1 + y0 * y1 + z0 * z1 + w0 * w1;
 
     // Flip end rotation to get shortest path if needed
     if (cosTheta0 < 0.0f) {
-      orientation1 = orientation1.negated();
+      x1 = -x1;
+      y1 = -y1;
+      z1 = -z1;
+      w1 = -w1;
       cosTheta0 = -cosTheta0;
     }
 
     // Small rotations should just use lerp
     if (cosTheta0 > SLERP_THRESHOLD) {
-      return lerp(orientation0, orientation1, t);
+      dest.set(
+          MathHelper.lerp(x0, x1, t),
+          MathHelper.lerp(y0, y1, t),
+          MathHelper.lerp(z0, z1, t),
+          MathHelper.lerp(w0, w1, t));
+      return;
     }
 
     // Cosine function range is -1,1. Clamp larger rotations.
     cosTheta0 = Math.max(-1, Math.min(1, cosTheta0));
 
     double theta0 = Math.acos(cosTheta0); // Angle between orientations at t=0
-    double thetaT = theta0 * t; // theta0 scaled to current t
-
-    // s0 = sin(theta0 - thetaT) / sin(theta0)
-    double s0 = (Math.cos(thetaT) - cosTheta0 * Math.sin(thetaT) / Math.sin(theta0));
-    double s1 = (Math.sin(thetaT) / Math.sin(theta0));
+    double sinTheta0 = Math.sqrt(1.0 - cosTheta0 * cosTheta0);
+    float s0 = (float) (Math.sin(theta0 * (1.0f - t)) / sinTheta0);
+    float s1 = (float) (Math.sin(theta0 * t) / sinTheta0);
     // result = s0*start + s1*end
-    Quaternion result =
-        Quaternion.add(orientation0.scaled((float) s0), orientation1.scaled((float) s1));
-    return result.normalized();
+    dest.set(x0 * s0 + x1 * s1, y0 * s0 + y1 * s1, z0 * s0 + z1 * s1, w0 * s0 + w1 * s1);
+  }
+
+  /**
+   * Spherically interpolates between rotations that are packed one after another as x, y, z, w in
+   * arrays, such as the rotations of the nodes of an animation. This is the same as calling {@link
+   * #slerp(Quaternion, Quaternion, float, Quaternion)} for each pair of rotations, without the
+   * objects, except that the rotations must already be unit length and that the results are
+   * normalized, including those of rotations that are close enough to be interpolated linearly.
+   *
+   * @param start the rotations at t = 0
+   * @param startOffset index in start of the x of the first rotation
+   * @param end the rotations at t = 1
+   * @param endOffset index in end of the x of the first rotation
+   * @param t the ratio to interpolate every pair of rotations by
+   * @param dest receives the interpolated rotations, and may be start or end if destOffset is the
+   *     same as their offset
+   * @param destOffset index in dest of the x of the first rotation
+   * @param count the number of rotations
+   */
+  public static void slerp(
+      float[] start,
+      int startOffset,
+      float[] end,
+      int endOffset,
+      float t,
+      float[] dest,
+      int destOffset,
+      int count) {
+    Preconditions.checkNotNull(start, "Parameter \"start\" was null.");
+    Preconditions.checkNotNull(end, "Parameter \"end\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    MathHelper.checkRange(start, startOffset, count, 4);
+    MathHelper.checkRange(end, endOffset, count, 4);
+    MathHelper.checkRange(dest, destOffset, count, 4);
+
+    for (int i = 0; i < count; i++) {
+      int startIndex = startOffset + i * 4;
+      int endIndex = endOffset + i * 4;
+      float x0 = start[startIndex];
+      float y0 = start[startIndex + 1];
+      float z0 = start[startIndex + 2];
+      float w0 = start[startIndex + 3];
+      float x1 = end[endIndex];
+      float y1 = end[endIndex + 1];
+      float z1 = end[endIndex + 2];
+      float w1 = end[endIndex + 3];
+
+      float cosTheta0 = x0 * x1 + y0 * y1 + z0 * z1 + w0 * w1;
+      float sign = 1.0f;
+      if (cosTheta0 < 0.0f) {
+        sign = -1.0f;
+        cosTheta0 = -cosTheta0;
+      }
+
+      float s0;
+      float s1;
+      if (cosTheta0 > SLERP_THRESHOLD) {
+        s0 = 1.0f - t;
+        s1 = t;
+      } else {
+        double theta0 = Math.acos(cosTheta0);
+        double sinTheta0 = Math.sqrt(1.0 - (double) cosTheta0 * cosTheta0);
+        s0 = (float) (Math.sin(theta0 * (1.0f - t)) / sinTheta0);
+        s1 = (float) (Math.sin(theta0 * t) / sinTheta0);
+      }
+
+      s1 *= sign;
+      setNormalized(
+          dest,
+          destOffset + i * 4,
+          x0 * s0 + x1 * s1,
+          y0 * s0 + y1 * s1,
+          z0 * s0 + z1 * s1,
+          w0 * s0 + w1 * s1);
+    }
+  }
+
+  /**
+   * Interpolates between rotations that are packed one after another as x, y, z, w in arrays by
+   * normalizing the linear interpolation along the shortest path. Cheaper than {@link
+   * #slerp(float[], int, float[], int, float, float[], int, int)}, since it doesn't need any
+   * trigonometry, but the rotation speed isn't constant over t. The difference is small for
+   * rotations that are close together, such as those of consecutive animation frames.
+   *
+   * @see #slerp(float[], int, float[], int, float, float[], int, int)
+   */
+  public static void nlerp(
+      float[] start,
+      int startOffset,
+      float[] end,
+      int endOffset,
+      float t,
+      float[] dest,
+      int destOffset,
+      int count) {
+    Preconditions.checkNotNull(start, "Parameter \"start\" was null.");
+    Preconditions.checkNotNull(end, "Parameter \"end\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    MathHelper.checkRange(start, startOffset, count, 4);
+    MathHelper.checkRange(end, endOffset, count, 4);
+    MathHelper.checkRange(dest, destOffset, count, 4);
+
+    float s0 = 1.0f - t;
+    for (int i = 0; i < count; i++) {
+      int startIndex = startOffset + i * 4;
+      int endIndex = endOffset + i * 4;
+      float x0 = start[startIndex];
+      float y0 = start[startIndex + 1];
+      float z0 = start[startIndex + 2];
+      float w0 = start[startIndex + 3];
+      float x1 = end[endIndex];
+      float y1 = end[endIndex + 1];
+      float z1 = end[endIndex + 2];
+      float w1 = end[endIndex + 3];
+
+      // Flip the end rotation to take the shortest path.
+      float s1 = x0 * x1 + y0 * y1 + z0 * z1 + w0 * w1 < 0.0f ? -t : t;
+      setNormalized(
+          dest,
+          destOffset + i * 4,
+          x0 * s0 + x1 * s1,
+          y0 * s0 + y1 * s1,
+          z0 * s0 + z1 * s1,
+          w0 * s0 + w1 * s1);
+    }
+  }
+
+  /** Sets a rotation in a packed array, scaled to unit length, or identity if it can't be. */
+  private static void setNormalized(float[] dest, int offset, float x, float y, float z, float w) {
+    float normSquared = x * x + y * y + z * z + w * w;
+    if (MathHelper.almostEqualRelativeAndAbs(normSquared, 0.0f)) {
+      dest[offset] = 0.0f;
+      dest[offset + 1] = 0.0f;
+      dest[offset + 2] = 0.0f;
+      dest[offset + 3] = 1.0f;
+      return;
+    }
+
+    float scale = (float) (1.0 / Math.sqrt(normSquared));
+    dest[offset] = x * scale;
+    dest[offset + 1] = y * scale;
+    dest[offset + 2] = z * scale;
+    dest[offset + 3] = w * scale;
+  }
+
+  /**
+   * Returns the factor that scales a Quaternion to unit length, the same way as {@link
+   * #normalize()}. Returns 0 for a Quaternion that can't be scaled, which normalizes to identity.
+   */
+  private static float normalizationScale(Quaternion q) {
+    float normSquared = Quaternion.dot(q, q);
+    if (MathHelper.almostEqualRelativeAndAbs(normSquared, 0.0f)) {
+      return 0.0f;
+    } else if (normSquared != 1) {
+      return (float) (1.0 / Math.sqrt(normSquared));
+    }
+    return 1.0f;
   }
 
   /**
@@ -357,17 +586,28 @@ public class Quaternion {
    * @param degrees Angle size in degrees
    */
   public static Quaternion axisAngle(Vector3 axis, float degrees) {
-    Preconditions.checkNotNull(axis, "Parameter \"axis\" was null.");
     Quaternion dest = new Quaternion();
+    axisAngle(axis, degrees, dest);
+    return dest;
+  }
+
+  /** Same as {@link #axisAngle(Vector3, float)}, but sets the result in dest. */
+  public static void axisAngle(Vector3 axis, float degrees, Quaternion dest) {
+    Preconditions.checkNotNull(axis, "Parameter \"axis\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    axisAngle(axis.x, axis.y, axis.z, degrees, dest);
+  }
+
+  private static void axisAngle(
+      float axisX, float axisY, float axisZ, float degrees, Quaternion dest) {
     double angle = Math.toRadians(degrees);
     double factor = Math.sin(angle / 2.0);
 
-    dest.x = (float) (axis.x * factor);
-    dest.y = (float) (axis.y * factor);
-    dest.z = (float) (axis.z * factor);
+    dest.x = (float) (axisX * factor);
+    dest.y = (float) (axisY * factor);
+    dest.z = (float) (axisZ * factor);
     dest.w = (float) Math.cos(angle / 2.0);
     dest.normalize();
-    return dest;
   }
 
   /**
@@ -381,70 +621,166 @@ public class Quaternion {
    * @param eulerAngles - the angles in degrees.
    */
   public static Quaternion eulerAngles(Vector3 eulerAngles) {
+    Quaternion dest = new Quaternion();
+    eulerAngles(eulerAngles, dest);
+    return dest;
+  }
+
+  /** Same as {@link #eulerAngles(Vector3)}, but sets the result in dest. */
+  public static void eulerAngles(Vector3 eulerAngles, Quaternion dest) {
     Preconditions.checkNotNull(eulerAngles, "Parameter \"eulerAngles\" was null.");
-    Quaternion qX = new Quaternion(Vector3.right(), eulerAngles.x);
-    Quaternion qY = new Quaternion(Vector3.up(), eulerAngles.y);
-    Quaternion qZ = new Quaternion(Vector3.back(), eulerAngles.z);
-    return Quaternion.multiply(Quaternion.multiply(qY, qX), qZ);
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+    // The rotations about each axis, multiplied out as (qY * qX) * qZ.
+    double halfX = Math.toRadians(eulerAngles.x) / 2.0;
+    double halfY = Math.toRadians(eulerAngles.y) / 2.0;
+    double halfZ = Math.toRadians(eulerAngles.z) / 2.0;
+    float sx = (float) Math.sin(halfX);
+    float cx = (float) Math.cos(halfX);
+    float sy = (float) Math.sin(halfY);
+    float cy = (float) Math.cos(halfY);
+    float sz = (float) Math.sin(halfZ);
+    float cz = (float) Math.cos(halfZ);
+
+    float yxX = cy * sx;
+    float yxY = sy * cx;
+    float yxZ = -sy * sx;
+    float yxW = cy * cx;
+
+    dest.set(
+        yxX * cz + yxY * sz, yxY * cz - yxX * sz, yxW * sz + yxZ * cz, yxW * cz - yxZ * sz);
   }
 
   /** Get a new Quaternion representing the rotation from one vector to another. */
   public static Quaternion rotationBetweenVectors(Vector3 start, Vector3 end) {
+    Quaternion dest = new Quaternion();
+    rotationBetweenVectors(start, end, dest);
+    return dest;
+  }
+
+  /** Same as {@link #rotationBetweenVectors(Vector3, Vector3)}, but sets the result in dest. */
+  public static void rotationBetweenVectors(Vector3 start, Vector3 end, Quaternion dest) {
     Preconditions.checkNotNull(start, "Parameter \"start\" was null.");
     Preconditions.checkNotNull(end, "Parameter \"end\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
 
-    start = start.normalized();
-    end = end.normalized();
+    rotationBetweenVectors(start.x, start.y, start.z, end.x, end.y, end.z, dest);
+  }
+
+  private static void rotationBetweenVectors(
+      float startX, float startY, float startZ, float endX, float endY, float endZ,
+      Quaternion dest) {
+    float startScale = normalizationScale(startX, startY, startZ);
+    startX *= startScale;
+    startY *= startScale;
+    startZ *= startScale;
+    float endScale = normalizationScale(endX, endY, endZ);
+    endX *= endScale;
+    endY *= endScale;
+    endZ *= endScale;
 
-    float cosTheta = Vector3.dot(start, end);
-    Vector3 rotationAxis;
+    float cosTheta = startX * endX + startY * endY + startZ * endZ;
 
     if (cosTheta < -1.0f + 0.001f) {
       // special case when vectors in opposite directions:
       // there is no "ideal" rotation axis
       // So guess one; any will do as long as it's perpendicular to start
-      rotationAxis = Vector3.cross(Vector3.back(), start);
-      if (rotationAxis.lengthSquared() < 0.01f) { // bad luck, they were parallel, try again!
-        rotationAxis = Vector3.cross(Vector3.right(), start);
+      // The cross product of back (0, 0, 1) and start.
+      float axisX = -startY;
+      float axisY = startX;
+      float axisZ = 0.0f;
+      if (axisX * axisX + axisY * axisY < 0.01f) { // bad luck, they were parallel, try again!
+        // The cross product of right (1, 0, 0) and start.
+        axisX = 0.0f;
+        axisY = -startZ;
+        axisZ = startY;
       }
 
-      rotationAxis = rotationAxis.normalized();
-      return axisAngle(rotationAxis, 180.0f);
+      float axisScale = normalizationScale(axisX, axisY, axisZ);
+      axisAngle(axisX * axisScale, axisY * axisScale, axisZ * axisScale, 180.0f, dest);
+      return;
     }
 
-    rotationAxis = Vector3.cross(start, end);
+    float axisX = startY * endZ - startZ * endY;
+    float axisY = startZ * endX - startX * endZ;
+    float axisZ = startX * endY - startY * endX;
 
     float squareLength = (float) Math.sqrt((1.0 + cosTheta) * 2.0);
     float inverseSquareLength = 1.0f / squareLength;
 
-    return new Quaternion(
-        rotationAxis.x * inverseSquareLength,
-        rotationAxis.y * inverseSquareLength,
-        rotationAxis.z * inverseSquareLength,
+    dest.set(
+        axisX * inverseSquareLength,
+        axisY * inverseSquareLength,
+        axisZ * inverseSquareLength,
         squareLength * 0.5f);
   }
 
+  /**
+   * Returns the factor that scales a vector to unit length, the same way as {@link
+   * Vector3#normalized()}.
+   */
+  private static float normalizationScale(float x, float y, float z) {
+    float normSquared = x * x + y * y + z * z;
+    if (MathHelper.almostEqualRelativeAndAbs(normSquared, 0.0f)) {
+      return 0.0f;
+    } else if (normSquared != 1) {
+      return (float) (1.0 / Math.sqrt(normSquared));
+    }
+    return 1.0f;
+  }
+
   /**
    * Get a new Quaternion representing a rotation towards a specified forward direction. If
    * upInWorld is orthogonal to forwardInWorld, then the Y axis is aligned with desiredUpInWorld.
    */
   public static Quaternion lookRotation(Vector3 forwardInWorld, Vector3 desiredUpInWorld) {
+    Quaternion dest = new Quaternion();
+    lookRotation(forwardInWorld, desiredUpInWorld, dest);
+    return dest;
+  }
+
+  /** Same as {@link #lookRotation(Vector3, Vector3)}, but sets the result in dest. */
+  public static void lookRotation(
+      Vector3 forwardInWorld, Vector3 desiredUpInWorld, Quaternion dest) {
     Preconditions.checkNotNull(forwardInWorld, "Parameter \"forwardInWorld\" was null.");
     Preconditions.checkNotNull(desiredUpInWorld, "Parameter \"desiredUpInWorld\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+    float forwardX = forwardInWorld.x;
+    float forwardY = forwardInWorld.y;
+    float forwardZ = forwardInWorld.z;
 
     // Find the rotation between the world forward and the forward to look at.
-    Quaternion rotateForwardToDesiredForward =
-        rotationBetweenVectors(Vector3.forward(), forwardInWorld);
+    rotationBetweenVectors(0.0f, 0.0f, -1.0f, forwardX, forwardY, forwardZ, dest);
+    float qx = dest.x;
+    float qy = dest.y;
+    float qz = dest.z;
+    float qw = dest.w;
 
     // Recompute upwards so that it's perpendicular to the direction
-    Vector3 rightInWorld = Vector3.cross(forwardInWorld, desiredUpInWorld);
-    desiredUpInWorld = Vector3.cross(rightInWorld, forwardInWorld);
-
-    // Find the rotation between the "up" of the rotated object, and the desired up
-    Vector3 newUp = Quaternion.rotateVector(rotateForwardToDesiredForward, Vector3.up());
-    Quaternion rotateNewUpToUpwards = rotationBetweenVectors(newUp, desiredUpInWorld);
-
-    return Quaternion.multiply(rotateNewUpToUpwards, rotateForwardToDesiredForward);
+    float rightX = forwardY * desiredUpInWorld.z - forwardZ * desiredUpInWorld.y;
+    float rightY = forwardZ * desiredUpInWorld.x - forwardX * desiredUpInWorld.z;
+    float rightZ = forwardX * desiredUpInWorld.y - forwardY * desiredUpInWorld.x;
+    float upX = rightY * forwardZ - rightZ * forwardY;
+    float upY = rightZ * forwardX - rightX * forwardZ;
+    float upZ = rightX * forwardY - rightY * forwardX;
+
+    // Find the rotation between the "up" of the rotated object, and the desired up. The rotated up
+    // is the second row of the rotation matrix used by rotateVector.
+    float w2 = qw * qw;
+    float x2 = qx * qx;
+    float y2 = qy * qy;
+    float z2 = qz * qz;
+    float zw = qz * qw;
+    float xy = qx * qy;
+    float yz = qy * qz;
+    float xw = qx * qw;
+    float newUpX = -zw + xy - zw + xy;
+    float newUpY = y2 - z2 + w2 - x2;
+    float newUpZ = yz + yz + xw + xw;
+    rotationBetweenVectors(newUpX, newUpY, newUpZ, upX, upY, upZ, dest);
+
+    multiply(dest, qx, qy, qz, qw, dest);
   }
 
   /**
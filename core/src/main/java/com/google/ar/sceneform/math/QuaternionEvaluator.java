@@ -1,11 +1,34 @@
 package com.google.ar.sceneform.math;
 
 import android.animation.TypeEvaluator;
+import androidx.annotation.Nullable;
 
 /** TypeEvaluator for Quaternions. Used to animate rotations. */
 public class QuaternionEvaluator implements TypeEvaluator<Quaternion> {
+  @Nullable private final Quaternion reuse;
+
+  /** Creates an evaluator that returns a new Quaternion from each call to evaluate. */
+  public QuaternionEvaluator() {
+    this(null);
+  }
+
+  /**
+   * Creates an evaluator that returns the same Quaternion from each call to evaluate, so that
+   * animations don't allocate on every frame. Only use this when the value is copied by the
+   * property it is set on, as it is by {@link com.google.ar.sceneform.Node#setLocalRotation}, and
+   * not when the same evaluator is shared by animations that run at the same time.
+   *
+   * @param reuse set to the result of each call to evaluate and returned, or null to return a new
+   *     Quaternion each time
+   */
+  public QuaternionEvaluator(@Nullable Quaternion reuse) {
+    this.reuse = reuse;
+  }
+
   @Override
   public Quaternion evaluate(float fraction, Quaternion startValue, Quaternion endValue) {
-    return Quaternion.slerp(startValue, endValue, fraction);
+    Quaternion result = reuse != null ? reuse : new Quaternion();
+    Quaternion.slerp(startValue, endValue, fraction, result);
+    return result;
   }
 }
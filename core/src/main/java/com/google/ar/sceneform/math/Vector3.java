@@ -101,16 +101,24 @@ public class Vector3 {
 
   /** Scales the Vector3 to the unit length */
   public Vector3 normalized() {
-    Vector3 result = new Vector3(this);
-    float normSquared = Vector3.dot(this, this);
+    Vector3 result = new Vector3();
+    normalized(result);
+    return result;
+  }
 
+  /** Same as {@link #normalized()}, but sets the result in dest, which may be this Vector3. */
+  public void normalized(Vector3 dest) {
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+
+    float normSquared = Vector3.dot(this, this);
     if (MathHelper.almostEqualRelativeAndAbs(normSquared, 0.0f)) {
-      result.setZero();
+      dest.setZero();
     } else if (normSquared != 1) {
       float norm = (float) (1.0 / Math.sqrt(normSquared));
-      result.set(this.scaled(norm));
+      scaled(norm, dest);
+    } else {
+      dest.set(this);
     }
-    return result;
   }
 
   /**
@@ -122,6 +130,12 @@ public class Vector3 {
     return new Vector3(x * a, y * a, z * a);
   }
 
+  /** Same as {@link #scaled(float)}, but sets the result in dest, which may be this Vector3. */
+  public void scaled(float a, Vector3 dest) {
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    dest.set(x * a, y * a, z * a);
+  }
+
   /**
    * Negates a Vector3
    *
@@ -131,6 +145,12 @@ public class Vector3 {
     return new Vector3(-x, -y, -z);
   }
 
+  /** Same as {@link #negated()}, but sets the result in dest, which may be this Vector3. */
+  public void negated(Vector3 dest) {
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    dest.set(-x, -y, -z);
+  }
+
   /**
    * Adds two Vector3's
    *
@@ -142,6 +162,17 @@ public class Vector3 {
     return new Vector3(lhs.x + rhs.x, lhs.y + rhs.y, lhs.z + rhs.z);
   }
 
+  /**
+   * Same as {@link #add(Vector3, Vector3)}, but sets the result in dest, which may be the same as
+   * lhs or rhs.
+   */
+  public static void add(Vector3 lhs, Vector3 rhs, Vector3 dest) {
+    Preconditions.checkNotNull(lhs, "Parameter \"lhs\" was null.");
+    Preconditions.checkNotNull(rhs, "Parameter \"rhs\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    dest.set(lhs.x + rhs.x, lhs.y + rhs.y, lhs.z + rhs.z);
+  }
+
   /**
    * Subtract two Vector3
    *
@@ -153,6 +184,17 @@ public class Vector3 {
     return new Vector3(lhs.x - rhs.x, lhs.y - rhs.y, lhs.z - rhs.z);
   }
 
+  /**
+   * Same as {@link #subtract(Vector3, Vector3)}, but sets the result in dest, which may be the same
+   * as lhs or rhs.
+   */
+  public static void subtract(Vector3 lhs, Vector3 rhs, Vector3 dest) {
+    Preconditions.checkNotNull(lhs, "Parameter \"lhs\" was null.");
+    Preconditions.checkNotNull(rhs, "Parameter \"rhs\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    dest.set(lhs.x - rhs.x, lhs.y - rhs.y, lhs.z - rhs.z);
+  }
+
   /**
    * Get dot product of two Vector3's
    *
@@ -170,30 +212,62 @@ public class Vector3 {
    * @return A Vector3 perpendicular to Vector3's
    */
   public static Vector3 cross(Vector3 lhs, Vector3 rhs) {
+    Vector3 result = new Vector3();
+    cross(lhs, rhs, result);
+    return result;
+  }
+
+  /**
+   * Same as {@link #cross(Vector3, Vector3)}, but sets the result in dest, which may be the same as
+   * lhs or rhs.
+   */
+  public static void cross(Vector3 lhs, Vector3 rhs, Vector3 dest) {
     Preconditions.checkNotNull(lhs, "Parameter \"lhs\" was null.");
     Preconditions.checkNotNull(rhs, "Parameter \"rhs\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
     float lhsX = lhs.x;
     float lhsY = lhs.y;
     float lhsZ = lhs.z;
     float rhsX = rhs.x;
     float rhsY = rhs.y;
     float rhsZ = rhs.z;
-    return new Vector3(
-        lhsY * rhsZ - lhsZ * rhsY, lhsZ * rhsX - lhsX * rhsZ, lhsX * rhsY - lhsY * rhsX);
+    dest.set(lhsY * rhsZ - lhsZ * rhsY, lhsZ * rhsX - lhsX * rhsZ, lhsX * rhsY - lhsY * rhsX);
   }
 
   /** Get a Vector3 with each value set to the element wise minimum of two Vector3's values */
   public static Vector3 min(Vector3 lhs, Vector3 rhs) {
+    Vector3 result = new Vector3();
+    min(lhs, rhs, result);
+    return result;
+  }
+
+  /**
+   * Same as {@link #min(Vector3, Vector3)}, but sets the result in dest, which may be the same as
+   * lhs or rhs.
+   */
+  public static void min(Vector3 lhs, Vector3 rhs, Vector3 dest) {
     Preconditions.checkNotNull(lhs, "Parameter \"lhs\" was null.");
     Preconditions.checkNotNull(rhs, "Parameter \"rhs\" was null.");
-    return new Vector3(Math.min(lhs.x, rhs.x), Math.min(lhs.y, rhs.y), Math.min(lhs.z, rhs.z));
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    dest.set(Math.min(lhs.x, rhs.x), Math.min(lhs.y, rhs.y), Math.min(lhs.z, rhs.z));
   }
 
   /** Get a Vector3 with each value set to the element wise maximum of two Vector3's values */
   public static Vector3 max(Vector3 lhs, Vector3 rhs) {
+    Vector3 result = new Vector3();
+    max(lhs, rhs, result);
+    return result;
+  }
+
+  /**
+   * Same as {@link #max(Vector3, Vector3)}, but sets the result in dest, which may be the same as
+   * lhs or rhs.
+   */
+  public static void max(Vector3 lhs, Vector3 rhs, Vector3 dest) {
     Preconditions.checkNotNull(lhs, "Parameter \"lhs\" was null.");
     Preconditions.checkNotNull(rhs, "Parameter \"rhs\" was null.");
-    return new Vector3(Math.max(lhs.x, rhs.x), Math.max(lhs.y, rhs.y), Math.max(lhs.z, rhs.z));
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    dest.set(Math.max(lhs.x, rhs.x), Math.max(lhs.y, rhs.y), Math.max(lhs.z, rhs.z));
   }
 
   /** Get the maximum value in a single Vector3 */
@@ -217,12 +291,62 @@ public class Vector3 {
    * @return interpolated value between the two floats
    */
   public static Vector3 lerp(Vector3 a, Vector3 b, float t) {
+    Vector3 result = new Vector3();
+    lerp(a, b, t, result);
+    return result;
+  }
+
+  /**
+   * Same as {@link #lerp(Vector3, Vector3, float)}, but sets the result in dest, which may be the
+   * same as a or b.
+   */
+  public static void lerp(Vector3 a, Vector3 b, float t, Vector3 dest) {
     Preconditions.checkNotNull(a, "Parameter \"a\" was null.");
     Preconditions.checkNotNull(b, "Parameter \"b\" was null.");
-    return new Vector3(
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    dest.set(
         MathHelper.lerp(a.x, b.x, t), MathHelper.lerp(a.y, b.y, t), MathHelper.lerp(a.z, b.z, t));
   }
 
+  /**
+   * Linearly interpolates between vectors that are packed one after another as x, y, z in arrays,
+   * such as the positions or scales of the nodes of an animation. This is the same as calling
+   * {@link #lerp(Vector3, Vector3, float, Vector3)} for each pair of vectors, without the objects.
+   *
+   * @param a the vectors at t = 0
+   * @param aOffset index in a of the x of the first vector
+   * @param b the vectors at t = 1
+   * @param bOffset index in b of the x of the first vector
+   * @param t the ratio to interpolate every pair of vectors by
+   * @param dest receives the interpolated vectors, and may be a or b if destOffset is the same as
+   *     their offset
+   * @param destOffset index in dest of the x of the first vector
+   * @param count the number of vectors
+   */
+  public static void lerp(
+      float[] a,
+      int aOffset,
+      float[] b,
+      int bOffset,
+      float t,
+      float[] dest,
+      int destOffset,
+      int count) {
+    Preconditions.checkNotNull(a, "Parameter \"a\" was null.");
+    Preconditions.checkNotNull(b, "Parameter \"b\" was null.");
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    MathHelper.checkRange(a, aOffset, count, 3);
+    MathHelper.checkRange(b, bOffset, count, 3);
+    MathHelper.checkRange(dest, destOffset, count, 3);
+
+    // Each component is one step, since they are all interpolated the same way.
+    int componentCount = count * 3;
+    for (int i = 0; i < componentCount; i++) {
+      float start = a[aOffset + i];
+      dest[destOffset + i] = start + t * (b[bOffset + i] - start);
+    }
+  }
+
   /**
    * Returns the shortest angle in degrees between two vectors. The result is never greater than 180
    * degrees.
@@ -1,11 +1,34 @@
 package com.google.ar.sceneform.math;
 
 import android.animation.TypeEvaluator;
+import androidx.annotation.Nullable;
 
 /** TypeEvaluator for Vector3. Used to animate positions and other vectors. */
 public class Vector3Evaluator implements TypeEvaluator<Vector3> {
+  @Nullable private final Vector3 reuse;
+
+  /** Creates an evaluator that returns a new Vector3 from each call to evaluate. */
+  public Vector3Evaluator() {
+    this(null);
+  }
+
+  /**
+   * Creates an evaluator that returns the same Vector3 from each call to evaluate, so that
+   * animations don't allocate on every frame. Only use this when the value is copied by the
+   * property it is set on, as it is by {@link com.google.ar.sceneform.Node#setLocalPosition}, and
+   * not when the same evaluator is shared by animations that run at the same time.
+   *
+   * @param reuse set to the result of each call to evaluate and returned, or null to return a new
+   *     Vector3 each time
+   */
+  public Vector3Evaluator(@Nullable Vector3 reuse) {
+    this.reuse = reuse;
+  }
+
   @Override
   public Vector3 evaluate(float fraction, Vector3 startValue, Vector3 endValue) {
-    return Vector3.lerp(startValue, endValue, fraction);
+    Vector3 result = reuse != null ? reuse : new Vector3();
+    Vector3.lerp(startValue, endValue, fraction, result);
+    return result;
   }
 }
@@ -73,6 +73,10 @@ public class PlaneRenderer {
     private PlaneRendererMode planeRendererMode = PlaneRendererMode.RENDER_ALL;
     // Distance from the camera to last plane hit, default value is 4 meters (standing height).
     private float lastPlaneHitDistance = 4.0f;
+    // Origin of world space in the ARCore session, set when the scene shifts its origin.
+    private double originX;
+    private double originY;
+    private double originZ;
 
     /**
      * @hide PlaneRenderer is constructed in a different package, but not part of external API.
@@ -150,6 +154,23 @@ public class PlaneRenderer {
         }
     }
 
+    /**
+     * @hide Set by the view when the scene shifts its origin, so that the planes, whose poses are
+     * relative to the ARCore session, are drawn in world space.
+     */
+    public void setOrigin(double x, double y, double z) {
+        if (originX == x && originY == y && originZ == z) {
+            return;
+        }
+
+        originX = x;
+        originY = y;
+        originZ = z;
+        for (PlaneVisualizer visualizer : visualizerMap.values()) {
+            visualizer.setOrigin(x, y, z);
+        }
+    }
+
     /**
      * Returns default material instance used to render the planes.
      */
@@ -259,6 +280,7 @@ public class PlaneRenderer {
             planeVisualizer = visualizerMap.get(plane);
         } else {
             planeVisualizer = new PlaneVisualizer(plane, renderer);
+            planeVisualizer.setOrigin(originX, originY, originZ);
             Material overrideMaterial = materialOverrides.get(plane);
             if (overrideMaterial != null) {
                 planeVisualizer.setPlaneMaterial(overrideMaterial);
@@ -417,13 +439,19 @@ public class PlaneRenderer {
         if (hit != null) {
             Pose hitPose = hit.getHitPose();
             lastPlaneHitDistance = hit.getDistance();
-            return new Vector3(hitPose.tx(), hitPose.ty(), hitPose.tz());
+            return new Vector3(
+                    (float) (hitPose.tx() - originX),
+                    (float) (hitPose.ty() - originY),
+                    (float) (hitPose.tz() - originZ));
         }
 
         // If we didn't hit anything, project a point in front of the camera so that the spotlight
         // rolls off the edge smoothly.
         Pose cameraPose = frame.getCamera().getPose();
-        Vector3 cameraPosition = new Vector3(cameraPose.tx(), cameraPose.ty(), cameraPose.tz());
+        Vector3 cameraPosition = new Vector3(
+                (float) (cameraPose.tx() - originX),
+                (float) (cameraPose.ty() - originY),
+                (float) (cameraPose.tz() - originZ));
         float[] zAxis = cameraPose.getZAxis();
         Vector3 backwards = new Vector3(zAxis[0], zAxis[1], zAxis[2]);
 
@@ -21,6 +21,11 @@ class PlaneVisualizer implements TransformProvider {
 
   private final Matrix planeMatrix = new Matrix();
 
+  // Origin of world space in the ARCore session, subtracted from the pose of the plane.
+  private double originX;
+  private double originY;
+  private double originZ;
+
   private boolean isPlaneAddedToScene = false;
   private boolean isEnabled = false;
   private boolean isShadowReceiver = false;
@@ -118,7 +123,7 @@ class PlaneVisualizer implements TransformProvider {
     }
 
     // Set the transformation matrix to the pose of the plane.
-    plane.getCenterPose().toMatrix(planeMatrix.data, 0);
+    updatePlaneMatrix();
 
     // Calculate the mesh for the plane.
     boolean success = updateRenderableDefinitionForPlane();
@@ -131,6 +136,27 @@ class PlaneVisualizer implements TransformProvider {
     addPlaneToScene();
   }
 
+  /**
+   * Sets the origin of world space in the ARCore session. Only moves the plane, without rebuilding
+   * its mesh.
+   */
+  void setOrigin(double x, double y, double z) {
+    originX = x;
+    originY = y;
+    originZ = z;
+    if (isPlaneAddedToScene) {
+      updatePlaneMatrix();
+    }
+  }
+
+  private void updatePlaneMatrix() {
+    float[] data = planeMatrix.data;
+    plane.getCenterPose().toMatrix(data, 0);
+    data[12] = (float) (data[12] - originX);
+    data[13] = (float) (data[13] - originY);
+    data[14] = (float) (data[14] - originZ);
+  }
+
   @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
   void updateRenderable() {
     List<Submesh> submeshes = renderableDefinition.getSubmeshes();
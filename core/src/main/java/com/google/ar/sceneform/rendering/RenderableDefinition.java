@@ -27,6 +27,9 @@ import java.util.List;
  */
 public class RenderableDefinition {
   private static final Matrix scratchMatrix = new Matrix();
+  private static final Vector3 scratchTangent = new Vector3();
+  private static final Vector3 scratchBitangent = new Vector3();
+  private static final Quaternion scratchQuaternion = new Quaternion();
 
   /**
    * Represents a Submesh for a RenderableDefinition. Each RenderableDefinition may have multiple
@@ -310,8 +313,8 @@ public class RenderableDefinition {
 
       // Aabb.
       Vector3 position = vertex.getPosition();
-      minAabb.set(Vector3.min(minAabb, position));
-      maxAabb.set(Vector3.max(maxAabb, position));
+      Vector3.min(minAabb, position, minAabb);
+      Vector3.max(maxAabb, position, maxAabb);
 
       // Position attribute.
       addVector3ToBuffer(position, positionBuffer);
@@ -325,7 +328,8 @@ public class RenderableDefinition {
                   + "RenderableDescription has a normal, all vertices must have one.");
         }
 
-        Quaternion tangent = normalToTangent(normal);
+        Quaternion tangent = scratchQuaternion;
+        normalToTangent(normal, tangent);
         addQuaternionToBuffer(tangent, tangentsBuffer);
       }
 
@@ -355,8 +359,11 @@ public class RenderableDefinition {
     }
 
     // Set the Aabb in the renderable data.
-    Vector3 extentsAabb = Vector3.subtract(maxAabb, minAabb).scaled(0.5f);
-    Vector3 centerAabb = Vector3.add(minAabb, extentsAabb);
+    Vector3 extentsAabb = maxAabb;
+    Vector3.subtract(maxAabb, minAabb, extentsAabb);
+    extentsAabb.scaled(0.5f, extentsAabb);
+    Vector3 centerAabb = minAabb;
+    Vector3.add(minAabb, extentsAabb, centerAabb);
     data.setExtentsAabb(extentsAabb);
     data.setCenterAabb(centerAabb);
 
@@ -477,20 +484,25 @@ public class RenderableDefinition {
     buffer.put(color.a);
   }
 
-  private static Quaternion normalToTangent(Vector3 normal) {
-    Vector3 tangent;
-    Vector3 bitangent;
+  private static void normalToTangent(Vector3 normal, Quaternion dest) {
+    Vector3 tangent = scratchTangent;
+    Vector3 bitangent = scratchBitangent;
 
     // Calculate basis vectors (+x = tangent, +y = bitangent, +z = normal).
-    tangent = Vector3.cross(Vector3.up(), normal);
+    tangent.set(0.0f, 1.0f, 0.0f);
+    Vector3.cross(tangent, normal, tangent);
 
     // Uses almostEqualRelativeAndAbs for equality checks that account for float inaccuracy.
     if (MathHelper.almostEqualRelativeAndAbs(Vector3.dot(tangent, tangent), 0.0f)) {
-      bitangent = Vector3.cross(normal, Vector3.right()).normalized();
-      tangent = Vector3.cross(bitangent, normal).normalized();
+      bitangent.set(1.0f, 0.0f, 0.0f);
+      Vector3.cross(normal, bitangent, bitangent);
+      bitangent.normalized(bitangent);
+      Vector3.cross(bitangent, normal, tangent);
+      tangent.normalized(tangent);
     } else {
-      tangent.set(tangent.normalized());
-      bitangent = Vector3.cross(normal, tangent).normalized();
+      tangent.normalized(tangent);
+      Vector3.cross(normal, tangent, bitangent);
+      bitangent.normalized(bitangent);
     }
 
     // Rotation of a 4x4 Transformation Matrix is represented by the top-left 3x3 elements.
@@ -509,9 +521,7 @@ public class RenderableDefinition {
     scratchMatrix.data[rowThree + 1] = normal.y;
     scratchMatrix.data[rowThree + 2] = normal.z;
 
-    Quaternion orientationQuaternion = new Quaternion();
-    scratchMatrix.extractQuaternion(orientationQuaternion);
-    return orientationQuaternion;
+    scratchMatrix.extractQuaternion(dest);
   }
 
   /** Factory class for {@link RenderableDefinition}. */
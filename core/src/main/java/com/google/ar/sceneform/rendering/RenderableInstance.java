@@ -21,6 +21,7 @@ import com.google.android.filament.gltfio.FilamentAsset;
 import com.google.ar.sceneform.animation.AnimatableModel;
 import com.google.ar.sceneform.animation.ModelAnimation;
 import com.google.ar.sceneform.collision.Box;
+import com.google.ar.sceneform.collision.Frustum;
 import com.google.ar.sceneform.common.TransformProvider;
 import com.google.ar.sceneform.math.Matrix;
 import com.google.ar.sceneform.math.Vector3;
@@ -34,6 +35,7 @@ import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.concurrent.Callable;
 import java.util.function.Function;
 
@@ -66,6 +68,10 @@ public class RenderableInstance implements AnimatableModel {
 
     private static final String TAG = RenderableInstance.class.getSimpleName();
 
+    // Animated instances are tested for visibility with their bind pose bounds scaled by this, so
+    // that a pose that reaches outside of those bounds doesn't freeze while it can be seen.
+    private static final float ANIMATED_BOUNDS_SCALE = 2.0f;
+
     private final TransformProvider transformProvider;
     private final Renderable renderable;
     @Nullable
@@ -98,6 +104,17 @@ public class RenderableInstance implements AnimatableModel {
     @Nullable
     private Matrix cachedRelativeTransformInverse;
 
+    // Bounds of the rendered entity in its local space, used to test if the instance can be seen.
+    private final Vector3 boundsCenter = new Vector3();
+    private final Vector3 boundsExtents = new Vector3();
+    private final Vector3 animatedBoundsExtents = new Vector3();
+    private boolean hasBounds;
+    private boolean isVisible = true;
+
+    // The transform that was last sent to the TransformManager.
+    private final float[] modelMatrix = new float[16];
+    private boolean isModelMatrixSet;
+
     @SuppressWarnings("initialization") // Suppress @UnderInitialization warning.
     public RenderableInstance(TransformProvider transformProvider, Renderable renderable) {
         Preconditions.checkNotNull(transformProvider, "Parameter \"transformProvider\" was null.");
@@ -147,16 +164,22 @@ public class RenderableInstance implements AnimatableModel {
                 throw new IllegalStateException("Failed to load gltf");
             }
 
+            com.google.android.filament.Box box = createdAsset.getBoundingBox();
+            float[] halfExtent = box.getHalfExtent();
+            float[] center = box.getCenter();
             if (renderable.collisionShape == null) {
-                com.google.android.filament.Box box = createdAsset.getBoundingBox();
-                float[] halfExtent = box.getHalfExtent();
-                float[] center = box.getCenter();
                 renderable.collisionShape =
                         new Box(
                                 new Vector3(halfExtent[0], halfExtent[1], halfExtent[2]).scaled(2.0f),
                                 new Vector3(center[0], center[1], center[2]));
             }
 
+            // The asset is parented to the child entity when there is one, so the bounds would also
+            // need the relative transform. Those instances are never culled.
+            boundsCenter.set(center[0], center[1], center[2]);
+            boundsExtents.set(halfExtent[0], halfExtent[1], halfExtent[2]);
+            hasBounds = childEntity == 0;
+
             Function<String, Uri> urlResolver = renderableData.urlResolver;
             for (String uri : createdAsset.getResourceUris()) {
                 if (urlResolver == null) {
@@ -263,10 +286,52 @@ public class RenderableInstance implements AnimatableModel {
     }
 
     void setModelMatrix(TransformManager transformManager, @Size(min = 16) float[] transform) {
+        // Skip the update when the transform hasn't changed since it was last set.
+        if (isModelMatrixSet && Arrays.equals(modelMatrix, transform)) {
+            return;
+        }
+
         // Use entity, rather than childEntity; setting the latter would slam the local transform which
         // corrects for scaling and offset.
         @EntityInstance int instance = transformManager.getInstance(entity);
         transformManager.setTransform(instance, transform);
+        System.arraycopy(transform, 0, modelMatrix, 0, modelMatrix.length);
+        isModelMatrixSet = true;
+    }
+
+    /**
+     * Returns false if the bounds of this instance were outside of the view of the camera the last
+     * time that the scene was rendered. Animations and skinning of instances that don't cast shadows
+     * are not updated while the instance can't be seen. Can be used to pick a level of detail or to
+     * pause other work for the instance.
+     */
+    public boolean isVisible() {
+        return isVisible;
+    }
+
+    /**
+     * Tests the bounds of this instance against the view of the camera. Instances without bounds
+     * are always visible.
+     *
+     * @param frustum the frustum of the camera, or null if nothing is culled
+     * @param worldModelMatrix the transform of the instance for this frame
+     */
+    void updateVisibility(@Nullable Frustum frustum, Matrix worldModelMatrix) {
+        if (frustum == null || !hasBounds) {
+            isVisible = true;
+            return;
+        }
+
+        // The bounds are those of the bind pose, which animated poses can reach outside of.
+        Vector3 extents = boundsExtents;
+        if (getAnimationCount() > 0) {
+            animatedBoundsExtents.set(
+                    boundsExtents.x * ANIMATED_BOUNDS_SCALE,
+                    boundsExtents.y * ANIMATED_BOUNDS_SCALE,
+                    boundsExtents.z * ANIMATED_BOUNDS_SCALE);
+            extents = animatedBoundsExtents;
+        }
+        isVisible = frustum.intersectsBounds(worldModelMatrix, boundsCenter, extents);
     }
 
     /**
@@ -521,30 +586,38 @@ public class RenderableInstance implements AnimatableModel {
             IRenderableInternalData renderableInternalData = renderable.getRenderableData();
             setupSkeleton(renderableInternalData);
             renderableInternalData.buildInstanceData(this, getRenderedEntity());
+            updateBounds(renderableInternalData);
             renderableId = changeId.get();
             // First time we're rendering, so always update the skinning even if we aren't animating and
             // there is no skinModifier.
             updateSkinning();
         } else {
             // Will only update the skinning if the renderable is animating or there is a skinModifier
-            // that has been changed since the last draw.
-            if (updateAnimations(false)) {
+            // that has been changed since the last draw. Animations that change while the instance
+            // can't be seen stay dirty until it is visible again, unless its shadow may be seen.
+            if ((isVisible || isShadowCaster) && updateAnimations(false)) {
                 updateSkinning();
             }
         }
     }
 
+    private void updateBounds(IRenderableInternalData renderableInternalData) {
+        // The bounds of filament assets are read from the asset when it is created.
+        if (renderableInternalData instanceof RenderableInternalFilamentAssetData) {
+            return;
+        }
+
+        boundsCenter.set(renderableInternalData.getCenterAabb());
+        boundsExtents.set(renderableInternalData.getExtentsAabb());
+        hasBounds = childEntity == 0;
+    }
+
     private void attachFilamentAssetToRenderer() {
         FilamentAsset currentFilamentAsset = filamentAsset;
         if (currentFilamentAsset != null) {
-            int[] entities = currentFilamentAsset.getEntities();
-            Preconditions.checkNotNull(attachedRenderer)
-                    .getFilamentScene()
-                    .addEntity(currentFilamentAsset.getRoot());
-            Preconditions.checkNotNull(attachedRenderer)
-                    .getFilamentScene()
-                    .addEntities(currentFilamentAsset.getEntities());
-            Preconditions.checkNotNull(attachedRenderer).getFilamentScene().addEntities(entities);
+            Renderer renderer = Preconditions.checkNotNull(attachedRenderer);
+            renderer.addEntity(currentFilamentAsset.getRoot());
+            renderer.addEntities(currentFilamentAsset.getEntities());
         }
     }
 
@@ -564,10 +637,10 @@ public class RenderableInstance implements AnimatableModel {
             if (currentFilamentAsset != null) {
                 int[] entities = currentFilamentAsset.getEntities();
                 for (int entity : entities) {
-                    attachedRenderer.getFilamentScene().removeEntity(entity);
+                    attachedRenderer.removeEntity(entity);
                 }
                 int root = currentFilamentAsset.getRoot();
-                attachedRenderer.getFilamentScene().removeEntity(root);
+                attachedRenderer.removeEntity(root);
             }
             attachedRenderer.removeInstance(this);
             renderable.detatchFromRenderer();
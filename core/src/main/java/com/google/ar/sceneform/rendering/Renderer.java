@@ -20,6 +20,8 @@ import com.google.android.filament.TransformManager;
 import com.google.android.filament.View.DynamicResolutionOptions;
 import com.google.android.filament.Viewport;
 import com.google.android.filament.android.UiHelper;
+import com.google.ar.sceneform.collision.Frustum;
+import com.google.ar.sceneform.math.Matrix;
 import com.google.ar.sceneform.utilities.AndroidPreconditions;
 import com.google.ar.sceneform.utilities.Preconditions;
 import com.gorisse.thomas.sceneform.environment.Environment;
@@ -27,6 +29,7 @@ import com.gorisse.thomas.sceneform.scene.CameraKt;
 import com.gorisse.thomas.sceneform.scene.SceneKt;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -48,6 +51,14 @@ public class Renderer implements UiHelper.RendererCallback {
     private final ArrayList<RenderableInstance> renderableInstances = new ArrayList<>();
     private final ArrayList<LightInstance> lightInstances = new ArrayList<>();
     private final double[] cameraProjectionMatrix = new double[16];
+    // Scratch objects used to cull the renderable instances against the camera.
+    private final Matrix cameraViewProjectionMatrix = new Matrix();
+    private final Frustum cameraFrustum = new Frustum();
+    // Entities added while an entity batch is open. They are added to the filament scene together
+    // when the outermost batch ends.
+    private int entityBatchDepth;
+    private int[] batchedEntities = new int[16];
+    private int batchedEntityCount;
     private final List<Mirror> mirrors = new ArrayList<>();
     public Environment environment = null;
     @Entity
@@ -568,13 +579,73 @@ public class Renderer implements UiHelper.RendererCallback {
     }
 
     public void addEntity(@Entity int entity) {
+        if (entityBatchDepth > 0) {
+            if (batchedEntityCount == batchedEntities.length) {
+                batchedEntities = Arrays.copyOf(batchedEntities, batchedEntityCount * 2);
+            }
+            batchedEntities[batchedEntityCount++] = entity;
+            return;
+        }
+
         scene.addEntity(entity);
     }
 
+    public void addEntities(@Entity int[] entities) {
+        Preconditions.checkNotNull(entities, "Parameter \"entities\" was null.");
+
+        if (entityBatchDepth > 0) {
+            for (int entity : entities) {
+                addEntity(entity);
+            }
+            return;
+        }
+
+        scene.addEntities(entities);
+    }
+
     public void removeEntity(@Entity int entity) {
+        // The entity may still be waiting in the batch.
+        flushEntityBatch();
         scene.removeEntity(entity);
     }
 
+    /**
+     * Starts collecting the entities that are added, so that they are added to the filament scene
+     * with one call when the matching {@link #endEntityBatch()} is called. Used when many nodes are
+     * attached at once. Batches may be nested.
+     *
+     * @hide
+     */
+    public void beginEntityBatch() {
+        entityBatchDepth++;
+    }
+
+    /**
+     * Ends a batch started by {@link #beginEntityBatch()}, adding the collected entities to the
+     * filament scene if it was the outermost batch.
+     *
+     * @hide
+     */
+    public void endEntityBatch() {
+        if (entityBatchDepth == 0) {
+            throw new IllegalStateException("endEntityBatch was called without beginEntityBatch.");
+        }
+
+        entityBatchDepth--;
+        if (entityBatchDepth == 0) {
+            flushEntityBatch();
+        }
+    }
+
+    private void flushEntityBatch() {
+        if (batchedEntityCount == 0) {
+            return;
+        }
+
+        scene.addEntities(Arrays.copyOf(batchedEntities, batchedEntityCount));
+        batchedEntityCount = 0;
+    }
+
     public void addLight(@Entity int entity) {
         addEntity(entity);
     }
@@ -661,9 +732,23 @@ public class Renderer implements UiHelper.RendererCallback {
         final TransformManager transformManager = engine.getTransformManager();
         transformManager.openLocalTransformTransaction();
 
+        @Nullable Frustum frustum = null;
+        CameraProvider cameraProvider = this.cameraProvider;
+        if (cameraProvider != null && cameraProvider.isActive()) {
+            Matrix.multiply(
+                    cameraProvider.getProjectionMatrix(),
+                    cameraProvider.getViewMatrix(),
+                    cameraViewProjectionMatrix);
+            cameraFrustum.setViewProjection(cameraViewProjectionMatrix);
+            frustum = cameraFrustum;
+        }
+
         for (RenderableInstance renderableInstance : renderableInstances) {
+            renderableInstance.updateVisibility(frustum, renderableInstance.getWorldModelMatrix());
             renderableInstance.prepareForDraw();
 
+            // Instances that can't be seen still get their transforms, otherwise Filament would keep
+            // drawing them, and their shadows, where they were last seen.
             float[] transform = renderableInstance.getWorldModelMatrix().data;
             renderableInstance.setModelMatrix(transformManager, transform);
         }
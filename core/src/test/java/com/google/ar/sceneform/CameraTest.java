@@ -0,0 +1,95 @@
+package com.google.ar.sceneform;
+
+import com.google.ar.sceneform.collision.Box;
+import com.google.ar.sceneform.collision.Sphere;
+import com.google.ar.sceneform.math.Matrix;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.EngineInstance;
+import com.google.ar.sceneform.utilities.AllocationCounter;
+import com.google.ar.sceneform.utilities.AndroidPreconditions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CameraTest {
+    private Scene scene;
+    private Camera camera;
+
+    @Before
+    public void setUp() {
+        AndroidPreconditions.setUnderTesting(true);
+        EngineInstance.enableHeadlessEngine();
+        scene = new Scene();
+        camera = scene.getCamera();
+
+        // A 90 degree field of view with near and far planes at 1 and 10, looking down -z.
+        Matrix projection = new Matrix();
+        projection.data[10] = -11.0f / 9.0f;
+        projection.data[11] = -1.0f;
+        projection.data[14] = -20.0f / 9.0f;
+        projection.data[15] = 0.0f;
+        camera.setProjectionMatrix(projection);
+    }
+
+    private Node addNode(Vector3 position, int collisionLayerMask) {
+        Node node = new Node();
+        node.setCollisionShape(new Box(Vector3.one()));
+        node.setCollisionLayerMask(collisionLayerMask);
+        node.setWorldPosition(position);
+        scene.addChild(node);
+        return node;
+    }
+
+    @Test
+    public void getVisibleNodes_findsNodesInsideFrustumAndLayers() {
+        Node visible = addNode(new Vector3(0.0f, 0.0f, -5.0f), 1);
+        Node straddlingSide = addNode(new Vector3(5.4f, 0.0f, -5.0f), 1);
+        Node otherLayer = addNode(new Vector3(0.0f, 1.0f, -5.0f), 2);
+        addNode(new Vector3(0.0f, 0.0f, 5.0f), 1);
+        addNode(new Vector3(0.0f, 0.0f, -12.0f), 1);
+        addNode(new Vector3(8.0f, 0.0f, -5.0f), 1);
+        // Nodes without a collision shape are never found.
+        Node withoutShape = new Node();
+        withoutShape.setWorldPosition(new Vector3(0.0f, 0.0f, -3.0f));
+        scene.addChild(withoutShape);
+
+        ArrayList<Node> visibleNodes = new ArrayList<>();
+        visibleNodes.add(withoutShape);
+        camera.getVisibleNodes(1, visibleNodes);
+        assertEquals(2, visibleNodes.size());
+        assertTrue(new HashSet<>(visibleNodes).contains(visible));
+        assertTrue(new HashSet<>(visibleNodes).contains(straddlingSide));
+
+        camera.getVisibleNodes(3, visibleNodes);
+        assertEquals(3, visibleNodes.size());
+        assertTrue(visibleNodes.contains(otherLayer));
+
+        // Moving the camera back puts the node that was behind it in view, and the others too far.
+        camera.setWorldPosition(new Vector3(0.0f, 0.0f, 10.0f));
+        camera.getVisibleNodes(1, visibleNodes);
+        assertEquals(1, visibleNodes.size());
+        assertEquals(5.0f, visibleNodes.get(0).getWorldPosition().z, 0.0f);
+    }
+
+    @Test
+    public void getVisibleNodes_doesNotAllocate() {
+        for (int i = 0; i < 20; i++) {
+            Node node = addNode(new Vector3(i - 10.0f, 0.0f, -5.0f), 1);
+            node.setCollisionShape(new Sphere(0.5f));
+        }
+        ArrayList<Node> visibleNodes = new ArrayList<>();
+        camera.getVisibleNodes(1, visibleNodes);
+        assertEquals(13, visibleNodes.size());
+
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> camera.getVisibleNodes(1, visibleNodes), 1000);
+        assertEquals(0, allocatedBytes);
+    }
+}
@@ -0,0 +1,448 @@
+package com.google.ar.sceneform;
+
+import com.google.ar.sceneform.collision.Box;
+import com.google.ar.sceneform.collision.Ray;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.EngineInstance;
+import com.google.ar.sceneform.utilities.AllocationCounter;
+import com.google.ar.sceneform.utilities.AndroidPreconditions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NodeParentTest {
+    private static final int NODE_COUNT = 200;
+
+    private Node parent;
+    private final ArrayList<Node> nodes = new ArrayList<>();
+    // The children that the parent should have, in order.
+    private final ArrayList<Node> expectedChildren = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        AndroidPreconditions.setUnderTesting(true);
+        EngineInstance.enableHeadlessEngine();
+        parent = new Node();
+        for (int i = 0; i < NODE_COUNT; i++) {
+            nodes.add(new Node());
+        }
+    }
+
+    @Test
+    public void randomAddsAndRemoves_matchArrayList() {
+        Random random = new Random(3);
+        for (int i = 0; i < 5000; i++) {
+            Node node = nodes.get(random.nextInt(NODE_COUNT));
+            if (random.nextBoolean()) {
+                parent.addChild(node);
+                if (!expectedChildren.contains(node)) {
+                    expectedChildren.add(node);
+                }
+            } else {
+                parent.removeChild(node);
+                expectedChildren.remove(node);
+            }
+
+            if (i % 50 == 0) {
+                assertChildren();
+            }
+        }
+        assertChildren();
+    }
+
+    @Test
+    public void removingDuringTraversal_skipsRemovedChildrenAndKeepsIndexedReads() {
+        for (int i = 0; i < NODE_COUNT; i++) {
+            parent.addChild(nodes.get(i));
+            expectedChildren.add(nodes.get(i));
+        }
+
+        ArrayList<Node> visited = new ArrayList<>();
+        parent.callOnHierarchy(
+                node -> {
+                    if (node == parent) {
+                        return;
+                    }
+
+                    visited.add(node);
+                    // Removes the next child, which is then skipped, and an earlier one.
+                    int index = nodes.indexOf(node);
+                    if (index % 3 == 0) {
+                        removeFromParent(index + 1);
+                        removeFromParent(index / 2);
+                    }
+
+                    // Indexed reads see the children as they are now.
+                    assertChildren();
+                });
+
+        for (int i = 0; i < NODE_COUNT; i++) {
+            // Children removed before the traversal reached them aren't visited, the others are.
+            assertEquals(i % 3 != 1, visited.contains(nodes.get(i)));
+        }
+        assertChildren();
+    }
+
+    @Test
+    public void addingDuringTraversal_isNotVisited() {
+        parent.addChild(nodes.get(0));
+        parent.addChild(nodes.get(1));
+
+        int[] visitedCount = new int[1];
+        parent.callOnHierarchy(
+                node -> {
+                    if (node != parent) {
+                        visitedCount[0]++;
+                        parent.addChild(nodes.get(2 + visitedCount[0]));
+                    }
+                });
+
+        assertEquals(2, visitedCount[0]);
+        assertEquals(4, parent.getChildren().size());
+        assertSame(nodes.get(4), parent.getChildren().get(3));
+    }
+
+    @Test
+    public void indexedIteration_doesNotAllocate() {
+        for (int i = 0; i < NODE_COUNT; i++) {
+            parent.addChild(nodes.get(i));
+        }
+        for (int i = 0; i < NODE_COUNT; i += 2) {
+            parent.removeChild(nodes.get(i));
+        }
+
+        int[] count = new int[1];
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> {
+                            List<Node> children = parent.getChildren();
+                            for (int i = 0; i < children.size(); i++) {
+                                if (children.get(i).getParentNode() == parent) {
+                                    count[0]++;
+                                }
+                            }
+                        },
+                        10000);
+        assertEquals(0, allocatedBytes);
+        assertTrue(count[0] > 0);
+    }
+
+    @Test
+    public void findByName_matchesHierarchyWalk() {
+        Random random = new Random(15);
+        Scene scene = new Scene();
+        String[] names = {"a", "b", "c", "d", "e"};
+        for (int i = 0; i < NODE_COUNT; i++) {
+            Node node = nodes.get(i);
+            node.setName(names[random.nextInt(names.length)]);
+            NodeParent target = i < 10 ? scene : nodes.get(random.nextInt(i));
+            target.addChild(node);
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            Node node = nodes.get(random.nextInt(NODE_COUNT));
+            int operation = random.nextInt(4);
+            if (operation == 0) {
+                node.setName(names[random.nextInt(names.length)]);
+            } else if (operation == 1) {
+                node.setParent(null);
+            } else {
+                NodeParent target =
+                        operation == 2 ? scene : nodes.get(random.nextInt(NODE_COUNT));
+                if (target != node
+                        && !(target instanceof Node && ((Node) target).isDescendantOf(node))) {
+                    target.addChild(node);
+                }
+            }
+
+            if (i % 20 == 0) {
+                for (String name : names) {
+                    assertSame(findByNameInHierarchy(scene, name), scene.findByName(name));
+                    for (int j = 0; j < 5; j++) {
+                        Node root = nodes.get(random.nextInt(NODE_COUNT));
+                        assertSame(findByNameInHierarchy(root, name), root.findByName(name));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void addChildren_matchesRepeatedAddChild() {
+        Level expected = new Level(new Random(19));
+        for (int i = 0; i < expected.added.size(); i++) {
+            expected.parent.addChild(expected.added.get(i));
+        }
+
+        Level actual = new Level(new Random(19));
+        actual.parent.addChildren(actual.added);
+
+        actual.assertSameState(expected);
+        for (int frame = 0; frame < 3; frame++) {
+            expected.scene.dispatchUpdate(new FrameTime());
+            actual.scene.dispatchUpdate(new FrameTime());
+            actual.assertSameState(expected);
+        }
+    }
+
+    @Test
+    public void addChildren_withInvalidNode_addsNothing() {
+        Node child = new Node();
+        parent.addChild(child);
+        ArrayList<Node> added = new ArrayList<>();
+        added.add(nodes.get(0));
+        added.add(parent);
+
+        try {
+            child.addChildren(added);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        assertTrue(child.getChildren().isEmpty());
+        assertNull(nodes.get(0).getParent());
+    }
+
+    @Test
+    public void addChildren_throwingDuringActivation_endsAttachBatch() {
+        int[] batchDepth = new int[1];
+        int[] batchCount = new int[1];
+        Scene scene =
+                new Scene() {
+                    @Override
+                    void beginAttachBatch() {
+                        batchDepth[0]++;
+                        batchCount[0]++;
+                        super.beginAttachBatch();
+                    }
+
+                    @Override
+                    void endAttachBatch() {
+                        batchDepth[0]--;
+                        super.endAttachBatch();
+                    }
+                };
+        scene.addChild(parent);
+        Node throwing =
+                new Node() {
+                    @Override
+                    public void onActivate() {
+                        throw new IllegalStateException("Activation failed.");
+                    }
+                };
+        // A subtree, so that the failure happens inside the nested batch of the activation pass.
+        Node subtree = new Node();
+        subtree.addChild(nodes.get(1));
+        subtree.addChild(throwing);
+        ArrayList<Node> added = new ArrayList<>();
+        added.add(nodes.get(0));
+        added.add(subtree);
+        added.add(nodes.get(2));
+
+        try {
+            parent.addChildren(added);
+            fail();
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        assertTrue(batchCount[0] >= 2);
+        assertEquals(0, batchDepth[0]);
+        assertTrue(nodes.get(0).isActive());
+        assertSame(parent, subtree.getParent());
+
+        // Later batches open and close as normal.
+        batchCount[0] = 0;
+        parent.addChildren(nodes.subList(3, 10));
+        assertTrue(batchCount[0] > 0);
+        assertEquals(0, batchDepth[0]);
+        assertTrue(nodes.get(9).isActive());
+    }
+
+    /** Finds a node by name the way findByName did before the scene kept a name index. */
+    private static Node findByNameInHierarchy(NodeParent parent, String name) {
+        if (parent instanceof Node && name.equals(((Node) parent).getName())) {
+            return (Node) parent;
+        }
+        List<Node> children = parent.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            Node found = findByNameInHierarchy(children.get(i), name);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private void removeFromParent(int index) {
+        if (index < NODE_COUNT) {
+            parent.removeChild(nodes.get(index));
+            expectedChildren.remove(nodes.get(index));
+        }
+    }
+
+    private void assertChildren() {
+        List<Node> children = parent.getChildren();
+        assertEquals(expectedChildren.size(), children.size());
+        for (int i = 0; i < expectedChildren.size(); i++) {
+            Node child = expectedChildren.get(i);
+            assertSame(child, children.get(i));
+            assertEquals(i, children.indexOf(child));
+            assertTrue(children.contains(child));
+        }
+    }
+
+    /** A node that overrides onUpdate, so that it is in the update list while active. */
+    private static class UpdatingNode extends Node {
+        int updateCount;
+
+        @Override
+        public void onUpdate(FrameTime frameTime) {
+            updateCount++;
+        }
+    }
+
+    /**
+     * A scene with a level built from a seed, to be attached to a parent in the scene. Levels built
+     * from the same seed have the same nodes at the same indices.
+     */
+    private static class Level {
+        final Scene scene = new Scene();
+        final Node parent = new Node();
+        final Node otherParent = new Node();
+        // Every node of the level, in the order they were made.
+        final ArrayList<Node> all = new ArrayList<>();
+        // The nodes to add to the parent, in order.
+        final ArrayList<Node> added = new ArrayList<>();
+        final HashMap<Node, Integer> listenerUpdateCounts = new HashMap<>();
+
+        private final Node.LifecycleListener listener =
+                new Node.LifecycleListener() {
+                    @Override
+                    public void onActivated(Node node) {}
+
+                    @Override
+                    public void onUpdated(Node node, FrameTime frameTime) {
+                        listenerUpdateCounts.merge(node, 1, Integer::sum);
+                    }
+
+                    @Override
+                    public void onDeactivated(Node node) {}
+                };
+
+        Level(Random random) {
+            scene.addChild(parent);
+            scene.addChild(otherParent);
+            for (int i = 0; i < 20; i++) {
+                Node node = newNode(random, i * 3.0f);
+                for (int j = random.nextInt(4); j > 0; j--) {
+                    Node child = newNode(random, 0.0f);
+                    node.addChild(child);
+                    for (int k = random.nextInt(3); k > 0; k--) {
+                        child.addChild(newNode(random, 0.0f));
+                    }
+                }
+                added.add(node);
+            }
+
+            // Some of the nodes already have a parent in the scene, and one is added twice.
+            parent.addChild(added.get(1));
+            for (int i = 0; i < added.size(); i += 5) {
+                otherParent.addChild(added.get(i));
+            }
+            added.add(added.get(2));
+        }
+
+        private Node newNode(Random random, float x) {
+            int kind = random.nextInt(3);
+            Node node = kind == 0 ? new UpdatingNode() : new Node();
+            if (kind == 1) {
+                node.addLifecycleListener(listener);
+            }
+            node.setName("node" + random.nextInt(5));
+            node.setLocalPosition(new Vector3(x, 0.0f, 0.0f));
+            if (random.nextInt(5) < 2) {
+                node.setCollisionShape(new Box(Vector3.one()));
+            }
+            if (random.nextInt(7) == 0) {
+                node.setEnabled(false);
+            }
+            all.add(node);
+            return node;
+        }
+
+        /** Checks that the nodes at each index are in the same state in both levels. */
+        void assertSameState(Level expected) {
+            for (int i = 0; i < all.size(); i++) {
+                Node node = all.get(i);
+                Node expectedNode = expected.all.get(i);
+                assertEquals(expected.indexOf(expectedNode.getParent()), indexOf(node.getParent()));
+                assertEquals(
+                        expectedNode.getParent().getChildren().indexOf(expectedNode),
+                        node.getParent().getChildren().indexOf(node));
+                assertEquals(expectedNode.isActive(), node.isActive());
+                assertEquals(expectedNode.updateListIndex >= 0, node.updateListIndex >= 0);
+                if (node instanceof UpdatingNode) {
+                    assertEquals(
+                            ((UpdatingNode) expectedNode).updateCount,
+                            ((UpdatingNode) node).updateCount);
+                }
+                assertEquals(
+                        expected.listenerUpdateCounts.get(expectedNode),
+                        listenerUpdateCounts.get(node));
+            }
+            assertEquals(
+                    expected.indicesOf(expected.parent.getChildren()),
+                    indicesOf(parent.getChildren()));
+            assertEquals(
+                    expected.indicesOf(expected.otherParent.getChildren()),
+                    indicesOf(otherParent.getChildren()));
+
+            for (int i = 0; i < 5; i++) {
+                assertEquals(
+                        expected.indexOf(expected.scene.findByName("node" + i)),
+                        indexOf(scene.findByName("node" + i)));
+            }
+
+            assertEquals(expected.hitIndices(), hitIndices());
+        }
+
+        /** Returns the indices of the nodes with a collider registered with the scene. */
+        private HashSet<Integer> hitIndices() {
+            Ray ray = new Ray(new Vector3(-10.0f, 0.0f, 0.0f), Vector3.right());
+            HashSet<Integer> indices = new HashSet<>();
+            for (HitTestResult result : scene.hitTestAll(ray)) {
+                indices.add(indexOf(result.getNode()));
+            }
+            return indices;
+        }
+
+        private ArrayList<Integer> indicesOf(List<Node> nodes) {
+            ArrayList<Integer> indices = new ArrayList<>();
+            for (int i = 0; i < nodes.size(); i++) {
+                indices.add(indexOf(nodes.get(i)));
+            }
+            return indices;
+        }
+
+        private int indexOf(NodeParent node) {
+            if (node == parent) {
+                return -2;
+            } else if (node == otherParent) {
+                return -3;
+            }
+            return all.indexOf(node);
+        }
+    }
+}
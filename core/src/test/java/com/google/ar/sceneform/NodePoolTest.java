@@ -0,0 +1,140 @@
+package com.google.ar.sceneform;
+
+import com.google.ar.sceneform.math.Quaternion;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.EngineInstance;
+import com.google.ar.sceneform.utilities.AllocationCounter;
+import com.google.ar.sceneform.utilities.AndroidPreconditions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class NodePoolTest {
+    private Scene scene;
+    private NodePool<Node> pool;
+
+    @Before
+    public void setUp() {
+        AndroidPreconditions.setUnderTesting(true);
+        EngineInstance.enableHeadlessEngine();
+        scene = new Scene();
+        pool = new NodePool<>(Node::new, 2);
+    }
+
+    @Test
+    public void release_resetsNodeToStateOfNewNode() {
+        Node node = pool.obtain();
+        Node child = new Node();
+        node.addChild(child);
+        scene.addChild(node);
+        node.setName("Used");
+        node.setEnabled(false);
+        node.setSelectable(false);
+        node.setUpdateInterval(3);
+        node.setLocalPosition(new Vector3(1.0f, 2.0f, 3.0f));
+        node.setLocalRotation(Quaternion.axisAngle(Vector3.up(), 45.0f));
+        node.setLocalScale(new Vector3(2.0f, 2.0f, 2.0f));
+        int[] changedCount = new int[1];
+        node.addTransformChangedListener((changedNode, originatingNode) -> changedCount[0]++);
+        scene.dispatchUpdate(new FrameTime());
+
+        pool.release(node);
+        Node reused = pool.obtain();
+        Node fresh = new Node();
+
+        assertSame(node, reused);
+        assertNull(reused.getParent());
+        assertNull(reused.getScene());
+        assertNull(child.getParent());
+        assertEquals(0, reused.getChildren().size());
+        assertFalse(scene.getChildren().contains(reused));
+        assertNull(scene.findByName("Used"));
+        assertEquals(fresh.getName(), reused.getName());
+        assertEquals(fresh.isEnabled(), reused.isEnabled());
+        assertEquals(fresh.isSelectable(), reused.isSelectable());
+        assertEquals(fresh.getUpdateInterval(), reused.getUpdateInterval());
+        assertEquals(fresh.getCollisionLayerMask(), reused.getCollisionLayerMask());
+        assertNull(reused.getCollisionShape());
+        assertNull(reused.getRenderable());
+        assertNull(reused.getLight());
+        assertArrayEquals(
+                fresh.getWorldModelMatrix().data, reused.getWorldModelMatrix().data, 0.0f);
+
+        changedCount[0] = 0;
+        reused.setLocalPosition(new Vector3(0.0f, 1.0f, 0.0f));
+        scene.addChild(reused);
+        scene.dispatchUpdate(new FrameTime());
+        assertEquals(0, changedCount[0]);
+    }
+
+    @Test
+    public void obtain_afterRelease_reusesNode() {
+        Node node = pool.obtain();
+        pool.release(node);
+        assertEquals(1, pool.getFreeCount());
+
+        assertSame(node, pool.obtain());
+        assertEquals(0, pool.getFreeCount());
+        assertNotSame(node, pool.obtain());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void release_twice_throws() {
+        Node node = pool.obtain();
+        pool.release(node);
+        pool.release(node);
+    }
+
+    @Test
+    public void release_overMaxFreeCount_dropsNode() {
+        Node first = pool.obtain();
+        Node second = pool.obtain();
+        Node third = pool.obtain();
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+        assertEquals(2, pool.getFreeCount());
+
+        // The dropped node can still be released to a pool again, it isn't marked as pooled.
+        NodePool<Node> otherPool = new NodePool<>(Node::new);
+        otherPool.release(third);
+        assertEquals(1, otherPool.getFreeCount());
+
+        pool.clear();
+        assertEquals(0, pool.getFreeCount());
+    }
+
+    @Test
+    public void obtainAndRelease_inSteadyState_doesNotAllocate() {
+        // Keeps a node with the default name in the scene, so that the name index keeps its list.
+        scene.addChild(new Node());
+        pool.release(pool.obtain());
+        int childCount = scene.getChildren().size();
+        FrameTime frameTime = new FrameTime();
+        Vector3 position = new Vector3();
+
+        int[] frame = new int[1];
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> {
+                            frame[0]++;
+                            Node node = pool.obtain();
+                            position.set(frame[0] % 10, 0.0f, 0.0f);
+                            node.setLocalPosition(position);
+                            scene.addChild(node);
+                            scene.dispatchUpdate(frameTime);
+                            pool.release(node);
+                        },
+                        1000);
+        assertEquals(0, allocatedBytes);
+        assertEquals(1, pool.getFreeCount());
+        assertEquals(childCount, scene.getChildren().size());
+    }
+}
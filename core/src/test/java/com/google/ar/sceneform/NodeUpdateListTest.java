@@ -0,0 +1,186 @@
+package com.google.ar.sceneform;
+
+import com.google.ar.sceneform.rendering.EngineInstance;
+import com.google.ar.sceneform.utilities.AndroidPreconditions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NodeUpdateListTest {
+    private Scene scene;
+    private final ArrayList<CountingNode> nodes = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        AndroidPreconditions.setUnderTesting(true);
+        EngineInstance.enableHeadlessEngine();
+        scene = new Scene();
+    }
+
+    @Test
+    public void mixedIntervals_spreadUpdatesOfEachIntervalEvenly() {
+        // Added in turn, so that a phase counter shared by all intervals would give every node
+        // with an interval of 2 the same phase.
+        for (int i = 0; i < 12; i++) {
+            addNode(2);
+            addNode(3);
+        }
+
+        for (int frame = 0; frame < 12; frame++) {
+            scene.dispatchUpdate(new FrameTime());
+            assertEquals(6, countUpdatesAndReset(2));
+            assertEquals(4, countUpdatesAndReset(3));
+        }
+    }
+
+    @Test
+    public void setUpdateInterval_onActiveNodes_spreadsTheirUpdates() {
+        ArrayList<CountingNode> changedNodes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            addNode(2);
+            changedNodes.add(addNode(1));
+        }
+        scene.dispatchUpdate(new FrameTime());
+
+        for (int i = 0; i < changedNodes.size(); i++) {
+            changedNodes.get(i).setUpdateInterval(4);
+        }
+        countUpdatesAndReset(4);
+
+        for (int frame = 0; frame < 8; frame++) {
+            scene.dispatchUpdate(new FrameTime());
+            assertEquals(2, countUpdatesAndReset(4));
+        }
+    }
+
+    @Test
+    public void nodesWithoutUpdateWork_areNotDispatchedUntilTheyGetAListener() {
+        // Overriding other callbacks than onUpdate doesn't make a node need updates.
+        Node activating =
+                new Node() {
+                    @Override
+                    public void onActivate() {}
+                };
+        Node plain = new Node();
+        activating.addChild(plain);
+        scene.addChild(activating);
+        scene.dispatchUpdate(new FrameTime());
+        assertEquals(-1, activating.updateListIndex);
+        assertEquals(-1, plain.updateListIndex);
+
+        RecordingListener listener = new RecordingListener();
+        plain.addLifecycleListener(listener);
+        assertTrue(plain.updateListIndex >= 0);
+        scene.dispatchUpdate(new FrameTime());
+        scene.dispatchUpdate(new FrameTime());
+        assertEquals(2, listener.updatedNodes.size());
+        assertSame(plain, listener.updatedNodes.get(0));
+
+        plain.removeLifecycleListener(listener);
+        assertEquals(-1, plain.updateListIndex);
+        scene.dispatchUpdate(new FrameTime());
+        assertEquals(2, listener.updatedNodes.size());
+    }
+
+    @Test
+    public void listenerOnInactiveNode_isDispatchedOnlyWhileActive() {
+        RecordingListener listener = new RecordingListener();
+        Node node = new Node();
+        node.addLifecycleListener(listener);
+        node.setEnabled(false);
+        scene.addChild(node);
+        scene.dispatchUpdate(new FrameTime());
+        assertEquals(-1, node.updateListIndex);
+        assertEquals(0, listener.updatedNodes.size());
+
+        node.setEnabled(true);
+        scene.dispatchUpdate(new FrameTime());
+        assertEquals(1, listener.updatedNodes.size());
+
+        scene.removeChild(node);
+        assertEquals(-1, node.updateListIndex);
+        scene.dispatchUpdate(new FrameTime());
+        assertEquals(1, listener.updatedNodes.size());
+    }
+
+    @Test
+    public void nodes_areUpdatedInRegistrationOrder() {
+        RecordingListener listener = new RecordingListener();
+        Node parent = new Node();
+        Node child = new Node();
+        Node sibling = new Node();
+        parent.addChild(child);
+        scene.addChild(parent);
+        scene.addChild(sibling);
+
+        child.addLifecycleListener(listener);
+        sibling.addLifecycleListener(listener);
+        parent.addLifecycleListener(listener);
+        scene.dispatchUpdate(new FrameTime());
+        assertEquals(Arrays.asList(child, sibling, parent), listener.updatedNodes);
+
+        // A subtree that becomes active registers its parents before their children.
+        Node subtree = new Node();
+        Node subtreeChild = new Node();
+        subtree.addChild(subtreeChild);
+        subtreeChild.addLifecycleListener(listener);
+        subtree.addLifecycleListener(listener);
+        scene.addChild(subtree);
+        listener.updatedNodes.clear();
+        scene.dispatchUpdate(new FrameTime());
+        assertEquals(
+                Arrays.asList(child, sibling, parent, subtree, subtreeChild),
+                listener.updatedNodes);
+    }
+
+    private CountingNode addNode(int interval) {
+        CountingNode node = new CountingNode();
+        node.setUpdateInterval(interval);
+        scene.addChild(node);
+        nodes.add(node);
+        return node;
+    }
+
+    private int countUpdatesAndReset(int interval) {
+        int count = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            CountingNode node = nodes.get(i);
+            if (node.getUpdateInterval() == interval) {
+                count += node.updateCount;
+                node.updateCount = 0;
+            }
+        }
+        return count;
+    }
+
+    private static class CountingNode extends Node {
+        int updateCount;
+
+        @Override
+        public void onUpdate(FrameTime frameTime) {
+            updateCount++;
+        }
+    }
+
+    private static class RecordingListener implements Node.LifecycleListener {
+        final ArrayList<Node> updatedNodes = new ArrayList<>();
+
+        @Override
+        public void onActivated(Node node) {}
+
+        @Override
+        public void onUpdated(Node node, FrameTime frameTime) {
+            updatedNodes.add(node);
+        }
+
+        @Override
+        public void onDeactivated(Node node) {}
+    }
+}
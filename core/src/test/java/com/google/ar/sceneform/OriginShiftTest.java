@@ -0,0 +1,187 @@
+package com.google.ar.sceneform;
+
+import com.google.ar.sceneform.collision.Box;
+import com.google.ar.sceneform.collision.Ray;
+import com.google.ar.sceneform.math.Quaternion;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.EngineInstance;
+import com.google.ar.sceneform.utilities.AndroidPreconditions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class OriginShiftTest {
+    private static final int NODE_COUNT = 100;
+    private static final float TOLERANCE = 1e-4f;
+
+    private Scene scene;
+    private final ArrayList<Node> nodes = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        AndroidPreconditions.setUnderTesting(true);
+        EngineInstance.enableHeadlessEngine();
+        scene = new Scene();
+    }
+
+    @Test
+    public void shiftOrigin_cachedTransformsMatchRecomposedTransforms() {
+        buildHierarchy(new Random(24));
+        scene.dispatchUpdate(new FrameTime());
+        // Fills the caches, including the inverses, which are only built when they are used.
+        Vector3 scratch = new Vector3();
+        for (int i = 0; i < NODE_COUNT; i++) {
+            nodes.get(i).worldToLocalPoint(Vector3.zero(), scratch);
+            nodes.get(i).getWorldPosition(scratch);
+        }
+
+        scene.shiftOrigin(12.5, -3.0, 40.25);
+        scene.dispatchUpdate(new FrameTime());
+
+        float[][] shiftedMatrices = new float[NODE_COUNT][];
+        Vector3[] shiftedPositions = new Vector3[NODE_COUNT];
+        Vector3[] shiftedLocalOrigins = new Vector3[NODE_COUNT];
+        for (int i = 0; i < NODE_COUNT; i++) {
+            Node node = nodes.get(i);
+            shiftedMatrices[i] = node.getWorldModelMatrix().data.clone();
+            shiftedPositions[i] = node.getWorldPosition();
+            shiftedLocalOrigins[i] = node.worldToLocalPoint(Vector3.zero());
+        }
+
+        // Setting the local positions again makes every node recompose its transforms.
+        for (int i = 0; i < NODE_COUNT; i++) {
+            nodes.get(i).setLocalPosition(nodes.get(i).getLocalPosition());
+        }
+        for (int i = 0; i < NODE_COUNT; i++) {
+            Node node = nodes.get(i);
+            assertArrayEquals(shiftedMatrices[i], node.getWorldModelMatrix().data, TOLERANCE);
+            assertVector(node.getWorldPosition(), shiftedPositions[i]);
+            assertVector(node.worldToLocalPoint(Vector3.zero()), shiftedLocalOrigins[i]);
+        }
+    }
+
+    @Test
+    public void shiftOrigin_keepsColliders() {
+        Node node = new Node();
+        node.setCollisionShape(new Box(Vector3.one()));
+        node.setWorldPosition(new Vector3(100.0f, 0.0f, -5.0f));
+        scene.addChild(node);
+        scene.dispatchUpdate(new FrameTime());
+        Object collider = node.getCollider();
+
+        scene.shiftOrigin(100.0, 0.0, 0.0);
+        scene.dispatchUpdate(new FrameTime());
+
+        assertSame(collider, node.getCollider());
+        assertVector(new Vector3(0.0f, 0.0f, -5.0f), node.getWorldPosition());
+        Ray ray = new Ray(Vector3.zero(), Vector3.forward());
+        assertSame(node, scene.hitTest(ray, false).getNode());
+    }
+
+    @Test
+    public void walk_withRebasing_keepsPositionsRelativeToCameraAccurate() {
+        scene.setOriginRebasingRadius(50.0f);
+        Camera camera = scene.getCamera();
+        Random random = new Random(2);
+        ArrayList<Node> placedNodes = new ArrayList<>();
+        ArrayList<double[]> placedSessionPositions = new ArrayList<>();
+        Vector3 cameraPosition = new Vector3();
+        Vector3 nodePosition = new Vector3();
+
+        // Walks 2 km in steps of 0.5 m, like a user walking while the camera follows the session.
+        double maxError = 0.0;
+        for (int step = 0; step < 4000; step++) {
+            double sessionX = step * 0.5;
+            double sessionY = 1.5 + Math.sin(step * 0.01);
+            double sessionZ = -step * 0.1;
+            cameraPosition.set(
+                    (float) (sessionX - scene.getOriginX()),
+                    (float) (sessionY - scene.getOriginY()),
+                    (float) (sessionZ - scene.getOriginZ()));
+            camera.setWorldPosition(cameraPosition);
+
+            // Content is placed near the camera from time to time, at a known session position.
+            if (step % 20 == 0) {
+                double[] session = {
+                    sessionX + random.nextDouble() * 4.0 - 2.0,
+                    sessionY + random.nextDouble() - 0.5,
+                    sessionZ - 1.0 - random.nextDouble() * 2.0
+                };
+                Node node = new Node();
+                node.setWorldPosition(
+                        new Vector3(
+                                (float) (session[0] - scene.getOriginX()),
+                                (float) (session[1] - scene.getOriginY()),
+                                (float) (session[2] - scene.getOriginZ())));
+                scene.addChild(node);
+                placedNodes.add(node);
+                placedSessionPositions.add(session);
+            }
+
+            scene.dispatchUpdate(new FrameTime());
+
+            // The camera stays near the origin of the scene.
+            camera.getWorldPosition(cameraPosition);
+            assertTrue(cameraPosition.length() <= 50.0f + 0.5f);
+
+            for (int i = Math.max(0, placedNodes.size() - 3); i < placedNodes.size(); i++) {
+                placedNodes.get(i).getWorldPosition(nodePosition);
+                double[] session = placedSessionPositions.get(i);
+                maxError = Math.max(maxError, Math.abs(
+                        (nodePosition.x - cameraPosition.x) - (session[0] - sessionX)));
+                maxError = Math.max(maxError, Math.abs(
+                        (nodePosition.y - cameraPosition.y) - (session[1] - sessionY)));
+                maxError = Math.max(maxError, Math.abs(
+                        (nodePosition.z - cameraPosition.z) - (session[2] - sessionZ)));
+            }
+        }
+
+        // At 2 km from the origin a float is only accurate to about 1e-4 m.
+        assertTrue("Error was " + maxError, maxError < 2e-5);
+        assertTrue(Math.abs(scene.getOriginX()) > 1900.0);
+    }
+
+    private void buildHierarchy(Random random) {
+        for (int i = 0; i < NODE_COUNT; i++) {
+            Node node = new Node();
+            node.setLocalPosition(randomVector(random).scaled(10.0f));
+            node.setLocalRotation(
+                    Quaternion.axisAngle(randomVector(random), random.nextFloat() * 360.0f));
+            node.setLocalScale(
+                    new Vector3(
+                            0.5f + random.nextFloat(),
+                            0.5f + random.nextFloat(),
+                            0.5f + random.nextFloat()));
+            if (i % 4 == 0) {
+                node.setCollisionShape(new Box(Vector3.one()));
+            }
+            if (i < 10) {
+                scene.addChild(node);
+            } else {
+                nodes.get(random.nextInt(i)).addChild(node);
+            }
+            nodes.add(node);
+        }
+    }
+
+    private static Vector3 randomVector(Random random) {
+        return new Vector3(
+                random.nextFloat() * 2.0f - 1.0f,
+                random.nextFloat() * 2.0f - 1.0f,
+                random.nextFloat() * 2.0f - 1.0f);
+    }
+
+    private static void assertVector(Vector3 expected, Vector3 actual) {
+        assertEquals(expected.x, actual.x, TOLERANCE);
+        assertEquals(expected.y, actual.y, TOLERANCE);
+        assertEquals(expected.z, actual.z, TOLERANCE);
+    }
+}
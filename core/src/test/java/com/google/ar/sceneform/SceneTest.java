@@ -0,0 +1,215 @@
+package com.google.ar.sceneform;
+
+import android.view.MotionEvent;
+
+import com.google.ar.sceneform.collision.Box;
+import com.google.ar.sceneform.collision.Ray;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.EngineInstance;
+import com.google.ar.sceneform.utilities.AllocationCounter;
+import com.google.ar.sceneform.utilities.AndroidPreconditions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SceneTest {
+    private Scene scene;
+
+    @Before
+    public void setUp() {
+        AndroidPreconditions.setUnderTesting(true);
+        EngineInstance.enableHeadlessEngine();
+        scene = new Scene();
+    }
+
+    /**
+     * Creates an event without going through MotionEvent.obtain, which isn't available on the host
+     * JVM. All of its coordinates are zero.
+     */
+    static MotionEvent newMotionEvent() throws ReflectiveOperationException {
+        Constructor<MotionEvent> constructor = MotionEvent.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return constructor.newInstance();
+    }
+
+    @Test
+    public void onTouchEvent_hittingNode_doesNotAllocate() throws ReflectiveOperationException {
+        MotionEvent motionEvent = newMotionEvent();
+        Ray ray = scene.getCamera().motionEventToRay(motionEvent);
+
+        Node node = new Node();
+        node.setCollisionShape(new Box(Vector3.one()));
+        node.setWorldPosition(ray.getPoint(5.0f));
+        scene.addChild(node);
+
+        int[] hitCount = new int[1];
+        scene.addOnPeekTouchListener(
+                (hitTestResult, event) -> {
+                    if (hitTestResult.getNode() == node) {
+                        hitCount[0]++;
+                    }
+                });
+
+        scene.onTouchEvent(motionEvent);
+        assertEquals(1, hitCount[0]);
+
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(() -> scene.onTouchEvent(motionEvent), 10000);
+        assertEquals(0, allocatedBytes);
+    }
+
+    @Test
+    public void hitTest_withResult_doesNotAllocate() throws ReflectiveOperationException {
+        MotionEvent motionEvent = newMotionEvent();
+        Ray ray = scene.getCamera().motionEventToRay(motionEvent);
+
+        Node node = new Node();
+        node.setCollisionShape(new Box(Vector3.one()));
+        node.setWorldPosition(ray.getPoint(5.0f));
+        scene.addChild(node);
+
+        HitTestResult result = new HitTestResult();
+        scene.hitTest(motionEvent, true, result);
+        assertSame(node, result.getNode());
+
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> scene.hitTest(motionEvent, true, result), 10000);
+        assertEquals(0, allocatedBytes);
+    }
+
+    @Test
+    public void removingQueuedChild_dispatchesTransformChangedOnce() {
+        Node parent = new Node();
+        Node child = new Node();
+        parent.addChild(child);
+        scene.addChild(parent);
+        scene.dispatchUpdate(new FrameTime());
+
+        int[] changedCount = new int[1];
+        child.addTransformChangedListener((node, originatingNode) -> changedCount[0]++);
+
+        child.setLocalPosition(new Vector3(1.0f, 0.0f, 0.0f));
+        assertEquals(0, changedCount[0]);
+
+        parent.removeChild(child);
+        assertEquals(1, changedCount[0]);
+
+        scene.dispatchUpdate(new FrameTime());
+        assertEquals(1, changedCount[0]);
+    }
+
+    @Test
+    public void removingQueuedTopLevelNode_dispatchesTransformChangedOnce() {
+        Node node = new Node();
+        scene.addChild(node);
+        scene.dispatchUpdate(new FrameTime());
+
+        int[] changedCount = new int[1];
+        node.addTransformChangedListener((changedNode, originatingNode) -> changedCount[0]++);
+
+        node.setLocalPosition(new Vector3(1.0f, 0.0f, 0.0f));
+        scene.removeChild(node);
+        assertEquals(1, changedCount[0]);
+
+        scene.dispatchUpdate(new FrameTime());
+        assertEquals(1, changedCount[0]);
+    }
+
+    @Test
+    public void reset_clearsQueuedTransformChange() {
+        Node node = new Node();
+        scene.addChild(node);
+        node.setLocalPosition(new Vector3(1.0f, 0.0f, 0.0f));
+        node.reset();
+
+        int[] changedCount = new int[1];
+        node.addTransformChangedListener((changedNode, originatingNode) -> changedCount[0]++);
+        Scene otherScene = new Scene();
+        otherScene.addChild(node);
+        otherScene.dispatchUpdate(new FrameTime());
+        changedCount[0] = 0;
+
+        node.setLocalPosition(new Vector3(2.0f, 0.0f, 0.0f));
+        otherScene.dispatchUpdate(new FrameTime());
+        assertEquals(1, changedCount[0]);
+    }
+
+    @Test
+    public void findByName_inScene_doesNotAllocate() {
+        Node parent = new Node();
+        scene.addChild(parent);
+        for (int i = 0; i < 100; i++) {
+            Node child = new Node();
+            child.setName("child" + i);
+            parent.addChild(child);
+        }
+
+        String name = "child42";
+        Node[] found = new Node[1];
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> found[0] = scene.findByName(name), 10000);
+        assertEquals(0, allocatedBytes);
+        assertSame(parent.getChildren().get(42), found[0]);
+    }
+
+    @Test
+    public void dispatchUpdate_withParallelTransforms_matchesSequential() {
+        Scene parallelScene = new Scene();
+        parallelScene.setParallelTransformsEnabled(true);
+        ArrayList<Node> parallelNodes = new ArrayList<>();
+        ArrayList<Node> nodes = new ArrayList<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 300; i++) {
+            // The first nodes are anchors at the top level, the rest are spread below them.
+            int parentIndex = i < 30 ? -1 : random.nextInt(i);
+            parallelNodes.add(newChildWithCollider(parallelScene, parallelNodes, parentIndex));
+            nodes.add(newChildWithCollider(scene, nodes, parentIndex));
+        }
+
+        for (int frame = 0; frame < 20; frame++) {
+            for (int i = 0; i < 40; i++) {
+                int index = random.nextInt(nodes.size());
+                Vector3 position =
+                        new Vector3(random.nextFloat(), random.nextFloat(), random.nextFloat());
+                parallelNodes.get(index).setLocalPosition(position);
+                nodes.get(index).setLocalPosition(position);
+            }
+
+            parallelScene.dispatchUpdate(new FrameTime());
+            scene.dispatchUpdate(new FrameTime());
+
+            for (int i = 0; i < nodes.size(); i++) {
+                assertArrayEquals(
+                        nodes.get(i).getWorldModelMatrix().data,
+                        parallelNodes.get(i).getWorldModelMatrix().data,
+                        0.0f);
+                Box shape = (Box) nodes.get(i).getCollider().getTransformedShape();
+                Box parallelShape = (Box) parallelNodes.get(i).getCollider().getTransformedShape();
+                assertTrue(Vector3.equals(shape.getCenter(), parallelShape.getCenter()));
+            }
+        }
+    }
+
+    private static Node newChildWithCollider(Scene scene, ArrayList<Node> nodes, int parentIndex) {
+        Node node = new Node();
+        node.setCollisionShape(new Box(Vector3.one()));
+        node.setLocalPosition(new Vector3(nodes.size(), 0.0f, 0.0f));
+        if (parentIndex < 0) {
+            scene.addChild(node);
+        } else {
+            nodes.get(parentIndex).addChild(node);
+        }
+        return node;
+    }
+}
@@ -0,0 +1,184 @@
+package com.google.ar.sceneform;
+
+import com.google.ar.sceneform.math.Quaternion;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.EngineInstance;
+import com.google.ar.sceneform.utilities.AllocationCounter;
+import com.google.ar.sceneform.utilities.AndroidPreconditions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TransformStoreTest {
+    private static final int TOP_LEVEL_NODE_COUNT = 40;
+    private static final int NODE_COUNT = 400;
+    private static final int FRAME_COUNT = 60;
+    private static final float TOLERANCE = 1e-4f;
+
+    private Scene packedScene;
+    private Scene scene;
+    private final ArrayList<Node> packedNodes = new ArrayList<>();
+    private final ArrayList<Node> nodes = new ArrayList<>();
+    private int[] packedChangedCounts;
+    private int[] changedCounts;
+
+    @Before
+    public void setUp() {
+        AndroidPreconditions.setUnderTesting(true);
+        EngineInstance.enableHeadlessEngine();
+        packedScene = new Scene();
+        packedScene.setPackedTransformsEnabled(true);
+        scene = new Scene();
+    }
+
+    @Test
+    public void dispatchUpdate_matchesSceneWithoutStore() {
+        Random random = new Random(12);
+        buildMirroredHierarchies(random);
+
+        for (int frame = 0; frame < FRAME_COUNT; frame++) {
+            for (int i = 0; i < 30; i++) {
+                int index = random.nextInt(NODE_COUNT);
+                Vector3 position = randomVector(random);
+                Quaternion rotation =
+                        Quaternion.axisAngle(randomVector(random), random.nextFloat());
+                packedNodes.get(index).setLocalPosition(position);
+                packedNodes.get(index).setLocalRotation(rotation);
+                nodes.get(index).setLocalPosition(position);
+                nodes.get(index).setLocalRotation(rotation);
+            }
+
+            // Changes to the hierarchy make the store rebuild its order.
+            if (frame % 10 == 5) {
+                int index = random.nextInt(NODE_COUNT);
+                int parentIndex = random.nextInt(NODE_COUNT);
+                if (!isInHierarchyOf(nodes.get(parentIndex), nodes.get(index))) {
+                    packedNodes.get(index).setParent(packedNodes.get(parentIndex));
+                    nodes.get(index).setParent(nodes.get(parentIndex));
+                }
+            }
+
+            packedScene.dispatchUpdate(new FrameTime());
+            scene.dispatchUpdate(new FrameTime());
+
+            assertArrayEquals(changedCounts, packedChangedCounts);
+            for (int i = 0; i < NODE_COUNT; i++) {
+                assertArrayEquals(
+                        nodes.get(i).getWorldModelMatrix().data,
+                        packedNodes.get(i).getWorldModelMatrix().data,
+                        TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    public void dispatchUpdate_withListenerMovingChild_matchesSceneWithoutStore() {
+        Node packedParent = new Node();
+        Node packedChild = new Node();
+        packedParent.addChild(packedChild);
+        packedScene.addChild(packedParent);
+        Node parent = new Node();
+        Node child = new Node();
+        parent.addChild(child);
+        scene.addChild(parent);
+
+        // The listener of the parent moves the child, which the sweep reaches afterwards.
+        Vector3 offset = new Vector3(0.0f, 1.0f, 0.0f);
+        packedParent.addTransformChangedListener(
+                (node, originatingNode) -> packedChild.setLocalPosition(offset));
+        parent.addTransformChangedListener(
+                (node, originatingNode) -> child.setLocalPosition(offset));
+
+        Vector3 position = new Vector3(1.0f, 2.0f, 3.0f);
+        packedParent.setLocalPosition(position);
+        parent.setLocalPosition(position);
+        packedScene.dispatchUpdate(new FrameTime());
+        scene.dispatchUpdate(new FrameTime());
+        packedScene.dispatchUpdate(new FrameTime());
+        scene.dispatchUpdate(new FrameTime());
+
+        assertArrayEquals(
+                child.getWorldModelMatrix().data, packedChild.getWorldModelMatrix().data, 0.0f);
+        assertEquals(1.0f, packedChild.getWorldPosition().x, TOLERANCE);
+        assertEquals(3.0f, packedChild.getWorldPosition().y, TOLERANCE);
+    }
+
+    @Test
+    public void dispatchUpdate_withStore_doesNotAllocate() {
+        Random random = new Random(7);
+        buildMirroredHierarchies(random);
+        packedScene.dispatchUpdate(new FrameTime());
+
+        FrameTime frameTime = new FrameTime();
+        Vector3 position = new Vector3();
+        int[] frame = new int[1];
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> {
+                            frame[0]++;
+                            for (int i = 0; i < TOP_LEVEL_NODE_COUNT; i++) {
+                                position.set(frame[0] % 10, i, 0.0f);
+                                packedNodes.get(i).setLocalPosition(position);
+                            }
+                            packedScene.dispatchUpdate(frameTime);
+                        },
+                        1000);
+        assertEquals(0, allocatedBytes);
+    }
+
+    /**
+     * Adds the same random hierarchy to both scenes. The first nodes of the lists are the top level
+     * nodes.
+     */
+    private void buildMirroredHierarchies(Random random) {
+        packedChangedCounts = new int[NODE_COUNT];
+        changedCounts = new int[NODE_COUNT];
+
+        for (int i = 0; i < NODE_COUNT; i++) {
+            Vector3 position = randomVector(random);
+            Vector3 scale = new Vector3(1.0f, 1.0f, 1.0f).scaled(0.5f + random.nextFloat());
+            packedNodes.add(newNode(position, scale, packedChangedCounts, i));
+            nodes.add(newNode(position, scale, changedCounts, i));
+
+            if (i < TOP_LEVEL_NODE_COUNT) {
+                packedScene.addChild(packedNodes.get(i));
+                scene.addChild(nodes.get(i));
+            } else {
+                int parentIndex = random.nextInt(i);
+                packedNodes.get(parentIndex).addChild(packedNodes.get(i));
+                nodes.get(parentIndex).addChild(nodes.get(i));
+            }
+        }
+    }
+
+    private static Node newNode(Vector3 position, Vector3 scale, int[] changedCounts, int index) {
+        Node node = new Node();
+        node.setLocalPosition(position);
+        node.setLocalScale(scale);
+        node.addTransformChangedListener((changedNode, originatingNode) -> changedCounts[index]++);
+        return node;
+    }
+
+    private static boolean isInHierarchyOf(Node node, Node ancestor) {
+        for (Node parent = node; parent != null; parent = parent.getParentNode()) {
+            if (parent == ancestor) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static Vector3 randomVector(Random random) {
+        return new Vector3(
+                random.nextFloat() * 2.0f - 1.0f,
+                random.nextFloat() * 2.0f - 1.0f,
+                random.nextFloat() * 2.0f - 1.0f);
+    }
+}
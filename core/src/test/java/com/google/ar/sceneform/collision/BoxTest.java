@@ -0,0 +1,176 @@
+package com.google.ar.sceneform.collision;
+
+import com.google.ar.sceneform.math.Quaternion;
+import com.google.ar.sceneform.math.Vector3;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BoxTest {
+    private static final float TOLERANCE = 1e-4f;
+    private static final float MARGIN = 0.01f;
+
+    /**
+     * The expected shape of a box, from its rotation as a quaternion rather than from the rotation
+     * matrix that the intersection tests read.
+     */
+    private static final class ReferenceBox {
+        final Vector3 center;
+        final Quaternion rotation;
+        final Vector3 size;
+
+        ReferenceBox(Vector3 center, Quaternion rotation, Vector3 size) {
+            this.center = center;
+            this.rotation = rotation;
+            this.size = size;
+        }
+
+        /** Returns true if the point is inside the box grown on every side by the margin. */
+        boolean contains(Vector3 point, float margin) {
+            Vector3 local =
+                    Quaternion.inverseRotateVector(rotation, Vector3.subtract(point, center));
+            return Math.abs(local.x) <= size.x * 0.5f + margin
+                    && Math.abs(local.y) <= size.y * 0.5f + margin
+                    && Math.abs(local.z) <= size.z * 0.5f + margin;
+        }
+
+        Vector3 corner(int index) {
+            Vector3 local =
+                    new Vector3(
+                            (index & 1) == 0 ? -size.x * 0.5f : size.x * 0.5f,
+                            (index & 2) == 0 ? -size.y * 0.5f : size.y * 0.5f,
+                            (index & 4) == 0 ? -size.z * 0.5f : size.z * 0.5f);
+            return Vector3.add(center, Quaternion.rotateVector(rotation, local));
+        }
+    }
+
+    private final Random random = new Random(1);
+
+    @Test
+    public void rotatedBox_agreesWithItsRotation() {
+        for (int i = 0; i < 100; i++) {
+            Vector3 size = randomSize();
+            Vector3 center = randomVector().scaled(3.0f);
+            Quaternion rotation = randomRotation();
+            Box box = new Box(size, center);
+            box.setRotation(rotation);
+
+            assertAgrees(new ReferenceBox(center, rotation, size), box);
+        }
+    }
+
+    @Test
+    public void transformedBox_agreesWithCombinedRotation() {
+        for (int i = 0; i < 100; i++) {
+            Vector3 size = randomSize();
+            Vector3 center = randomVector();
+            Quaternion localRotation = randomRotation();
+            Box box = new Box(size, center);
+            box.setRotation(localRotation);
+
+            Vector3 position = randomVector().scaled(3.0f);
+            Quaternion worldRotation = randomRotation();
+            float scale = 0.5f + random.nextFloat();
+            Box worldBox = new Box();
+            box.transform(
+                    new CollisionSystemTest.TestTransform(
+                            position, worldRotation, Vector3.one().scaled(scale)),
+                    worldBox);
+
+            ReferenceBox expected =
+                    new ReferenceBox(
+                            Vector3.add(
+                                    position,
+                                    Quaternion.rotateVector(worldRotation, center.scaled(scale))),
+                            Quaternion.multiply(worldRotation, localRotation),
+                            size.scaled(scale));
+            assertAgrees(expected, worldBox);
+        }
+    }
+
+    /** Checks the bounds and the ray, sphere and box tests of a box against the reference. */
+    private void assertAgrees(ReferenceBox expected, Box box) {
+        // The bounds are the tightest ones around the corners.
+        Vector3 min = new Vector3();
+        Vector3 max = new Vector3();
+        box.getBounds(min, max);
+        Vector3 expectedMin = expected.corner(0);
+        Vector3 expectedMax = expected.corner(0);
+        for (int i = 1; i < 8; i++) {
+            expectedMin = Vector3.min(expectedMin, expected.corner(i));
+            expectedMax = Vector3.max(expectedMax, expected.corner(i));
+        }
+        assertVector(expectedMin, min);
+        assertVector(expectedMax, max);
+
+        // A ray aimed at a point inside the box from outside hits it on its surface.
+        RayHit hit = new RayHit();
+        for (int i = 0; i < 20; i++) {
+            Vector3 target =
+                    Vector3.add(expected.corner(i % 8).scaled(0.2f), expected.center.scaled(0.8f));
+            Vector3 origin = Vector3.add(target, randomVector().normalized().scaled(20.0f));
+            Ray ray = new Ray(origin, Vector3.subtract(target, origin));
+            assertTrue(box.rayIntersection(ray, hit));
+            Vector3 point = hit.getPoint();
+            assertTrue(expected.contains(point, MARGIN));
+            assertFalse(expected.contains(point, -MARGIN));
+        }
+
+        // A small sphere or box touches the box when its center is inside the box. Points close to
+        // the surface are skipped.
+        Sphere sphere = new Sphere(0.001f);
+        Box smallBox = new Box(Vector3.one().scaled(0.001f));
+        int insideCount = 0;
+        for (int i = 0; i < 200; i++) {
+            // About a third of the points are inside the box.
+            Vector3 local = randomVector().scaled(0.75f);
+            local.set(
+                    local.x * expected.size.x,
+                    local.y * expected.size.y,
+                    local.z * expected.size.z);
+            Vector3 point =
+                    Vector3.add(expected.center, Quaternion.rotateVector(expected.rotation, local));
+            boolean inside = expected.contains(point, -MARGIN);
+            if (inside == expected.contains(point, MARGIN)) {
+                sphere.setCenter(point);
+                smallBox.setCenter(point);
+                assertEquals(inside, Intersections.sphereBoxIntersection(sphere, box));
+                assertEquals(inside, Intersections.boxBoxIntersection(smallBox, box));
+                assertEquals(inside, Intersections.boxBoxIntersection(box, smallBox));
+                if (inside) {
+                    insideCount++;
+                }
+            }
+        }
+        assertTrue(insideCount > 20);
+    }
+
+    private Vector3 randomVector() {
+        return new Vector3(
+                random.nextFloat() * 2.0f - 1.0f,
+                random.nextFloat() * 2.0f - 1.0f,
+                random.nextFloat() * 2.0f - 1.0f);
+    }
+
+    private Vector3 randomSize() {
+        return new Vector3(
+                0.2f + random.nextFloat() * 2.0f,
+                0.2f + random.nextFloat() * 2.0f,
+                0.2f + random.nextFloat() * 2.0f);
+    }
+
+    private Quaternion randomRotation() {
+        return Quaternion.axisAngle(randomVector(), random.nextFloat() * 360.0f);
+    }
+
+    private static void assertVector(Vector3 expected, Vector3 actual) {
+        assertEquals(expected.x, actual.x, TOLERANCE);
+        assertEquals(expected.y, actual.y, TOLERANCE);
+        assertEquals(expected.z, actual.z, TOLERANCE);
+    }
+}
@@ -0,0 +1,229 @@
+package com.google.ar.sceneform.collision;
+
+import com.google.ar.sceneform.math.Vector3;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures raycast cost against the number of colliders, for the broadphase tree and for a flat
+ * list of colliders. Run it on its own to read the printed timings; it is too short to be more
+ * than indicative under the regular test run.
+ */
+public class CollisionSystemBenchmark {
+    private static final int[] COLLIDER_COUNTS = {100, 1000, 10000};
+    private static final int RAY_COUNT = 1000;
+    private static final int WARMUP_ROUNDS = 2;
+
+    @Test
+    public void raycastCostVersusColliderCount() {
+        System.out.println("colliders  tree ns/ray  flat ns/ray");
+        for (int colliderCount : COLLIDER_COUNTS) {
+            // Keep the density constant so each ray hits a similar number of colliders.
+            float size = 20.0f * (float) Math.cbrt(colliderCount / 1000.0);
+            Random random = new Random(colliderCount);
+            CollisionSystem collisionSystem = new CollisionSystem();
+            ArrayList<Collider> colliders =
+                    CollisionSystemTest.addRandomColliders(
+                            collisionSystem, random, colliderCount, size);
+            Ray[] rays = new Ray[RAY_COUNT];
+            for (int i = 0; i < rays.length; i++) {
+                rays[i] = CollisionSystemTest.randomRay(random, size);
+            }
+
+            RayHit hit = new RayHit();
+            long treeNanos = 0;
+            long flatNanos = 0;
+            float treeSum = 0.0f;
+            float flatSum = 0.0f;
+            for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+                treeSum = 0.0f;
+                long start = System.nanoTime();
+                for (Ray ray : rays) {
+                    collisionSystem.raycast(ray, hit, false);
+                    treeSum += Math.min(hit.getDistance(), 1000.0f);
+                }
+                treeNanos = System.nanoTime() - start;
+
+                flatSum = 0.0f;
+                start = System.nanoTime();
+                for (Ray ray : rays) {
+                    flatSum +=
+                            Math.min(
+                                    CollisionSystemTest.bruteForceNearestDistance(colliders, ray),
+                                    1000.0f);
+                }
+                flatNanos = System.nanoTime() - start;
+            }
+
+            assertEquals(flatSum, treeSum, 0.0f);
+            System.out.println(
+                    String.format(
+                            Locale.US,
+                            "%9d  %11d  %11d",
+                            colliderCount,
+                            treeNanos / RAY_COUNT,
+                            flatNanos / RAY_COUNT));
+        }
+    }
+
+    @Test
+    public void refitCostVersusColliderCount() {
+        // Moving a few colliders between queries must not cost time proportional to the total.
+        System.out.println("colliders  ns/query with 10 moved colliders");
+        Ray ray = new Ray(Vector3.zero(), Vector3.forward());
+        RayHit hit = new RayHit();
+        for (int colliderCount : COLLIDER_COUNTS) {
+            Random random = new Random(colliderCount);
+            CollisionSystem collisionSystem = new CollisionSystem();
+            ArrayList<Collider> colliders =
+                    CollisionSystemTest.addRandomColliders(
+                            collisionSystem, random, colliderCount, 20.0f);
+
+            int queryCount = 2000;
+            long nanos = 0;
+            for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < queryCount; i++) {
+                    for (int j = 0; j < 10; j++) {
+                        colliders.get((i * 10 + j) % colliderCount).markWorldShapeDirty();
+                    }
+                    collisionSystem.raycast(ray, hit, false);
+                }
+                nanos = System.nanoTime() - start;
+            }
+
+            System.out.println(
+                    String.format(Locale.US, "%9d  %d", colliderCount, nanos / queryCount));
+        }
+    }
+
+    @Test
+    public void nearestHitVersusTestingEveryHit() {
+        // The nearest hit query shortens the ray as hits are found, so colliders behind the
+        // nearest hit are skipped. Collecting every hit has to test all of them.
+        Random random = new Random(3);
+        CollisionSystem collisionSystem = new CollisionSystem();
+        for (int i = 0; i < 1000; i++) {
+            addBoxInRow(collisionSystem, random);
+        }
+        Ray[] rays = new Ray[RAY_COUNT];
+        for (int i = 0; i < rays.length; i++) {
+            // Rays along the row of boxes, so each one passes through many of them.
+            rays[i] =
+                    new Ray(
+                            new Vector3(
+                                    random.nextFloat() * 2.0f - 1.0f,
+                                    random.nextFloat() * 2.0f - 1.0f,
+                                    -60.0f),
+                            Vector3.back());
+        }
+
+        RayHit hit = new RayHit();
+        ArrayList<RayHit> hits = new ArrayList<>();
+        long nearestNanos = 0;
+        long allNanos = 0;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (Ray ray : rays) {
+                collisionSystem.raycast(ray, hit, false);
+            }
+            nearestNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (Ray ray : rays) {
+                collisionSystem.raycastAll(ray, hits, null, RayHit::new);
+            }
+            allNanos = System.nanoTime() - start;
+        }
+
+        for (Ray ray : rays) {
+            collisionSystem.raycast(ray, hit, false);
+            int hitCount = collisionSystem.raycastAll(ray, hits, null, RayHit::new);
+            if (hitCount > 0) {
+                assertEquals(hits.get(0).getDistance(), hit.getDistance(), 0.0f);
+            }
+        }
+
+        System.out.println(
+                String.format(
+                        Locale.US,
+                        "1000 boxes: nearest hit %d ns/ray, every hit %d ns/ray",
+                        nearestNanos / RAY_COUNT,
+                        allNanos / RAY_COUNT));
+    }
+
+    @Test
+    public void raycastBatchVersusSeparateRaycasts() {
+        System.out.println("rays  separate ns/ray  batch ns/ray  parallel batch ns/ray");
+        Random random = new Random(4);
+        CollisionSystem collisionSystem = new CollisionSystem();
+        ArrayList<Collider> colliders =
+                CollisionSystemTest.addRandomColliders(collisionSystem, random, 1000, 20.0f);
+        for (int rayCount : new int[] {4, 64, 1024}) {
+            Ray[] rays = new Ray[rayCount];
+            RayHit[] results = new RayHit[rayCount];
+            for (int i = 0; i < rayCount; i++) {
+                rays[i] = CollisionSystemTest.randomRay(random, 20.0f);
+                results[i] = new RayHit();
+            }
+
+            // Every frame some colliders move, which the batch refits once for all of its rays.
+            int frameCount = 20000 / rayCount;
+            long[] nanos = new long[3];
+            for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+                for (int mode = 0; mode < 3; mode++) {
+                    long start = System.nanoTime();
+                    for (int frame = 0; frame < frameCount; frame++) {
+                        for (int i = 0; i < 10; i++) {
+                            colliders.get((frame * 10 + i) % colliders.size())
+                                    .markWorldShapeDirty();
+                        }
+
+                        if (mode == 0) {
+                            for (int i = 0; i < rayCount; i++) {
+                                collisionSystem.raycast(rays[i], results[i], false);
+                            }
+                        } else {
+                            collisionSystem.raycastBatch(
+                                    rays,
+                                    results,
+                                    null,
+                                    false,
+                                    Collider.ALL_LAYERS_MASK,
+                                    mode == 2);
+                        }
+                    }
+                    nanos[mode] = System.nanoTime() - start;
+                }
+            }
+
+            long rayTotal = (long) frameCount * rayCount;
+            System.out.println(
+                    String.format(
+                            Locale.US,
+                            "%4d  %15d  %12d  %21d",
+                            rayCount,
+                            nanos[0] / rayTotal,
+                            nanos[1] / rayTotal,
+                            nanos[2] / rayTotal));
+        }
+    }
+
+    /** Adds a box somewhere in a 2 by 2 by 100 meter row along the z axis. */
+    private static void addBoxInRow(CollisionSystem collisionSystem, Random random) {
+        CollisionSystemTest.TestTransform transform = new CollisionSystemTest.TestTransform();
+        transform.matrix.makeTranslation(
+                new Vector3(
+                        random.nextFloat() * 2.0f - 1.0f,
+                        random.nextFloat() * 2.0f - 1.0f,
+                        random.nextFloat() * 100.0f - 50.0f));
+        Collider collider = new Collider(transform, new Box(Vector3.one().scaled(0.5f)));
+        collider.setAttachedCollisionSystem(collisionSystem);
+    }
+}
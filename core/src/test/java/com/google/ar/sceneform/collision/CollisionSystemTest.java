@@ -0,0 +1,668 @@
+package com.google.ar.sceneform.collision;
+
+import com.google.ar.sceneform.common.TransformProvider;
+import com.google.ar.sceneform.math.Matrix;
+import com.google.ar.sceneform.math.Quaternion;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.utilities.AllocationCounter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CollisionSystemTest {
+    /** A transform that tests can move without a scene graph. */
+    static final class TestTransform implements TransformProvider {
+        final Matrix matrix = new Matrix();
+
+        TestTransform() {}
+
+        TestTransform(Vector3 position, Quaternion rotation, Vector3 scale) {
+            matrix.makeTrs(position, rotation, scale);
+        }
+
+        @Override
+        public Matrix getWorldModelMatrix() {
+            return matrix;
+        }
+    }
+
+    /**
+     * A sphere that counts how many times its world shape is computed. Sphere creates new world
+     * shapes through the overload that takes the result, so only that one is counted.
+     */
+    static final class CountingSphere extends Sphere {
+        int transformCount;
+
+        CountingSphere(float radius) {
+            super(radius);
+        }
+
+        @Override
+        void transform(TransformProvider transformProvider, CollisionShape result) {
+            transformCount++;
+            super.transform(transformProvider, result);
+        }
+    }
+
+    /** Adds colliders with random boxes and spheres spread over a cube of the given size. */
+    static ArrayList<Collider> addRandomColliders(
+            CollisionSystem collisionSystem, Random random, int count, float size) {
+        ArrayList<Collider> colliders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Vector3 position =
+                    new Vector3(
+                            (random.nextFloat() - 0.5f) * size,
+                            (random.nextFloat() - 0.5f) * size,
+                            (random.nextFloat() - 0.5f) * size);
+            Quaternion rotation =
+                    Quaternion.axisAngle(randomDirection(random), random.nextFloat() * 360.0f);
+            Vector3 scale = Vector3.one().scaled(0.5f + random.nextFloat());
+            CollisionShape shape =
+                    random.nextBoolean()
+                            ? new Box(
+                                    new Vector3(
+                                            0.1f + random.nextFloat(),
+                                            0.1f + random.nextFloat(),
+                                            0.1f + random.nextFloat()))
+                            : new Sphere(0.1f + random.nextFloat() * 0.5f);
+            Collider collider =
+                    new Collider(new TestTransform(position, rotation, scale), shape);
+            collider.setAttachedCollisionSystem(collisionSystem);
+            colliders.add(collider);
+        }
+        return colliders;
+    }
+
+    static Vector3 randomDirection(Random random) {
+        Vector3 direction;
+        do {
+            direction =
+                    new Vector3(
+                            random.nextFloat() * 2.0f - 1.0f,
+                            random.nextFloat() * 2.0f - 1.0f,
+                            random.nextFloat() * 2.0f - 1.0f);
+        } while (direction.lengthSquared() < 0.01f);
+        return direction.normalized();
+    }
+
+    static Ray randomRay(Random random, float size) {
+        Vector3 origin =
+                new Vector3(
+                        (random.nextFloat() - 0.5f) * size,
+                        (random.nextFloat() - 0.5f) * size,
+                        (random.nextFloat() - 0.5f) * size);
+        return new Ray(origin, randomDirection(random));
+    }
+
+    /** Finds the nearest hit by testing every collider, the way the flat collider list did. */
+    static float bruteForceNearestDistance(ArrayList<Collider> colliders, Ray ray) {
+        RayHit hit = new RayHit();
+        float nearest = Float.MAX_VALUE;
+        for (Collider collider : colliders) {
+            CollisionShape shape = collider.getTransformedShape();
+            if (shape != null && shape.rayIntersection(ray, hit)) {
+                nearest = Math.min(nearest, hit.getDistance());
+            }
+        }
+        return nearest;
+    }
+
+    @Test
+    public void raycast_matchesBruteForce() {
+        Random random = new Random(1);
+        CollisionSystem collisionSystem = new CollisionSystem();
+        ArrayList<Collider> colliders = addRandomColliders(collisionSystem, random, 500, 20.0f);
+
+        RayHit hit = new RayHit();
+        for (int i = 0; i < 1000; i++) {
+            Ray ray = randomRay(random, 20.0f);
+            collisionSystem.raycast(ray, hit, false);
+            assertEquals(bruteForceNearestDistance(colliders, ray), hit.getDistance(), 0.0f);
+        }
+    }
+
+    @Test
+    public void raycast_afterShapeChanged_refitsBroadphase() {
+        CollisionSystem collisionSystem = new CollisionSystem();
+        Sphere sphere = new Sphere(0.1f);
+        Collider collider = new Collider(new TestTransform(), sphere);
+        collider.setAttachedCollisionSystem(collisionSystem);
+
+        Ray ray = new Ray(new Vector3(-5.0f, 1.0f, 0.0f), Vector3.right());
+        RayHit hit = new RayHit();
+        assertNull(collisionSystem.raycast(ray, hit, false));
+
+        // Nothing marks the collider dirty except the shape itself.
+        sphere.setRadius(2.0f);
+        assertSame(collider, collisionSystem.raycast(ray, hit, false));
+    }
+
+    @Test
+    public void raycast_afterSharedShapeChanged_refitsEveryAttachedCollider() {
+        CollisionSystem collisionSystem = new CollisionSystem();
+        Sphere sphere = new Sphere(0.1f);
+        TestTransform leftTransform = new TestTransform();
+        leftTransform.matrix.makeTranslation(new Vector3(-3.0f, 0.0f, 0.0f));
+        TestTransform rightTransform = new TestTransform();
+        rightTransform.matrix.makeTranslation(new Vector3(3.0f, 0.0f, 0.0f));
+        Collider left = new Collider(leftTransform, sphere);
+        Collider right = new Collider(rightTransform, sphere);
+        Collider detached = new Collider(new TestTransform(), sphere);
+        left.setAttachedCollisionSystem(collisionSystem);
+        right.setAttachedCollisionSystem(collisionSystem);
+        detached.setAttachedCollisionSystem(collisionSystem);
+        detached.setAttachedCollisionSystem(null);
+
+        Ray leftRay = new Ray(new Vector3(-3.0f, 1.0f, -5.0f), Vector3.back());
+        Ray rightRay = new Ray(new Vector3(3.0f, 1.0f, -5.0f), Vector3.back());
+        RayHit hit = new RayHit();
+        assertNull(collisionSystem.raycast(leftRay, hit, false));
+        assertNull(collisionSystem.raycast(rightRay, hit, false));
+
+        sphere.setRadius(2.0f);
+        assertSame(left, collisionSystem.raycast(leftRay, hit, false));
+        assertSame(right, collisionSystem.raycast(rightRay, hit, false));
+    }
+
+    @Test
+    public void raycast_afterSetShape_stopsListeningToOldShape() {
+        CollisionSystem collisionSystem = new CollisionSystem();
+        Sphere oldSphere = new Sphere(2.0f);
+        Collider collider = new Collider(new TestTransform(), oldSphere);
+        collider.setAttachedCollisionSystem(collisionSystem);
+        collider.setShape(new Sphere(0.1f));
+
+        Ray ray = new Ray(new Vector3(-5.0f, 1.0f, 0.0f), Vector3.right());
+        RayHit hit = new RayHit();
+        oldSphere.setRadius(3.0f);
+        assertNull(collisionSystem.raycast(ray, hit, false));
+    }
+
+    @Test
+    public void raycast_afterMarkWorldShapeDirty_refitsBroadphase() {
+        CollisionSystem collisionSystem = new CollisionSystem();
+        TestTransform transform = new TestTransform();
+        Collider collider = new Collider(transform, new Box(Vector3.one()));
+        collider.setAttachedCollisionSystem(collisionSystem);
+
+        Ray ray = new Ray(new Vector3(10.0f, 0.0f, -5.0f), Vector3.back());
+        RayHit hit = new RayHit();
+        assertNull(collisionSystem.raycast(ray, hit, false));
+
+        transform.matrix.makeTranslation(new Vector3(10.0f, 0.0f, 0.0f));
+        collider.markWorldShapeDirty();
+        assertSame(collider, collisionSystem.raycast(ray, hit, false));
+        assertEquals(4.5f, hit.getDistance(), 1e-5f);
+    }
+
+    @Test
+    public void raycast_returnsNearestHitRegardlessOfInsertionOrder() {
+        Ray ray = new Ray(new Vector3(0.0f, 0.0f, -10.0f), Vector3.back());
+        RayHit hit = new RayHit();
+        for (int reverse = 0; reverse < 2; reverse++) {
+            CollisionSystem collisionSystem = new CollisionSystem();
+            Collider[] colliders = new Collider[5];
+            for (int i = 0; i < colliders.length; i++) {
+                TestTransform transform = new TestTransform();
+                transform.matrix.makeTranslation(new Vector3(0.0f, 0.0f, i * 2.0f));
+                colliders[i] = new Collider(transform, new Box(Vector3.one()));
+            }
+            for (int i = 0; i < colliders.length; i++) {
+                int index = reverse == 0 ? i : colliders.length - 1 - i;
+                colliders[index].setAttachedCollisionSystem(collisionSystem);
+            }
+
+            assertSame(colliders[0], collisionSystem.raycast(ray, hit, false));
+            assertEquals(9.5f, hit.getDistance(), 1e-5f);
+        }
+    }
+
+    @Test
+    public void raycast_withMaxDistance_ignoresFartherHits() {
+        CollisionSystem collisionSystem = new CollisionSystem();
+        TestTransform transform = new TestTransform();
+        transform.matrix.makeTranslation(new Vector3(0.0f, 0.0f, 5.0f));
+        Collider collider = new Collider(transform, new Box(Vector3.one()));
+        collider.setAttachedCollisionSystem(collisionSystem);
+
+        Ray ray = new Ray(Vector3.zero(), Vector3.back());
+        RayHit hit = new RayHit();
+        assertNull(
+                collisionSystem.raycast(ray, hit, false, 4.0f, Collider.ALL_LAYERS_MASK));
+        assertEquals(Float.MAX_VALUE, hit.getDistance(), 0.0f);
+        assertSame(
+                collider,
+                collisionSystem.raycast(ray, hit, false, 5.0f, Collider.ALL_LAYERS_MASK));
+    }
+
+    @Test
+    public void raycast_withTiedHits_returnsFirstAddedCollider() {
+        // Identical boxes in the same place are hit at the same distance. The tie is broken by
+        // broadphase id rather than by the order the tree happens to be traversed in.
+        Ray ray = new Ray(new Vector3(0.0f, 0.0f, -10.0f), Vector3.back());
+        RayHit hit = new RayHit();
+        CollisionSystem collisionSystem = new CollisionSystem();
+        ArrayList<Collider> colliders = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Collider collider = new Collider(new TestTransform(), new Box(Vector3.one()));
+            collider.setAttachedCollisionSystem(collisionSystem);
+            colliders.add(collider);
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertSame(colliders.get(0), collisionSystem.raycast(ray, hit, false));
+            // Refitting every collider must not change the result.
+            for (Collider collider : colliders) {
+                collider.markWorldShapeDirty();
+            }
+        }
+    }
+
+    /** Adds a collider at the given position. */
+    static Collider addCollider(
+            CollisionSystem collisionSystem, Vector3 position, CollisionShape shape) {
+        TestTransform transform = new TestTransform();
+        transform.matrix.makeTranslation(position);
+        Collider collider = new Collider(transform, shape);
+        collider.setAttachedCollisionSystem(collisionSystem);
+        return collider;
+    }
+
+    /** Finds the distances of every hit by testing every collider, sorted by distance. */
+    static ArrayList<Float> bruteForceSortedDistances(
+            ArrayList<Collider> colliders, Ray ray, float maxDistance, int layerMask) {
+        RayHit hit = new RayHit();
+        ArrayList<Float> distances = new ArrayList<>();
+        for (Collider collider : colliders) {
+            CollisionShape shape = collider.getTransformedShape();
+            if (collider.isInLayers(layerMask)
+                    && shape.rayIntersection(ray, hit)
+                    && hit.getDistance() <= maxDistance) {
+                distances.add(hit.getDistance());
+            }
+        }
+        Collections.sort(distances);
+        return distances;
+    }
+
+    @Test
+    public void raycastAll_keepsNearestHits_matchesSortedReference() {
+        Random random = new Random(4);
+        CollisionSystem collisionSystem = new CollisionSystem();
+        ArrayList<Collider> colliders = addRandomColliders(collisionSystem, random, 500, 6.0f);
+        for (int i = 0; i < colliders.size(); i += 2) {
+            colliders.get(i).setLayerMask(2);
+        }
+
+        ArrayList<RayHit> results = new ArrayList<>();
+        ArrayList<Collider> resultColliders = new ArrayList<>();
+        RayHit hit = new RayHit();
+        int deepRayCount = 0;
+        for (int i = 0; i < 200; i++) {
+            Ray ray = randomRay(random, 6.0f);
+            float maxDistance = i % 2 == 0 ? Float.MAX_VALUE : random.nextFloat() * 4.0f;
+            int layerMask = i % 3 + 1;
+            ArrayList<Float> expected =
+                    bruteForceSortedDistances(colliders, ray, maxDistance, layerMask);
+            int allCount = expected.size();
+            if (allCount >= 4) {
+                deepRayCount++;
+            }
+
+            // Fewer, as many as and more than the number of hits.
+            int[] maxHitCounts = {
+                1, Math.max(1, allCount / 2), Math.max(1, allCount), allCount + 5
+            };
+            for (int maxHits : maxHitCounts) {
+                resultColliders.clear();
+                int hitCount =
+                        collisionSystem.raycastAll(
+                                ray,
+                                maxHits,
+                                maxDistance,
+                                layerMask,
+                                results,
+                                (result, collider) -> resultColliders.add(collider),
+                                RayHit::new);
+
+                assertEquals(Math.min(maxHits, allCount), hitCount);
+                assertEquals(hitCount, resultColliders.size());
+                for (int j = 0; j < hitCount; j++) {
+                    assertEquals(expected.get(j), results.get(j).getDistance(), 0.0f);
+                    // Each result belongs to the collider reported with it.
+                    Collider collider = resultColliders.get(j);
+                    assertTrue(collider.isInLayers(layerMask));
+                    assertTrue(collider.getTransformedShape().rayIntersection(ray, hit));
+                    assertEquals(hit.getDistance(), results.get(j).getDistance(), 0.0f);
+                }
+                for (int j = hitCount; j < results.size(); j++) {
+                    assertEquals(Float.MAX_VALUE, results.get(j).getDistance(), 0.0f);
+                }
+            }
+        }
+        assertTrue("Only " + deepRayCount + " rays hit 4 colliders", deepRayCount > 20);
+    }
+
+    @Test
+    public void raycastAll_withTiedHits_returnsDistinctColliders() {
+        CollisionSystem collisionSystem = new CollisionSystem();
+        ArrayList<Collider> colliders = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            colliders.add(addCollider(collisionSystem, Vector3.zero(), new Box(Vector3.one())));
+        }
+        Collider nearer =
+                addCollider(
+                        collisionSystem, new Vector3(0.0f, 0.0f, -3.0f), new Box(Vector3.one()));
+
+        Ray ray = new Ray(new Vector3(0.0f, 0.0f, -10.0f), Vector3.back());
+        ArrayList<RayHit> results = new ArrayList<>();
+        ArrayList<Collider> resultColliders = new ArrayList<>();
+        for (int maxHits = 1; maxHits <= 10; maxHits++) {
+            resultColliders.clear();
+            int hitCount =
+                    collisionSystem.raycastAll(
+                            ray,
+                            maxHits,
+                            Float.MAX_VALUE,
+                            results,
+                            (result, collider) -> resultColliders.add(collider),
+                            RayHit::new);
+
+            assertEquals(Math.min(maxHits, 9), hitCount);
+            assertSame(nearer, resultColliders.get(0));
+            assertEquals(6.5f, results.get(0).getDistance(), 1e-5f);
+            for (int i = 1; i < hitCount; i++) {
+                assertEquals(9.5f, results.get(i).getDistance(), 1e-5f);
+                assertTrue(colliders.contains(resultColliders.get(i)));
+            }
+            assertEquals(hitCount, new HashSet<>(resultColliders).size());
+        }
+    }
+
+    @Test
+    public void raycastAll_withMaxDistance_stopsAtCutoff() {
+        CollisionSystem collisionSystem = new CollisionSystem();
+        for (int i = 0; i < 5; i++) {
+            addCollider(collisionSystem, new Vector3(0.0f, 0.0f, i * 2.0f), new Box(Vector3.one()));
+        }
+
+        Ray ray = new Ray(new Vector3(0.0f, 0.0f, -10.0f), Vector3.back());
+        ArrayList<RayHit> results = new ArrayList<>();
+        // The boxes are hit at 9.5, 11.5, 13.5, 15.5 and 17.5.
+        assertEquals(0, collisionSystem.raycastAll(ray, 10, 9.4f, results, null, RayHit::new));
+        assertEquals(1, collisionSystem.raycastAll(ray, 10, 9.5f, results, null, RayHit::new));
+        assertEquals(3, collisionSystem.raycastAll(ray, 10, 14.0f, results, null, RayHit::new));
+        assertEquals(13.5f, results.get(2).getDistance(), 1e-5f);
+        assertEquals(2, collisionSystem.raycastAll(ray, 2, 14.0f, results, null, RayHit::new));
+        assertEquals(11.5f, results.get(1).getDistance(), 1e-5f);
+        // Extra results from the previous calls are reset.
+        assertEquals(Float.MAX_VALUE, results.get(2).getDistance(), 0.0f);
+    }
+
+    @Test
+    public void raycastAll_steadyState_doesNotAllocate() {
+        Random random = new Random(5);
+        CollisionSystem collisionSystem = new CollisionSystem();
+        addRandomColliders(collisionSystem, random, 300, 10.0f);
+        Ray[] rays = new Ray[16];
+        for (int i = 0; i < rays.length; i++) {
+            rays[i] = randomRay(random, 10.0f);
+        }
+        ArrayList<RayHit> results = new ArrayList<>();
+        BiConsumer<RayHit, Collider> processResult = (result, collider) -> {};
+        Supplier<RayHit> allocateResult = RayHit::new;
+        for (Ray ray : rays) {
+            collisionSystem.raycastAll(ray, 8, 20.0f, results, processResult, allocateResult);
+        }
+
+        int[] next = new int[1];
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> {
+                            Ray ray = rays[next[0]++ % rays.length];
+                            collisionSystem.raycastAll(
+                                    ray, 8, 20.0f, results, processResult, allocateResult);
+                        },
+                        1000);
+        assertEquals(0, allocatedBytes);
+    }
+
+    @Test
+    public void raycast_withLayerMask_doesNotRecomputeFilteredShapes() {
+        CollisionSystem collisionSystem = new CollisionSystem();
+        TestTransform transform = new TestTransform();
+        CountingSphere sphere = new CountingSphere(1.0f);
+        Collider filtered = new Collider(transform, sphere);
+        filtered.setLayerMask(2);
+        filtered.setAttachedCollisionSystem(collisionSystem);
+        Collider other = new Collider(new TestTransform(), new Box(Vector3.one()));
+        other.setAttachedCollisionSystem(collisionSystem);
+
+        Ray ray = new Ray(new Vector3(0.0f, 0.0f, -5.0f), Vector3.back());
+        RayHit hit = new RayHit();
+        for (int i = 0; i < 10; i++) {
+            transform.matrix.makeTranslation(new Vector3(0.0f, 0.0f, i * 0.01f));
+            filtered.markWorldShapeDirty();
+            sphere.setRadius(1.0f + i * 0.01f);
+            assertSame(other, collisionSystem.raycast(ray, hit, false, Float.MAX_VALUE, 1));
+        }
+        assertEquals(0, sphere.transformCount);
+
+        // A query that includes the layer refits the collider at its latest position.
+        transform.matrix.makeTranslation(new Vector3(0.0f, 0.0f, -2.0f));
+        filtered.markWorldShapeDirty();
+        assertSame(filtered, collisionSystem.raycast(ray, hit, false, Float.MAX_VALUE, 2));
+        assertEquals(1, sphere.transformCount);
+        assertEquals(1.91f, hit.getDistance(), 1e-5f);
+    }
+
+    @Test
+    public void sweep_movesShapeFromStartRegardlessOfColliderPosition() {
+        CollisionSystem collisionSystem = new CollisionSystem();
+        Collider box =
+                addCollider(collisionSystem, new Vector3(5.0f, 0.0f, 0.0f), new Box(Vector3.one()));
+        // The moving collider is far from the path, and its shape is off its center.
+        Collider moving =
+                addCollider(
+                        collisionSystem,
+                        new Vector3(0.0f, 50.0f, 20.0f),
+                        new Sphere(0.5f, new Vector3(0.0f, 0.0f, 1.5f)));
+
+        RayHit hit = new RayHit();
+        Vector3 from = new Vector3(0.0f, 0.0f, -1.5f);
+        Vector3 to = new Vector3(10.0f, 0.0f, -1.5f);
+        assertSame(box, collisionSystem.sweep(moving, from, to, hit));
+        assertEquals(4.0f, hit.getDistance(), 1e-5f);
+        Vector3 point = hit.getPoint();
+        assertEquals(4.0f, point.x, 1e-5f);
+        assertEquals(0.0f, point.y, 0.0f);
+        assertEquals(-1.5f, point.z, 0.0f);
+
+        // Without the offset of the shape the sphere passes beside the box.
+        assertNull(
+                collisionSystem.sweep(
+                        moving, Vector3.zero(), new Vector3(10.0f, 0.0f, 0.0f), hit));
+        assertEquals(Float.MAX_VALUE, hit.getDistance(), 0.0f);
+    }
+
+    @Test
+    public void sweep_ignoresMovingCollider() {
+        CollisionSystem collisionSystem = new CollisionSystem();
+        Collider box =
+                addCollider(collisionSystem, new Vector3(5.0f, 0.0f, 0.0f), new Box(Vector3.one()));
+        // The moving collider is on the path, where every sweep would hit it first.
+        Collider moving =
+                addCollider(collisionSystem, new Vector3(1.0f, 0.0f, 0.0f), new Sphere(0.5f));
+
+        RayHit hit = new RayHit();
+        assertSame(
+                box,
+                collisionSystem.sweep(
+                        moving, Vector3.zero(), new Vector3(10.0f, 0.0f, 0.0f), hit));
+        assertEquals(4.0f, hit.getDistance(), 1e-5f);
+    }
+
+    @Test
+    public void sweep_withLayerMask_ignoresOtherLayers() {
+        CollisionSystem collisionSystem = new CollisionSystem();
+        Collider box =
+                addCollider(collisionSystem, new Vector3(5.0f, 0.0f, 0.0f), new Box(Vector3.one()));
+        box.setLayerMask(2);
+        Collider sphere =
+                addCollider(collisionSystem, new Vector3(8.0f, 0.0f, 0.0f), new Sphere(0.5f));
+        Collider moving = new Collider(new TestTransform(), new Sphere(0.5f));
+
+        RayHit hit = new RayHit();
+        Vector3 to = new Vector3(10.0f, 0.0f, 0.0f);
+        assertSame(box, collisionSystem.sweep(moving, Vector3.zero(), to, hit));
+        assertSame(
+                box,
+                collisionSystem.sweep(moving, Vector3.zero(), to, Collider.ALL_LAYERS_MASK, hit));
+        assertSame(box, collisionSystem.sweep(moving, Vector3.zero(), to, 2, hit));
+        assertEquals(4.0f, hit.getDistance(), 1e-5f);
+        assertSame(sphere, collisionSystem.sweep(moving, Vector3.zero(), to, 1, hit));
+        assertEquals(7.0f, hit.getDistance(), 1e-5f);
+        assertNull(collisionSystem.sweep(moving, Vector3.zero(), to, 4, hit));
+    }
+
+    @Test
+    public void queriesFromCallback_findMovedAndAddedColliders() {
+        CollisionSystem collisionSystem = new CollisionSystem();
+        Collider trigger = addCollider(collisionSystem, Vector3.zero(), new Box(Vector3.one()));
+        TestTransform moverTransform = new TestTransform();
+        moverTransform.matrix.makeTranslation(new Vector3(10.0f, 0.0f, 0.0f));
+        Collider mover = new Collider(moverTransform, new Sphere(0.5f));
+        mover.setAttachedCollisionSystem(collisionSystem);
+        Collider probe =
+                new Collider(new TestTransform(), new Sphere(0.5f, new Vector3(0.6f, 0.0f, 0.0f)));
+        Ray oldRay = new Ray(new Vector3(10.0f, 0.0f, -5.0f), Vector3.back());
+        Ray newRay = new Ray(new Vector3(0.0f, 5.0f, -5.0f), Vector3.back());
+        Ray addedRay = new Ray(new Vector3(0.0f, -5.0f, -5.0f), Vector3.back());
+        // Fills the tree before the outer query.
+        assertSame(mover, collisionSystem.raycast(oldRay, new RayHit(), false));
+
+        ArrayList<Collider> outerResults = new ArrayList<>();
+        collisionSystem.intersectsAll(
+                probe,
+                collider -> {
+                    outerResults.add(collider);
+                    // The tree can't be refit while the outer query runs.
+                    moverTransform.matrix.makeTranslation(new Vector3(0.0f, 5.0f, 0.0f));
+                    mover.markWorldShapeDirty();
+                    Collider added =
+                            addCollider(
+                                    collisionSystem,
+                                    new Vector3(0.0f, -5.0f, 0.0f),
+                                    new Sphere(0.5f));
+
+                    RayHit hit = new RayHit();
+                    assertNull(collisionSystem.raycast(oldRay, hit, false));
+                    assertSame(mover, collisionSystem.raycast(newRay, hit, false));
+                    assertEquals(4.5f, hit.getDistance(), 1e-5f);
+                    assertSame(added, collisionSystem.raycast(addedRay, hit, false));
+
+                    Ray[] rays = {oldRay, newRay, addedRay};
+                    RayHit[] results = {new RayHit(), new RayHit(), new RayHit()};
+                    Collider[] resultColliders = new Collider[rays.length];
+                    collisionSystem.raycastBatch(
+                            rays, results, resultColliders, false, Collider.ALL_LAYERS_MASK, true);
+                    assertNull(resultColliders[0]);
+                    assertSame(mover, resultColliders[1]);
+                    assertSame(added, resultColliders[2]);
+
+                    ArrayList<RayHit> hits = new ArrayList<>();
+                    ArrayList<Collider> hitColliders = new ArrayList<>();
+                    assertEquals(
+                            0,
+                            collisionSystem.raycastAll(
+                                    oldRay, hits, (h, c) -> hitColliders.add(c), RayHit::new));
+                    assertEquals(
+                            1,
+                            collisionSystem.raycastAll(
+                                    newRay, hits, (h, c) -> hitColliders.add(c), RayHit::new));
+                    assertSame(mover, hitColliders.get(0));
+
+                    Collider atOldPosition =
+                            new Collider(
+                                    new TestTransform(),
+                                    new Sphere(0.5f, new Vector3(10.0f, 0.0f, 0.0f)));
+                    assertNull(collisionSystem.intersects(atOldPosition));
+                    Collider atNewPosition =
+                            new Collider(
+                                    new TestTransform(),
+                                    new Sphere(0.5f, new Vector3(0.0f, 5.0f, 0.5f)));
+                    assertSame(mover, collisionSystem.intersects(atNewPosition));
+                    assertSame(
+                            mover,
+                            collisionSystem.sweep(
+                                    probe,
+                                    new Vector3(0.0f, 5.0f, -5.0f),
+                                    new Vector3(0.0f, 5.0f, 5.0f),
+                                    hit));
+                    assertSame(
+                            added,
+                            collisionSystem.sweep(
+                                    probe,
+                                    new Vector3(0.0f, -5.0f, -5.0f),
+                                    new Vector3(0.0f, -5.0f, 5.0f),
+                                    hit));
+                });
+        assertEquals(1, outerResults.size());
+        assertSame(trigger, outerResults.get(0));
+
+        // The outer query is done, so the next query refits the tree.
+        assertSame(mover, collisionSystem.raycast(newRay, new RayHit(), false));
+        assertNull(collisionSystem.raycast(oldRay, new RayHit(), false));
+    }
+
+    @Test
+    public void raycastBatch_parallel_matchesSequentialRaycasts() {
+        Random random = new Random(2);
+        CollisionSystem collisionSystem = new CollisionSystem();
+        ArrayList<Collider> colliders = addRandomColliders(collisionSystem, random, 300, 20.0f);
+        for (int i = 0; i < colliders.size(); i += 2) {
+            colliders.get(i).setLayerMask(2);
+        }
+
+        Ray[] rays = new Ray[500];
+        RayHit[] results = new RayHit[rays.length];
+        Collider[] resultColliders = new Collider[rays.length];
+        for (int i = 0; i < rays.length; i++) {
+            rays[i] = randomRay(random, 20.0f);
+            results[i] = new RayHit();
+        }
+
+        RayHit hit = new RayHit();
+        for (int layerMask = 1; layerMask <= 3; layerMask++) {
+            for (int parallel = 0; parallel < 2; parallel++) {
+                // Move every collider so that the batch has to refit them.
+                for (Collider collider : colliders) {
+                    Matrix matrix = collider.getTransformProvider().getWorldModelMatrix();
+                    matrix.data[13] += 0.1f;
+                    collider.markWorldShapeDirty();
+                }
+
+                collisionSystem.raycastBatch(
+                        rays, results, resultColliders, false, layerMask, parallel == 1);
+                for (int i = 0; i < rays.length; i++) {
+                    Collider expected =
+                            collisionSystem.raycast(
+                                    rays[i], hit, false, Float.MAX_VALUE, layerMask);
+                    assertSame(expected, resultColliders[i]);
+                    assertEquals(hit.getDistance(), results[i].getDistance(), 0.0f);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.google.ar.sceneform.collision;
+
+import com.google.ar.sceneform.math.Matrix;
+import com.google.ar.sceneform.math.Quaternion;
+import com.google.ar.sceneform.math.Vector3;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FrustumTest {
+    /**
+     * A perspective projection with a 90 degree field of view, a square aspect ratio and near and
+     * far planes at 1 and 10, looking down -z. A point is inside when |x| and |y| are at most -z.
+     */
+    static Matrix perspective() {
+        Matrix projection = new Matrix();
+        float[] data = projection.data;
+        float near = 1.0f;
+        float far = 10.0f;
+        data[0] = 1.0f;
+        data[5] = 1.0f;
+        data[10] = -(far + near) / (far - near);
+        data[11] = -1.0f;
+        data[14] = -2.0f * far * near / (far - near);
+        data[15] = 0.0f;
+        return projection;
+    }
+
+    /** An orthographic projection of the box from (-2, -1, -5) to (2, 1, -0.5). */
+    static Matrix orthographic() {
+        Matrix projection = new Matrix();
+        float[] data = projection.data;
+        float near = 0.5f;
+        float far = 5.0f;
+        data[0] = 2.0f / 4.0f;
+        data[5] = 2.0f / 2.0f;
+        data[10] = -2.0f / (far - near);
+        data[14] = -(far + near) / (far - near);
+        return projection;
+    }
+
+    private static Frustum frustum(Matrix viewProjection) {
+        Frustum frustum = new Frustum();
+        frustum.setViewProjection(viewProjection);
+        return frustum;
+    }
+
+    private static boolean containsPoint(Frustum frustum, float x, float y, float z) {
+        return frustum.intersectsBounds(x, y, z, x, y, z);
+    }
+
+    /** Tests a box of the given half size around a center. */
+    private static boolean intersectsBox(
+            Frustum frustum, float x, float y, float z, float halfSize) {
+        return frustum.intersectsBounds(
+                x - halfSize, y - halfSize, z - halfSize, x + halfSize, y + halfSize, z + halfSize);
+    }
+
+    @Test
+    public void newFrustum_containsEverything() {
+        Frustum frustum = new Frustum();
+        assertTrue(containsPoint(frustum, 0.0f, 0.0f, 0.0f));
+        assertTrue(containsPoint(frustum, 1e6f, -1e6f, 1e6f));
+        assertTrue(intersectsBox(frustum, -50.0f, 20.0f, 100.0f, 1.0f));
+    }
+
+    @Test
+    public void perspective_points() {
+        Frustum frustum = frustum(perspective());
+
+        assertTrue(containsPoint(frustum, 0.0f, 0.0f, -5.0f));
+        assertTrue(containsPoint(frustum, 4.9f, -4.9f, -5.0f));
+        assertTrue(containsPoint(frustum, 0.0f, 0.0f, -1.01f));
+        assertTrue(containsPoint(frustum, 0.0f, 0.0f, -9.99f));
+
+        // Outside of each plane in turn.
+        assertFalse(containsPoint(frustum, 5.1f, 0.0f, -5.0f));
+        assertFalse(containsPoint(frustum, -5.1f, 0.0f, -5.0f));
+        assertFalse(containsPoint(frustum, 0.0f, 5.1f, -5.0f));
+        assertFalse(containsPoint(frustum, 0.0f, -5.1f, -5.0f));
+        assertFalse(containsPoint(frustum, 0.0f, 0.0f, -0.99f));
+        assertFalse(containsPoint(frustum, 0.0f, 0.0f, -10.01f));
+        assertFalse(containsPoint(frustum, 0.0f, 0.0f, 5.0f));
+    }
+
+    @Test
+    public void perspective_boxes() {
+        Frustum frustum = frustum(perspective());
+
+        assertTrue(intersectsBox(frustum, 0.0f, 0.0f, -5.0f, 0.5f));
+        // A box around the camera straddles the near plane and the side planes.
+        assertTrue(intersectsBox(frustum, 0.0f, 0.0f, 0.0f, 2.0f));
+
+        // Outside of each plane in turn, and straddling it. The side planes spread out with
+        // depth, so the boxes beside the frustum are clear of it at their farthest depth.
+        assertFalse(intersectsBox(frustum, 6.1f, 0.0f, -5.0f, 0.5f));
+        assertTrue(intersectsBox(frustum, 5.4f, 0.0f, -5.0f, 0.5f));
+        assertFalse(intersectsBox(frustum, -6.1f, 0.0f, -5.0f, 0.5f));
+        assertTrue(intersectsBox(frustum, -5.4f, 0.0f, -5.0f, 0.5f));
+        assertFalse(intersectsBox(frustum, 0.0f, 6.1f, -5.0f, 0.5f));
+        assertTrue(intersectsBox(frustum, 0.0f, 5.4f, -5.0f, 0.5f));
+        assertFalse(intersectsBox(frustum, 0.0f, -6.1f, -5.0f, 0.5f));
+        assertTrue(intersectsBox(frustum, 0.0f, -5.4f, -5.0f, 0.5f));
+        assertFalse(intersectsBox(frustum, 0.0f, 0.0f, -0.4f, 0.5f));
+        assertTrue(intersectsBox(frustum, 0.0f, 0.0f, -0.6f, 0.5f));
+        assertFalse(intersectsBox(frustum, 0.0f, 0.0f, -10.6f, 0.5f));
+        assertTrue(intersectsBox(frustum, 0.0f, 0.0f, -10.4f, 0.5f));
+    }
+
+    @Test
+    public void orthographic_pointsAndBoxes() {
+        Frustum frustum = frustum(orthographic());
+
+        assertTrue(containsPoint(frustum, 1.9f, 0.9f, -4.9f));
+        assertTrue(containsPoint(frustum, -1.9f, -0.9f, -0.6f));
+        assertFalse(containsPoint(frustum, 2.1f, 0.0f, -1.0f));
+        assertFalse(containsPoint(frustum, -2.1f, 0.0f, -1.0f));
+        assertFalse(containsPoint(frustum, 0.0f, 1.1f, -1.0f));
+        assertFalse(containsPoint(frustum, 0.0f, -1.1f, -1.0f));
+        assertFalse(containsPoint(frustum, 0.0f, 0.0f, -0.4f));
+        assertFalse(containsPoint(frustum, 0.0f, 0.0f, -5.1f));
+
+        assertFalse(intersectsBox(frustum, 2.3f, 0.0f, -2.0f, 0.2f));
+        assertTrue(intersectsBox(frustum, 2.1f, 0.0f, -2.0f, 0.2f));
+        assertFalse(intersectsBox(frustum, 0.0f, -1.3f, -2.0f, 0.2f));
+        assertTrue(intersectsBox(frustum, 0.0f, -1.1f, -2.0f, 0.2f));
+        assertFalse(intersectsBox(frustum, 0.0f, 0.0f, -0.2f, 0.2f));
+        assertTrue(intersectsBox(frustum, 0.0f, 0.0f, -0.4f, 0.2f));
+        assertFalse(intersectsBox(frustum, 0.0f, 0.0f, -5.3f, 0.2f));
+        assertTrue(intersectsBox(frustum, 0.0f, 0.0f, -5.1f, 0.2f));
+    }
+
+    @Test
+    public void viewProjection_movesFrustumWithCamera() {
+        // The camera is at (10, 0, 0), turned to look down -x.
+        Matrix cameraModel = new Matrix();
+        cameraModel.makeTrs(
+                new Vector3(10.0f, 0.0f, 0.0f),
+                Quaternion.axisAngle(Vector3.up(), 90.0f),
+                Vector3.one());
+        Matrix view = new Matrix();
+        assertTrue(Matrix.invert(cameraModel, view));
+        Matrix viewProjection = new Matrix();
+        Matrix.multiply(perspective(), view, viewProjection);
+        Frustum frustum = frustum(viewProjection);
+
+        assertTrue(containsPoint(frustum, 5.0f, 0.0f, 0.0f));
+        assertTrue(containsPoint(frustum, 5.0f, 4.9f, -4.9f));
+        assertFalse(containsPoint(frustum, 15.0f, 0.0f, 0.0f));
+        assertFalse(containsPoint(frustum, 0.0f, 0.0f, -5.0f));
+        assertFalse(containsPoint(frustum, 5.0f, 5.1f, 0.0f));
+    }
+
+    @Test
+    public void intersectsTransformedBounds_matchesTransformedCorners() {
+        Random random = new Random(10);
+        Frustum frustum = frustum(perspective());
+        Vector3 min = new Vector3();
+        Vector3 max = new Vector3();
+        int insideCount = 0;
+        for (int i = 0; i < 2000; i++) {
+            Matrix transform = new Matrix();
+            transform.makeTrs(
+                    new Vector3(
+                            random.nextFloat() * 20.0f - 10.0f,
+                            random.nextFloat() * 20.0f - 10.0f,
+                            random.nextFloat() * -12.0f),
+                    Quaternion.axisAngle(
+                            CollisionSystemTest.randomDirection(random),
+                            random.nextFloat() * 360.0f),
+                    Vector3.one().scaled(0.5f + random.nextFloat()));
+            Vector3 center = CollisionSystemTest.randomDirection(random);
+            Vector3 extents =
+                    new Vector3(random.nextFloat(), random.nextFloat(), random.nextFloat());
+
+            // The bounds of the eight transformed corners.
+            min.set(Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE);
+            max.set(-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE);
+            for (int corner = 0; corner < 8; corner++) {
+                Vector3 point =
+                        transform.transformPoint(
+                                new Vector3(
+                                        center.x + ((corner & 1) == 0 ? -extents.x : extents.x),
+                                        center.y + ((corner & 2) == 0 ? -extents.y : extents.y),
+                                        center.z + ((corner & 4) == 0 ? -extents.z : extents.z)));
+                min.set(Vector3.min(min, point));
+                max.set(Vector3.max(max, point));
+            }
+
+            boolean expected = frustum.intersectsBounds(min, max);
+            assertEquals(expected, frustum.intersectsBounds(transform, center, extents));
+            if (expected) {
+                insideCount++;
+            }
+        }
+        assertTrue(insideCount > 200);
+        assertTrue(insideCount < 1800);
+    }
+
+    @Test
+    public void findAllInFrustum_matchesBruteForce() {
+        Random random = new Random(11);
+        CollisionSystem collisionSystem = new CollisionSystem();
+        ArrayList<Collider> colliders =
+                CollisionSystemTest.addRandomColliders(collisionSystem, random, 500, 30.0f);
+        for (int i = 0; i < colliders.size(); i += 3) {
+            colliders.get(i).setLayerMask(2);
+        }
+
+        Vector3 min = new Vector3();
+        Vector3 max = new Vector3();
+        HashSet<Collider> found = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            Matrix cameraModel = new Matrix();
+            cameraModel.makeTrs(
+                    CollisionSystemTest.randomDirection(random).scaled(10.0f),
+                    Quaternion.axisAngle(
+                            CollisionSystemTest.randomDirection(random),
+                            random.nextFloat() * 360.0f),
+                    Vector3.one());
+            Matrix view = new Matrix();
+            Matrix.invert(cameraModel, view);
+            Matrix viewProjection = new Matrix();
+            Matrix.multiply(i % 2 == 0 ? perspective() : orthographic(), view, viewProjection);
+            Frustum frustum = frustum(viewProjection);
+            int layerMask = i % 3 + 1;
+
+            found.clear();
+            collisionSystem.findAllInFrustum(
+                    frustum, layerMask, collider -> assertTrue(found.add(collider)));
+
+            HashSet<Collider> expected = new HashSet<>();
+            for (Collider collider : colliders) {
+                collider.getTransformedShape().getBounds(min, max);
+                if (collider.isInLayers(layerMask) && frustum.intersectsBounds(min, max)) {
+                    expected.add(collider);
+                }
+            }
+            assertEquals(expected, found);
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package com.google.ar.sceneform.collision;
+
+import com.google.ar.sceneform.math.Quaternion;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.utilities.AllocationCounter;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntersectionsTest {
+    private static Box box(Vector3 center, Quaternion rotation) {
+        Box box = new Box(Vector3.one(), center);
+        box.setRotation(rotation);
+        return box;
+    }
+
+    private static void assertIntersects(boolean expected, Box box1, Box box2) {
+        assertEquals(expected, Intersections.boxBoxIntersection(box1, box2));
+        assertEquals(expected, Intersections.boxBoxIntersection(box2, box1));
+    }
+
+    @Test
+    public void boxBox_separatedAlongFaceAxis() {
+        Box box1 = box(Vector3.zero(), Quaternion.identity());
+        assertIntersects(false, box1, box(new Vector3(1.01f, 0.0f, 0.0f), Quaternion.identity()));
+        assertIntersects(false, box1, box(new Vector3(0.0f, -1.01f, 0.0f), Quaternion.identity()));
+        assertIntersects(false, box1, box(new Vector3(0.0f, 0.0f, 1.01f), Quaternion.identity()));
+    }
+
+    @Test
+    public void boxBox_touchingFaces_intersect() {
+        Box box1 = box(Vector3.zero(), Quaternion.identity());
+        assertIntersects(true, box1, box(new Vector3(1.0f, 0.0f, 0.0f), Quaternion.identity()));
+        assertIntersects(true, box1, box(new Vector3(0.0f, 1.0f, 0.0f), Quaternion.identity()));
+        assertIntersects(true, box1, box(new Vector3(1.0f, 1.0f, 1.0f), Quaternion.identity()));
+    }
+
+    @Test
+    public void boxBox_separatedAtNegativeCoordinates() {
+        // Every projected vertex is negative here. Starting the projected maximum at
+        // Float.MIN_VALUE, which is positive, used to make these boxes overlap.
+        Box box1 = box(new Vector3(-5.0f, -5.0f, -5.0f), Quaternion.identity());
+        Box box2 = box(new Vector3(-3.0f, -5.0f, -5.0f), Quaternion.identity());
+        assertIntersects(false, box1, box2);
+    }
+
+    @Test
+    public void boxBox_separatedOnlyAlongEdgeCrossProduct() {
+        // The leading edge of the first box runs along z and the leading edge of the second box
+        // runs along y. None of the face axes separate the boxes, only the cross product of those
+        // edges, the x axis, does. The boxes touch when their centers are sqrt(2) apart.
+        Box box1 = box(Vector3.zero(), Quaternion.axisAngle(Vector3.back(), 45.0f));
+        Quaternion rotation2 = Quaternion.axisAngle(Vector3.up(), 45.0f);
+        assertIntersects(false, box1, box(new Vector3(1.6f, 0.0f, 0.0f), rotation2));
+        assertIntersects(false, box1, box(new Vector3(1.43f, 0.0f, 0.0f), rotation2));
+        assertIntersects(true, box1, box(new Vector3(1.4f, 0.0f, 0.0f), rotation2));
+    }
+
+    @Test
+    public void boxBox_touchingCorner_intersect() {
+        // A corner of the rotated box reaches sqrt(2) / 2 from its center.
+        Box box1 = box(Vector3.zero(), Quaternion.identity());
+        Quaternion rotation2 = Quaternion.axisAngle(Vector3.back(), 45.0f);
+        assertIntersects(true, box1, box(new Vector3(1.2f, 0.0f, 0.0f), rotation2));
+        assertIntersects(false, box1, box(new Vector3(1.22f, 0.0f, 0.0f), rotation2));
+    }
+
+    @Test
+    public void boxBox_matchesVertexProjectionReference() {
+        Random random = new Random(8);
+        int testedCount = 0;
+        for (int i = 0; i < 20000; i++) {
+            Box box1 = randomBox(random);
+            Box box2 = randomBox(random);
+            float margin = referenceSeparation(box1, box2);
+            // Skip pairs that are too close to touching for float rounding to agree on.
+            if (Math.abs(margin) < 1e-4f) {
+                continue;
+            }
+
+            assertEquals(margin < 0.0f, Intersections.boxBoxIntersection(box1, box2));
+            testedCount++;
+        }
+        assertTrue(testedCount > 19000);
+    }
+
+    @Test
+    public void boxBox_doesNotAllocate() {
+        Box box1 = box(Vector3.zero(), Quaternion.axisAngle(Vector3.back(), 30.0f));
+        Box box2 = box(new Vector3(0.5f, 0.5f, 0.5f), Quaternion.axisAngle(Vector3.up(), 60.0f));
+        assertTrue(Intersections.boxBoxIntersection(box1, box2));
+
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> Intersections.boxBoxIntersection(box1, box2), 10000);
+        assertEquals(0, allocatedBytes);
+        assertFalse(
+                Intersections.boxBoxIntersection(
+                        box1, box(new Vector3(3.0f, 0.0f, 0.0f), Quaternion.identity())));
+    }
+
+    @Test
+    public void sphereSphereSweep_returnsFractionAtContact() {
+        Sphere moving = new Sphere(0.5f);
+        Sphere target = new Sphere(0.5f, new Vector3(5.0f, 0.0f, 0.0f));
+        Vector3 motion = new Vector3(10.0f, 0.0f, 0.0f);
+
+        // The spheres touch when their centers are 1 apart.
+        assertEquals(
+                0.4f,
+                Intersections.sphereSphereSweep(moving, target, Vector3.zero(), motion),
+                1e-5f);
+        assertEquals(
+                0.2f,
+                Intersections.sphereSphereSweep(
+                        moving, target, new Vector3(2.0f, 0.0f, 0.0f), motion),
+                1e-5f);
+        // Passes beside the target, and stops short of it.
+        assertEquals(
+                -1.0f,
+                Intersections.sphereSphereSweep(
+                        moving, target, new Vector3(0.0f, 1.01f, 0.0f), motion),
+                0.0f);
+        assertEquals(
+                -1.0f,
+                Intersections.sphereSphereSweep(
+                        moving, target, Vector3.zero(), new Vector3(3.9f, 0.0f, 0.0f)),
+                0.0f);
+        // Moving away from the target.
+        assertEquals(
+                -1.0f,
+                Intersections.sphereSphereSweep(moving, target, Vector3.zero(), motion.negated()),
+                0.0f);
+    }
+
+    @Test
+    public void sphereBoxSweep_returnsFractionAtContact() {
+        Sphere moving = new Sphere(0.5f);
+        Vector3 motion = new Vector3(10.0f, 0.0f, 0.0f);
+
+        Box target = box(new Vector3(5.0f, 0.0f, 0.0f), Quaternion.identity());
+        assertEquals(
+                0.4f, Intersections.sphereBoxSweep(moving, target, Vector3.zero(), motion), 1e-4f);
+        assertEquals(
+                -1.0f,
+                Intersections.sphereBoxSweep(
+                        moving, target, new Vector3(0.0f, 1.01f, 0.0f), motion),
+                0.0f);
+
+        // A corner of the rotated box points at the sphere, sqrt(2) / 2 from its center.
+        Box rotatedTarget =
+                box(new Vector3(5.0f, 0.0f, 0.0f), Quaternion.axisAngle(Vector3.back(), 45.0f));
+        assertEquals(
+                (4.5f - (float) Math.sqrt(0.5)) / 10.0f,
+                Intersections.sphereBoxSweep(moving, rotatedTarget, Vector3.zero(), motion),
+                1e-4f);
+    }
+
+    @Test
+    public void boxSphereSweep_returnsFractionAtContact() {
+        Sphere target = new Sphere(0.5f, new Vector3(5.0f, 0.0f, 0.0f));
+        Vector3 motion = new Vector3(10.0f, 0.0f, 0.0f);
+
+        Box moving = box(Vector3.zero(), Quaternion.identity());
+        assertEquals(
+                0.4f, Intersections.boxSphereSweep(moving, target, Vector3.zero(), motion), 1e-4f);
+        assertEquals(
+                0.3f,
+                Intersections.boxSphereSweep(
+                        moving, target, new Vector3(1.0f, 0.0f, 0.0f), motion),
+                1e-4f);
+        assertEquals(
+                -1.0f,
+                Intersections.boxSphereSweep(
+                        moving, target, new Vector3(0.0f, 0.0f, -1.01f), motion),
+                0.0f);
+
+        Box rotatedMoving = box(Vector3.zero(), Quaternion.axisAngle(Vector3.back(), 45.0f));
+        assertEquals(
+                (4.5f - (float) Math.sqrt(0.5)) / 10.0f,
+                Intersections.boxSphereSweep(rotatedMoving, target, Vector3.zero(), motion),
+                1e-4f);
+    }
+
+    @Test
+    public void boxBoxSweep_returnsFractionAtContact() {
+        Box moving = box(Vector3.zero(), Quaternion.identity());
+        Vector3 motion = new Vector3(10.0f, 0.0f, 0.0f);
+
+        Box target = box(new Vector3(5.0f, 0.0f, 0.0f), Quaternion.identity());
+        assertEquals(
+                0.4f, Intersections.boxBoxSweep(moving, target, Vector3.zero(), motion), 1e-5f);
+        assertEquals(
+                -1.0f,
+                Intersections.boxBoxSweep(moving, target, new Vector3(0.0f, 1.01f, 0.0f), motion),
+                0.0f);
+
+        Box rotatedTarget =
+                box(new Vector3(5.0f, 0.0f, 0.0f), Quaternion.axisAngle(Vector3.back(), 45.0f));
+        assertEquals(
+                (4.5f - (float) Math.sqrt(0.5)) / 10.0f,
+                Intersections.boxBoxSweep(moving, rotatedTarget, Vector3.zero(), motion),
+                1e-5f);
+
+        // Only the cross product of the leading edges separates these boxes. They touch when
+        // their centers are sqrt(2) apart.
+        Box rotatedMoving = box(Vector3.zero(), Quaternion.axisAngle(Vector3.back(), 45.0f));
+        Box edgeTarget =
+                box(new Vector3(5.0f, 0.0f, 0.0f), Quaternion.axisAngle(Vector3.up(), 45.0f));
+        assertEquals(
+                (5.0f - (float) Math.sqrt(2.0)) / 10.0f,
+                Intersections.boxBoxSweep(rotatedMoving, edgeTarget, Vector3.zero(), motion),
+                1e-5f);
+    }
+
+    @Test
+    public void sweeps_startingOverlapped_returnZero() {
+        Sphere sphere = new Sphere(0.5f, new Vector3(0.8f, 0.0f, 0.0f));
+        Sphere otherSphere = new Sphere(0.5f);
+        Box box = box(new Vector3(0.0f, 0.8f, 0.0f), Quaternion.identity());
+        Box otherBox = box(Vector3.zero(), Quaternion.axisAngle(Vector3.up(), 30.0f));
+        Vector3 motion = new Vector3(0.0f, 0.0f, 10.0f);
+
+        assertEquals(
+                0.0f,
+                Intersections.sphereSphereSweep(sphere, otherSphere, Vector3.zero(), motion),
+                0.0f);
+        assertEquals(0.0f, Intersections.sphereBoxSweep(sphere, box, Vector3.zero(), motion), 0.0f);
+        assertEquals(0.0f, Intersections.boxSphereSweep(box, sphere, Vector3.zero(), motion), 0.0f);
+        assertEquals(0.0f, Intersections.boxBoxSweep(box, otherBox, Vector3.zero(), motion), 0.0f);
+    }
+
+    @Test
+    public void sweeps_withZeroMotion_hitOnlyWhenOverlapping() {
+        Sphere sphere = new Sphere(0.5f);
+        Box box = box(Vector3.zero(), Quaternion.axisAngle(Vector3.up(), 30.0f));
+        Sphere farSphere = new Sphere(0.5f, new Vector3(3.0f, 0.0f, 0.0f));
+        Box farBox = box(new Vector3(3.0f, 0.0f, 0.0f), Quaternion.identity());
+        Vector3 near = new Vector3(0.2f, 0.0f, 0.0f);
+        Vector3 still = Vector3.zero();
+
+        assertEquals(-1.0f, Intersections.sphereSphereSweep(sphere, farSphere, still, still), 0.0f);
+        assertEquals(-1.0f, Intersections.sphereBoxSweep(sphere, farBox, still, still), 0.0f);
+        assertEquals(-1.0f, Intersections.boxSphereSweep(box, farSphere, still, still), 0.0f);
+        assertEquals(-1.0f, Intersections.boxBoxSweep(box, farBox, still, still), 0.0f);
+
+        Sphere nearSphere = new Sphere(0.5f, near);
+        Box nearBox = box(near, Quaternion.identity());
+        assertEquals(0.0f, Intersections.sphereSphereSweep(sphere, nearSphere, still, still), 0.0f);
+        assertEquals(0.0f, Intersections.sphereBoxSweep(sphere, nearBox, still, still), 0.0f);
+        assertEquals(0.0f, Intersections.boxSphereSweep(box, nearSphere, still, still), 0.0f);
+        assertEquals(0.0f, Intersections.boxBoxSweep(box, nearBox, still, still), 0.0f);
+    }
+
+    @Test
+    public void sweeps_matchSampledIntersectionTests() {
+        Random random = new Random(9);
+        int hitCount = 0;
+        for (int i = 0; i < 2000; i++) {
+            CollisionShape moving = random.nextBoolean() ? randomSphere(random) : randomBox(random);
+            CollisionShape target = random.nextBoolean() ? randomSphere(random) : randomBox(random);
+            Vector3 startOffset = CollisionSystemTest.randomDirection(random).scaled(6.0f);
+            // Moves back past the unmoved shape, give or take a few units, so some sweeps hit.
+            Vector3 motion =
+                    Vector3.add(
+                            startOffset.negated(),
+                            CollisionSystemTest.randomDirection(random).scaled(3.0f));
+            motion = motion.scaled(1.5f);
+
+            float fraction = moving.sweepIntersection(target, startOffset, motion);
+            // Sweeps that only graze the target may be missed by either test, so they are only
+            // checked to come close.
+            if (sampledFirstContact(moving, target, startOffset, motion, -0.01f) < 0.0f) {
+                if (fraction >= 0.0f) {
+                    assertTrue(
+                            intersectsAt(moving, target, startOffset, motion, fraction, 0.01f));
+                }
+                continue;
+            }
+
+            float sampledFraction = sampledFirstContact(moving, target, startOffset, motion, 0.0f);
+            assertEquals(sampledFraction, fraction, 1.0f / SWEEP_SAMPLES + 1e-3f);
+            hitCount++;
+        }
+        assertTrue(hitCount > 200);
+    }
+
+    @Test
+    public void sweeps_doNotAllocate() {
+        Sphere sphere = new Sphere(0.5f);
+        Sphere targetSphere = new Sphere(0.5f, new Vector3(5.0f, 0.3f, 0.0f));
+        Box box = box(Vector3.zero(), Quaternion.axisAngle(Vector3.up(), 30.0f));
+        Box targetBox =
+                box(new Vector3(5.0f, 0.0f, 0.3f), Quaternion.axisAngle(Vector3.back(), 20.0f));
+        Vector3 startOffset = new Vector3(0.0f, 0.1f, 0.0f);
+        Vector3 motion = new Vector3(10.0f, 0.0f, 0.0f);
+
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> {
+                            Intersections.sphereSphereSweep(
+                                    sphere, targetSphere, startOffset, motion);
+                            Intersections.sphereBoxSweep(sphere, targetBox, startOffset, motion);
+                            Intersections.boxSphereSweep(box, targetSphere, startOffset, motion);
+                            Intersections.boxBoxSweep(box, targetBox, startOffset, motion);
+                        },
+                        10000);
+        assertEquals(0, allocatedBytes);
+    }
+
+    private static final int SWEEP_SAMPLES = 1000;
+
+    /**
+     * Returns the first sampled fraction of the motion at which the shapes intersect, with the
+     * moving shape grown by the given margin, or -1.
+     */
+    private static float sampledFirstContact(
+            CollisionShape moving,
+            CollisionShape target,
+            Vector3 startOffset,
+            Vector3 motion,
+            float margin) {
+        for (int i = 0; i <= SWEEP_SAMPLES; i++) {
+            float fraction = (float) i / SWEEP_SAMPLES;
+            if (intersectsAt(moving, target, startOffset, motion, fraction, margin)) {
+                return fraction;
+            }
+        }
+        return -1.0f;
+    }
+
+    /** Tests the shapes for intersection with the moving shape grown by the given margin. */
+    private static boolean intersectsAt(
+            CollisionShape moving,
+            CollisionShape target,
+            Vector3 startOffset,
+            Vector3 motion,
+            float fraction,
+            float margin) {
+        Vector3 offset = Vector3.add(startOffset, motion.scaled(fraction));
+        CollisionShape moved;
+        if (moving instanceof Sphere) {
+            Sphere sphere = (Sphere) moving;
+            moved =
+                    new Sphere(
+                            sphere.getRadius() + margin, Vector3.add(sphere.getCenter(), offset));
+        } else {
+            Box box = (Box) moving;
+            Vector3 size = Vector3.add(box.getSize(), Vector3.one().scaled(margin * 2.0f));
+            Box movedBox = new Box(size, Vector3.add(box.getCenter(), offset));
+            movedBox.setRotation(box.getRotation());
+            moved = movedBox;
+        }
+        return moved.shapeIntersection(target);
+    }
+
+    private static Sphere randomSphere(Random random) {
+        return new Sphere(
+                0.1f + random.nextFloat(),
+                new Vector3(
+                        random.nextFloat() * 4.0f - 2.0f,
+                        random.nextFloat() * 4.0f - 2.0f,
+                        random.nextFloat() * 4.0f - 2.0f));
+    }
+
+    private static Box randomBox(Random random) {
+        Box box =
+                new Box(
+                        new Vector3(
+                                0.1f + random.nextFloat() * 2.0f,
+                                0.1f + random.nextFloat() * 2.0f,
+                                0.1f + random.nextFloat() * 2.0f),
+                        new Vector3(
+                                random.nextFloat() * 4.0f - 2.0f,
+                                random.nextFloat() * 4.0f - 2.0f,
+                                random.nextFloat() * 4.0f - 2.0f));
+        box.setRotation(
+                Quaternion.axisAngle(
+                        CollisionSystemTest.randomDirection(random), random.nextFloat() * 360.0f));
+        return box;
+    }
+
+    /**
+     * Projects the 8 corners of both boxes onto each of the 15 separating axes. Returns the largest
+     * gap between the projections, which is negative when the boxes overlap on every axis.
+     */
+    private static float referenceSeparation(Box box1, Box box2) {
+        double[][] vertices1 = vertices(box1);
+        double[][] vertices2 = vertices(box2);
+        double[][] axes1 = axes(box1);
+        double[][] axes2 = axes(box2);
+
+        double separation = -Double.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            separation = Math.max(separation, gap(vertices1, vertices2, axes1[i]));
+            separation = Math.max(separation, gap(vertices1, vertices2, axes2[i]));
+            for (int j = 0; j < 3; j++) {
+                double[] axis = cross(axes1[i], axes2[j]);
+                double length = Math.sqrt(dot(axis, axis));
+                if (length < 1e-6) {
+                    continue;
+                }
+                for (int k = 0; k < 3; k++) {
+                    axis[k] /= length;
+                }
+                separation = Math.max(separation, gap(vertices1, vertices2, axis));
+            }
+        }
+        return (float) separation;
+    }
+
+    private static double gap(double[][] vertices1, double[][] vertices2, double[] axis) {
+        double min1 = Double.MAX_VALUE;
+        double max1 = -Double.MAX_VALUE;
+        double min2 = Double.MAX_VALUE;
+        double max2 = -Double.MAX_VALUE;
+        for (int i = 0; i < 8; i++) {
+            double projection1 = dot(vertices1[i], axis);
+            double projection2 = dot(vertices2[i], axis);
+            min1 = Math.min(min1, projection1);
+            max1 = Math.max(max1, projection1);
+            min2 = Math.min(min2, projection2);
+            max2 = Math.max(max2, projection2);
+        }
+        return Math.max(min2 - max1, min1 - max2);
+    }
+
+    /** Axis i of a box is column i of its rotation matrix. */
+    private static double[][] axes(Box box) {
+        float[] data = box.getRawRotationMatrix().data;
+        double[][] axes = new double[3][];
+        for (int i = 0; i < 3; i++) {
+            axes[i] = new double[] {data[i * 4], data[i * 4 + 1], data[i * 4 + 2]};
+        }
+        return axes;
+    }
+
+    private static double[][] vertices(Box box) {
+        double[][] axes = axes(box);
+        Vector3 center = box.getRawCenter();
+        Vector3 size = box.getRawSize();
+        double[][] vertices = new double[8][3];
+        for (int i = 0; i < 8; i++) {
+            double signX = (i & 1) == 0 ? -0.5 : 0.5;
+            double signY = (i & 2) == 0 ? -0.5 : 0.5;
+            double signZ = (i & 4) == 0 ? -0.5 : 0.5;
+            vertices[i][0] =
+                    center.x
+                            + axes[0][0] * size.x * signX
+                            + axes[1][0] * size.y * signY
+                            + axes[2][0] * size.z * signZ;
+            vertices[i][1] =
+                    center.y
+                            + axes[0][1] * size.x * signX
+                            + axes[1][1] * size.y * signY
+                            + axes[2][1] * size.z * signZ;
+            vertices[i][2] =
+                    center.z
+                            + axes[0][2] * size.x * signX
+                            + axes[1][2] * size.y * signY
+                            + axes[2][2] * size.z * signZ;
+        }
+        return vertices;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+    }
+
+    private static double[] cross(double[] a, double[] b) {
+        return new double[] {
+            a[1] * b[2] - a[2] * b[1], a[2] * b[0] - a[0] * b[2], a[0] * b[1] - a[1] * b[0]
+        };
+    }
+}
@@ -0,0 +1,325 @@
+package com.google.ar.sceneform.collision;
+
+import com.google.ar.sceneform.math.Matrix;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.utilities.AllocationCounter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SweepAndPruneTest {
+    /** Records the overlap events of one call to updateOverlaps by pair key. */
+    private static final class RecordingListener implements CollisionSystem.OverlapListener {
+        final HashSet<Long> began = new HashSet<>();
+        final HashSet<Long> stayed = new HashSet<>();
+        final HashSet<Long> ended = new HashSet<>();
+        final ArrayList<String> events = new ArrayList<>();
+
+        void clear() {
+            began.clear();
+            stayed.clear();
+            ended.clear();
+            events.clear();
+        }
+
+        @Override
+        public void onOverlapBegin(Collider collider1, Collider collider2) {
+            assertTrue(began.add(OverlapPairs.getKey(collider1, collider2)));
+            events.add("begin");
+        }
+
+        @Override
+        public void onOverlapStay(Collider collider1, Collider collider2) {
+            assertTrue(stayed.add(OverlapPairs.getKey(collider1, collider2)));
+            events.add("stay");
+        }
+
+        @Override
+        public void onOverlapEnd(Collider collider1, Collider collider2) {
+            assertTrue(ended.add(OverlapPairs.getKey(collider1, collider2)));
+            events.add("end");
+        }
+    }
+
+    /** A listener that does nothing, for measuring the cost of the sweep itself. */
+    private static final class EmptyListener implements CollisionSystem.OverlapListener {
+        @Override
+        public void onOverlapBegin(Collider collider1, Collider collider2) {}
+
+        @Override
+        public void onOverlapStay(Collider collider1, Collider collider2) {}
+
+        @Override
+        public void onOverlapEnd(Collider collider1, Collider collider2) {}
+    }
+
+    /** Finds the overlapping pairs by testing every pair of colliders. */
+    private static HashSet<Long> bruteForcePairs(ArrayList<Collider> colliders) {
+        HashSet<Long> pairs = new HashSet<>();
+        for (int i = 0; i < colliders.size(); i++) {
+            for (int j = i + 1; j < colliders.size(); j++) {
+                CollisionShape shape1 = colliders.get(i).getTransformedShape();
+                CollisionShape shape2 = colliders.get(j).getTransformedShape();
+                if (shape1.shapeIntersection(shape2)) {
+                    pairs.add(OverlapPairs.getKey(colliders.get(i), colliders.get(j)));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /** Moves every collider by up to half the given distance along each axis. */
+    private static void moveColliders(
+            ArrayList<Collider> colliders, Random random, float distance) {
+        for (Collider collider : colliders) {
+            float[] data = collider.getTransformProvider().getWorldModelMatrix().data;
+            data[12] += (random.nextFloat() - 0.5f) * distance;
+            data[13] += (random.nextFloat() - 0.5f) * distance;
+            data[14] += (random.nextFloat() - 0.5f) * distance;
+            collider.markWorldShapeDirty();
+        }
+    }
+
+    /** Moves every collider to a random position in a cube of the given size. */
+    private static void scatterColliders(
+            ArrayList<Collider> colliders, Random random, float size) {
+        for (Collider collider : colliders) {
+            float[] data = collider.getTransformProvider().getWorldModelMatrix().data;
+            data[12] = (random.nextFloat() - 0.5f) * size;
+            data[13] = (random.nextFloat() - 0.5f) * size;
+            data[14] = (random.nextFloat() - 0.5f) * size;
+            collider.markWorldShapeDirty();
+        }
+    }
+
+    @Test
+    public void findAllOverlappingPairs_withMovingColliders_matchesBruteForce() {
+        Random random = new Random(7);
+        CollisionSystem collisionSystem = new CollisionSystem();
+        // Dense enough for hundreds of pairs, so the pair table grows past its initial capacity,
+        // and wide enough that the sweep along x stops early for most colliders.
+        ArrayList<Collider> colliders =
+                CollisionSystemTest.addRandomColliders(collisionSystem, random, 300, 15.0f);
+
+        HashSet<Long> found = new HashSet<>();
+        for (int frame = 0; frame < 30; frame++) {
+            // Scattering the colliders shuffles the sort order, so the insertion sort moves them
+            // far. Small steps only swap neighbors.
+            if (frame % 5 == 0) {
+                scatterColliders(colliders, random, 15.0f);
+            } else {
+                moveColliders(colliders, random, 0.2f);
+            }
+
+            found.clear();
+            collisionSystem.findAllOverlappingPairs(
+                    (collider1, collider2) ->
+                            assertTrue(found.add(OverlapPairs.getKey(collider1, collider2))));
+
+            HashSet<Long> expected = bruteForcePairs(colliders);
+            assertTrue(expected.size() > 16);
+            assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    public void updateOverlaps_withMovingAndRemovedColliders_matchesBruteForce() {
+        Random random = new Random(8);
+        CollisionSystem collisionSystem = new CollisionSystem();
+        ArrayList<Collider> colliders =
+                CollisionSystemTest.addRandomColliders(collisionSystem, random, 200, 12.0f);
+        RecordingListener listener = new RecordingListener();
+
+        HashSet<Long> previous = new HashSet<>();
+        for (int frame = 0; frame < 40; frame++) {
+            moveColliders(colliders, random, 0.5f);
+            // Removes and adds colliders between sweeps, including in the middle of the order.
+            if (frame % 4 == 1) {
+                for (int i = 0; i < 10; i++) {
+                    colliders.remove(random.nextInt(colliders.size()))
+                            .setAttachedCollisionSystem(null);
+                }
+            } else if (frame % 4 == 3) {
+                colliders.addAll(
+                        CollisionSystemTest.addRandomColliders(
+                                collisionSystem, random, 10, 12.0f));
+            }
+
+            listener.clear();
+            collisionSystem.updateOverlaps(Collider.ALL_LAYERS_MASK, listener);
+
+            HashSet<Long> current = bruteForcePairs(colliders);
+            HashSet<Long> expectedBegan = new HashSet<>(current);
+            expectedBegan.removeAll(previous);
+            HashSet<Long> expectedStayed = new HashSet<>(current);
+            expectedStayed.retainAll(previous);
+            HashSet<Long> expectedEnded = new HashSet<>(previous);
+            expectedEnded.removeAll(current);
+            assertEquals(expectedBegan, listener.began);
+            assertEquals(expectedStayed, listener.stayed);
+            assertEquals(expectedEnded, listener.ended);
+            previous = current;
+        }
+    }
+
+    @Test
+    public void updateOverlaps_reportsBeginStayEndInOrder() {
+        CollisionSystem collisionSystem = new CollisionSystem();
+        CollisionSystemTest.TestTransform transform1 = new CollisionSystemTest.TestTransform();
+        CollisionSystemTest.TestTransform transform2 = new CollisionSystemTest.TestTransform();
+        transform2.matrix.makeTranslation(new Vector3(5.0f, 0.0f, 0.0f));
+        Collider collider1 = new Collider(transform1, new Sphere(1.0f));
+        Collider collider2 = new Collider(transform2, new Box(Vector3.one()));
+        collider1.setAttachedCollisionSystem(collisionSystem);
+        collider2.setAttachedCollisionSystem(collisionSystem);
+        RecordingListener listener = new RecordingListener();
+        long key = OverlapPairs.getKey(collider1, collider2);
+
+        collisionSystem.updateOverlaps(Collider.ALL_LAYERS_MASK, listener);
+        assertTrue(listener.events.isEmpty());
+
+        ArrayList<String> events = new ArrayList<>();
+        float[] positions = {1.2f, 0.5f, 3.0f, 1.0f};
+        for (float position : positions) {
+            transform2.matrix.makeTranslation(new Vector3(position, 0.0f, 0.0f));
+            collider2.markWorldShapeDirty();
+            listener.clear();
+            collisionSystem.updateOverlaps(Collider.ALL_LAYERS_MASK, listener);
+            events.addAll(listener.events);
+        }
+        assertEquals(4, events.size());
+        assertEquals("begin", events.get(0));
+        assertEquals("stay", events.get(1));
+        assertEquals("end", events.get(2));
+        assertEquals("begin", events.get(3));
+
+        // A removed collider ends its overlaps once, on the next update.
+        collider2.setAttachedCollisionSystem(null);
+        listener.clear();
+        collisionSystem.updateOverlaps(Collider.ALL_LAYERS_MASK, listener);
+        assertEquals(1, listener.events.size());
+        assertTrue(listener.ended.contains(key));
+        listener.clear();
+        collisionSystem.updateOverlaps(Collider.ALL_LAYERS_MASK, listener);
+        assertTrue(listener.events.isEmpty());
+
+        // Adding it back begins a new overlap.
+        collider2.setAttachedCollisionSystem(collisionSystem);
+        listener.clear();
+        collisionSystem.updateOverlaps(Collider.ALL_LAYERS_MASK, listener);
+        assertEquals(1, listener.began.size());
+        assertFalse(listener.began.contains(key));
+    }
+
+    @Test
+    public void remove_clearsSlotUntilNextSweep() {
+        SweepAndPrune sweepAndPrune = new SweepAndPrune();
+        OverlapPairs pairs = new OverlapPairs();
+        ArrayList<Collider> colliders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            CollisionSystemTest.TestTransform transform = new CollisionSystemTest.TestTransform();
+            transform.matrix.makeTranslation(new Vector3(i * 0.4f, 0.0f, 0.0f));
+            Collider collider = new Collider(transform, new Sphere(1.0f));
+            sweepAndPrune.add(collider);
+            colliders.add(collider);
+        }
+
+        sweepAndPrune.remove(colliders.get(1));
+        sweepAndPrune.remove(colliders.get(3));
+        // Removing again, or removing a collider that was never added, does nothing.
+        sweepAndPrune.remove(colliders.get(1));
+        sweepAndPrune.remove(
+                new Collider(new CollisionSystemTest.TestTransform(), new Sphere(1.0f)));
+        assertEquals(-1, colliders.get(1).sweepIndex);
+
+        sweepAndPrune.findPairs(Collider.ALL_LAYERS_MASK, pairs);
+        assertEquals(3, pairs.size());
+        for (int i = 0; i < pairs.size(); i++) {
+            assertFalse(isRemoved(pairs.getFirst(i), colliders));
+            assertFalse(isRemoved(pairs.getSecond(i), colliders));
+        }
+        assertEquals(0, colliders.get(0).sweepIndex);
+        assertEquals(1, colliders.get(2).sweepIndex);
+        assertEquals(2, colliders.get(4).sweepIndex);
+    }
+
+    private static boolean isRemoved(Collider collider, ArrayList<Collider> colliders) {
+        return collider == colliders.get(1) || collider == colliders.get(3);
+    }
+
+    @Test
+    public void overlapPairs_keepsPairsAcrossGrow() {
+        ArrayList<Collider> colliders = new ArrayList<>();
+        SweepAndPrune sweepAndPrune = new SweepAndPrune();
+        for (int i = 0; i < 40; i++) {
+            Collider collider =
+                    new Collider(new CollisionSystemTest.TestTransform(), new Sphere(1.0f));
+            // Gives the collider a pair id.
+            sweepAndPrune.add(collider);
+            colliders.add(collider);
+        }
+
+        OverlapPairs pairs = new OverlapPairs();
+        for (int i = 0; i < colliders.size(); i++) {
+            for (int j = i + 1; j < colliders.size(); j += 3) {
+                // Adds the pairs in both orders, the lower pair id always comes first.
+                pairs.add(colliders.get(j), colliders.get(i));
+            }
+        }
+
+        int index = 0;
+        for (int i = 0; i < colliders.size(); i++) {
+            for (int j = i + 1; j < colliders.size(); j += 3) {
+                assertSame(colliders.get(i), pairs.getFirst(index));
+                assertSame(colliders.get(j), pairs.getSecond(index));
+                assertEquals(
+                        OverlapPairs.getKey(colliders.get(i), colliders.get(j)),
+                        pairs.getKey(index));
+                assertTrue(pairs.contains(pairs.getKey(index)));
+                index++;
+            }
+            assertFalse(pairs.contains(OverlapPairs.getKey(colliders.get(i), colliders.get(i))));
+        }
+        assertEquals(index, pairs.size());
+
+        pairs.clear();
+        assertEquals(0, pairs.size());
+        assertFalse(pairs.contains(OverlapPairs.getKey(colliders.get(0), colliders.get(1))));
+    }
+
+    @Test
+    public void updateOverlaps_steadyState_doesNotAllocate() {
+        Random random = new Random(9);
+        CollisionSystem collisionSystem = new CollisionSystem();
+        ArrayList<Collider> colliders =
+                CollisionSystemTest.addRandomColliders(collisionSystem, random, 200, 12.0f);
+        Matrix[] matrices = new Matrix[colliders.size()];
+        for (int i = 0; i < matrices.length; i++) {
+            matrices[i] = colliders.get(i).getTransformProvider().getWorldModelMatrix();
+        }
+        EmptyListener listener = new EmptyListener();
+        int[] frame = new int[1];
+
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> {
+                            // Colliders move back and forth, changing the order and the pairs.
+                            float offset = (frame[0]++ % 2 == 0) ? 0.3f : -0.3f;
+                            for (int i = 0; i < matrices.length; i++) {
+                                matrices[i].data[12] += i % 2 == 0 ? offset : -offset;
+                                colliders.get(i).markWorldShapeDirty();
+                            }
+                            collisionSystem.updateOverlaps(Collider.ALL_LAYERS_MASK, listener);
+                        },
+                        100);
+        assertEquals(0, allocatedBytes);
+    }
+}
@@ -0,0 +1,203 @@
+package com.google.ar.sceneform.math;
+
+import com.google.ar.sceneform.utilities.AllocationCounter;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchMatrixTest {
+    private static final int COUNT = 37;
+    private static final int OFFSET = 5;
+    private static final float TOLERANCE = 1e-5f;
+
+    private final Random random = new Random(22);
+
+    @Test
+    public void transformPoints_matchesTransformPoint() {
+        Matrix matrix = randomTrs();
+        float[] src = randomArray(OFFSET + COUNT * 3);
+        float[] dest = new float[COUNT * 3 + 1];
+
+        matrix.transformPoints(src, OFFSET, dest, 1, COUNT);
+
+        Vector3 expected = new Vector3();
+        for (int i = 0; i < COUNT; i++) {
+            matrix.transformPoint(readVector(src, OFFSET + i * 3), expected);
+            assertVector(expected, dest, 1 + i * 3);
+        }
+    }
+
+    @Test
+    public void transformPoints_inPlace_matchesTransformPoint() {
+        Matrix matrix = randomTrs();
+        float[] src = randomArray(OFFSET + COUNT * 3);
+        float[] points = src.clone();
+
+        matrix.transformPoints(points, OFFSET, points, OFFSET, COUNT);
+
+        Vector3 expected = new Vector3();
+        for (int i = 0; i < COUNT; i++) {
+            matrix.transformPoint(readVector(src, OFFSET + i * 3), expected);
+            assertVector(expected, points, OFFSET + i * 3);
+        }
+        for (int i = 0; i < OFFSET; i++) {
+            assertEquals(src[i], points[i], 0.0f);
+        }
+    }
+
+    @Test
+    public void transformDirections_matchesTransformDirection() {
+        Matrix matrix = randomTrs();
+        float[] src = randomArray(OFFSET + COUNT * 3);
+        float[] dest = new float[COUNT * 3];
+
+        matrix.transformDirections(src, OFFSET, dest, 0, COUNT);
+
+        Vector3 expected = new Vector3();
+        for (int i = 0; i < COUNT; i++) {
+            matrix.transformDirection(readVector(src, OFFSET + i * 3), expected);
+            assertVector(expected, dest, i * 3);
+        }
+    }
+
+    @Test
+    public void multiplyArray_matchesMultiply() {
+        Matrix lhs = randomTrs();
+        float[] lhsArray = new float[OFFSET + 16];
+        System.arraycopy(lhs.data, 0, lhsArray, OFFSET, 16);
+        float[] rhs = new float[OFFSET + COUNT * 16];
+        for (int i = 0; i < COUNT; i++) {
+            System.arraycopy(randomTrs().data, 0, rhs, OFFSET + i * 16, 16);
+        }
+        float[] dest = new float[COUNT * 16];
+
+        Matrix.multiply(lhsArray, OFFSET, rhs, OFFSET, dest, 0, COUNT);
+
+        Matrix expected = new Matrix();
+        for (int i = 0; i < COUNT; i++) {
+            Matrix.multiply(lhs, readMatrix(rhs, OFFSET + i * 16), expected);
+            assertMatrix(expected, dest, i * 16);
+        }
+
+        // The destination may be the right hand side.
+        float[] inPlace = rhs.clone();
+        Matrix.multiply(lhsArray, OFFSET, inPlace, OFFSET, inPlace, OFFSET, COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            assertMatrix(readMatrix(dest, i * 16), inPlace, OFFSET + i * 16);
+        }
+    }
+
+    @Test
+    public void makeTrsArray_matchesMakeTrs() {
+        float[] translations = new float[OFFSET + COUNT * 3];
+        float[] rotations = new float[COUNT * 4];
+        float[] scales = new float[1 + COUNT * 3];
+        Vector3[] translationVectors = new Vector3[COUNT];
+        Quaternion[] rotationQuaternions = new Quaternion[COUNT];
+        Vector3[] scaleVectors = new Vector3[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            translationVectors[i] = randomVector();
+            rotationQuaternions[i] = randomRotation();
+            // Includes zero and negative scales.
+            scaleVectors[i] = i % 5 == 0 ? new Vector3(0.0f, 1.0f, -2.0f) : randomVector();
+            writeVector(translationVectors[i], translations, OFFSET + i * 3);
+            rotations[i * 4] = rotationQuaternions[i].x;
+            rotations[i * 4 + 1] = rotationQuaternions[i].y;
+            rotations[i * 4 + 2] = rotationQuaternions[i].z;
+            rotations[i * 4 + 3] = rotationQuaternions[i].w;
+            writeVector(scaleVectors[i], scales, 1 + i * 3);
+        }
+        float[] dest = new float[OFFSET + COUNT * 16];
+
+        Matrix.makeTrs(translations, OFFSET, rotations, 0, scales, 1, dest, OFFSET, COUNT);
+
+        Matrix expected = new Matrix();
+        for (int i = 0; i < COUNT; i++) {
+            expected.makeTrs(translationVectors[i], rotationQuaternions[i], scaleVectors[i]);
+            assertMatrix(expected, dest, OFFSET + i * 16);
+        }
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void transformPoints_pastEndOfArray_throws() {
+        randomTrs().transformPoints(new float[9], 1, new float[9], 0, 3);
+    }
+
+    @Test
+    public void batchKernels_doNotAllocate() {
+        Matrix matrix = randomTrs();
+        float[] points = randomArray(COUNT * 3);
+        float[] matrices = new float[COUNT * 16];
+        float[] rotations = new float[COUNT * 4];
+        for (int i = 0; i < COUNT; i++) {
+            rotations[i * 4 + 3] = 1.0f;
+        }
+
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> {
+                            matrix.transformPoints(points, 0, points, 0, COUNT);
+                            matrix.transformDirections(points, 0, points, 0, COUNT);
+                            Matrix.makeTrs(points, 0, rotations, 0, points, 0, matrices, 0, COUNT);
+                            Matrix.multiply(matrix.data, 0, matrices, 0, matrices, 0, COUNT);
+                        },
+                        1000);
+        assertEquals(0, allocatedBytes);
+    }
+
+    private Vector3 randomVector() {
+        return new Vector3(
+                random.nextFloat() * 2.0f - 1.0f,
+                random.nextFloat() * 2.0f - 1.0f,
+                random.nextFloat() * 2.0f - 1.0f);
+    }
+
+    private Quaternion randomRotation() {
+        return Quaternion.axisAngle(randomVector(), random.nextFloat() * 360.0f);
+    }
+
+    private Matrix randomTrs() {
+        Matrix matrix = new Matrix();
+        matrix.makeTrs(randomVector(), randomRotation(), randomVector().scaled(2.0f));
+        return matrix;
+    }
+
+    private float[] randomArray(int length) {
+        float[] array = new float[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = random.nextFloat() * 10.0f - 5.0f;
+        }
+        return array;
+    }
+
+    private static Vector3 readVector(float[] array, int offset) {
+        return new Vector3(array[offset], array[offset + 1], array[offset + 2]);
+    }
+
+    private static void writeVector(Vector3 vector, float[] array, int offset) {
+        array[offset] = vector.x;
+        array[offset + 1] = vector.y;
+        array[offset + 2] = vector.z;
+    }
+
+    private static Matrix readMatrix(float[] array, int offset) {
+        Matrix matrix = new Matrix();
+        System.arraycopy(array, offset, matrix.data, 0, 16);
+        return matrix;
+    }
+
+    private static void assertVector(Vector3 expected, float[] actual, int offset) {
+        assertEquals(expected.x, actual[offset], TOLERANCE);
+        assertEquals(expected.y, actual[offset + 1], TOLERANCE);
+        assertEquals(expected.z, actual[offset + 2], TOLERANCE);
+    }
+
+    private static void assertMatrix(Matrix expected, float[] actual, int offset) {
+        for (int i = 0; i < 16; i++) {
+            assertEquals(expected.data[i], actual[offset + i], TOLERANCE);
+        }
+    }
+}
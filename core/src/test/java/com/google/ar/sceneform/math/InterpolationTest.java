@@ -0,0 +1,338 @@
+package com.google.ar.sceneform.math;
+
+import com.google.ar.sceneform.utilities.AllocationCounter;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InterpolationTest {
+    private static final int COUNT = 41;
+    private static final int OFFSET = 3;
+    private static final float TOLERANCE = 1e-5f;
+    private static final float[] RATIOS = {0.0f, 0.1f, 0.25f, 0.5f, 0.9f, 1.0f};
+
+    private final Random random = new Random(25);
+
+    @Test
+    public void packedSlerp_matchesSlerp() {
+        float[] start = new float[OFFSET + COUNT * 4];
+        float[] end = new float[COUNT * 4 + 2];
+        fillRotationPairs(start, OFFSET, end, 0);
+        float[] dest = new float[COUNT * 4 + 1];
+
+        Quaternion expected = new Quaternion();
+        for (float t : RATIOS) {
+            Quaternion.slerp(start, OFFSET, end, 0, t, dest, 1, COUNT);
+
+            for (int i = 0; i < COUNT; i++) {
+                Quaternion.slerp(
+                        readRotation(start, OFFSET + i * 4), readRotation(end, i * 4), t, expected);
+                assertRotation(expected.normalized(), dest, 1 + i * 4);
+            }
+        }
+    }
+
+    @Test
+    public void packedSlerp_inPlace_matchesSlerp() {
+        float[] start = new float[OFFSET + COUNT * 4];
+        float[] end = new float[OFFSET + COUNT * 4];
+        fillRotationPairs(start, OFFSET, end, OFFSET);
+
+        float[] startResult = start.clone();
+        float[] endResult = end.clone();
+        Quaternion.slerp(startResult, OFFSET, end, OFFSET, 0.3f, startResult, OFFSET, COUNT);
+        Quaternion.slerp(start, OFFSET, endResult, OFFSET, 0.3f, endResult, OFFSET, COUNT);
+
+        Quaternion expected = new Quaternion();
+        for (int i = 0; i < COUNT; i++) {
+            int offset = OFFSET + i * 4;
+            Quaternion.slerp(
+                    readRotation(start, offset), readRotation(end, offset), 0.3f, expected);
+            assertRotation(expected.normalized(), startResult, offset);
+            assertRotation(expected.normalized(), endResult, offset);
+        }
+        for (int i = 0; i < OFFSET; i++) {
+            assertEquals(start[i], startResult[i], 0.0f);
+            assertEquals(end[i], endResult[i], 0.0f);
+        }
+    }
+
+    @Test
+    public void packedSlerpAndNlerp_takeShortestPath() {
+        // The end rotation is 90 degrees about y, negated. Both represent the same rotation, so
+        // half way is 45 degrees about y, not the long way round.
+        Quaternion quarterTurn = Quaternion.axisAngle(Vector3.up(), 90.0f);
+        float[] start = {0.0f, 0.0f, 0.0f, 1.0f};
+        float[] end = {-quarterTurn.x, -quarterTurn.y, -quarterTurn.z, -quarterTurn.w};
+        float[] dest = new float[4];
+        Quaternion expected = Quaternion.axisAngle(Vector3.up(), 45.0f);
+
+        Quaternion.slerp(start, 0, end, 0, 0.5f, dest, 0, 1);
+        assertRotation(expected, dest, 0);
+
+        Quaternion.nlerp(start, 0, end, 0, 0.5f, dest, 0, 1);
+        assertRotation(expected, dest, 0);
+
+        // At t = 1 the result is the end rotation on the same side as the start.
+        Quaternion.slerp(start, 0, end, 0, 1.0f, dest, 0, 1);
+        assertRotation(quarterTurn, dest, 0);
+    }
+
+    @Test
+    public void packedNlerp_matchesNormalizedLerpAlongShortestPath() {
+        float[] start = new float[COUNT * 4];
+        float[] end = new float[OFFSET + COUNT * 4];
+        fillRotationPairs(start, 0, end, OFFSET);
+        float[] dest = new float[COUNT * 4];
+
+        for (float t : RATIOS) {
+            Quaternion.nlerp(start, 0, end, OFFSET, t, dest, 0, COUNT);
+
+            for (int i = 0; i < COUNT; i++) {
+                Quaternion a = readRotation(start, i * 4);
+                Quaternion b = readRotation(end, OFFSET + i * 4);
+                if (Quaternion.dot(a, b) < 0.0f) {
+                    b = b.negated();
+                }
+                Quaternion expected =
+                        new Quaternion(
+                                MathHelper.lerp(a.x, b.x, t),
+                                MathHelper.lerp(a.y, b.y, t),
+                                MathHelper.lerp(a.z, b.z, t),
+                                MathHelper.lerp(a.w, b.w, t));
+                assertRotation(expected.normalized(), dest, i * 4);
+            }
+        }
+    }
+
+    @Test
+    public void packedNlerp_closeRotations_matchesSlerp() {
+        float[] start = new float[COUNT * 4];
+        float[] end = new float[COUNT * 4];
+        for (int i = 0; i < COUNT; i++) {
+            Quaternion a = randomRotation();
+            Quaternion step = Quaternion.axisAngle(randomVector(), random.nextFloat() * 2.0f);
+            writeRotation(a, start, i * 4);
+            writeRotation(Quaternion.multiply(a, step), end, i * 4);
+        }
+        float[] slerped = new float[COUNT * 4];
+        float[] nlerped = new float[COUNT * 4];
+
+        Quaternion.slerp(start, 0, end, 0, 0.4f, slerped, 0, COUNT);
+        Quaternion.nlerp(start, 0, end, 0, 0.4f, nlerped, 0, COUNT);
+
+        for (int i = 0; i < COUNT * 4; i++) {
+            assertEquals(slerped[i], nlerped[i], 1e-4f);
+        }
+    }
+
+    @Test
+    public void packedLerp_matchesLerp() {
+        float[] a = randomArray(COUNT * 3 + OFFSET);
+        float[] b = randomArray(COUNT * 3);
+        float[] dest = new float[COUNT * 3 + 1];
+
+        Vector3 expected = new Vector3();
+        for (float t : RATIOS) {
+            Vector3.lerp(a, OFFSET, b, 0, t, dest, 1, COUNT);
+
+            for (int i = 0; i < COUNT; i++) {
+                Vector3.lerp(readVector(a, OFFSET + i * 3), readVector(b, i * 3), t, expected);
+                assertVector(expected, dest, 1 + i * 3);
+            }
+        }
+    }
+
+    @Test
+    public void packedLerp_inPlace_matchesLerp() {
+        float[] a = randomArray(COUNT * 3 + OFFSET);
+        float[] b = randomArray(COUNT * 3 + OFFSET);
+        float[] result = b.clone();
+
+        Vector3.lerp(a, OFFSET, result, OFFSET, 0.7f, result, OFFSET, COUNT);
+
+        Vector3 expected = new Vector3();
+        for (int i = 0; i < COUNT; i++) {
+            int offset = OFFSET + i * 3;
+            Vector3.lerp(readVector(a, offset), readVector(b, offset), 0.7f, expected);
+            assertVector(expected, result, offset);
+        }
+        for (int i = 0; i < OFFSET; i++) {
+            assertEquals(b[i], result[i], 0.0f);
+        }
+    }
+
+    @Test
+    public void packedKernels_outOfRange_throwBeforeWriting() {
+        float[] rotations = new float[8];
+        rotations[3] = 1.0f;
+        rotations[7] = 1.0f;
+        float[] dest = new float[8];
+
+        assertOutOfRange(() -> Quaternion.slerp(rotations, 0, rotations, 4, 0.5f, dest, 0, 2));
+        assertOutOfRange(() -> Quaternion.slerp(rotations, 0, rotations, 0, 0.5f, dest, 5, 2));
+        assertOutOfRange(() -> Quaternion.nlerp(rotations, -1, rotations, 0, 0.5f, dest, 0, 1));
+        assertOutOfRange(() -> Quaternion.nlerp(rotations, 0, rotations, 0, 0.5f, dest, 0, 3));
+        assertOutOfRange(() -> Vector3.lerp(dest, 0, dest, 0, 0.5f, rotations, 6, 1));
+        assertOutOfRange(() -> Vector3.lerp(dest, 0, dest, 3, 0.5f, rotations, 0, 2));
+        for (int i = 0; i < dest.length; i++) {
+            assertEquals(0.0f, dest[i], 0.0f);
+        }
+
+        try {
+            Quaternion.slerp(rotations, 0, rotations, 0, 0.5f, dest, 0, -1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        try {
+            Vector3.lerp(dest, 0, dest, 0, 0.5f, dest, 0, -1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+
+        // An empty range at the end of the array is allowed.
+        Quaternion.slerp(rotations, 8, rotations, 8, 0.5f, dest, 8, 0);
+        Vector3.lerp(rotations, 8, rotations, 8, 0.5f, dest, 8, 0);
+    }
+
+    @Test
+    public void evaluators_withReuse_returnSameInstance() {
+        Quaternion start = randomRotation();
+        Quaternion end = randomRotation();
+        Quaternion rotation = new Quaternion();
+        QuaternionEvaluator quaternionEvaluator = new QuaternionEvaluator(rotation);
+        assertSame(rotation, quaternionEvaluator.evaluate(0.5f, start, end));
+        Quaternion expectedRotation = Quaternion.slerp(start, end, 0.5f);
+        assertEquals(expectedRotation.x, rotation.x, TOLERANCE);
+        assertEquals(expectedRotation.y, rotation.y, TOLERANCE);
+        assertEquals(expectedRotation.z, rotation.z, TOLERANCE);
+        assertEquals(expectedRotation.w, rotation.w, TOLERANCE);
+
+        QuaternionEvaluator newQuaternionEvaluator = new QuaternionEvaluator();
+        assertNotSame(
+                newQuaternionEvaluator.evaluate(0.5f, start, end),
+                newQuaternionEvaluator.evaluate(0.5f, start, end));
+
+        Vector3 position = new Vector3();
+        Vector3Evaluator vector3Evaluator = new Vector3Evaluator(position);
+        assertSame(position, vector3Evaluator.evaluate(0.25f, Vector3.zero(), Vector3.one()));
+        assertTrue(Vector3.equals(new Vector3(0.25f, 0.25f, 0.25f), position));
+
+        Vector3Evaluator newVector3Evaluator = new Vector3Evaluator();
+        assertNotSame(
+                newVector3Evaluator.evaluate(0.5f, Vector3.zero(), Vector3.one()),
+                newVector3Evaluator.evaluate(0.5f, Vector3.zero(), Vector3.one()));
+    }
+
+    @Test
+    public void kernelsAndReusingEvaluators_doNotAllocate() {
+        float[] start = new float[COUNT * 4];
+        float[] end = new float[COUNT * 4];
+        fillRotationPairs(start, 0, end, 0);
+        float[] rotations = new float[COUNT * 4];
+        float[] positions = randomArray(COUNT * 3);
+        float[] targets = randomArray(COUNT * 3);
+
+        Quaternion startRotation = randomRotation();
+        Quaternion endRotation = randomRotation();
+        Vector3 startPosition = randomVector();
+        Vector3 endPosition = randomVector();
+        QuaternionEvaluator quaternionEvaluator = new QuaternionEvaluator(new Quaternion());
+        Vector3Evaluator vector3Evaluator = new Vector3Evaluator(new Vector3());
+
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> {
+                            Quaternion.slerp(start, 0, end, 0, 0.3f, rotations, 0, COUNT);
+                            Quaternion.nlerp(start, 0, end, 0, 0.3f, rotations, 0, COUNT);
+                            Vector3.lerp(positions, 0, targets, 0, 0.3f, positions, 0, COUNT);
+                            quaternionEvaluator.evaluate(0.3f, startRotation, endRotation);
+                            vector3Evaluator.evaluate(0.3f, startPosition, endPosition);
+                        },
+                        1000);
+        assertEquals(0, allocatedBytes);
+    }
+
+    /**
+     * Fills both arrays with random rotation pairs. Some pairs are close enough together to be
+     * interpolated linearly, and some are more than 180 degrees apart, to exercise the shortest
+     * path.
+     */
+    private void fillRotationPairs(float[] start, int startOffset, float[] end, int endOffset) {
+        for (int i = 0; i < COUNT; i++) {
+            Quaternion a = randomRotation();
+            Quaternion b = i % 4 == 0 ? new Quaternion(a) : randomRotation();
+            if (i % 3 == 0) {
+                b = b.negated();
+            }
+            writeRotation(a, start, startOffset + i * 4);
+            writeRotation(b, end, endOffset + i * 4);
+        }
+    }
+
+    private Vector3 randomVector() {
+        return new Vector3(
+                random.nextFloat() * 2.0f - 1.0f,
+                random.nextFloat() * 2.0f - 1.0f,
+                random.nextFloat() * 2.0f - 1.0f);
+    }
+
+    private Quaternion randomRotation() {
+        return Quaternion.axisAngle(randomVector(), random.nextFloat() * 360.0f);
+    }
+
+    private float[] randomArray(int length) {
+        float[] array = new float[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = random.nextFloat() * 10.0f - 5.0f;
+        }
+        return array;
+    }
+
+    private static void assertOutOfRange(Runnable kernel) {
+        try {
+            kernel.run();
+            fail();
+        } catch (ArrayIndexOutOfBoundsException e) {
+            // Expected.
+        }
+    }
+
+    private static Quaternion readRotation(float[] array, int offset) {
+        return new Quaternion(
+                array[offset], array[offset + 1], array[offset + 2], array[offset + 3]);
+    }
+
+    private static void writeRotation(Quaternion rotation, float[] array, int offset) {
+        array[offset] = rotation.x;
+        array[offset + 1] = rotation.y;
+        array[offset + 2] = rotation.z;
+        array[offset + 3] = rotation.w;
+    }
+
+    private static Vector3 readVector(float[] array, int offset) {
+        return new Vector3(array[offset], array[offset + 1], array[offset + 2]);
+    }
+
+    private static void assertRotation(Quaternion expected, float[] actual, int offset) {
+        assertEquals(expected.x, actual[offset], TOLERANCE);
+        assertEquals(expected.y, actual[offset + 1], TOLERANCE);
+        assertEquals(expected.z, actual[offset + 2], TOLERANCE);
+        assertEquals(expected.w, actual[offset + 3], TOLERANCE);
+    }
+
+    private static void assertVector(Vector3 expected, float[] actual, int offset) {
+        assertEquals(expected.x, actual[offset], TOLERANCE);
+        assertEquals(expected.y, actual[offset + 1], TOLERANCE);
+        assertEquals(expected.z, actual[offset + 2], TOLERANCE);
+    }
+}
@@ -0,0 +1,167 @@
+package com.google.ar.sceneform.math;
+
+import com.google.ar.sceneform.utilities.AllocationCounter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MatrixInverseTest {
+    private static final int ITERATIONS = 1000;
+    private static final float RELATIVE_TOLERANCE = 1e-4f;
+
+    private final Random random = new Random(23);
+
+    @Test
+    public void invertAffine_matchesInvert() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            Matrix matrix = randomTrs();
+            assertAffineInverseMatchesInvert(matrix);
+        }
+    }
+
+    @Test
+    public void invertAffine_withShearedParent_matchesInvert() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            // A rotated child of a parent with a non-uniform scale has a sheared world transform.
+            Matrix parent = new Matrix();
+            parent.makeTrs(randomVector(), randomRotation(), new Vector3(0.5f, 3.0f, 1.5f));
+            Matrix world = new Matrix();
+            Matrix.multiply(parent, randomTrs(), world);
+            assertAffineInverseMatchesInvert(world);
+        }
+    }
+
+    @Test
+    public void invertTrs_matchesInvert() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            Vector3 translation = randomVector().scaled(100.0f);
+            Quaternion rotation = randomRotation();
+            Vector3 scale = randomScale();
+            Matrix matrix = new Matrix();
+            matrix.makeTrs(translation, rotation, scale);
+
+            Matrix expected = new Matrix();
+            assertTrue(Matrix.invert(matrix, expected));
+            Matrix actual = new Matrix();
+            assertTrue(Matrix.invertTrs(translation, rotation, scale, actual));
+            assertMatrixEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void zeroScale_invertOverwritesDestAndFastPathsLeaveIt() {
+        Vector3 translation = new Vector3(1.0f, 2.0f, 3.0f);
+        Quaternion rotation = Quaternion.axisAngle(Vector3.up(), 30.0f);
+        Vector3 scale = new Vector3(1.0f, 0.0f, 2.0f);
+        Matrix matrix = new Matrix();
+        matrix.makeTrs(translation, rotation, scale);
+        float[] unchanged = randomTrs().data.clone();
+
+        Matrix dest = new Matrix(unchanged);
+        assertFalse(Matrix.invertTrs(translation, rotation, scale, dest));
+        assertArrayEquals(unchanged, dest.data, 0.0f);
+        assertFalse(Matrix.invertAffine(matrix, dest));
+        assertArrayEquals(unchanged, dest.data, 0.0f);
+
+        // The general inverse writes the cofactors to dest before it finds the determinant, and
+        // affine matrices aren't treated differently.
+        assertFalse(Matrix.invert(matrix, dest));
+        assertFalse(Arrays.equals(unchanged, dest.data));
+        Matrix inPlace = new Matrix(matrix.data);
+        assertFalse(Matrix.invert(inPlace, inPlace));
+        assertArrayEquals(dest.data, inPlace.data, 0.0f);
+    }
+
+    @Test
+    public void invert_projectionMatrix_isInverse() {
+        Matrix projection = new Matrix();
+        float[] data = projection.data;
+        data[0] = 1.5f;
+        data[5] = 2.0f;
+        data[8] = 0.1f;
+        data[10] = -1.002f;
+        data[11] = -1.0f;
+        data[14] = -0.2002f;
+        data[15] = 0.0f;
+
+        Matrix inverse = new Matrix();
+        assertTrue(Matrix.invert(projection, inverse));
+        Matrix product = new Matrix();
+        Matrix.multiply(projection, inverse, product);
+        assertArrayEquals(Matrix.IDENTITY_DATA, product.data, 1e-5f);
+    }
+
+    @Test
+    public void fastPaths_doNotAllocate() {
+        Vector3 translation = randomVector();
+        Quaternion rotation = randomRotation();
+        Vector3 scale = randomScale();
+        Matrix matrix = randomTrs();
+        Matrix dest = new Matrix();
+
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> {
+                            Matrix.invertAffine(matrix, dest);
+                            Matrix.invertTrs(translation, rotation, scale, dest);
+                            Matrix.invert(matrix, dest);
+                        },
+                        1000);
+        assertEquals(0, allocatedBytes);
+    }
+
+    private static void assertAffineInverseMatchesInvert(Matrix matrix) {
+        Matrix expected = new Matrix();
+        assertTrue(Matrix.invert(matrix, expected));
+        Matrix actual = new Matrix();
+        assertTrue(Matrix.invertAffine(matrix, actual));
+        assertMatrixEquals(expected, actual);
+
+        Matrix inPlace = new Matrix(matrix.data);
+        assertTrue(Matrix.invertAffine(inPlace, inPlace));
+        assertArrayEquals(actual.data, inPlace.data, 0.0f);
+    }
+
+    /** Compares relative to the largest element, since the paths round differently. */
+    private static void assertMatrixEquals(Matrix expected, Matrix actual) {
+        float largest = 1.0f;
+        for (int i = 0; i < 16; i++) {
+            largest = Math.max(largest, Math.abs(expected.data[i]));
+        }
+        assertArrayEquals(expected.data, actual.data, largest * RELATIVE_TOLERANCE);
+    }
+
+    private Vector3 randomVector() {
+        return new Vector3(
+                random.nextFloat() * 2.0f - 1.0f,
+                random.nextFloat() * 2.0f - 1.0f,
+                random.nextFloat() * 2.0f - 1.0f);
+    }
+
+    /** Returns a non-uniform scale whose components are at least 0.1 from zero, some negative. */
+    private Vector3 randomScale() {
+        return new Vector3(randomScaleComponent(), randomScaleComponent(), randomScaleComponent());
+    }
+
+    private float randomScaleComponent() {
+        float magnitude = 0.1f + random.nextFloat() * 3.0f;
+        return random.nextInt(8) == 0 ? -magnitude : magnitude;
+    }
+
+    private Quaternion randomRotation() {
+        return Quaternion.axisAngle(randomVector(), random.nextFloat() * 360.0f);
+    }
+
+    private Matrix randomTrs() {
+        Matrix matrix = new Matrix();
+        matrix.makeTrs(randomVector().scaled(100.0f), randomRotation(), randomScale());
+        return matrix;
+    }
+}
@@ -0,0 +1,284 @@
+package com.google.ar.sceneform.math;
+
+import com.google.ar.sceneform.utilities.AllocationCounter;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class OutParamMathTest {
+    private static final int ITERATIONS = 200;
+    private static final float TOLERANCE = 1e-5f;
+
+    private final Random random = new Random(21);
+
+    @Test
+    public void vector3DestVariants_matchAllocatingVersions_includingAliasedDest() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            Vector3 a = randomVector();
+            Vector3 b = randomVector();
+            float t = random.nextFloat();
+            Vector3 dest = new Vector3();
+
+            a.normalized(dest);
+            assertVector(a.normalized(), dest);
+            a.scaled(t, dest);
+            assertVector(a.scaled(t), dest);
+            a.negated(dest);
+            assertVector(a.negated(), dest);
+
+            Vector3 expected = Vector3.add(a, b);
+            Vector3.add(a, b, dest);
+            assertVector(expected, dest);
+            assertVector(expected, aliasedLhs(a, b, Vector3::add));
+            assertVector(expected, aliasedRhs(a, b, Vector3::add));
+
+            expected = Vector3.subtract(a, b);
+            Vector3.subtract(a, b, dest);
+            assertVector(expected, dest);
+            assertVector(expected, aliasedLhs(a, b, Vector3::subtract));
+            assertVector(expected, aliasedRhs(a, b, Vector3::subtract));
+
+            expected = Vector3.cross(a, b);
+            assertVector(
+                    new Vector3(
+                            a.y * b.z - a.z * b.y, a.z * b.x - a.x * b.z, a.x * b.y - a.y * b.x),
+                    expected);
+            assertVector(expected, aliasedLhs(a, b, Vector3::cross));
+            assertVector(expected, aliasedRhs(a, b, Vector3::cross));
+
+            expected = Vector3.min(a, b);
+            assertVector(expected, aliasedLhs(a, b, Vector3::min));
+            assertVector(expected, aliasedRhs(a, b, Vector3::min));
+
+            expected = Vector3.max(a, b);
+            assertVector(expected, aliasedLhs(a, b, Vector3::max));
+            assertVector(expected, aliasedRhs(a, b, Vector3::max));
+
+            expected = Vector3.lerp(a, b, t);
+            assertVector(expected, aliasedLhs(a, b, (lhs, rhs, d) -> Vector3.lerp(lhs, rhs, t, d)));
+            assertVector(expected, aliasedRhs(a, b, (lhs, rhs, d) -> Vector3.lerp(lhs, rhs, t, d)));
+
+            Vector3 aliased = new Vector3(a);
+            aliased.normalized(aliased);
+            assertVector(a.normalized(), aliased);
+        }
+    }
+
+    @Test
+    public void quaternionDestVariants_matchAllocatingVersions_includingAliasedDest() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            Quaternion p = randomRotation();
+            Quaternion q = randomRotation();
+            Vector3 v = randomVector();
+            float t = random.nextFloat();
+
+            Quaternion expected = Quaternion.multiply(p, q);
+            Quaternion aliased = new Quaternion(p);
+            Quaternion.multiply(aliased, q, aliased);
+            assertQuaternion(expected, aliased);
+            aliased = new Quaternion(q);
+            Quaternion.multiply(p, aliased, aliased);
+            assertQuaternion(expected, aliased);
+
+            expected = Quaternion.slerp(p, q, t);
+            aliased = new Quaternion(p);
+            Quaternion.slerp(aliased, q, t, aliased);
+            assertQuaternion(expected, aliased);
+            aliased = new Quaternion(q);
+            Quaternion.slerp(p, aliased, t, aliased);
+            assertQuaternion(expected, aliased);
+
+            aliased = new Quaternion(p);
+            aliased.inverted(aliased);
+            assertQuaternion(p.inverted(), aliased);
+
+            Vector3 rotated = Quaternion.rotateVector(p, v);
+            Vector3 aliasedVector = new Vector3(v);
+            Quaternion.rotateVector(p, aliasedVector, aliasedVector);
+            assertVector(rotated, aliasedVector);
+            Quaternion.inverseRotateVector(p, aliasedVector, aliasedVector);
+            assertVector(Quaternion.inverseRotateVector(p, rotated), aliasedVector);
+            assertVector(v, aliasedVector);
+
+            Quaternion dest = new Quaternion();
+            Quaternion.axisAngle(v, t * 360.0f, dest);
+            assertQuaternion(Quaternion.axisAngle(v, t * 360.0f), dest);
+            Quaternion.eulerAngles(v.scaled(180.0f), dest);
+            assertQuaternion(Quaternion.eulerAngles(v.scaled(180.0f)), dest);
+            Quaternion.rotationBetweenVectors(v, rotated, dest);
+            assertQuaternion(Quaternion.rotationBetweenVectors(v, rotated), dest);
+        }
+    }
+
+    @Test
+    public void quaternionResults_matchTheirDefinitions() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            Quaternion q = randomRotation();
+            Vector3 v = randomVector();
+
+            // A rotation applied to a vector is q * v * q^-1. Quaternions are normalized when
+            // they are set, so the vector is a unit vector.
+            Vector3 unit = v.normalized();
+            Quaternion pure = new Quaternion();
+            pure.x = unit.x;
+            pure.y = unit.y;
+            pure.z = unit.z;
+            pure.w = 0.0f;
+            Quaternion sandwich = Quaternion.multiply(Quaternion.multiply(q, pure), q.inverted());
+            assertVector(
+                    new Vector3(sandwich.x, sandwich.y, sandwich.z),
+                    Quaternion.rotateVector(q, unit));
+
+            // The angles are applied in Z, Y, X order.
+            Vector3 angles = randomVector().scaled(180.0f);
+            Quaternion composed =
+                    Quaternion.multiply(
+                            Quaternion.multiply(
+                                    Quaternion.axisAngle(Vector3.up(), angles.y),
+                                    Quaternion.axisAngle(Vector3.right(), angles.x)),
+                            Quaternion.axisAngle(Vector3.back(), angles.z));
+            assertSameRotation(composed, Quaternion.eulerAngles(angles));
+
+            Vector3 end = randomVector();
+            assertVector(
+                    end.normalized(),
+                    Quaternion.rotateVector(Quaternion.rotationBetweenVectors(v, end), v)
+                            .normalized());
+            assertVector(
+                    v.negated().normalized(),
+                    Quaternion.rotateVector(Quaternion.rotationBetweenVectors(v, v.negated()), v)
+                            .normalized());
+
+            Quaternion end2 = randomRotation();
+            assertSameRotation(q, Quaternion.slerp(q, end2, 0.0f));
+            assertSameRotation(end2, Quaternion.slerp(q, end2, 1.0f));
+        }
+    }
+
+    @Test
+    public void matrixDestVariants_matchAllocatingVersions_includingAliasedDest() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            Matrix lhs = randomTrs();
+            Matrix rhs = randomTrs();
+            Vector3 v = randomVector();
+
+            Vector3 aliased = new Vector3(v);
+            lhs.transformPoint(aliased, aliased);
+            assertVector(lhs.transformPoint(v), aliased);
+            aliased.set(v);
+            lhs.transformDirection(aliased, aliased);
+            assertVector(lhs.transformDirection(v), aliased);
+
+            Matrix expected = new Matrix();
+            Matrix.multiply(lhs, rhs, expected);
+            Matrix aliasedMatrix = new Matrix(lhs.data);
+            Matrix.multiply(aliasedMatrix, rhs, aliasedMatrix);
+            assertMatrix(expected, aliasedMatrix);
+            aliasedMatrix = new Matrix(rhs.data);
+            Matrix.multiply(lhs, aliasedMatrix, aliasedMatrix);
+            assertMatrix(expected, aliasedMatrix);
+
+            // The product transforms a point the same as the two matrices in turn.
+            assertVector(lhs.transformPoint(rhs.transformPoint(v)), expected.transformPoint(v));
+        }
+    }
+
+    @Test
+    public void destVariants_doNotAllocate() {
+        Vector3 a = randomVector();
+        Vector3 b = randomVector();
+        Vector3 vectorDest = new Vector3();
+        Quaternion p = randomRotation();
+        Quaternion q = randomRotation();
+        Quaternion quaternionDest = new Quaternion();
+        Matrix matrix = randomTrs();
+        Matrix matrixDest = new Matrix();
+
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> {
+                            a.normalized(vectorDest);
+                            a.scaled(0.5f, vectorDest);
+                            a.negated(vectorDest);
+                            Vector3.add(a, b, vectorDest);
+                            Vector3.subtract(a, b, vectorDest);
+                            Vector3.cross(a, b, vectorDest);
+                            Vector3.min(a, b, vectorDest);
+                            Vector3.max(a, b, vectorDest);
+                            Vector3.lerp(a, b, 0.5f, vectorDest);
+                            p.inverted(quaternionDest);
+                            Quaternion.multiply(p, q, quaternionDest);
+                            Quaternion.slerp(p, q, 0.5f, quaternionDest);
+                            Quaternion.rotateVector(p, a, vectorDest);
+                            Quaternion.inverseRotateVector(p, a, vectorDest);
+                            Quaternion.axisAngle(a, 30.0f, quaternionDest);
+                            Quaternion.eulerAngles(a, quaternionDest);
+                            Quaternion.rotationBetweenVectors(a, b, quaternionDest);
+                            matrix.transformPoint(a, vectorDest);
+                            matrix.transformDirection(a, vectorDest);
+                            Matrix.multiply(matrix, matrix, matrixDest);
+                        },
+                        1000);
+        assertEquals(0, allocatedBytes);
+    }
+
+    private interface VectorOperation {
+        void apply(Vector3 lhs, Vector3 rhs, Vector3 dest);
+    }
+
+    private static Vector3 aliasedLhs(Vector3 lhs, Vector3 rhs, VectorOperation operation) {
+        Vector3 dest = new Vector3(lhs);
+        operation.apply(dest, rhs, dest);
+        return dest;
+    }
+
+    private static Vector3 aliasedRhs(Vector3 lhs, Vector3 rhs, VectorOperation operation) {
+        Vector3 dest = new Vector3(rhs);
+        operation.apply(lhs, dest, dest);
+        return dest;
+    }
+
+    private Vector3 randomVector() {
+        return new Vector3(
+                random.nextFloat() * 2.0f - 1.0f,
+                random.nextFloat() * 2.0f - 1.0f,
+                random.nextFloat() * 2.0f - 1.0f);
+    }
+
+    private Quaternion randomRotation() {
+        return Quaternion.axisAngle(randomVector(), random.nextFloat() * 360.0f);
+    }
+
+    private Matrix randomTrs() {
+        Matrix matrix = new Matrix();
+        matrix.makeTrs(randomVector(), randomRotation(), randomVector().scaled(2.0f));
+        return matrix;
+    }
+
+    private static void assertVector(Vector3 expected, Vector3 actual) {
+        assertEquals(expected.x, actual.x, TOLERANCE);
+        assertEquals(expected.y, actual.y, TOLERANCE);
+        assertEquals(expected.z, actual.z, TOLERANCE);
+    }
+
+    private static void assertQuaternion(Quaternion expected, Quaternion actual) {
+        assertEquals(expected.x, actual.x, TOLERANCE);
+        assertEquals(expected.y, actual.y, TOLERANCE);
+        assertEquals(expected.z, actual.z, TOLERANCE);
+        assertEquals(expected.w, actual.w, TOLERANCE);
+    }
+
+    /** Checks that two quaternions represent the same rotation, as q and -q do. */
+    private static void assertSameRotation(Quaternion expected, Quaternion actual) {
+        assertEquals(1.0f, Math.abs(Quaternion.dot(expected, actual)), TOLERANCE);
+    }
+
+    private static void assertMatrix(Matrix expected, Matrix actual) {
+        for (int i = 0; i < 16; i++) {
+            assertEquals(expected.data[i], actual.data[i], TOLERANCE);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.google.ar.sceneform.utilities;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counts the bytes allocated by the current thread, for tests that check that a code path doesn't
+ * allocate in steady state. Only supported on JVMs that implement {@code
+ * com.sun.management.ThreadMXBean}, which includes the host JVM used for unit tests.
+ */
+public final class AllocationCounter {
+    private static final int WARMUP_ITERATIONS = 20000;
+    private static final int ROUNDS = 5;
+
+    private AllocationCounter() {}
+
+    /**
+     * Runs the task until the JIT has compiled it, then returns the number of bytes allocated while
+     * running it the given number of times. The count is taken over a few rounds and the smallest
+     * one is returned, so that one-off allocations by the runtime, such as while the JIT
+     * recompiles, aren't counted. Allocations made by every iteration show up in every round.
+     */
+    public static long countAllocatedBytes(Runnable task, int iterations) {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            task.run();
+        }
+
+        // Measure the measurement itself, so that only the task is counted.
+        long start = threadBean.getThreadAllocatedBytes(threadId);
+        long overhead = threadBean.getThreadAllocatedBytes(threadId) - start;
+
+        long minAllocated = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            start = threadBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < iterations; i++) {
+                task.run();
+            }
+            long allocated = threadBean.getThreadAllocatedBytes(threadId) - start - overhead;
+            minAllocated = Math.min(minAllocated, Math.max(allocated, 0));
+        }
+        return minAllocated;
+    }
+}
@@ -274,7 +274,12 @@ public class AugmentedFaceNode extends Node {
     private void updateTransform() {
         // Update this node to be positioned at the center pose of the face.
         Pose centerPose = checkNotNull(augmentedFace).getCenterPose();
-        setWorldPosition(new Vector3(centerPose.tx(), centerPose.ty(), centerPose.tz()));
+        Vector3 position = new Vector3(centerPose.tx(), centerPose.ty(), centerPose.tz());
+        Scene scene = getScene();
+        if (scene != null) {
+            scene.sessionToWorldPosition(centerPose, position);
+        }
+        setWorldPosition(position);
         setWorldRotation(new Quaternion(centerPose.qx(), centerPose.qy(), centerPose.qz(), centerPose.qw()));
     }
 
@@ -287,12 +292,22 @@ public class AugmentedFaceNode extends Node {
 
         Matrix.invertM(inverseRootNodeMatrix, 0, getWorldModelMatrix().data, 0);
 
+        // The region poses are in the ARCore session, which is offset from the world once the
+        // origin of the scene has been shifted.
+        Scene scene = getScene();
+        double originX = scene != null ? scene.getOriginX() : 0.0;
+        double originY = scene != null ? scene.getOriginY() : 0.0;
+        double originZ = scene != null ? scene.getOriginZ() : 0.0;
+
         for(RegionType type : RegionType.values()) {
             Pose pose = augmentedFace.getRegionPose(type);
 
             Log.d(TAG, type + " " + pose.toString());
 
             pose.toMatrix(regionPoseMatrix, 0);
+            regionPoseMatrix[12] = (float) (regionPoseMatrix[12] - originX);
+            regionPoseMatrix[13] = (float) (regionPoseMatrix[13] - originY);
+            regionPoseMatrix[14] = (float) (regionPoseMatrix[14] - originZ);
 
             Matrix.multiplyMM(matrix, 0, inverseRootNodeMatrix, 0, regionPoseMatrix, 0);
 
@@ -19,6 +19,7 @@ import android.util.Log;
 import android.view.MotionEvent;
 import com.google.ar.sceneform.HitTestResult;
 import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.utilities.Preconditions;
 
 /** Gesture for when the user performs a drag motion on the touch screen. */
 public class DragGesture extends BaseGesture<DragGesture> {
@@ -53,6 +54,12 @@ public class DragGesture extends BaseGesture<DragGesture> {
     return new Vector3(position);
   }
 
+  /** Same as {@link #getPosition()}, but sets the result in dest. */
+  public void getPosition(Vector3 dest) {
+    Preconditions.checkNotNull(dest, "Parameter \"dest\" was null.");
+    dest.set(position);
+  }
+
   public Vector3 getDelta() {
     return new Vector3(delta);
   }
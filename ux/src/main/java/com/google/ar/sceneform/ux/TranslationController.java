@@ -16,6 +16,7 @@
 package com.google.ar.sceneform.ux;
 
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import com.google.ar.core.Anchor;
 import com.google.ar.core.Camera;
 import com.google.ar.core.Frame;
@@ -33,7 +34,6 @@ import com.google.ar.sceneform.Scene;
 import com.google.ar.sceneform.math.MathHelper;
 import com.google.ar.sceneform.math.Quaternion;
 import com.google.ar.sceneform.math.Vector3;
-import com.google.ar.sceneform.utilities.Preconditions;
 import java.util.EnumSet;
 import java.util.List;
 
@@ -44,11 +44,27 @@ import java.util.List;
  */
 public class TranslationController extends BaseTransformationController<DragGesture> {
   @Nullable private HitResult lastArHitResult;
-  @Nullable private Vector3 desiredLocalPosition;
-  @Nullable private Quaternion desiredLocalRotation;
+  // The pose that the node moves towards, while the matching flag is set.
+  private final Vector3 desiredLocalPosition = new Vector3();
+  private final Quaternion desiredLocalRotation = new Quaternion();
+  private boolean hasDesiredLocalPosition;
+  private boolean hasDesiredLocalRotation;
 
   private final Vector3 initialForwardInLocal = new Vector3();
 
+  // Reused by the per frame updates and by each update of the gesture.
+  private final Vector3 localPosition = new Vector3();
+  private final Quaternion localRotation = new Quaternion();
+  private final Quaternion parentWorldRotation = new Quaternion();
+  private final Vector3 positionDifference = new Vector3();
+  private final Vector3 gesturePosition = new Vector3();
+  private final Vector3 hitPosition = new Vector3();
+  private final Quaternion hitRotation = new Quaternion();
+  private final Vector3 rotatedUp = new Vector3();
+  private final Quaternion forwardInLocal = new Quaternion();
+  private final Vector3 up = Vector3.up();
+  private final Vector3 forward = Vector3.forward();
+
   private EnumSet<Plane.Type> allowedPlaneTypes = EnumSet.allOf(Plane.Type.class);
 
   private static final float LERP_SPEED = 12.0f;
@@ -83,7 +99,7 @@ public class TranslationController extends BaseTransformationController<DragGest
   public boolean isTransforming() {
     // As long as the transformable node is still interpolating towards the final pose, this
     // controller is still transforming.
-    return super.isTransforming() || desiredLocalRotation != null || desiredLocalPosition != null;
+    return super.isTransforming() || hasDesiredLocalRotation || hasDesiredLocalPosition;
   }
 
   @Override
@@ -102,12 +118,10 @@ public class TranslationController extends BaseTransformationController<DragGest
       return false;
     }
 
-    Vector3 initialForwardInWorld = transformableNode.getForward();
+    transformableNode.getForward(initialForwardInLocal);
     Node parent = transformableNode.getParentNode();
     if (parent != null) {
-      initialForwardInLocal.set(parent.worldToLocalDirection(initialForwardInWorld));
-    } else {
-      initialForwardInLocal.set(initialForwardInWorld);
+      parent.worldToLocalDirection(initialForwardInLocal, initialForwardInLocal);
     }
 
     return true;
@@ -130,8 +144,8 @@ public class TranslationController extends BaseTransformationController<DragGest
       return;
     }
 
-    Vector3 position = gesture.getPosition();
-    List<HitResult> hitResultList = frame.hitTest(position.x, position.y);
+    gesture.getPosition(gesturePosition);
+    List<HitResult> hitResultList = frame.hitTest(gesturePosition.x, gesturePosition.y);
     for (int i = 0; i < hitResultList.size(); i++) {
       HitResult hit = hitResultList.get(i);
       Trackable trackable = hit.getTrackable();
@@ -139,19 +153,9 @@ public class TranslationController extends BaseTransformationController<DragGest
       if (trackable instanceof Plane) {
         Plane plane = (Plane) trackable;
         if (plane.isPoseInPolygon(pose) && allowedPlaneTypes.contains(plane.getType())) {
-          desiredLocalPosition = new Vector3(pose.tx(), pose.ty(), pose.tz());
-          desiredLocalRotation = new Quaternion(pose.qx(), pose.qy(), pose.qz(), pose.qw());
-          Node parent = getTransformableNode().getParentNode();
-          if (parent != null && desiredLocalPosition != null && desiredLocalRotation != null) {
-            desiredLocalPosition = parent.worldToLocalPoint(desiredLocalPosition);
-            desiredLocalRotation =
-                Quaternion.multiply(
-                    parent.getWorldRotation().inverted(),
-                    Preconditions.checkNotNull(desiredLocalRotation));
-          }
-
-          desiredLocalRotation =
-              calculateFinalDesiredLocalRotation(Preconditions.checkNotNull(desiredLocalRotation));
+          scene.sessionToWorldPosition(pose, hitPosition);
+          hitRotation.set(pose.qx(), pose.qy(), pose.qz(), pose.qw());
+          setDesiredWorldPose(hitPosition, hitRotation);
           lastArHitResult = hit;
           break;
         }
@@ -181,9 +185,8 @@ public class TranslationController extends BaseTransformationController<DragGest
       Quaternion finalDesiredWorldRotation = worldRotation;
 
       // Since we change the anchor, we need to update the initialForwardInLocal into the new
-      // coordinate space. Local variable for nullness analysis.
-      Quaternion desiredLocalRotation = this.desiredLocalRotation;
-      if (desiredLocalRotation != null) {
+      // coordinate space.
+      if (hasDesiredLocalRotation) {
         getTransformableNode().setLocalRotation(desiredLocalRotation);
         finalDesiredWorldRotation = getTransformableNode().getWorldRotation();
       }
@@ -193,15 +196,39 @@ public class TranslationController extends BaseTransformationController<DragGest
       // Temporarily set the node to the final world rotation so that we can accurately
       // determine the initialForwardInLocal in the new coordinate space.
       getTransformableNode().setWorldRotation(finalDesiredWorldRotation);
-      Vector3 initialForwardInWorld = getTransformableNode().getForward();
-      initialForwardInLocal.set(anchorNode.worldToLocalDirection(initialForwardInWorld));
+      getTransformableNode().getForward(initialForwardInLocal);
+      anchorNode.worldToLocalDirection(initialForwardInLocal, initialForwardInLocal);
 
       getTransformableNode().setWorldRotation(worldRotation);
       getTransformableNode().setWorldPosition(worldPosition);
     }
 
-    desiredLocalPosition = Vector3.zero();
-    desiredLocalRotation = calculateFinalDesiredLocalRotation(Quaternion.identity());
+    desiredLocalPosition.set(0.0f, 0.0f, 0.0f);
+    hasDesiredLocalPosition = true;
+    desiredLocalRotation.setIdentity();
+    calculateFinalDesiredLocalRotation(desiredLocalRotation);
+    hasDesiredLocalRotation = true;
+  }
+
+  /**
+   * Sets the pose that the node moves towards from a world space pose, such as the pose of a plane
+   * hit.
+   */
+  @VisibleForTesting
+  void setDesiredWorldPose(Vector3 worldPosition, Quaternion worldRotation) {
+    desiredLocalPosition.set(worldPosition);
+    desiredLocalRotation.set(worldRotation);
+    Node parent = getTransformableNode().getParentNode();
+    if (parent != null) {
+      parent.worldToLocalPoint(desiredLocalPosition, desiredLocalPosition);
+      parent.getWorldRotation(parentWorldRotation);
+      parentWorldRotation.inverted(parentWorldRotation);
+      Quaternion.multiply(parentWorldRotation, desiredLocalRotation, desiredLocalRotation);
+    }
+
+    calculateFinalDesiredLocalRotation(desiredLocalRotation);
+    hasDesiredLocalPosition = true;
+    hasDesiredLocalRotation = true;
   }
 
   private AnchorNode getAnchorNodeOrDie() {
@@ -214,40 +241,39 @@ public class TranslationController extends BaseTransformationController<DragGest
   }
 
   private void updatePosition(FrameTime frameTime) {
-    // Store in local variable for nullness static analysis.
-    Vector3 desiredLocalPosition = this.desiredLocalPosition;
-    if (desiredLocalPosition == null) {
+    if (!hasDesiredLocalPosition) {
       return;
     }
 
-    Vector3 localPosition = getTransformableNode().getLocalPosition();
+    Vector3 localPosition = this.localPosition;
+    getTransformableNode().getLocalPosition(localPosition);
     float lerpFactor = MathHelper.clamp(frameTime.getDeltaSeconds() * LERP_SPEED, 0, 1);
-    localPosition = Vector3.lerp(localPosition, desiredLocalPosition, lerpFactor);
+    Vector3.lerp(localPosition, desiredLocalPosition, lerpFactor, localPosition);
 
-    float lengthDiff = Math.abs(Vector3.subtract(desiredLocalPosition, localPosition).length());
+    Vector3.subtract(desiredLocalPosition, localPosition, positionDifference);
+    float lengthDiff = positionDifference.length();
     if (lengthDiff <= POSITION_LENGTH_THRESHOLD) {
-      localPosition = desiredLocalPosition;
-      this.desiredLocalPosition = null;
+      localPosition.set(desiredLocalPosition);
+      hasDesiredLocalPosition = false;
     }
 
     getTransformableNode().setLocalPosition(localPosition);
   }
 
   private void updateRotation(FrameTime frameTime) {
-    // Store in local variable for nullness static analysis.
-    Quaternion desiredLocalRotation = this.desiredLocalRotation;
-    if (desiredLocalRotation == null) {
+    if (!hasDesiredLocalRotation) {
       return;
     }
 
-    Quaternion localRotation = getTransformableNode().getLocalRotation();
+    Quaternion localRotation = this.localRotation;
+    getTransformableNode().getLocalRotation(localRotation);
     float lerpFactor = MathHelper.clamp(frameTime.getDeltaSeconds() * LERP_SPEED, 0, 1);
-    localRotation = Quaternion.slerp(localRotation, desiredLocalRotation, lerpFactor);
+    Quaternion.slerp(localRotation, desiredLocalRotation, lerpFactor, localRotation);
 
     float dot = Math.abs(dotQuaternion(localRotation, desiredLocalRotation));
     if (dot >= ROTATION_DOT_THRESHOLD) {
-      localRotation = desiredLocalRotation;
-      this.desiredLocalRotation = null;
+      localRotation.set(desiredLocalRotation);
+      hasDesiredLocalRotation = false;
     }
 
     getTransformableNode().setLocalRotation(localRotation);
@@ -258,18 +284,16 @@ public class TranslationController extends BaseTransformationController<DragGest
    * the hit result. However, we also need to make sure that the original forward direction of the
    * node is respected.
    */
-  private Quaternion calculateFinalDesiredLocalRotation(Quaternion desiredLocalRotation) {
+  private void calculateFinalDesiredLocalRotation(Quaternion desiredLocalRotation) {
     // Get a rotation just to the up direction.
     // Otherwise, the node will spin around as you rotate.
-    Vector3 rotatedUp = Quaternion.rotateVector(desiredLocalRotation, Vector3.up());
-    desiredLocalRotation = Quaternion.rotationBetweenVectors(Vector3.up(), rotatedUp);
+    Quaternion.rotateVector(desiredLocalRotation, up, rotatedUp);
+    Quaternion.rotationBetweenVectors(up, rotatedUp, desiredLocalRotation);
 
     // Adjust the rotation to make sure the node maintains the same forward direction.
-    Quaternion forwardInLocal =
-        Quaternion.rotationBetweenVectors(Vector3.forward(), initialForwardInLocal);
-    desiredLocalRotation = Quaternion.multiply(desiredLocalRotation, forwardInLocal);
-
-    return desiredLocalRotation.normalized();
+    Quaternion.rotationBetweenVectors(forward, initialForwardInLocal, forwardInLocal);
+    Quaternion.multiply(desiredLocalRotation, forwardInLocal, desiredLocalRotation);
+    desiredLocalRotation.normalize();
   }
 
   private static float dotQuaternion(Quaternion lhs, Quaternion rhs) {
@@ -0,0 +1,65 @@
+package com.google.ar.sceneform.ux;
+
+import android.util.DisplayMetrics;
+import android.view.MotionEvent;
+
+import com.google.ar.sceneform.math.Quaternion;
+import com.google.ar.sceneform.utilities.AllocationCounter;
+import com.google.ar.sceneform.utilities.AndroidPreconditions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+
+import static org.junit.Assert.assertEquals;
+
+public class RotationControllerTest {
+    private TransformationSystem transformationSystem;
+    private TransformableNode node;
+    private RotationController controller;
+
+    @Before
+    public void setUp() {
+        AndroidPreconditions.setUnderTesting(true);
+        transformationSystem =
+                new TransformationSystem(new DisplayMetrics(), new NoSelectionVisualizer());
+        node = new TransformableNode(transformationSystem);
+        controller = node.getRotationController();
+    }
+
+    /**
+     * Creates an event without going through MotionEvent.obtain, which isn't available on the host
+     * JVM. All of its coordinates are zero.
+     */
+    private static MotionEvent newMotionEvent() throws ReflectiveOperationException {
+        Constructor<MotionEvent> constructor = MotionEvent.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return constructor.newInstance();
+    }
+
+    @Test
+    public void onContinueTransformation_doesNotAllocate() throws ReflectiveOperationException {
+        TwistGesture gesture =
+                new TwistGesture(
+                        transformationSystem.getGesturePointersUtility(), newMotionEvent(), 1);
+        Quaternion rotation = new Quaternion();
+
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> {
+                            controller.onContinueTransformation(gesture);
+                            node.getLocalRotation(rotation);
+                        },
+                        10000);
+        assertEquals(0, allocatedBytes);
+    }
+
+    private static final class NoSelectionVisualizer implements SelectionVisualizer {
+        @Override
+        public void applySelectionVisual(BaseTransformableNode node) {}
+
+        @Override
+        public void removeSelectionVisual(BaseTransformableNode node) {}
+    }
+}
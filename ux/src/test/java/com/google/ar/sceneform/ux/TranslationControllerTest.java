@@ -0,0 +1,109 @@
+package com.google.ar.sceneform.ux;
+
+import android.util.DisplayMetrics;
+
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Node;
+import com.google.ar.sceneform.math.Quaternion;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.utilities.AllocationCounter;
+import com.google.ar.sceneform.utilities.AndroidPreconditions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TranslationControllerTest {
+    private static final float TOLERANCE = 1e-4f;
+
+    private Node parent;
+    private TransformableNode node;
+    private TranslationController controller;
+
+    @Before
+    public void setUp() {
+        AndroidPreconditions.setUnderTesting(true);
+        TransformationSystem transformationSystem =
+                new TransformationSystem(new DisplayMetrics(), new NoSelectionVisualizer());
+        parent = new Node();
+        parent.setLocalPosition(new Vector3(1.0f, 0.0f, 0.0f));
+        parent.setLocalRotation(Quaternion.axisAngle(Vector3.up(), 30.0f));
+        node = new TransformableNode(transformationSystem);
+        parent.addChild(node);
+        controller = node.getTranslationController();
+    }
+
+    /**
+     * Creates a frame time with the given delta. FrameTime is only created by the scene, so this
+     * goes through its package private members.
+     */
+    static FrameTime newFrameTime(long deltaNanoseconds) throws ReflectiveOperationException {
+        Constructor<FrameTime> constructor = FrameTime.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        FrameTime frameTime = constructor.newInstance();
+        Method update = FrameTime.class.getDeclaredMethod("update", long.class);
+        update.setAccessible(true);
+        // The first update only records the start of the frame.
+        update.invoke(frameTime, 1L);
+        update.invoke(frameTime, 1L + deltaNanoseconds);
+        return frameTime;
+    }
+
+    @Test
+    public void onUpdated_movesNodeToDesiredWorldPose() throws ReflectiveOperationException {
+        FrameTime frameTime = newFrameTime(TimeUnit.MILLISECONDS.toNanos(16));
+        Vector3 worldPosition = new Vector3(2.0f, 0.0f, 1.0f);
+        controller.setDesiredWorldPose(worldPosition, Quaternion.identity());
+        assertTrue(controller.isTransforming());
+
+        for (int i = 0; i < 120; i++) {
+            controller.onUpdated(node, frameTime);
+        }
+
+        assertFalse(controller.isTransforming());
+        Vector3 position = node.getWorldPosition();
+        assertEquals(2.0f, position.x, TOLERANCE);
+        assertEquals(0.0f, position.y, TOLERANCE);
+        assertEquals(1.0f, position.z, TOLERANCE);
+        // The node keeps the up direction of the hit and its own forward direction.
+        Vector3 up = node.getUp();
+        assertEquals(1.0f, up.y, TOLERANCE);
+    }
+
+    @Test
+    public void gestureAndFrameUpdates_doNotAllocate() throws ReflectiveOperationException {
+        FrameTime frameTime = newFrameTime(TimeUnit.MILLISECONDS.toNanos(16));
+        Vector3 worldPosition = new Vector3();
+        Quaternion worldRotation = new Quaternion();
+        Vector3 tiltAxis = Vector3.right();
+        int[] frame = new int[1];
+
+        long allocatedBytes =
+                AllocationCounter.countAllocatedBytes(
+                        () -> {
+                            frame[0]++;
+                            // A new plane hit on every frame, as while dragging.
+                            worldPosition.set(frame[0] % 100 * 0.01f, 0.0f, 1.0f);
+                            Quaternion.axisAngle(tiltAxis, frame[0] % 10, worldRotation);
+                            controller.setDesiredWorldPose(worldPosition, worldRotation);
+                            controller.onUpdated(node, frameTime);
+                        },
+                        10000);
+        assertEquals(0, allocatedBytes);
+    }
+
+    private static final class NoSelectionVisualizer implements SelectionVisualizer {
+        @Override
+        public void applySelectionVisual(BaseTransformableNode node) {}
+
+        @Override
+        public void removeSelectionVisual(BaseTransformableNode node) {}
+    }
+}